@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.api;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * One entry of the RESTCONF access log: what was asked, what was answered
+ * and how long each phase of the request took.
+ */
+public final class AccessLogRecord {
+
+    private final String requestId;
+    private final String method;
+    private final String path;
+    private final int status;
+    private final long bytes;
+    private final long startMillis;
+    private final long handleNanos;
+    private final long writeNanos;
+
+    /**
+     * Creates an access log record.
+     *
+     * @param requestId   correlation ID of the request
+     * @param method      HTTP method of the request
+     * @param path        request path, relative to the RESTCONF root
+     * @param status      HTTP status of the response
+     * @param bytes       size of the response body in bytes, or -1 if unknown
+     * @param startMillis time the request was received, in milliseconds since the epoch
+     * @param handleNanos time from the request to the response, body reading included
+     * @param writeNanos  time spent writing the response body
+     */
+    public AccessLogRecord(String requestId, String method, String path, int status, long bytes,
+                           long startMillis, long handleNanos, long writeNanos) {
+        this.requestId = checkNotNull(requestId);
+        this.method = checkNotNull(method);
+        this.path = checkNotNull(path);
+        this.status = status;
+        this.bytes = bytes;
+        this.startMillis = startMillis;
+        this.handleNanos = handleNanos;
+        this.writeNanos = writeNanos;
+    }
+
+    /**
+     * Returns the correlation ID of the request.
+     *
+     * @return request ID
+     */
+    public String requestId() {
+        return requestId;
+    }
+
+    /**
+     * Returns the HTTP method of the request.
+     *
+     * @return HTTP method
+     */
+    public String method() {
+        return method;
+    }
+
+    /**
+     * Returns the request path, relative to the RESTCONF root.
+     *
+     * @return request path
+     */
+    public String path() {
+        return path;
+    }
+
+    /**
+     * Returns the HTTP status of the response.
+     *
+     * @return HTTP status code
+     */
+    public int status() {
+        return status;
+    }
+
+    /**
+     * Returns the size of the response body.
+     *
+     * @return body size in bytes, or -1 if unknown
+     */
+    public long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the time the request was received.
+     *
+     * @return receive time in milliseconds since the epoch
+     */
+    public long startMillis() {
+        return startMillis;
+    }
+
+    /**
+     * Returns the time from the request to the response, which includes
+     * reading the request body and executing the operation.
+     *
+     * @return handling time in nanoseconds
+     */
+    public long handleNanos() {
+        return handleNanos;
+    }
+
+    /**
+     * Returns the time spent writing the response body.
+     *
+     * @return writing time in nanoseconds, 0 without a body
+     */
+    public long writeNanos() {
+        return writeNanos;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("requestId", requestId)
+                .add("method", method)
+                .add("path", path)
+                .add("status", status)
+                .add("bytes", bytes)
+                .add("startMillis", startMillis)
+                .add("handleNanos", handleNanos)
+                .add("writeNanos", writeNanos)
+                .toString();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.api;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Outcome of an edit request, as sent back to the client: the HTTP status,
+ * the response headers and the response body. It is stored against the
+ * idempotency key of the request, so that a retry of the request is given
+ * the same outcome without the edit being executed again.
+ */
+public final class EditOutcome {
+
+    private final int status;
+    private final Map<String, String> headers;
+    private final String body;
+
+    /**
+     * Creates an edit outcome.
+     *
+     * @param status  HTTP status of the response
+     * @param headers response headers, by name
+     * @param body    response body, or null if none
+     */
+    public EditOutcome(int status, Map<String, String> headers, String body) {
+        this.status = status;
+        this.headers = ImmutableMap.copyOf(checkNotNull(headers));
+        this.body = body;
+    }
+
+    /**
+     * Returns the HTTP status of the response.
+     *
+     * @return HTTP status code
+     */
+    public int status() {
+        return status;
+    }
+
+    /**
+     * Returns the response headers, such as the location of a created
+     * resource.
+     *
+     * @return headers by name
+     */
+    public Map<String, String> headers() {
+        return headers;
+    }
+
+    /**
+     * Returns the response body.
+     *
+     * @return body, or null if none
+     */
+    public String body() {
+        return body;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("status", status)
+                .add("headers", headers)
+                .toString();
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.api;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Status of an edit executed asynchronously, as seen at one point in time.
+ */
+public final class OperationStatus {
+
+    /**
+     * Life cycle of an asynchronous operation.
+     */
+    public enum State {
+        /**
+         * Waiting for a worker.
+         */
+        QUEUED,
+
+        /**
+         * Being executed.
+         */
+        RUNNING,
+
+        /**
+         * Executed successfully.
+         */
+        SUCCEEDED,
+
+        /**
+         * Failed; the error status and message tell why.
+         */
+        FAILED
+    }
+
+    private final String id;
+    private final String operation;
+    private final String path;
+    private final State state;
+    private final long submittedMillis;
+    private final long startedMillis;
+    private final long finishedMillis;
+    private final int errorStatus;
+    private final String errorMessage;
+
+    /**
+     * Creates an operation status.
+     *
+     * @param id              ID of the operation
+     * @param operation       name of the RESTCONF operation, such as "put"
+     * @param path            URI of the data resource
+     * @param state           state of the operation
+     * @param submittedMillis submission time, in milliseconds since the epoch
+     * @param startedMillis   start time, or -1 if not started
+     * @param finishedMillis  end time, or -1 if not finished
+     * @param errorStatus     HTTP status of the failure, or 0 if none
+     * @param errorMessage    message of the failure, or null if none
+     */
+    public OperationStatus(String id, String operation, String path, State state,
+                           long submittedMillis, long startedMillis, long finishedMillis,
+                           int errorStatus, String errorMessage) {
+        this.id = checkNotNull(id);
+        this.operation = checkNotNull(operation);
+        this.path = checkNotNull(path);
+        this.state = checkNotNull(state);
+        this.submittedMillis = submittedMillis;
+        this.startedMillis = startedMillis;
+        this.finishedMillis = finishedMillis;
+        this.errorStatus = errorStatus;
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * Returns the ID of the operation.
+     *
+     * @return operation ID
+     */
+    public String id() {
+        return id;
+    }
+
+    /**
+     * Returns the name of the RESTCONF operation.
+     *
+     * @return operation name, such as "put"
+     */
+    public String operation() {
+        return operation;
+    }
+
+    /**
+     * Returns the URI of the edited data resource.
+     *
+     * @return data resource URI
+     */
+    public String path() {
+        return path;
+    }
+
+    /**
+     * Returns the state of the operation.
+     *
+     * @return operation state
+     */
+    public State state() {
+        return state;
+    }
+
+    /**
+     * Returns whether the operation is over, successfully or not.
+     *
+     * @return true if the operation is finished
+     */
+    public boolean isFinished() {
+        return state == State.SUCCEEDED || state == State.FAILED;
+    }
+
+    /**
+     * Returns the submission time of the operation.
+     *
+     * @return submission time in milliseconds since the epoch
+     */
+    public long submittedMillis() {
+        return submittedMillis;
+    }
+
+    /**
+     * Returns the start time of the operation.
+     *
+     * @return start time in milliseconds since the epoch, or -1 if not started
+     */
+    public long startedMillis() {
+        return startedMillis;
+    }
+
+    /**
+     * Returns the end time of the operation.
+     *
+     * @return end time in milliseconds since the epoch, or -1 if not finished
+     */
+    public long finishedMillis() {
+        return finishedMillis;
+    }
+
+    /**
+     * Returns the HTTP status the operation would have failed with if it had
+     * been executed synchronously.
+     *
+     * @return HTTP status of the failure, or 0 if the operation did not fail
+     */
+    public int errorStatus() {
+        return errorStatus;
+    }
+
+    /**
+     * Returns the message of the failure.
+     *
+     * @return failure message, or null if the operation did not fail
+     */
+    public String errorMessage() {
+        return errorMessage;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("id", id)
+                .add("operation", operation)
+                .add("path", path)
+                .add("state", state)
+                .add("errorStatus", errorStatus)
+                .add("errorMessage", errorMessage)
+                .toString();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.api;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Options of a RESTCONF GET request against a list resource, evaluated by
+ * the server so that only the matching entries are returned.
+ */
+public final class QueryOptions {
+
+    private static final QueryOptions DEFAULT = builder().build();
+
+    private final List<String> matches;
+    private final boolean isCount;
+
+    private QueryOptions(Builder builder) {
+        this.matches = builder.matches.build();
+        this.isCount = builder.isCount;
+    }
+
+    /**
+     * Returns the options of a plain GET request.
+     *
+     * @return the default options
+     */
+    public static QueryOptions defaultOptions() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns a new options builder.
+     *
+     * @return options builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the predicates the returned list entries must satisfy, each
+     * written "leaf=value", the leaf being given by its path relative to the
+     * entry. A value ending with "*" matches the leaf values starting with
+     * the rest of it, e.g. "name=eth*"; a backslash escapes the next
+     * character, e.g. "name=eth\*" matches the value "eth*" exactly.
+     *
+     * @return the predicate expressions
+     */
+    public List<String> matches() {
+        return matches;
+    }
+
+    /**
+     * Returns whether only the number of matching entries is asked for.
+     *
+     * @return true for a count request
+     */
+    public boolean isCount() {
+        return isCount;
+    }
+
+    /**
+     * Returns whether these are the options of a plain GET request.
+     *
+     * @return true if no option is set
+     */
+    public boolean isDefault() {
+        return matches.isEmpty() && !isCount;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(matches, isCount);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof QueryOptions)) {
+            return false;
+        }
+        QueryOptions that = (QueryOptions) obj;
+        return isCount == that.isCount && matches.equals(that.matches);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("matches", matches)
+                .add("count", isCount)
+                .toString();
+    }
+
+    /**
+     * Builder of query options.
+     */
+    public static final class Builder {
+        private final ImmutableList.Builder<String> matches = ImmutableList.builder();
+        private boolean isCount;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a predicate the returned list entries must satisfy.
+         *
+         * @param match predicate expression
+         * @return this builder
+         */
+        public Builder addMatch(String match) {
+            matches.add(checkNotNull(match));
+            return this;
+        }
+
+        /**
+         * Sets whether only the number of matching entries is asked for.
+         *
+         * @param isCount true for a count request
+         * @return this builder
+         */
+        public Builder count(boolean isCount) {
+            this.isCount = isCount;
+            return this;
+        }
+
+        /**
+         * Builds the options.
+         *
+         * @return query options
+         */
+        public QueryOptions build() {
+            return new QueryOptions(this);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.api;
+
+import java.util.Locale;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Scheduling priority of a RESTCONF request. When YMS is busy, waiting
+ * operations of a higher priority go first; a waiting operation gains
+ * priority as it ages, so that a lower priority is delayed, not starved.
+ * <p>
+ * The priority of a request is bound to the thread serving it, so that it
+ * reaches the RESTCONF manager without changing the service interface.
+ */
+public enum RequestPriority {
+
+    /**
+     * Urgent requests, such as the edits of a fault recovery.
+     */
+    HIGH,
+
+    /**
+     * Default priority.
+     */
+    NORMAL,
+
+    /**
+     * Bulk requests which may wait, such as inventory reads.
+     */
+    LOW;
+
+    /**
+     * HTTP header carrying the priority of a request: high, normal or low;
+     * the server may clamp high to normal for an untrusted client.
+     */
+    public static final String PRIORITY_HEADER = "X-Request-Priority";
+
+    private static final ThreadLocal<RequestPriority> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Returns the priority named by a header value, ignoring the case.
+     *
+     * @param value header value, may be null
+     * @return the priority, NORMAL if the value is null or unknown
+     */
+    public static RequestPriority parse(String value) {
+        if (value != null) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return NORMAL;
+            }
+        }
+        return NORMAL;
+    }
+
+    /**
+     * Binds a priority to the current thread.
+     *
+     * @param priority the priority of the request being served
+     */
+    public static void bind(RequestPriority priority) {
+        CURRENT.set(checkNotNull(priority));
+    }
+
+    /**
+     * Unbinds the priority from the current thread.
+     */
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Returns the priority bound to the current thread.
+     *
+     * @return the current priority, NORMAL if none is bound
+     */
+    public static RequestPriority current() {
+        RequestPriority priority = CURRENT.get();
+        return priority == null ? NORMAL : priority;
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.api;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Trace of one RESTCONF request: its correlation ID and the timed spans of
+ * its phases. The trace of a request is bound to the thread serving it,
+ * so that any layer can open a span without the trace being passed along;
+ * opening a span on a thread without a trace costs a thread-local lookup.
+ * <pre>
+ * try (RequestTrace.Span span = RequestTrace.span("yms.execute")) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class RequestTrace {
+
+    /**
+     * HTTP header carrying the correlation ID of a request.
+     */
+    public static final String REQUEST_ID_HEADER = "X-Request-ID";
+
+    //a request touching many resources keeps its first spans only
+    private static final int MAX_SPANS = 64;
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+    private static final Span NO_SPAN = new Span(null, null, 0, 0);
+
+    private final String requestId;
+    private final String method;
+    private final String path;
+    private final long startMillis = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    //only used by the thread serving the request
+    private final List<Span> openSpans = new ArrayList<>();
+    private int depth;
+    private int droppedSpans;
+    //published by finish()
+    private volatile List<Span> spans;
+    private volatile long durationNanos = -1;
+    private volatile int status;
+
+    private RequestTrace(String requestId, String method, String path) {
+        this.requestId = checkNotNull(requestId);
+        this.method = checkNotNull(method);
+        this.path = checkNotNull(path);
+    }
+
+    /**
+     * Starts the trace of a request and binds it to the current thread.
+     *
+     * @param requestId correlation ID of the request
+     * @param method    HTTP method of the request
+     * @param path      request path, relative to the RESTCONF root
+     * @return the trace
+     */
+    public static RequestTrace start(String requestId, String method, String path) {
+        RequestTrace trace = new RequestTrace(requestId, method, path);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * Returns the trace bound to the current thread.
+     *
+     * @return the current trace, or null outside a request
+     */
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Opens a span in the trace bound to the current thread.
+     *
+     * @param name name of the phase
+     * @return the span, to be closed at the end of the phase
+     */
+    public static Span span(String name) {
+        RequestTrace trace = CURRENT.get();
+        return trace == null ? NO_SPAN : trace.open(name);
+    }
+
+    private Span open(String name) {
+        if (spans != null || openSpans.size() >= MAX_SPANS) {
+            droppedSpans++;
+            return NO_SPAN;
+        }
+        Span span = new Span(this, name, System.nanoTime() - startNanos, depth++);
+        openSpans.add(span);
+        return span;
+    }
+
+    /**
+     * Ends the trace and unbinds it from the current thread.
+     *
+     * @param status HTTP status of the response
+     */
+    public void finish(int status) {
+        if (spans != null) {
+            return;
+        }
+        this.status = status;
+        this.durationNanos = System.nanoTime() - startNanos;
+        this.spans = ImmutableList.copyOf(openSpans);
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Returns the correlation ID of the request.
+     *
+     * @return request ID
+     */
+    public String requestId() {
+        return requestId;
+    }
+
+    /**
+     * Returns the HTTP method of the request.
+     *
+     * @return HTTP method
+     */
+    public String method() {
+        return method;
+    }
+
+    /**
+     * Returns the request path, relative to the RESTCONF root.
+     *
+     * @return request path
+     */
+    public String path() {
+        return path;
+    }
+
+    /**
+     * Returns the time the request was received.
+     *
+     * @return receive time in milliseconds since the epoch
+     */
+    public long startMillis() {
+        return startMillis;
+    }
+
+    /**
+     * Returns the HTTP status of the response.
+     *
+     * @return HTTP status code, 0 until the trace is finished
+     */
+    public int status() {
+        return status;
+    }
+
+    /**
+     * Returns the time from the request to the end of the response.
+     *
+     * @return duration in nanoseconds, -1 until the trace is finished
+     */
+    public long durationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Returns the spans of the request, in the order they were opened.
+     *
+     * @return the spans, empty until the trace is finished
+     */
+    public List<Span> spans() {
+        List<Span> finished = spans;
+        return finished == null ? ImmutableList.of() : finished;
+    }
+
+    /**
+     * Returns the number of spans not kept because the trace was full.
+     *
+     * @return number of dropped spans
+     */
+    public int droppedSpans() {
+        return droppedSpans;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("requestId", requestId)
+                .add("method", method)
+                .add("path", path)
+                .add("status", status)
+                .add("durationNanos", durationNanos)
+                .add("spans", spans())
+                .toString();
+    }
+
+    /**
+     * Timed phase of a request.
+     */
+    public static final class Span implements AutoCloseable {
+        private final RequestTrace trace;
+        private final String name;
+        private final long startNanos;
+        private final int depth;
+        private volatile long durationNanos = -1;
+
+        private Span(RequestTrace trace, String name, long startNanos, int depth) {
+            this.trace = trace;
+            this.name = name;
+            this.startNanos = startNanos;
+            this.depth = depth;
+        }
+
+        /**
+         * Returns the name of the phase.
+         *
+         * @return phase name
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Returns the start of the phase, from the start of the request.
+         *
+         * @return start offset in nanoseconds
+         */
+        public long startNanos() {
+            return startNanos;
+        }
+
+        /**
+         * Returns the duration of the phase.
+         *
+         * @return duration in nanoseconds, -1 if the phase didn't end
+         */
+        public long durationNanos() {
+            return durationNanos;
+        }
+
+        /**
+         * Returns the nesting depth of the phase, 0 for a top-level phase.
+         *
+         * @return nesting depth
+         */
+        public int depth() {
+            return depth;
+        }
+
+        /**
+         * Ends the phase.
+         */
+        @Override
+        public void close() {
+            if (trace == null || durationNanos >= 0) {
+                return;
+            }
+            durationNanos = System.nanoTime() - trace.startNanos - startNanos;
+            trace.depth--;
+        }
+
+        @Override
+        public String toString() {
+            return toStringHelper(this)
+                    .add("name", name)
+                    .add("startNanos", startNanos)
+                    .add("durationNanos", durationNanos)
+                    .add("depth", depth)
+                    .toString();
+        }
+    }
+}
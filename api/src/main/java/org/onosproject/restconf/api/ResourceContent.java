@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.api;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Content of a data resource, as returned for a GET request: the JSON body
+ * and the validators computed from the same content.
+ */
+public final class ResourceContent {
+
+    private final String body;
+    private final ResourceMetadata metadata;
+
+    /**
+     * Creates resource content.
+     *
+     * @param body     JSON text of the data resource
+     * @param metadata validators of the data resource, or null if unknown
+     */
+    public ResourceContent(String body, ResourceMetadata metadata) {
+        this.body = checkNotNull(body);
+        this.metadata = metadata;
+    }
+
+    /**
+     * Returns the JSON text of the data resource.
+     *
+     * @return JSON body
+     */
+    public String body() {
+        return body;
+    }
+
+    /**
+     * Returns the validators of the data resource, the same as a HEAD
+     * request returns for the same content.
+     *
+     * @return metadata, or null if the data resource wasn't found in the
+     * query result
+     */
+    public ResourceMetadata metadata() {
+        return metadata;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("length", body.length())
+                .add("metadata", metadata)
+                .toString();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.api;
+
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Validators and size of a data resource, as returned for a HEAD request.
+ */
+public final class ResourceMetadata {
+
+    private final String entityTag;
+    private final long lastModifiedMillis;
+    private final long contentLength;
+
+    /**
+     * Creates resource metadata.
+     *
+     * @param entityTag          opaque entity tag, unquoted
+     * @param lastModifiedMillis time the content was first seen with this
+     *                           entity tag, in milliseconds since the epoch
+     * @param contentLength      length of the JSON body in bytes, or -1 if unknown
+     */
+    public ResourceMetadata(String entityTag, long lastModifiedMillis, long contentLength) {
+        this.entityTag = checkNotNull(entityTag);
+        this.lastModifiedMillis = lastModifiedMillis;
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * Returns the entity tag, which changes whenever the content changes.
+     *
+     * @return the unquoted entity tag
+     */
+    public String entityTag() {
+        return entityTag;
+    }
+
+    /**
+     * Returns the time the content was first seen with this entity tag.
+     *
+     * @return last modification time in milliseconds since the epoch
+     */
+    public long lastModifiedMillis() {
+        return lastModifiedMillis;
+    }
+
+    /**
+     * Returns the length of the JSON body, known once the resource has been
+     * serialized with this entity tag.
+     *
+     * @return body length in bytes, or -1 if unknown
+     */
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entityTag, lastModifiedMillis, contentLength);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ResourceMetadata)) {
+            return false;
+        }
+        ResourceMetadata that = (ResourceMetadata) obj;
+        return entityTag.equals(that.entityTag)
+                && lastModifiedMillis == that.lastModifiedMillis
+                && contentLength == that.contentLength;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("entityTag", entityTag)
+                .add("lastModifiedMillis", lastModifiedMillis)
+                .add("contentLength", contentLength)
+                .toString();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.api;
+
+import java.util.List;
+
+/**
+ * Access log of the RESTCONF server. Recording never blocks the request
+ * thread: the records are handed to a background writer, which drops them
+ * rather than slowing the requests down when it can't keep up. The traces
+ * of the slowest requests are kept in memory, in a bounded log.
+ */
+public interface RestconfAccessLogService {
+
+    /**
+     * Records a served request. Successful requests may be sampled.
+     *
+     * @param record the access log record
+     */
+    void record(AccessLogRecord record);
+
+    /**
+     * Logs the failure of a request. Client errors are only logged at
+     * debug level; server errors are logged with their stack trace, up to
+     * a configured number per second.
+     *
+     * @param operation name of the failed operation
+     * @param status    HTTP status returned for the failure
+     * @param error     the cause of the failure
+     */
+    void error(String operation, int status, Throwable error);
+
+    /**
+     * Hands over the trace of a finished request, kept if the request was
+     * slow.
+     *
+     * @param trace the finished trace
+     */
+    void trace(RequestTrace trace);
+
+    /**
+     * Returns the traces of the recent slow requests.
+     *
+     * @return the slow request traces, most recent first
+     */
+    List<RequestTrace> slowRequests();
+}
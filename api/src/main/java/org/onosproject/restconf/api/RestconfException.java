@@ -29,6 +29,19 @@ public class RestconfException extends WebApplicationException {
         super(message, null, Response.status(status).build());
     }
 
+    /**
+     * Construct a new RESTCONF server error exception with a status code,
+     * for the statuses which {@link Response.Status} doesn't define.
+     *
+     * @param message the detailed message (which is saved for later retrieval
+     *                by the {@link #getMessage()} method).
+     * @param status  HTTP error status code.
+     * @throws IllegalArgumentException in case the status code is not a valid HTTP status code.
+     */
+    public RestconfException(String message, int status) {
+        super(message, null, Response.status(status).build());
+    }
+
     /**
      * Construct a new RESTCONF server error exception.
      *
@@ -18,6 +18,10 @@ package org.onosproject.restconf.api;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.glassfish.jersey.server.ChunkedOutput;
 
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Abstraction of RESTCONF Server functionality according to the
  * RESTCONF RFC (no official RFC number yet).
@@ -32,6 +36,54 @@ public interface RestconfService {
      */
     ObjectNode doGetOperation(String uri) throws RestconfException;
 
+    /**
+     * Process GET request against a data resource, returning the serialized
+     * JSON body with the validators of the data resource, the same as
+     * {@link #doHeadOperation} returns for the same content. Concurrent
+     * identical requests share one YMS query and one serialized body.
+     *
+     * @param uri URI of the data resource.
+     * @return JSON text and validators of the data resource.
+     * @throws RestconfException
+     */
+    ResourceContent doGetResource(String uri) throws RestconfException;
+
+    /**
+     * Process GET request against a list resource with query options. Only
+     * the list entries matching the options are serialized; for a count
+     * request, the JSON text only holds the number of matching entries.
+     *
+     * @param uri     URI of the list resource.
+     * @param options the query options
+     * @return JSON text of the matching list entries.
+     * @throws RestconfException
+     */
+    String doGetOperationAsString(String uri, QueryOptions options) throws RestconfException;
+
+    /**
+     * Process HEAD request against a data resource. The validators are
+     * computed from the data resource content without serializing it; the
+     * body length is only known if the same content was recently read.
+     *
+     * @param uri URI of the data resource.
+     * @return metadata of the data resource.
+     * @throws RestconfException
+     */
+    ResourceMetadata doHeadOperation(String uri) throws RestconfException;
+
+    /**
+     * Process a batch of GET requests against several data resources with
+     * one YMS query. The returned map is keyed by the given URIs, in order,
+     * and holds the JSON text of each data resource, or null when the data
+     * resource doesn't exist. The JSON text of a data resource is produced
+     * when its entry is read, so that it can be written out right away.
+     *
+     * @param uris URIs of the data resources.
+     * @return JSON text of the data resources, keyed by URI.
+     * @throws RestconfException
+     */
+    Map<String, String> doBatchGetOperation(List<String> uris) throws RestconfException;
+
     /**
      * Process POST request against a data resource.
      *
@@ -66,6 +118,86 @@ public interface RestconfService {
      */
     void doPatchOperation(String uri, ObjectNode rootNode) throws RestconfException;
 
+    /**
+     * Exports data resources to a local file as newline-delimited JSON, one
+     * record per container or list entry, so that the file is written with
+     * constant memory whatever the size of the data.
+     *
+     * @param uris URIs of the data resources, an empty list for the whole datastore.
+     * @param file the file to write, replaced if it exists.
+     * @return the number of records written.
+     * @throws RestconfException
+     */
+    long exportData(List<String> uris, Path file) throws RestconfException;
+
+    /**
+     * Imports data resources from a local file written by exportData,
+     * merging the records in order, in batches of YMS operations. The import
+     * is not atomic: on error, the batches before the failing one remain.
+     *
+     * @param file the file to read.
+     * @return the number of records imported.
+     * @throws RestconfException
+     */
+    long importData(Path file) throws RestconfException;
+
+    /**
+     * Queues an edit of a data resource for asynchronous execution and
+     * returns right away. The edit is executed by a worker, with the
+     * priority of the calling request; its status is kept for a while once
+     * it is finished.
+     *
+     * @param operation name of the RESTCONF operation: post, put, patch or delete
+     * @param uri       URI of the data resource.
+     * @param rootNode  JSON representation of the data resource, null for delete
+     * @return the status of the queued operation, holding its ID
+     * @throws RestconfException if the operation is unknown or the queue is full
+     */
+    OperationStatus submitEdit(String operation, String uri, ObjectNode rootNode) throws RestconfException;
+
+    /**
+     * Returns the status of an asynchronous edit, waiting up to the given
+     * time for it to finish.
+     *
+     * @param id         ID of the operation
+     * @param waitMillis maximum time to wait for the operation to finish,
+     *                   0 to return the current status
+     * @return the operation status, or null if unknown or no longer retained
+     * @throws RestconfException if interrupted while waiting
+     */
+    OperationStatus getOperationStatus(String id, long waitMillis) throws RestconfException;
+
+    /**
+     * Claims an idempotency key for an edit request. If the key was already
+     * used for the same request, and the outcome of that request is still
+     * retained, the outcome is returned and the request must not be
+     * executed again. Otherwise the key is claimed: the caller executes the
+     * request and then reports its outcome with
+     * {@link #completeIdempotentEdit(String, String, EditOutcome)}.
+     *
+     * @param key         idempotency key given by the client
+     * @param fingerprint fingerprint of the request: method, URI and body
+     * @return the retained outcome of the earlier request, or null if the
+     * key has been claimed by the caller
+     * @throws RestconfException if the key is invalid, was used for a
+     *                           different request, or is held by a request
+     *                           still in progress
+     */
+    EditOutcome claimIdempotentEdit(String key, String fingerprint) throws RestconfException;
+
+    /**
+     * Reports the outcome of an edit request whose idempotency key was
+     * claimed, releasing the key. The outcome is retained for the retries
+     * of the request, unless it is a server error which a retry may not
+     * meet again; a null outcome releases the key without retaining
+     * anything.
+     *
+     * @param key         idempotency key of the request
+     * @param fingerprint fingerprint of the request
+     * @param outcome     outcome of the request, or null if it has none
+     */
+    void completeIdempotentEdit(String key, String fingerprint, EditOutcome outcome);
+
     /**
      * Retrieve the RESTCONF Root directory.
      *
@@ -74,12 +206,27 @@ public interface RestconfService {
     String getRestconfRootPath();
 
     /**
-     * Creates a worker thread to listen to events and write to chunkedOutput.
-     * The worker thread blocks if no events arrive.
+     * Subscribes a chunked output to a RESTCONF event stream. The output is
+     * registered and the method returns immediately; events are written to
+     * the output as they arrive, and heartbeats are sent while the stream is
+     * quiet. The output is closed once its peer is found to be gone.
      *
      * @param streamId ID of the RESTCONF stream to subscribe.
      * @param output   A string data stream
      * @throws RestconfException
      */
     void subscribeEventStream(String streamId, ChunkedOutput<String> output) throws RestconfException;
+
+    /**
+     * Subscribes a chunked output to a RESTCONF event stream with the given
+     * subscription parameters. The retained events asked for by the
+     * subscription are written first, followed by the live events.
+     *
+     * @param streamId     ID of the RESTCONF stream to subscribe.
+     * @param subscription the subscription parameters
+     * @param output       A string data stream
+     * @throws RestconfException
+     */
+    void subscribeEventStream(String streamId, StreamSubscription subscription,
+                              ChunkedOutput<String> output) throws RestconfException;
 }
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.api;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Parameters of a RESTCONF event stream subscription.
+ */
+public final class StreamSubscription {
+
+    /**
+     * Encodings of the events written to a subscriber.
+     */
+    public enum Encoding {
+        /**
+         * One JSON event per line.
+         */
+        JSON,
+
+        /**
+         * Server-Sent Events (text/event-stream), each event carries an ID
+         * which lets a client resume the stream after a reconnect.
+         */
+        SSE
+    }
+
+    private static final StreamSubscription DEFAULT = builder().build();
+
+    private final Encoding encoding;
+    private final String lastEventId;
+    private final long startTimeMillis;
+    private final String filter;
+    private final String path;
+    private final long periodMillis;
+    private final boolean isOnChange;
+    private final long dampeningMillis;
+
+    private StreamSubscription(Builder builder) {
+        this.encoding = builder.encoding;
+        this.lastEventId = builder.lastEventId;
+        this.startTimeMillis = builder.startTimeMillis;
+        this.filter = builder.filter;
+        this.path = builder.path;
+        this.periodMillis = builder.periodMillis;
+        this.isOnChange = builder.isOnChange;
+        this.dampeningMillis = builder.dampeningMillis;
+    }
+
+    /**
+     * Returns the subscription for live JSON events without replay.
+     *
+     * @return the default subscription
+     */
+    public static StreamSubscription defaultSubscription() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns a new subscription builder.
+     *
+     * @return subscription builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the encoding of the events.
+     *
+     * @return event encoding
+     */
+    public Encoding encoding() {
+        return encoding;
+    }
+
+    /**
+     * Returns the ID of the last event the subscriber has received, the
+     * events after it are replayed.
+     *
+     * @return last received event ID, or null if none
+     */
+    public String lastEventId() {
+        return lastEventId;
+    }
+
+    /**
+     * Returns the time from which the retained events are replayed.
+     *
+     * @return start time in milliseconds since the epoch, or -1 if none
+     */
+    public long startTimeMillis() {
+        return startTimeMillis;
+    }
+
+    /**
+     * Returns the filter selecting the events written to the subscriber.
+     * The filter is a subset of XPath: one or more absolute paths separated
+     * by "|", each step optionally followed by leaf equality predicates,
+     * e.g. "/ietf-interfaces:interface-event[oper-status='down']".
+     *
+     * @return the filter expression, or null if all events are written
+     */
+    public String filter() {
+        return filter;
+    }
+
+    /**
+     * Returns the URI of the data resource pushed periodically or on change
+     * to the subscriber.
+     *
+     * @return the data resource URI, or null for a notification subscription
+     */
+    public String path() {
+        return path;
+    }
+
+    /**
+     * Returns the period of the pushes of the data resource.
+     *
+     * @return push period in milliseconds, or 0 for a notification subscription
+     */
+    public long periodMillis() {
+        return periodMillis;
+    }
+
+    /**
+     * Returns whether the subscription asks for periodic pushes of a data
+     * resource rather than for notifications.
+     *
+     * @return true for a periodic subscription
+     */
+    public boolean isPeriodic() {
+        return path != null && !isOnChange && periodMillis > 0;
+    }
+
+    /**
+     * Returns whether the subscription asks for the changes of a data
+     * resource rather than for notifications.
+     *
+     * @return true for an on-change subscription
+     */
+    public boolean isOnChange() {
+        return path != null && isOnChange;
+    }
+
+    /**
+     * Returns the minimum time between two pushes of the changes of the
+     * data resource; the changes made meanwhile are pushed together.
+     *
+     * @return dampening period in milliseconds, 0 for no dampening
+     */
+    public long dampeningMillis() {
+        return dampeningMillis;
+    }
+
+    /**
+     * Returns whether any retained events should be replayed.
+     *
+     * @return true if the subscription asks for a replay
+     */
+    public boolean isReplay() {
+        return lastEventId != null || startTimeMillis >= 0;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("encoding", encoding)
+                .add("lastEventId", lastEventId)
+                .add("startTimeMillis", startTimeMillis)
+                .add("filter", filter)
+                .add("path", path)
+                .add("periodMillis", periodMillis)
+                .add("isOnChange", isOnChange)
+                .add("dampeningMillis", dampeningMillis)
+                .toString();
+    }
+
+    /**
+     * Builder of stream subscriptions.
+     */
+    public static final class Builder {
+        private Encoding encoding = Encoding.JSON;
+        private String lastEventId;
+        private long startTimeMillis = -1;
+        private String filter;
+        private String path;
+        private long periodMillis;
+        private boolean isOnChange;
+        private long dampeningMillis;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the encoding of the events.
+         *
+         * @param encoding event encoding
+         * @return this builder
+         */
+        public Builder encoding(Encoding encoding) {
+            this.encoding = checkNotNull(encoding);
+            return this;
+        }
+
+        /**
+         * Sets the ID of the last event the subscriber has received.
+         *
+         * @param lastEventId last received event ID
+         * @return this builder
+         */
+        public Builder lastEventId(String lastEventId) {
+            this.lastEventId = lastEventId;
+            return this;
+        }
+
+        /**
+         * Sets the time from which the retained events are replayed.
+         *
+         * @param startTimeMillis start time in milliseconds since the epoch
+         * @return this builder
+         */
+        public Builder startTimeMillis(long startTimeMillis) {
+            this.startTimeMillis = startTimeMillis;
+            return this;
+        }
+
+        /**
+         * Sets the filter selecting the events written to the subscriber.
+         *
+         * @param filter filter expression, null for all the events
+         * @return this builder
+         */
+        public Builder filter(String filter) {
+            this.filter = filter;
+            return this;
+        }
+
+        /**
+         * Sets the data resource pushed periodically to the subscriber.
+         *
+         * @param path         URI of the data resource
+         * @param periodMillis push period in milliseconds
+         * @return this builder
+         */
+        public Builder periodic(String path, long periodMillis) {
+            this.path = path;
+            this.periodMillis = periodMillis;
+            this.isOnChange = false;
+            return this;
+        }
+
+        /**
+         * Sets the data resource whose changes are pushed to the subscriber.
+         *
+         * @param path            URI of the data resource
+         * @param dampeningMillis minimum time between two pushes in milliseconds
+         * @return this builder
+         */
+        public Builder onChange(String path, long dampeningMillis) {
+            this.path = path;
+            this.isOnChange = true;
+            this.dampeningMillis = dampeningMillis;
+            return this;
+        }
+
+        /**
+         * Builds the subscription.
+         *
+         * @return stream subscription
+         */
+        public StreamSubscription build() {
+            return new StreamSubscription(this);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.loadtest;
+
+import org.onlab.metrics.MetricsManager;
+import org.onosproject.cfg.ComponentConfigService;
+import org.onosproject.restconf.restconfmgr.RestconfAccessLogManager;
+import org.onosproject.restconf.restconfmgr.RestconfManager;
+import org.osgi.service.component.ComponentContext;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Dictionary;
+
+/**
+ * RESTCONF managers over the in-memory YMS stand-in, wired and activated
+ * the way the SCR runtime does.
+ */
+final class EmbeddedManagers {
+
+    private final RestconfManager restconfManager = new RestconfManager();
+    private final RestconfAccessLogManager accessLogManager = new RestconfAccessLogManager();
+    private final MetricsManager metricsManager = new MetricsManager();
+
+    /**
+     * Wires and activates the managers.
+     *
+     * @param yms        the YMS stand-in
+     * @param properties component properties of the managers
+     */
+    EmbeddedManagers(InMemoryYmsService yms, Dictionary<String, Object> properties) {
+        ComponentConfigService cfgService = proxy(ComponentConfigService.class);
+        ComponentContext context = componentContext(properties);
+
+        inject(restconfManager, "ymsService", yms.service());
+        inject(restconfManager, "cfgService", cfgService);
+        inject(restconfManager, "metricsService", metricsManager);
+        activate(restconfManager, context);
+        inject(accessLogManager, "cfgService", cfgService);
+        inject(accessLogManager, "metricsService", metricsManager);
+        activate(accessLogManager, context);
+    }
+
+    /**
+     * Returns the RESTCONF manager.
+     *
+     * @return the RESTCONF manager
+     */
+    RestconfManager restconfManager() {
+        return restconfManager;
+    }
+
+    /**
+     * Returns the access log manager.
+     *
+     * @return the access log manager
+     */
+    RestconfAccessLogManager accessLogManager() {
+        return accessLogManager;
+    }
+
+    /**
+     * Returns the metrics service of the managers.
+     *
+     * @return the metrics service of the managers
+     */
+    MetricsManager metricsManager() {
+        return metricsManager;
+    }
+
+    /**
+     * Deactivates the managers.
+     */
+    void stop() {
+        deactivate(accessLogManager);
+        deactivate(restconfManager);
+    }
+
+    private static ComponentContext componentContext(Dictionary<String, Object> properties) {
+        return (ComponentContext) Proxy.newProxyInstance(
+                ComponentContext.class.getClassLoader(), new Class<?>[]{ComponentContext.class},
+                (proxy, method, args) -> method.getName().equals("getProperties") ? properties : null);
+    }
+
+    /**
+     * Returns a service doing nothing, as the component configuration.
+     */
+    private static <T> T proxy(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                                                (proxy, method, args) -> null));
+    }
+
+    private static void inject(Object component, String name, Object service) {
+        try {
+            Field field = component.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(component, service);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException("Failed to inject " + name, e);
+        }
+    }
+
+    private static void activate(Object component, ComponentContext context) {
+        invoke(component, "activate", new Class<?>[]{ComponentContext.class}, context);
+    }
+
+    private static void deactivate(Object component) {
+        invoke(component, "deactivate", new Class<?>[0]);
+    }
+
+    private static void invoke(Object component, String name, Class<?>[] types, Object... args) {
+        try {
+            Method method = component.getClass().getDeclaredMethod(name, types);
+            method.setAccessible(true);
+            method.invoke(component, args);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Failed to " + name, e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Failed to " + name, e.getCause());
+        }
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.loadtest;
+
+import com.google.common.collect.ImmutableMap;
+import org.onosproject.yms.ydt.YdtBuilder;
+import org.onosproject.yms.ydt.YdtContext;
+import org.onosproject.yms.ydt.YdtContextOperationType;
+import org.onosproject.yms.ydt.YdtListener;
+import org.onosproject.yms.ydt.YdtResponse;
+import org.onosproject.yms.ydt.YdtType;
+import org.onosproject.yms.ydt.YdtWalker;
+import org.onosproject.yms.ydt.YmsOperationExecutionStatus;
+import org.onosproject.yms.ydt.YmsOperationType;
+import org.onosproject.yms.ymsm.YmsService;
+import org.onosproject.yms.ynh.YangNotificationService;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Stand-in for YMS keeping the data in memory, with a configurable latency
+ * per operation. It knows no schema: a node is matched by name, and a list
+ * entry by its key values compared with its first leaves. Only the names
+ * of the keys of the lists addressed in a URI are given to it. Queries and
+ * edits are enough for the RESTCONF data resources; RPCs and
+ * notifications are not supported.
+ */
+final class InMemoryYmsService {
+
+    private static final String STORE_ROOT = "store";
+
+    private final MemoryYdtNode store = new MemoryYdtNode(STORE_ROOT, null, YdtType.SINGLE_INSTANCE_NODE,
+                                                          null, null);
+    private final ReadWriteLock storeLock = new ReentrantReadWriteLock();
+    private final long queryLatencyNanos;
+    private final long editLatencyNanos;
+    private final Map<String, List<String>> listKeys;
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong edits = new AtomicLong();
+    private final YmsService service;
+    private final YdtWalker walker;
+    private final YangNotificationService notificationService;
+
+    /**
+     * Creates a YMS stand-in.
+     *
+     * @param queryLatencyMicros time added to each query, in microseconds
+     * @param editLatencyMicros  time added to each edit, in microseconds
+     * @param listKeys           names of the keys of the lists, by list name
+     * @throws IllegalStateException if the YMS API has methods the stand-in doesn't support
+     */
+    InMemoryYmsService(long queryLatencyMicros, long editLatencyMicros, Map<String, List<String>> listKeys) {
+        MemoryYdtBuilder.checkSupported();
+        this.listKeys = ImmutableMap.copyOf(listKeys);
+        this.queryLatencyNanos = TimeUnit.MICROSECONDS.toNanos(queryLatencyMicros);
+        this.editLatencyNanos = TimeUnit.MICROSECONDS.toNanos(editLatencyMicros);
+        this.walker = proxy(YdtWalker.class, (proxy, method, args) -> {
+            if (method.getName().equals("walk") && args.length == 2) {
+                walk((YdtListener) args[0], MemoryYdtNode.of((YdtContext) args[1]));
+                return null;
+            }
+            return objectMethod(proxy, method.getName(), args, "YdtWalker");
+        });
+        this.notificationService = proxy(YangNotificationService.class, (proxy, method, args) -> {
+            if (method.getName().equals("addListener") || method.getName().equals("removeListener")) {
+                return null;
+            }
+            return objectMethod(proxy, method.getName(), args, "YangNotificationService");
+        });
+        this.service = proxy(YmsService.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getYdtBuilder":
+                    return proxy(YdtBuilder.class, new MemoryYdtBuilder((String) args[0], (String) args[1],
+                                                                        (YmsOperationType) args[2],
+                                                                        this.listKeys));
+                case "executeOperation":
+                    return execute((YdtBuilder) args[0]);
+                case "getYdtWalker":
+                    return walker;
+                case "getYangNotificationService":
+                    return notificationService;
+                default:
+                    return objectMethod(proxy, method.getName(), args, "YmsService");
+            }
+        });
+    }
+
+    /**
+     * Returns the YMS service view of the stand-in.
+     *
+     * @return YMS service
+     */
+    YmsService service() {
+        return service;
+    }
+
+    /**
+     * Returns the number of queries executed so far.
+     *
+     * @return number of queries
+     */
+    long queries() {
+        return queries.get();
+    }
+
+    /**
+     * Returns the number of edits executed so far.
+     *
+     * @return number of edits
+     */
+    long edits() {
+        return edits.get();
+    }
+
+    private YdtResponse execute(YdtBuilder builder) {
+        MemoryYdtBuilder request = (MemoryYdtBuilder) Proxy.getInvocationHandler(builder);
+        MemoryYdtNode root;
+        switch (request.operationType()) {
+            case QUERY_REQUEST:
+                root = query(request.root());
+                queries.incrementAndGet();
+                pause(queryLatencyNanos);
+                break;
+            case EDIT_CONFIG_REQUEST:
+                edit(request.root());
+                edits.incrementAndGet();
+                pause(editLatencyNanos);
+                root = request.root();
+                break;
+            default:
+                throw new UnsupportedOperationException("YMS operation " + request.operationType());
+        }
+        return proxy(YdtResponse.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getRootNode":
+                    return root.context();
+                case "getYmsOperationResult":
+                    return YmsOperationExecutionStatus.EXECUTION_SUCCESS;
+                default:
+                    return objectMethod(proxy, method.getName(), args, "YdtResponse");
+            }
+        });
+    }
+
+    private MemoryYdtNode query(MemoryYdtNode request) {
+        MemoryYdtNode response = request.copyNode();
+        storeLock.readLock().lock();
+        try {
+            select(request, store, response);
+        } finally {
+            storeLock.readLock().unlock();
+        }
+        return response;
+    }
+
+    /**
+     * Copies the stored nodes selected by a request node: the whole
+     * subtree at the end of a path, only the matching children on the way.
+     * The leaves of a request are the keys of a list entry; an entry with
+     * nothing else ends the path.
+     */
+    private static void select(MemoryYdtNode request, MemoryYdtNode stored, MemoryYdtNode response) {
+        if (!hasInnerNode(request)) {
+            for (MemoryYdtNode child = stored.firstChild(); child != null; child = child.nextSibling()) {
+                response.addChild(child.copyTree());
+            }
+            return;
+        }
+        for (MemoryYdtNode child = request.firstChild(); child != null; child = child.nextSibling()) {
+            MemoryYdtNode match = stored.findChild(child);
+            if (match == null) {
+                continue;
+            }
+            if (child.isLeaf()) {
+                //a key of an entry on the way, kept for the entry to be found by its keys
+                response.addChild(match.copyNode());
+            } else {
+                select(child, match, response.addChild(match.copyNode()));
+            }
+        }
+    }
+
+    private static boolean hasInnerNode(MemoryYdtNode node) {
+        for (MemoryYdtNode child = node.firstChild(); child != null; child = child.nextSibling()) {
+            if (!child.isLeaf()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void edit(MemoryYdtNode request) {
+        storeLock.writeLock().lock();
+        try {
+            for (MemoryYdtNode child = request.firstChild(); child != null; child = child.nextSibling()) {
+                apply(child, store, YdtContextOperationType.NONE);
+            }
+        } finally {
+            storeLock.writeLock().unlock();
+        }
+    }
+
+    private static void apply(MemoryYdtNode request, MemoryYdtNode storedParent,
+                              YdtContextOperationType inherited) {
+        YdtContextOperationType operation = request.operation() != null ? request.operation() : inherited;
+        MemoryYdtNode stored = storedParent.findChild(request);
+        switch (operation) {
+            case DELETE:
+            case REMOVE:
+                if (stored != null) {
+                    stored.remove();
+                }
+                return;
+            case REPLACE:
+                if (stored != null) {
+                    stored.remove();
+                }
+                storedParent.addChild(request.copyTree());
+                return;
+            default:
+                break;
+        }
+        if (request.isLeaf()) {
+            if (stored == null) {
+                storedParent.addChild(request.copyNode());
+            } else if (operation != YdtContextOperationType.NONE) {
+                stored.mergeValue(request, true);
+            }
+            return;
+        }
+        boolean isNew = stored == null;
+        if (isNew) {
+            stored = storedParent.addChild(request.copyNode());
+        }
+        YdtContextOperationType childOperation = operation == YdtContextOperationType.CREATE ?
+                YdtContextOperationType.MERGE : operation;
+        for (MemoryYdtNode child = request.firstChild(); child != null; child = child.nextSibling()) {
+            apply(child, stored, childOperation);
+        }
+        //a path node only leading to deletions is not created
+        if (isNew && operation == YdtContextOperationType.NONE && stored.firstChild() == null) {
+            stored.remove();
+        }
+    }
+
+    private static void walk(YdtListener listener, MemoryYdtNode node) {
+        listener.enterYdtNode(node.context());
+        for (MemoryYdtNode child = node.firstChild(); child != null; child = child.nextSibling()) {
+            walk(listener, child);
+        }
+        listener.exitYdtNode(node.context());
+    }
+
+    private static void pause(long nanos) {
+        if (nanos > 0) {
+            LockSupport.parkNanos(nanos);
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object objectMethod(Object proxy, String name, Object[] args, String typeName) {
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return typeName + "@" + Integer.toHexString(System.identityHashCode(proxy));
+            default:
+                throw new UnsupportedOperationException(typeName + "." + name);
+        }
+    }
+}
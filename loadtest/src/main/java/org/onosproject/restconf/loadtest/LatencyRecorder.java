@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of one operation, recorded by one client thread and merged
+ * once the run is over. Every latency is kept, so that the percentiles
+ * are exact.
+ */
+final class LatencyRecorder {
+
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+
+    private long[] latencies = new long[INITIAL_CAPACITY];
+    private int count;
+    private long errors;
+
+    /**
+     * Records the latency of a request.
+     *
+     * @param nanos   latency in nanoseconds
+     * @param isError true if the request failed
+     */
+    void record(long nanos, boolean isError) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count << 1);
+        }
+        latencies[count++] = nanos;
+        if (isError) {
+            errors++;
+        }
+    }
+
+    /**
+     * Adds the latencies of another recorder.
+     *
+     * @param other the other recorder
+     */
+    void merge(LatencyRecorder other) {
+        if (count + other.count > latencies.length) {
+            latencies = Arrays.copyOf(latencies, Math.max(count + other.count, count << 1));
+        }
+        System.arraycopy(other.latencies, 0, latencies, count, other.count);
+        count += other.count;
+        errors += other.errors;
+    }
+
+    /**
+     * Returns the number of requests.
+     *
+     * @return number of requests
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Returns the number of failed requests.
+     *
+     * @return number of failed requests
+     */
+    long errors() {
+        return errors;
+    }
+
+    /**
+     * Returns the latency percentiles, sorting the recorded latencies.
+     *
+     * @param percentiles percentiles between 0 and 100
+     * @return the latencies at the percentiles, in nanoseconds
+     */
+    long[] percentiles(double... percentiles) {
+        long[] values = new long[percentiles.length];
+        if (count == 0) {
+            return values;
+        }
+        Arrays.sort(latencies, 0, count);
+        for (int i = 0; i < percentiles.length; i++) {
+            int rank = (int) Math.ceil(percentiles[i] / 100 * count) - 1;
+            values[i] = latencies[Math.min(Math.max(rank, 0), count - 1)];
+        }
+        return values;
+    }
+}
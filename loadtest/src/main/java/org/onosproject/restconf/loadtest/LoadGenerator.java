@@ -0,0 +1,218 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.loadtest;
+
+import org.glassfish.jersey.client.HttpUrlConnectorProvider;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Closed-loop load generator: each client thread sends its next request
+ * as soon as the previous one is answered, picking the operation from a
+ * weighted mix and the data resource at random.
+ */
+final class LoadGenerator {
+
+    private static final String RESOURCE_PREFIX = "data/loadtest:devices/device-";
+
+    /**
+     * Operations of the workload.
+     */
+    enum Operation {
+        GET, PUT, PATCH, DELETE
+    }
+
+    private final LoadTestOptions options;
+    private final Client client;
+    private final WebTarget root;
+    private final String authorization;
+    private final Operation[] wheel;
+    private final String description;
+
+    /**
+     * Creates a load generator.
+     *
+     * @param options the load test options
+     * @param baseUri the RESTCONF root of the server
+     */
+    LoadGenerator(LoadTestOptions options, URI baseUri) {
+        this.options = options;
+        //PATCH is not a method of HttpURLConnection
+        this.client = ClientBuilder.newClient()
+                .property(HttpUrlConnectorProvider.SET_METHOD_WORKAROUND, true);
+        this.root = client.target(baseUri);
+        this.authorization = options.auth == null ? null :
+                "Basic " + Base64.getEncoder().encodeToString(options.auth.getBytes(UTF_8));
+        this.wheel = wheel(options.mix);
+        StringBuilder text = new StringBuilder(options.payloadBytes);
+        while (text.length() < options.payloadBytes) {
+            text.append((char) ('a' + text.length() % 26));
+        }
+        this.description = text.toString();
+    }
+
+    private static Operation[] wheel(Map<Operation, Integer> mix) {
+        List<Operation> slots = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                slots.add(operation);
+            }
+        });
+        if (slots.isEmpty()) {
+            throw new IllegalArgumentException("The operation mix is empty");
+        }
+        return slots.toArray(new Operation[slots.size()]);
+    }
+
+    /**
+     * Creates all the data resources.
+     *
+     * @return number of resources which failed to be created
+     */
+    int populate() {
+        int failures = 0;
+        for (int i = 0; i < options.resources; i++) {
+            if (isError(send(Operation.PUT, i))) {
+                failures++;
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Runs the warm-up then the measured period.
+     *
+     * @return the latencies of the measured requests, by operation
+     * @throws InterruptedException if interrupted while waiting for the clients
+     */
+    Map<Operation, LatencyRecorder> run() throws InterruptedException {
+        long now = System.nanoTime();
+        long measureStart = now + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+        long end = measureStart + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+        List<ClientThread> clients = new ArrayList<>(options.threads);
+        for (int i = 0; i < options.threads; i++) {
+            ClientThread thread = new ClientThread("restconf-load-" + i, measureStart, end);
+            clients.add(thread);
+            thread.start();
+        }
+        Map<Operation, LatencyRecorder> merged = new EnumMap<>(Operation.class);
+        for (ClientThread thread : clients) {
+            thread.join();
+            thread.recorders.forEach((operation, recorder) ->
+                    merged.computeIfAbsent(operation, o -> new LatencyRecorder()).merge(recorder));
+        }
+        return merged;
+    }
+
+    /**
+     * Releases the HTTP client.
+     */
+    void close() {
+        client.close();
+    }
+
+    private int send(Operation operation, int resource) {
+        Invocation.Builder request = root.path(RESOURCE_PREFIX + resource)
+                .request(MediaType.APPLICATION_JSON_TYPE);
+        if (authorization != null) {
+            request.header(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        Response response;
+        switch (operation) {
+            case GET:
+                response = request.get();
+                break;
+            case PUT:
+                response = request.put(Entity.json(
+                        "{\"name\":\"device-" + resource + "\",\"mtu\":\"1500\",\"enabled\":\"true\"," +
+                                "\"description\":\"" + description + "\"}"));
+                break;
+            case PATCH:
+                response = request.method("PATCH", Entity.json(
+                        "{\"mtu\":\"" + (576 + ThreadLocalRandom.current().nextInt(9000)) + "\"}"));
+                break;
+            case DELETE:
+                response = request.delete();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+        try {
+            //read the body, so that the connection can be reused
+            response.readEntity(String.class);
+            return response.getStatus();
+        } finally {
+            response.close();
+        }
+    }
+
+    private static boolean isError(int status) {
+        return status >= Response.Status.BAD_REQUEST.getStatusCode();
+    }
+
+    /**
+     * One client of the closed loop.
+     */
+    private final class ClientThread extends Thread {
+        private final long measureStart;
+        private final long end;
+        private final Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+
+        private ClientThread(String name, long measureStart, long end) {
+            super(name);
+            this.measureStart = measureStart;
+            this.end = end;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long start = System.nanoTime();
+            while (start < end) {
+                Operation operation = wheel[random.nextInt(wheel.length)];
+                boolean isError;
+                try {
+                    isError = isError(send(operation, random.nextInt(options.resources)));
+                } catch (RuntimeException e) {
+                    isError = true;
+                }
+                long stop = System.nanoTime();
+                if (start >= measureStart) {
+                    recorders.computeIfAbsent(operation, o -> new LatencyRecorder())
+                            .record(stop - start, isError);
+                }
+                start = stop;
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Measures the throughput and latencies of the RESTCONF server under a
+ * mixed GET/PUT/PATCH/DELETE workload. By default the server runs
+ * embedded over an in-memory YMS stand-in, so that the RESTCONF code
+ * itself is measured; with "--target" a running server is measured
+ * instead. The JSON report is meant to compare two builds run with the
+ * same options:
+ * <pre>
+ * mvn -Ploadtest install
+ * mvn -f loadtest/pom.xml exec:java -Dexec.args="--threads=32 --report=run.json"
+ * </pre>
+ */
+public final class LoadTest {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 100};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999", "max"};
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private LoadTest() {
+    }
+
+    /**
+     * Runs a load test.
+     *
+     * @param args "--name=value" options, "--help" for the list
+     * @throws Exception if the load test fails
+     */
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadTestOptions.usage());
+            System.exit(1);
+            return;
+        }
+
+        LoadTestServer server = null;
+        URI baseUri;
+        if (options.target == null) {
+            InMemoryYmsService yms = new InMemoryYmsService(options.queryLatencyMicros,
+                                                            options.editLatencyMicros, options.listKeys);
+            server = new LoadTestServer(options.port, yms, options.properties);
+            baseUri = server.baseUri();
+        } else {
+            baseUri = URI.create(options.target.endsWith("/") ? options.target : options.target + "/");
+        }
+
+        LoadGenerator generator = new LoadGenerator(options, baseUri);
+        try {
+            int failures = generator.populate();
+            if (failures > 0) {
+                System.err.println(failures + " data resources failed to be created");
+            }
+            System.out.printf("Running %d clients against %s: %d s warm-up, %d s measured%n",
+                              options.threads, baseUri, options.warmupSeconds, options.durationSeconds);
+            Map<LoadGenerator.Operation, LatencyRecorder> results = generator.run();
+            ObjectNode report = report(options, results, server);
+            print(report);
+            if (options.report != null) {
+                write(report, new File(options.report));
+            }
+        } finally {
+            generator.close();
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+
+    private static ObjectNode report(LoadTestOptions options,
+                                     Map<LoadGenerator.Operation, LatencyRecorder> results,
+                                     LoadTestServer server) {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode report = mapper.createObjectNode();
+        report.put("label", options.label);
+        ObjectNode settings = report.putObject("options");
+        settings.put("threads", options.threads);
+        settings.put("durationSeconds", options.durationSeconds);
+        settings.put("resources", options.resources);
+        settings.put("payloadBytes", options.payloadBytes);
+        settings.put("queryLatencyMicros", options.queryLatencyMicros);
+        settings.put("editLatencyMicros", options.editLatencyMicros);
+        settings.put("mix", options.mix.toString());
+        settings.put("properties", options.properties.toString());
+
+        LatencyRecorder all = new LatencyRecorder();
+        ObjectNode operations = report.putObject("operations");
+        results.forEach((operation, recorder) -> {
+            all.merge(recorder);
+            summarize(operations.putObject(operation.name()), recorder, options.durationSeconds);
+        });
+        summarize(report.putObject("total"), all, options.durationSeconds);
+        if (server != null) {
+            report.put("ymsQueries", server.yms().queries());
+            report.put("ymsEdits", server.yms().edits());
+        }
+        return report;
+    }
+
+    private static void summarize(ObjectNode summary, LatencyRecorder recorder, int durationSeconds) {
+        summary.put("requests", recorder.count());
+        summary.put("errors", recorder.errors());
+        summary.put("throughput", (double) recorder.count() / durationSeconds);
+        long[] latencies = recorder.percentiles(PERCENTILES);
+        ObjectNode millis = summary.putObject("latencyMillis");
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            millis.put(PERCENTILE_NAMES[i], latencies[i] / NANOS_PER_MILLI);
+        }
+    }
+
+    private static void print(ObjectNode report) {
+        System.out.printf("%-8s %10s %8s %10s %9s %9s %9s %9s %9s%n", "op", "requests", "errors", "req/s",
+                          "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms");
+        report.get("operations").fields().forEachRemaining(e -> printRow(e.getKey(), (ObjectNode) e.getValue()));
+        printRow("total", (ObjectNode) report.get("total"));
+    }
+
+    private static void printRow(String name, ObjectNode summary) {
+        ObjectNode millis = (ObjectNode) summary.get("latencyMillis");
+        System.out.printf("%-8s %10d %8d %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n", name,
+                          summary.get("requests").asLong(), summary.get("errors").asLong(),
+                          summary.get("throughput").asDouble(),
+                          millis.get("p50").asDouble(), millis.get("p90").asDouble(),
+                          millis.get("p99").asDouble(), millis.get("p999").asDouble(),
+                          millis.get("max").asDouble());
+    }
+
+    private static void write(ObjectNode report, File file) throws IOException {
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, report);
+        System.out.println("Report written to " + file);
+    }
+}
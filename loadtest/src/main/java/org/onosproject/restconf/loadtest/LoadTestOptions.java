@@ -0,0 +1,177 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.loadtest;
+
+import com.google.common.base.Splitter;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Options of a load test, given as "--name=value" arguments.
+ */
+final class LoadTestOptions {
+
+    private static final Splitter COMMA_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+    private static final Splitter EQUAL_SPLITTER = Splitter.on('=').limit(2).trimResults();
+
+    int port = 8181;
+    String target;
+    String auth;
+    int threads = 16;
+    int warmupSeconds = 5;
+    int durationSeconds = 30;
+    int resources = 1000;
+    int payloadBytes = 256;
+    long queryLatencyMicros;
+    long editLatencyMicros;
+    String label = "";
+    String report;
+    final Map<LoadGenerator.Operation, Integer> mix = new EnumMap<>(LoadGenerator.Operation.class);
+    final Hashtable<String, Object> properties = new Hashtable<>();
+    final Map<String, List<String>> listKeys = new HashMap<>();
+
+    private LoadTestOptions() {
+        mix.put(LoadGenerator.Operation.GET, 70);
+        mix.put(LoadGenerator.Operation.PUT, 10);
+        mix.put(LoadGenerator.Operation.PATCH, 15);
+        mix.put(LoadGenerator.Operation.DELETE, 5);
+    }
+
+    /**
+     * Parses the command line arguments.
+     *
+     * @param args the arguments
+     * @return the options
+     * @throws IllegalArgumentException if an argument is invalid
+     */
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Invalid argument " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.set(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        if (options.threads < 1 || options.resources < 1 || options.durationSeconds < 1) {
+            throw new IllegalArgumentException("threads, resources and duration should be positive");
+        }
+        return options;
+    }
+
+    private void set(String name, String value) {
+        switch (name) {
+            case "port":
+                port = Integer.parseInt(value);
+                break;
+            case "target":
+                target = value;
+                break;
+            case "auth":
+                auth = value;
+                break;
+            case "threads":
+                threads = Integer.parseInt(value);
+                break;
+            case "warmup":
+                warmupSeconds = Integer.parseInt(value);
+                break;
+            case "duration":
+                durationSeconds = Integer.parseInt(value);
+                break;
+            case "resources":
+                resources = Integer.parseInt(value);
+                break;
+            case "payload":
+                payloadBytes = Integer.parseInt(value);
+                break;
+            case "query-latency":
+                queryLatencyMicros = Long.parseLong(value);
+                break;
+            case "edit-latency":
+                editLatencyMicros = Long.parseLong(value);
+                break;
+            case "mix":
+                parseMix(value);
+                break;
+            case "property":
+                //a component property of the RESTCONF managers, as name=value
+                List<String> property = EQUAL_SPLITTER.splitToList(value);
+                if (property.size() != 2) {
+                    throw new IllegalArgumentException("Invalid property " + value);
+                }
+                properties.put(property.get(0), property.get(1));
+                break;
+            case "list-keys":
+                //the keys of a list of the embedded YMS, as list=key1,key2
+                List<String> list = EQUAL_SPLITTER.splitToList(value);
+                List<String> keys = list.size() == 2 ? COMMA_SPLITTER.splitToList(list.get(1)) : null;
+                if (keys == null || keys.isEmpty()) {
+                    throw new IllegalArgumentException("Invalid list keys " + value);
+                }
+                listKeys.put(list.get(0), keys);
+                break;
+            case "label":
+                label = value;
+                break;
+            case "report":
+                report = value;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option " + name);
+        }
+    }
+
+    private void parseMix(String value) {
+        mix.clear();
+        for (String weight : COMMA_SPLITTER.split(value)) {
+            List<String> parts = EQUAL_SPLITTER.splitToList(weight);
+            if (parts.size() != 2) {
+                throw new IllegalArgumentException("Invalid mix " + value + ", expected get=70,put=10,...");
+            }
+            mix.put(LoadGenerator.Operation.valueOf(parts.get(0).toUpperCase()),
+                    Integer.parseInt(parts.get(1)));
+        }
+    }
+
+    /**
+     * Returns the usage of the load test.
+     *
+     * @return usage text
+     */
+    static String usage() {
+        return "Usage: LoadTest [--name=value]...\n" +
+                "  --port=8181              port of the embedded server\n" +
+                "  --target=URL             RESTCONF root of a running server, instead of the embedded one\n" +
+                "  --auth=user:password     basic authentication for the target\n" +
+                "  --threads=16             concurrent clients\n" +
+                "  --warmup=5               seconds run before measuring\n" +
+                "  --duration=30            seconds measured\n" +
+                "  --resources=1000         number of data resources\n" +
+                "  --payload=256            size of a data resource description, in bytes\n" +
+                "  --query-latency=0        latency of a YMS query in the embedded server, in us\n" +
+                "  --edit-latency=0         latency of a YMS edit in the embedded server, in us\n" +
+                "  --mix=get=70,put=10,patch=15,delete=5\n" +
+                "  --property=name=value    component property of the embedded managers, repeatable\n" +
+                "  --list-keys=list=k1,k2   keys of a list of the embedded YMS, repeatable\n" +
+                "  --label=NAME             label of the run in the report\n" +
+                "  --report=FILE            JSON report to compare runs\n";
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.loadtest;
+
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.onlab.metrics.MetricsService;
+import org.onlab.osgi.ServiceDirectory;
+import org.onlab.osgi.ServiceNotFoundException;
+import org.onlab.rest.BaseResource;
+import org.onosproject.restconf.api.RestconfAccessLogService;
+import org.onosproject.restconf.api.RestconfService;
+import org.onosproject.restconf.rpp.RestconfProtocolProxy;
+
+import java.net.URI;
+import java.util.Dictionary;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * RESTCONF server running the web application of the protocol proxy and
+ * the RESTCONF managers on an embedded Grizzly server, over the in-memory
+ * YMS stand-in.
+ */
+final class LoadTestServer {
+
+    private static final String RESTCONF_ROOT = "/onos/restconf/";
+
+    private final InMemoryYmsService yms;
+    private final EmbeddedManagers managers;
+    private final HttpServer httpServer;
+    private final URI baseUri;
+
+    /**
+     * Starts a server.
+     *
+     * @param port       the HTTP port
+     * @param yms        the YMS stand-in
+     * @param properties component properties of the RESTCONF managers
+     */
+    LoadTestServer(int port, InMemoryYmsService yms, Dictionary<String, Object> properties) {
+        this.yms = yms;
+        this.managers = new EmbeddedManagers(yms, properties);
+
+        Map<Class<?>, Object> services = new HashMap<>();
+        services.put(RestconfService.class, managers.restconfManager());
+        services.put(RestconfAccessLogService.class, managers.accessLogManager());
+        services.put(MetricsService.class, managers.metricsManager());
+        BaseResource.setServiceDirectory(new ServiceDirectory() {
+            @Override
+            public <T> T get(Class<T> serviceClass) {
+                Object service = services.get(serviceClass);
+                if (service == null) {
+                    throw new ServiceNotFoundException(serviceClass.getName() + " not found");
+                }
+                return serviceClass.cast(service);
+            }
+        });
+
+        baseUri = URI.create("http://localhost:" + port + RESTCONF_ROOT);
+        httpServer = GrizzlyHttpServerFactory.createHttpServer(
+                baseUri, ResourceConfig.forApplication(new RestconfProtocolProxy()));
+    }
+
+    /**
+     * Returns the RESTCONF root of the server.
+     *
+     * @return the RESTCONF root URI
+     */
+    URI baseUri() {
+        return baseUri;
+    }
+
+    /**
+     * Returns the YMS stand-in of the server.
+     *
+     * @return the YMS stand-in
+     */
+    InMemoryYmsService yms() {
+        return yms;
+    }
+
+    /**
+     * Returns the metrics recorded by the RESTCONF managers.
+     *
+     * @return the metrics service
+     */
+    MetricsService metrics() {
+        return managers.metricsManager();
+    }
+
+    /**
+     * Stops the server and the managers.
+     */
+    void stop() {
+        httpServer.shutdownNow();
+        managers.stop();
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.loadtest;
+
+import com.google.common.collect.ImmutableSet;
+import org.onosproject.yms.ydt.YdtBuilder;
+import org.onosproject.yms.ydt.YdtContextOperationType;
+import org.onosproject.yms.ydt.YdtType;
+import org.onosproject.yms.ydt.YmsOperationType;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Builds a request tree of in-memory YDT nodes behind a YDT builder
+ * proxy. Adding a node moves to it, like the YMS builder does; adding a
+ * list entry by its key values adds the key leaves too and moves to the
+ * last one.
+ */
+final class MemoryYdtBuilder implements InvocationHandler {
+
+    //the YdtBuilder methods answered by invoke
+    private static final Set<String> METHODS = ImmutableSet.of(
+            "getRootNode", "getCurNode", "getYmsOperationType", "setDefaultEditOperationType",
+            "getRootTagAttributeMap", "setRootTagAttributeMap", "traverseToParent",
+            "addChild", "addMultiInstanceChild", "addLeaf");
+
+    private final MemoryYdtNode root;
+    private final YmsOperationType operationType;
+    private final Map<String, List<String>> listKeys;
+    private MemoryYdtNode current;
+    private YdtContextOperationType defaultOperation;
+    private Map<String, String> rootTagAttributes;
+
+    /**
+     * Creates a builder.
+     *
+     * @param rootName      name of the root node
+     * @param namespace     namespace of the root node, may be null
+     * @param operationType type of the YMS operation being built
+     * @param listKeys      names of the keys of the lists, by list name
+     */
+    MemoryYdtBuilder(String rootName, String namespace, YmsOperationType operationType,
+                     Map<String, List<String>> listKeys) {
+        this.root = new MemoryYdtNode(rootName, namespace, YdtType.SINGLE_INSTANCE_NODE, null, null);
+        this.current = root;
+        this.operationType = operationType;
+        this.listKeys = listKeys;
+    }
+
+    /**
+     * Checks that the builder answers every method of the YDT builder
+     * interface, so that a YMS API it doesn't follow is reported before
+     * any request rather than in the middle of a run.
+     *
+     * @throws IllegalStateException if a method isn't supported
+     */
+    static void checkSupported() {
+        Set<String> unsupported = new TreeSet<>();
+        for (Method method : YdtBuilder.class.getMethods()) {
+            if (!METHODS.contains(method.getName())) {
+                unsupported.add(method.getName());
+            }
+        }
+        if (!unsupported.isEmpty()) {
+            throw new IllegalStateException("YdtBuilder methods not supported by the in-memory YMS: "
+                                                    + unsupported);
+        }
+    }
+
+    MemoryYdtNode root() {
+        return root;
+    }
+
+    YmsOperationType operationType() {
+        return operationType;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getRootNode":
+                return root.context();
+            case "getCurNode":
+                return current == null ? null : current.context();
+            case "getYmsOperationType":
+                return operationType;
+            case "setDefaultEditOperationType":
+                defaultOperation = (YdtContextOperationType) args[0];
+                return null;
+            case "getRootTagAttributeMap":
+                return rootTagAttributes;
+            case "setRootTagAttributeMap":
+                @SuppressWarnings("unchecked")
+                Map<String, String> attributes = (Map<String, String>) args[0];
+                rootTagAttributes = attributes;
+                return null;
+            case "traverseToParent":
+                current = current.parent();
+                return null;
+            case "addChild":
+                add(new MemoryYdtNode((String) args[0], (String) args[1],
+                                      find(args, YdtType.class, YdtType.SINGLE_INSTANCE_NODE),
+                                      find(args, YdtContextOperationType.class, defaultOperation), null));
+                return null;
+            case "addMultiInstanceChild":
+                @SuppressWarnings("unchecked")
+                List<String> keyValues = find(args, List.class, null);
+                addEntry((String) args[0], (String) args[1],
+                         find(args, YdtContextOperationType.class, defaultOperation), keyValues);
+                return null;
+            case "addLeaf":
+                addLeaf((String) args[0], (String) args[1], args[2]);
+                return null;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "MemoryYdtBuilder(" + operationType + ")";
+            default:
+                throw new UnsupportedOperationException("YdtBuilder." + method.getName());
+        }
+    }
+
+    /**
+     * Adds a list entry and its key leaves, named after the keys of the
+     * list, then moves to the last key leaf like the YMS builder does.
+     */
+    private void addEntry(String name, String namespace, YdtContextOperationType operation,
+                          List<String> keyValues) {
+        List<String> keys = listKeys.get(name);
+        if (keys == null) {
+            throw new IllegalArgumentException("Keys of list " + name + " are unknown");
+        }
+        if (keyValues == null || keyValues.size() != keys.size()) {
+            throw new IllegalArgumentException("List " + name + " has " + keys.size() + " keys "
+                                                       + keys + ", got " + keyValues);
+        }
+        MemoryYdtNode entry = current.addChild(new MemoryYdtNode(name, namespace, YdtType.MULTI_INSTANCE_NODE,
+                                                                 operation, keyValues));
+        for (int i = 0; i < keys.size(); i++) {
+            MemoryYdtNode key = new MemoryYdtNode(keys.get(i), namespace,
+                                                  YdtType.SINGLE_INSTANCE_LEAF_VALUE_NODE, null, null);
+            key.setValue(keyValues.get(i));
+            current = entry.addChild(key);
+        }
+    }
+
+    private void addLeaf(String name, String namespace, Object value) {
+        MemoryYdtNode leaf;
+        if (value instanceof Set) {
+            leaf = new MemoryYdtNode(name, namespace, YdtType.MULTI_INSTANCE_LEAF_VALUE_NODE,
+                                     defaultOperation, null);
+            @SuppressWarnings("unchecked")
+            Set<String> values = (Set<String>) value;
+            leaf.setValueSet(values);
+        } else {
+            leaf = new MemoryYdtNode(name, namespace, YdtType.SINGLE_INSTANCE_LEAF_VALUE_NODE,
+                                     defaultOperation, null);
+            leaf.setValue((String) value);
+        }
+        add(leaf);
+    }
+
+    private void add(MemoryYdtNode node) {
+        current = current.addChild(node);
+    }
+
+    /**
+     * Returns the first argument of a type, skipping the name and namespace.
+     */
+    private static <T> T find(Object[] args, Class<T> type, T defaultValue) {
+        for (int i = 2; i < args.length; i++) {
+            if (type.isInstance(args[i])) {
+                return type.cast(args[i]);
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.loadtest;
+
+import com.google.common.collect.ImmutableList;
+import org.onosproject.yms.ydt.YdtContext;
+import org.onosproject.yms.ydt.YdtContextOperationType;
+import org.onosproject.yms.ydt.YdtType;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Node of an in-memory YANG data tree. It is seen by the RESTCONF manager
+ * through a {@link YdtContext} proxy, so that the stand-in doesn't depend
+ * on every method of the YMS interfaces: the methods the manager doesn't
+ * use throw {@link UnsupportedOperationException}.
+ */
+final class MemoryYdtNode {
+
+    private final String name;
+    private final String namespace;
+    private final YdtType type;
+    private final YdtContextOperationType operation;
+    //key values of a list entry addressed by its keys, null otherwise
+    private final List<String> keyValues;
+    private String value;
+    private Set<String> valueSet;
+    private MemoryYdtNode parent;
+    private MemoryYdtNode firstChild;
+    private MemoryYdtNode lastChild;
+    private MemoryYdtNode nextSibling;
+    private MemoryYdtNode previousSibling;
+    private YdtContext context;
+
+    /**
+     * Creates a node.
+     *
+     * @param name      node name
+     * @param namespace node namespace, may be null
+     * @param type      node type
+     * @param operation edit operation of the node, null to inherit the parent's
+     * @param keyValues key values of a list entry addressed by its keys, may be null
+     */
+    MemoryYdtNode(String name, String namespace, YdtType type, YdtContextOperationType operation,
+                  List<String> keyValues) {
+        this.name = name;
+        this.namespace = namespace;
+        this.type = type;
+        this.operation = operation;
+        this.keyValues = keyValues;
+    }
+
+    String name() {
+        return name;
+    }
+
+    YdtType type() {
+        return type;
+    }
+
+    YdtContextOperationType operation() {
+        return operation;
+    }
+
+    MemoryYdtNode parent() {
+        return parent;
+    }
+
+    MemoryYdtNode firstChild() {
+        return firstChild;
+    }
+
+    MemoryYdtNode nextSibling() {
+        return nextSibling;
+    }
+
+    boolean isLeaf() {
+        return type == YdtType.SINGLE_INSTANCE_LEAF_VALUE_NODE
+                || type == YdtType.MULTI_INSTANCE_LEAF_VALUE_NODE;
+    }
+
+    void setValue(String value) {
+        this.value = value;
+    }
+
+    void setValueSet(Set<String> valueSet) {
+        this.valueSet = valueSet;
+    }
+
+    /**
+     * Merges the values of another leaf into this one.
+     *
+     * @param other  a leaf of the same name
+     * @param append true to add the values of a leaf-list, false to replace them
+     */
+    void mergeValue(MemoryYdtNode other, boolean append) {
+        if (type == YdtType.MULTI_INSTANCE_LEAF_VALUE_NODE && append && valueSet != null
+                && other.valueSet != null) {
+            Set<String> merged = new LinkedHashSet<>(valueSet);
+            merged.addAll(other.valueSet);
+            valueSet = merged;
+        } else {
+            value = other.value;
+            valueSet = other.valueSet;
+        }
+    }
+
+    /**
+     * Appends a child.
+     *
+     * @param child the child, without parent
+     * @return the child
+     */
+    MemoryYdtNode addChild(MemoryYdtNode child) {
+        child.parent = this;
+        child.previousSibling = lastChild;
+        if (lastChild == null) {
+            firstChild = child;
+        } else {
+            lastChild.nextSibling = child;
+        }
+        lastChild = child;
+        return child;
+    }
+
+    /**
+     * Detaches this node from its parent.
+     */
+    void remove() {
+        if (parent == null) {
+            return;
+        }
+        if (previousSibling == null) {
+            parent.firstChild = nextSibling;
+        } else {
+            previousSibling.nextSibling = nextSibling;
+        }
+        if (nextSibling == null) {
+            parent.lastChild = previousSibling;
+        } else {
+            nextSibling.previousSibling = previousSibling;
+        }
+        parent = null;
+        nextSibling = null;
+        previousSibling = null;
+    }
+
+    /**
+     * Returns the child matching a node of a request: a child of the same
+     * name, and for a list entry, the same key values. Without a schema,
+     * the keys of an entry are taken to be its first leaves.
+     *
+     * @param request the request node
+     * @return the matching child, or null
+     */
+    MemoryYdtNode findChild(MemoryYdtNode request) {
+        List<String> keys = request.keyValues();
+        for (MemoryYdtNode child = firstChild; child != null; child = child.nextSibling) {
+            if (child.name.equals(request.name) && (keys == null || child.hasKeys(keys))) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private List<String> keyValues() {
+        if (type != YdtType.MULTI_INSTANCE_NODE) {
+            return null;
+        }
+        if (keyValues != null) {
+            return keyValues;
+        }
+        return firstChild != null && firstChild.value != null ? ImmutableList.of(firstChild.value) : null;
+    }
+
+    private boolean hasKeys(List<String> keys) {
+        MemoryYdtNode leaf = firstChild;
+        for (String key : keys) {
+            if (leaf == null || !Objects.equals(key, leaf.value)) {
+                return false;
+            }
+            leaf = leaf.nextSibling;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a copy of this node without its children, as stored data.
+     *
+     * @return the copy
+     */
+    MemoryYdtNode copyNode() {
+        MemoryYdtNode copy = new MemoryYdtNode(name, namespace, type, null, null);
+        copy.value = value;
+        copy.valueSet = valueSet == null ? null : Collections.unmodifiableSet(new LinkedHashSet<>(valueSet));
+        return copy;
+    }
+
+    /**
+     * Returns a copy of this subtree, as stored data.
+     *
+     * @return the copy
+     */
+    MemoryYdtNode copyTree() {
+        MemoryYdtNode copy = copyNode();
+        for (MemoryYdtNode child = firstChild; child != null; child = child.nextSibling) {
+            copy.addChild(child.copyTree());
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the YDT context view of this node.
+     *
+     * @return the YDT context
+     */
+    YdtContext context() {
+        if (context == null) {
+            context = (YdtContext) Proxy.newProxyInstance(YdtContext.class.getClassLoader(),
+                                                          new Class<?>[]{YdtContext.class},
+                                                          new ContextHandler(this));
+        }
+        return context;
+    }
+
+    /**
+     * Returns the node behind a YDT context view.
+     *
+     * @param context a YDT context returned by {@link #context()}
+     * @return the node
+     */
+    static MemoryYdtNode of(YdtContext context) {
+        if (context == null) {
+            return null;
+        }
+        return ((ContextHandler) Proxy.getInvocationHandler(context)).node;
+    }
+
+    private static YdtContext contextOf(MemoryYdtNode node) {
+        return node == null ? null : node.context();
+    }
+
+    /**
+     * Answers the YDT context methods from a node.
+     */
+    private static final class ContextHandler implements InvocationHandler {
+        private final MemoryYdtNode node;
+
+        private ContextHandler(MemoryYdtNode node) {
+            this.node = node;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getName":
+                    return node.name;
+                case "getNamespace":
+                case "getModuleNameAsNameSpace":
+                    return node.namespace;
+                case "getValue":
+                    return node.value;
+                case "getValueSet":
+                    return node.valueSet;
+                case "getYdtType":
+                    return node.type;
+                case "getYdtContextOperationType":
+                    return node.operation;
+                case "getParent":
+                    return contextOf(node.parent);
+                case "getFirstChild":
+                    return contextOf(node.firstChild);
+                case "getLastChild":
+                    return contextOf(node.lastChild);
+                case "getNextSibling":
+                    return contextOf(node.nextSibling);
+                case "getPreviousSibling":
+                    return contextOf(node.previousSibling);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return node.name;
+                default:
+                    throw new UnsupportedOperationException("YdtContext." + method.getName());
+            }
+        }
+    }
+}
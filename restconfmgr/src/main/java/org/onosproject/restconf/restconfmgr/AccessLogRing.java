@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bounded lock-free queue with many producers and a single consumer.
+ * A producer claims a slot by advancing the tail, then publishes its
+ * element into the slot; the consumer takes the published elements in
+ * order and stops at the first slot still being published. A producer
+ * finding the queue full drops its element instead of waiting.
+ *
+ * @param <T> type of the elements
+ */
+final class AccessLogRing<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Creates a queue.
+     *
+     * @param capacity maximum number of elements, a power of two
+     */
+    AccessLogRing(int capacity) {
+        checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1,
+                      "capacity should be a power of two");
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds an element, unless the queue is full.
+     *
+     * @param element the element
+     * @return true if the element was added, false if it was dropped
+     */
+    boolean offer(T element) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head.get() >= slots.length()) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        slots.lazySet((int) claimed & mask, element);
+        return true;
+    }
+
+    /**
+     * Takes the published elements, in order. Only one thread may drain
+     * the queue.
+     *
+     * @param consumer the consumer of the elements
+     * @return number of elements taken
+     */
+    int drain(Consumer<T> consumer) {
+        long next = head.get();
+        int taken = 0;
+        while (true) {
+            int index = (int) next & mask;
+            T element = slots.get(index);
+            if (element == null) {
+                return taken;
+            }
+            slots.lazySet(index, null);
+            head.lazySet(++next);
+            taken++;
+            consumer.accept(element);
+        }
+    }
+
+    /**
+     * Returns the number of elements dropped because the queue was full.
+     *
+     * @return number of dropped elements
+     */
+    long dropped() {
+        return dropped.get();
+    }
+}
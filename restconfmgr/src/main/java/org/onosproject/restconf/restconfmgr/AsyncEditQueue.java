@@ -0,0 +1,343 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.onosproject.restconf.api.OperationStatus;
+import org.onosproject.restconf.api.OperationStatus.State;
+import org.onosproject.restconf.api.RequestPriority;
+import org.onosproject.restconf.api.RestconfException;
+import org.onosproject.restconf.utils.exceptions.JsonParseException;
+import org.onosproject.restconf.utils.parser.json.ParserUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.core.Response;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Executes edits asynchronously on a pool of workers, keeping the status of
+ * each. The number of edits queued or running is bounded; the finished
+ * edits are retained for a bounded time, and at most a bounded number of
+ * them, for their submitters to look their outcome up.
+ * <p>
+ * The edits on the same top level data node run one at a time, in the
+ * order they were submitted, so that overlapping edits apply in order;
+ * the edits on different top level nodes run concurrently.
+ */
+final class AsyncEditQueue {
+
+    private static final int MAX_RETAINED = 10000;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final ThreadPoolExecutor workers;
+    //queued or running edits
+    private final Map<String, AsyncEdit> pending = new ConcurrentHashMap<>();
+    //the last edit queued on each top level node, the next one runs after it
+    private final Map<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    private volatile Cache<String, AsyncEdit> finished;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile int maxPending;
+    private long retentionSeconds;
+
+    /**
+     * Creates an asynchronous edit queue and its workers.
+     *
+     * @param workerCount      number of workers
+     * @param maxPending       maximum number of edits queued or running
+     * @param retentionSeconds time a finished edit is retained, in seconds
+     * @param threadFactory    factory of the worker threads
+     */
+    AsyncEditQueue(int workerCount, int maxPending, long retentionSeconds, ThreadFactory threadFactory) {
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                                         new LinkedBlockingQueue<>(), threadFactory);
+        finished = newCache(retentionSeconds);
+        this.retentionSeconds = retentionSeconds;
+        this.maxPending = maxPending;
+    }
+
+    private static Cache<String, AsyncEdit> newCache(long retentionSeconds) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(MAX_RETAINED)
+                .expireAfterWrite(retentionSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Updates the number of workers and the bounds of the queue.
+     *
+     * @param workerCount      number of workers
+     * @param maxPending       maximum number of edits queued or running
+     * @param retentionSeconds time a finished edit is retained, in seconds
+     */
+    synchronized void setLimits(int workerCount, int maxPending, long retentionSeconds) {
+        checkArgument(workerCount > 0, "worker count should be positive");
+        checkArgument(retentionSeconds >= 0, "retention should not be negative");
+        if (workerCount > workers.getMaximumPoolSize()) {
+            workers.setMaximumPoolSize(workerCount);
+            workers.setCorePoolSize(workerCount);
+        } else {
+            workers.setCorePoolSize(workerCount);
+            workers.setMaximumPoolSize(workerCount);
+        }
+        this.maxPending = maxPending;
+        if (retentionSeconds != this.retentionSeconds) {
+            //the retention of a cache can't change, the records move to a new one
+            Cache<String, AsyncEdit> cache = newCache(retentionSeconds);
+            cache.putAll(finished.asMap());
+            finished = cache;
+            this.retentionSeconds = retentionSeconds;
+        }
+    }
+
+    /**
+     * Queues an edit.
+     *
+     * @param operation name of the RESTCONF operation
+     * @param path      URI of the data resource
+     * @param action    executes the edit, throws if it fails
+     * @return status of the queued edit
+     * @throws RestconfException if the path is invalid or too many edits are pending
+     */
+    OperationStatus submit(String operation, String path, Runnable action) {
+        //before a slot is taken, nothing throws once it is
+        String node;
+        try {
+            node = topNode(path);
+        } catch (IllegalArgumentException | JsonParseException e) {
+            throw new RestconfException("Invalid URI " + path, Response.Status.BAD_REQUEST);
+        }
+        if (outstanding.incrementAndGet() > maxPending) {
+            outstanding.decrementAndGet();
+            rejected.incrementAndGet();
+            throw new RestconfException("Too many asynchronous edits pending",
+                                        Response.Status.SERVICE_UNAVAILABLE);
+        }
+        AsyncEdit edit = new AsyncEdit(UUID.randomUUID().toString(), operation, path);
+        RequestPriority priority = RequestPriority.current();
+        CompletableFuture<Void> queued;
+        //queued atomically with the stop check, so that stop() sees every queued edit
+        synchronized (this) {
+            if (workers.isShutdown()) {
+                outstanding.decrementAndGet();
+                throw new RestconfException("RESTCONF server is stopping",
+                                            Response.Status.SERVICE_UNAVAILABLE);
+            }
+            pending.put(edit.id, edit);
+            queued = tails.compute(node, (k, tail) -> {
+                CompletableFuture<Void> previous = tail == null ? CompletableFuture.completedFuture(null) : tail;
+                //an edit runs even if the previous one couldn't
+                return previous.exceptionally(e -> null).thenRunAsync(() -> run(edit, priority, action), workers);
+            });
+        }
+        queued.whenComplete((r, e) -> tails.remove(node, queued));
+        submitted.incrementAndGet();
+        return edit.status();
+    }
+
+    /**
+     * Returns the top level data node of a path, without its list keys.
+     */
+    private static String topNode(String path) {
+        String normalized = ParserUtils.normalizeIdentifier(path);
+        int end = normalized.indexOf('/');
+        String segment = end < 0 ? normalized : normalized.substring(0, end);
+        int keys = segment.indexOf('=');
+        return keys < 0 ? segment : segment.substring(0, keys);
+    }
+
+    private void run(AsyncEdit edit, RequestPriority priority, Runnable action) {
+        if (!edit.start()) {
+            //failed by stop()
+            return;
+        }
+        RequestPriority.bind(priority);
+        try {
+            action.run();
+            edit.finish(State.SUCCEEDED, 0, null);
+        } catch (RestconfException e) {
+            failed.incrementAndGet();
+            edit.finish(State.FAILED, e.getResponse().getStatus(), e.getMessage());
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.warn("Asynchronous {} of {} failed", edit.operation, edit.path, e);
+            edit.finish(State.FAILED, Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(),
+                        e.getMessage());
+        } finally {
+            RequestPriority.unbind();
+            retire(edit);
+        }
+    }
+
+    private void retire(AsyncEdit edit) {
+        //retained before it stops being pending, so that it can't be missed
+        finished.put(edit.id, edit);
+        pending.remove(edit.id);
+        outstanding.decrementAndGet();
+        edit.done.countDown();
+    }
+
+    /**
+     * Returns the status of an edit, waiting up to the given time for it to
+     * finish.
+     *
+     * @param id         ID of the edit
+     * @param waitMillis maximum waiting time, 0 not to wait
+     * @return the edit status, or null if unknown or no longer retained
+     * @throws RestconfException if interrupted while waiting
+     */
+    OperationStatus status(String id, long waitMillis) {
+        AsyncEdit edit = pending.get(id);
+        if (edit == null) {
+            edit = finished.getIfPresent(id);
+            if (edit == null) {
+                return null;
+            }
+        }
+        if (waitMillis > 0) {
+            try {
+                edit.done.await(waitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RestconfException("Interrupted while waiting for operation " + id,
+                                            Response.Status.SERVICE_UNAVAILABLE);
+            }
+        }
+        return edit.status();
+    }
+
+    /**
+     * Stops the workers. The queued edits are not executed, they fail with
+     * "503 Service Unavailable" so that their waiting submitters are released.
+     */
+    synchronized void stop() {
+        workers.shutdownNow();
+        for (AsyncEdit edit : pending.values()) {
+            if (edit.fail(Response.Status.SERVICE_UNAVAILABLE.getStatusCode(),
+                          "RESTCONF server stopped before the edit ran")) {
+                failed.incrementAndGet();
+                retire(edit);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of edits queued or running.
+     *
+     * @return pending edits
+     */
+    int pending() {
+        return pending.size();
+    }
+
+    long submitted() {
+        return submitted.get();
+    }
+
+    long failed() {
+        return failed.get();
+    }
+
+    long rejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Returns the number of finished edits retained.
+     *
+     * @return retained edits
+     */
+    long retained() {
+        return finished.size();
+    }
+
+    /**
+     * An edit and its progress.
+     */
+    private static final class AsyncEdit {
+        private final String id;
+        private final String operation;
+        private final String path;
+        private final long submittedMillis = System.currentTimeMillis();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile State state = State.QUEUED;
+        private volatile long startedMillis = -1;
+        private volatile long finishedMillis = -1;
+        private volatile int errorStatus;
+        private volatile String errorMessage;
+
+        private AsyncEdit(String id, String operation, String path) {
+            this.id = id;
+            this.operation = operation;
+            this.path = path;
+        }
+
+        /**
+         * Moves a queued edit to running, unless it was failed already.
+         */
+        private synchronized boolean start() {
+            if (state != State.QUEUED) {
+                return false;
+            }
+            startedMillis = System.currentTimeMillis();
+            state = State.RUNNING;
+            return true;
+        }
+
+        /**
+         * Fails a queued edit, unless it started already.
+         */
+        private synchronized boolean fail(int errorStatus, String errorMessage) {
+            if (state != State.QUEUED) {
+                return false;
+            }
+            finish(State.FAILED, errorStatus, errorMessage);
+            return true;
+        }
+
+        private void finish(State state, int errorStatus, String errorMessage) {
+            this.errorStatus = errorStatus;
+            this.errorMessage = errorMessage;
+            this.finishedMillis = System.currentTimeMillis();
+            this.state = state;
+        }
+
+        private OperationStatus status() {
+            //the state is written last, so that the fields match it
+            State current = state;
+            return new OperationStatus(id, operation, path, current, submittedMillis, startedMillis,
+                                       finishedMillis, errorStatus, errorMessage);
+        }
+    }
+}
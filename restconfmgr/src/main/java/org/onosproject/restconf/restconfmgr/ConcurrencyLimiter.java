@@ -0,0 +1,421 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import org.onosproject.restconf.api.RequestPriority;
+import org.onosproject.restconf.api.RestconfException;
+
+import javax.ws.rs.core.Response;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive limit on the number of operations in flight in YMS. The limit
+ * follows the measured latency, in the manner of a gradient congestion
+ * control: while the recent latency stays close to the unloaded latency,
+ * the limit grows by about its square root per limit worth of operations;
+ * when it rises above the tolerated ratio, the limit shrinks in proportion.
+ * The unloaded latency is the lowest latency of a window of operations,
+ * so that it follows a lasting change of YMS.
+ * <p>
+ * Operations over the limit wait in bounded queues, one per lane, for a
+ * bounded time, then are rejected. A freed slot goes to the waiting
+ * operation with the earliest virtual arrival time: its arrival time,
+ * delayed by a step per priority level below the highest. A waiting
+ * operation thus overtakes the lower priority ones, and ages into being
+ * served before the higher priority ones arriving later. While another
+ * lane waits, a lane holding most of the limit is only served when
+ * no other lane can be.
+ * <p>
+ * A maximum limit of 0 disables the limit; in flight operations are still
+ * counted.
+ */
+final class ConcurrencyLimiter {
+
+    /**
+     * Kinds of operation, each waiting in its own queue.
+     */
+    enum Lane {
+        QUERY, EDIT, STREAM
+    }
+
+    //latency tolerated over the unloaded latency before lowering the limit
+    private static final double TOLERANCE = 1.5;
+    //number of samples averaged by the recent latency
+    private static final int RECENT_WINDOW = 10;
+    //number of samples the unloaded latency is the lowest of
+    private static final int MIN_WINDOW = 1000;
+    private static final double MIN_GRADIENT = 0.5;
+    //waiting time a priority level is worth
+    private static final long PRIORITY_STEP_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    //share of the limit a lane may hold while other lanes wait
+    private static final double LANE_SHARE = 0.75;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Lane, PriorityQueue<Waiter>> waiters = new EnumMap<>(Lane.class);
+    private final int[] laneInFlight = new int[Lane.values().length];
+
+    private int minLimit;
+    private int maxLimit;
+    private int maxQueued;
+    private long queueTimeoutNanos;
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long nextSequence;
+    private double recentLatencyNanos;
+    private long minLatencyNanos = Long.MAX_VALUE;
+    private long windowMinLatencyNanos = Long.MAX_VALUE;
+    private int windowSamples;
+    private long rejected;
+
+    /**
+     * Creates a concurrency limiter.
+     *
+     * @param minLimit           lowest limit
+     * @param maxLimit           highest limit, 0 for no limit
+     * @param maxQueued          maximum number of waiting operations per lane
+     * @param queueTimeoutMillis maximum waiting time, in milliseconds
+     */
+    ConcurrencyLimiter(int minLimit, int maxLimit, int maxQueued, long queueTimeoutMillis) {
+        for (Lane lane : Lane.values()) {
+            waiters.put(lane, new PriorityQueue<>(Waiter.ORDER));
+        }
+        setLimits(minLimit, maxLimit, maxQueued, queueTimeoutMillis);
+    }
+
+    /**
+     * Changes the bounds of the limit and of the queues. The current limit
+     * is kept within the new bounds.
+     *
+     * @param minLimit           lowest limit
+     * @param maxLimit           highest limit, 0 for no limit
+     * @param maxQueued          maximum number of waiting operations per lane
+     * @param queueTimeoutMillis maximum waiting time, in milliseconds
+     */
+    void setLimits(int minLimit, int maxLimit, int maxQueued, long queueTimeoutMillis) {
+        lock.lock();
+        try {
+            boolean wasDisabled = this.maxLimit == 0;
+            this.maxLimit = Math.max(maxLimit, 0);
+            this.minLimit = Math.max(Math.min(minLimit, this.maxLimit), 1);
+            this.maxQueued = Math.max(maxQueued, 0);
+            this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(queueTimeoutMillis, 0));
+            //a new limit starts from the top, latency will bring it down
+            limit = wasDisabled ? this.maxLimit : Math.max(Math.min(limit, this.maxLimit), this.minLimit);
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until an operation may start.
+     *
+     * @param lane     kind of the operation
+     * @param priority priority of the operation
+     * @return start time of the operation, to give back on release
+     * @throws RestconfException if the queue is full, the waiting time is
+     *                           over or the thread is interrupted
+     */
+    long acquire(Lane lane, RequestPriority priority) {
+        lock.lock();
+        try {
+            if (maxLimit == 0 || inFlight < (int) limit && queued == 0) {
+                start(lane);
+            } else {
+                await(lane, priority);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return System.nanoTime();
+    }
+
+    private void await(Lane lane, RequestPriority priority) {
+        PriorityQueue<Waiter> queue = waiters.get(lane);
+        if (queue.size() >= maxQueued) {
+            rejected++;
+            throw new RestconfException("Too many YMS operations in progress",
+                                        Response.Status.SERVICE_UNAVAILABLE);
+        }
+        Waiter waiter = new Waiter(lane, System.nanoTime() + priority.ordinal() * PRIORITY_STEP_NANOS,
+                                   nextSequence++, lock.newCondition());
+        queue.add(waiter);
+        queued++;
+        long remaining = queueTimeoutNanos;
+        try {
+            while (!waiter.isGranted) {
+                if (remaining <= 0) {
+                    rejected++;
+                    throw new RestconfException("Timed out waiting for YMS",
+                                                Response.Status.SERVICE_UNAVAILABLE);
+                }
+                remaining = waiter.condition.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (waiter.isGranted) {
+                end(lane);
+                dispatch();
+            }
+            throw new RestconfException("Interrupted while waiting for YMS",
+                                        Response.Status.SERVICE_UNAVAILABLE);
+        } finally {
+            if (!waiter.isGranted) {
+                queue.remove(waiter);
+                queued--;
+            }
+        }
+    }
+
+    /**
+     * Ends an operation, adjusting the limit to its latency.
+     *
+     * @param lane       kind of the operation
+     * @param startNanos start time returned by {@link #acquire(Lane, RequestPriority)}
+     */
+    void release(Lane lane, long startNanos) {
+        lock.lock();
+        try {
+            if (maxLimit > 0) {
+                update(System.nanoTime() - startNanos);
+            }
+            end(lane);
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void start(Lane lane) {
+        inFlight++;
+        laneInFlight[lane.ordinal()]++;
+    }
+
+    private void end(Lane lane) {
+        inFlight--;
+        laneInFlight[lane.ordinal()]--;
+    }
+
+    /**
+     * Hands the free slots to the waiting operations.
+     */
+    private void dispatch() {
+        while (queued > 0 && (maxLimit == 0 || inFlight < (int) limit)) {
+            Waiter next = next();
+            waiters.get(next.lane).poll();
+            queued--;
+            next.isGranted = true;
+            start(next.lane);
+            next.condition.signal();
+        }
+    }
+
+    private Waiter next() {
+        int share = Math.max((int) (limit * LANE_SHARE), 1);
+        Waiter next = null;
+        Waiter nextOverShare = null;
+        for (PriorityQueue<Waiter> queue : waiters.values()) {
+            Waiter head = queue.peek();
+            if (head == null) {
+                continue;
+            }
+            if (laneInFlight[head.lane.ordinal()] < share) {
+                next = Waiter.earliest(next, head);
+            } else {
+                nextOverShare = Waiter.earliest(nextOverShare, head);
+            }
+        }
+        return next != null ? next : nextOverShare;
+    }
+
+    /**
+     * Moves the limit towards limit * gradient + sqrt(limit) over about
+     * one limit worth of operations, each operation doing its share.
+     */
+    private void update(long latencyNanos) {
+        long sample = Math.max(latencyNanos, 1);
+        if (recentLatencyNanos == 0) {
+            recentLatencyNanos = sample;
+        } else {
+            recentLatencyNanos += (sample - recentLatencyNanos) / RECENT_WINDOW;
+        }
+        minLatencyNanos = Math.min(minLatencyNanos, sample);
+        windowMinLatencyNanos = Math.min(windowMinLatencyNanos, sample);
+        if (++windowSamples >= MIN_WINDOW) {
+            minLatencyNanos = windowMinLatencyNanos;
+            windowMinLatencyNanos = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+        double gradient = Math.max(MIN_GRADIENT,
+                                   Math.min(1.0, TOLERANCE * minLatencyNanos / recentLatencyNanos));
+        //a limit which is not reached tells nothing about the capacity of YMS
+        if (gradient == 1.0 && inFlight < limit / 2) {
+            return;
+        }
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(Math.min(limit + (target - limit) / limit, maxLimit), minLimit);
+    }
+
+    /**
+     * Returns the current limit, 0 when disabled.
+     *
+     * @return current limit
+     */
+    int limit() {
+        lock.lock();
+        try {
+            return maxLimit > 0 ? (int) limit : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of operations in flight.
+     *
+     * @return operations in flight
+     */
+    int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of operations of a lane in flight.
+     *
+     * @param lane the lane
+     * @return operations of the lane in flight
+     */
+    int inFlight(Lane lane) {
+        lock.lock();
+        try {
+            return laneInFlight[lane.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of operations waiting for the limit.
+     *
+     * @return waiting operations
+     */
+    int queued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of operations of a lane waiting for the limit.
+     *
+     * @param lane the lane
+     * @return waiting operations of the lane
+     */
+    int queued(Lane lane) {
+        lock.lock();
+        try {
+            return waiters.get(lane).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of operations rejected so far.
+     *
+     * @return rejected operations
+     */
+    long rejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the recent average latency of the operations.
+     *
+     * @return recent latency, in microseconds
+     */
+    long recentLatencyMicros() {
+        lock.lock();
+        try {
+            return TimeUnit.NANOSECONDS.toMicros((long) recentLatencyNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the latency of the operations without load, as estimated.
+     *
+     * @return unloaded latency, in microseconds, 0 before any operation
+     */
+    long minLatencyMicros() {
+        lock.lock();
+        try {
+            return minLatencyNanos == Long.MAX_VALUE ? 0 : TimeUnit.NANOSECONDS.toMicros(minLatencyNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * An operation waiting for a slot.
+     */
+    private static final class Waiter {
+        //by virtual arrival time, then by arrival order
+        private static final Comparator<Waiter> ORDER = (a, b) -> {
+            int order = Long.compare(a.virtualNanos - b.virtualNanos, 0);
+            return order != 0 ? order : Long.compare(a.sequence, b.sequence);
+        };
+
+        private final Lane lane;
+        private final long virtualNanos;
+        private final long sequence;
+        private final Condition condition;
+        private boolean isGranted;
+
+        private Waiter(Lane lane, long virtualNanos, long sequence, Condition condition) {
+            this.lane = lane;
+            this.virtualNanos = virtualNanos;
+            this.sequence = sequence;
+            this.condition = condition;
+        }
+
+        private static Waiter earliest(Waiter current, Waiter candidate) {
+            return current == null || ORDER.compare(candidate, current) < 0 ? candidate : current;
+        }
+    }
+}
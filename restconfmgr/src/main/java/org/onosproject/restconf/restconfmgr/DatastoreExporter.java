@@ -0,0 +1,260 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.node.JsonNodeType;
+import org.onosproject.restconf.utils.parser.api.JsonBuilder;
+import org.onosproject.restconf.utils.parser.api.YangSchemaResolver;
+import org.onosproject.restconf.utils.parser.api.YangValueType;
+import org.onosproject.restconf.utils.parser.json.DefaultJsonBuilder;
+import org.onosproject.restconf.utils.parser.json.ParserUtils;
+import org.onosproject.yms.ydt.YdtContext;
+import org.onosproject.yms.ydt.YdtType;
+import org.onosproject.yms.ydt.YdtWalker;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes YDT trees as newline-delimited JSON records, one record per
+ * container or list entry:
+ * <pre>
+ * {"path":"module:container/list=key","data":{"leaf":"value"}}
+ * </pre>
+ * A record holds the leaves and leaf-lists of the node at its path;
+ * containers and list entries under it get records of their own, written
+ * after it. Merging the records in order rebuilds the tree, and no record
+ * is larger than the leaves of one node.
+ * <p>
+ * A list entry can only have a path of its own if its keys are known from
+ * the schema; otherwise it is written whole in the record of its parent,
+ * as "data":{"list":[{...}]}. Top level lists can't be addressed by a
+ * path, they are skipped.
+ */
+final class DatastoreExporter {
+
+    private static final String URI_ENCODING_CHAR_SET = "ISO-8859-1";
+
+    private final Writer writer;
+    private final YdtWalker walker;
+    private final YangSchemaResolver schemaResolver;
+    private long records;
+    private long skipped;
+
+    /**
+     * Creates an exporter.
+     *
+     * @param writer         the output, buffered by the caller
+     * @param walker         the YDT walker
+     * @param schemaResolver optional schema resolver, may be null
+     */
+    DatastoreExporter(Writer writer, YdtWalker walker, YangSchemaResolver schemaResolver) {
+        this.writer = writer;
+        this.walker = walker;
+        this.schemaResolver = schemaResolver;
+    }
+
+    /**
+     * Writes all the data of a module.
+     *
+     * @param module the module node
+     * @throws IOException if the output fails
+     */
+    void exportModule(YdtContext module) throws IOException {
+        for (YdtContext child = module.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getYdtType() == YdtType.SINGLE_INSTANCE_NODE) {
+                exportNode(child, module.getName() + ":" + child.getName());
+            } else {
+                //top level lists and leaves have no path to be merged at
+                skipped++;
+            }
+        }
+    }
+
+    /**
+     * Writes the data resource at a URI.
+     *
+     * @param node       the node found at the URI
+     * @param identifier the normalized URI of the node
+     * @throws IOException if the output fails
+     */
+    void exportResource(YdtContext node, String identifier) throws IOException {
+        int slash = identifier.lastIndexOf('/');
+        String parentUri = slash < 0 ? "" : identifier.substring(0, slash);
+        String lastSegment = identifier.substring(slash + 1);
+        switch (node.getYdtType()) {
+            case SINGLE_INSTANCE_NODE:
+                exportNode(node, identifier);
+                break;
+            case MULTI_INSTANCE_NODE:
+                if (lastSegment.contains("=")) {
+                    exportNode(node, identifier);
+                    break;
+                }
+                //the whole list: the found entry and the following ones
+                for (YdtContext entry = node; entry != null; entry = entry.getNextSibling()) {
+                    if (entry.getName().equals(node.getName())) {
+                        exportEntry(entry, parentUri);
+                    }
+                }
+                break;
+            default:
+                if (parentUri.isEmpty()) {
+                    skipped++;
+                } else {
+                    JsonBuilder builder = new DefaultJsonBuilder();
+                    addLeaf(builder, node);
+                    writeRecord(parentUri, builder.getTreeString());
+                }
+                break;
+        }
+    }
+
+    /**
+     * Returns the number of records written.
+     *
+     * @return number of records
+     */
+    long records() {
+        return records;
+    }
+
+    /**
+     * Returns the number of top level nodes which couldn't be written.
+     *
+     * @return number of skipped nodes
+     */
+    long skipped() {
+        return skipped;
+    }
+
+    private void exportNode(YdtContext node, String uri) throws IOException {
+        JsonBuilder builder = new DefaultJsonBuilder();
+        boolean hasLeaves = false;
+        boolean hasChildren = false;
+        for (YdtContext child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (isLeaf(child)) {
+                addLeaf(builder, child);
+                hasLeaves = true;
+            } else {
+                hasChildren = true;
+            }
+        }
+        //an empty node still needs a record to be created on import
+        if (hasLeaves || !hasChildren) {
+            writeRecord(uri, builder.getTreeString());
+        }
+        for (YdtContext child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getYdtType() == YdtType.SINGLE_INSTANCE_NODE) {
+                exportNode(child, uri + "/" + child.getName());
+            } else if (child.getYdtType() == YdtType.MULTI_INSTANCE_NODE) {
+                exportEntry(child, uri);
+            }
+        }
+    }
+
+    private void exportEntry(YdtContext entry, String parentUri) throws IOException {
+        List<String> keyValues = keyValues(entry);
+        if (keyValues != null) {
+            StringBuilder uri = new StringBuilder(parentUri).append('/')
+                    .append(entry.getName()).append('=');
+            for (int i = 0; i < keyValues.size(); i++) {
+                if (i > 0) {
+                    uri.append(',');
+                }
+                uri.append(encode(keyValues.get(i)));
+            }
+            exportNode(entry, uri.toString());
+            return;
+        }
+        if (parentUri.isEmpty()) {
+            skipped++;
+            return;
+        }
+        String content = ParserUtils.convertYdtToJsonString(entry.getName(), entry, walker, schemaResolver);
+        writeRecord(parentUri, "{\"" + entry.getName() + "\":[" + content + "]}");
+    }
+
+    /**
+     * Returns the key values of a list entry, null if the keys are unknown.
+     */
+    private List<String> keyValues(YdtContext entry) {
+        if (schemaResolver == null) {
+            return null;
+        }
+        List<String> keys = schemaResolver.getListKeys(ParserUtils.getSchemaPath(entry));
+        if (keys == null || keys.isEmpty()) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            String value = null;
+            for (YdtContext child = entry.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child.getName().equals(key)) {
+                    value = child.getValue();
+                    break;
+                }
+            }
+            if (value == null) {
+                return null;
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
+    private void addLeaf(JsonBuilder builder, YdtContext leaf) {
+        YangValueType valueType = YangValueType.STRING;
+        if (schemaResolver != null) {
+            YangValueType resolved = schemaResolver.getValueType(ParserUtils.getSchemaPath(leaf));
+            valueType = resolved == null ? YangValueType.STRING : resolved;
+        }
+        if (leaf.getYdtType() == YdtType.MULTI_INSTANCE_LEAF_VALUE_NODE) {
+            builder.addNodeWithSetTopHalf(leaf.getName(), leaf.getValueSet(), valueType);
+            builder.addNodeBottomHalf(JsonNodeType.ARRAY);
+        } else {
+            builder.addNodeWithValueTopHalf(leaf.getName(), leaf.getValue(), valueType);
+            builder.addNodeBottomHalf(JsonNodeType.STRING);
+        }
+    }
+
+    private void writeRecord(String path, String data) throws IOException {
+        writer.write("{\"path\":\"");
+        writer.write(JsonStringEncoder.getInstance().quoteAsString(path));
+        writer.write("\",\"data\":");
+        writer.write(data);
+        writer.write("}\n");
+        records++;
+    }
+
+    private static boolean isLeaf(YdtContext node) {
+        return node.getYdtType() == YdtType.SINGLE_INSTANCE_LEAF_VALUE_NODE
+                || node.getYdtType() == YdtType.MULTI_INSTANCE_LEAF_VALUE_NODE;
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, URI_ENCODING_CHAR_SET);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import org.onosproject.restconf.api.RestconfException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Group-commit stage for edits. Edits arriving within a short window are
+ * collected, and the ones which don't overlap are executed together as a
+ * single YMS operation; each caller then gets its own outcome. If the edits
+ * can't be merged, e.g. because one of them is invalid, nothing was executed
+ * and each edit of the batch is executed on its own, so that a bad edit only
+ * fails its own request. If the merged operation itself fails, part of it may
+ * have been applied, so the whole batch fails.
+ * <p>
+ * A collector thread forms the batches and a pool of workers executes them,
+ * several at a time. An edit overlapping an edit of a batch being executed
+ * waits for that batch, so that overlapping edits stay ordered.
+ */
+final class EditBatcher {
+
+    private static final long STOP_TIMEOUT_MILLIS = 5000;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Consumer<List<EditRequest>> batchExecutor;
+    private final Consumer<EditRequest> singleExecutor;
+    private final long maxWaitMillis;
+    private final ExecutorService workers;
+    private final Semaphore idleWorkers;
+    private final Thread collector;
+    //edits waiting for a batch, oldest first, guarded by this
+    private final LinkedList<EditRequest> pending = new LinkedList<>();
+    //edits of the batches being executed, guarded by this
+    private final List<EditRequest> running = new ArrayList<>();
+    //guarded by this, so that no edit is queued once the batcher stopped
+    private boolean isRunning = true;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedEdits = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    private volatile long windowMillis;
+    private volatile int maxBatchSize;
+
+    /**
+     * Signals that the edits of a batch could not be merged into one YMS
+     * operation. Nothing of the batch was executed.
+     */
+    static final class MergeException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        MergeException(RuntimeException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Creates an edit batcher and starts its threads.
+     *
+     * @param batchExecutor  executes a batch of non-overlapping edits as one
+     *                       YMS operation, throws a {@link MergeException} if
+     *                       the edits can't be merged, or another exception
+     *                       if the operation fails
+     * @param singleExecutor executes one edit, throws if the edit fails
+     * @param workerCount    number of batches executed at the same time
+     * @param maxWaitMillis  maximum time a caller waits for its edit
+     * @param threadFactory  factory of the collector and worker threads
+     */
+    EditBatcher(Consumer<List<EditRequest>> batchExecutor, Consumer<EditRequest> singleExecutor,
+                int workerCount, long maxWaitMillis, ThreadFactory threadFactory) {
+        checkArgument(workerCount > 0, "worker count should be positive");
+        this.batchExecutor = batchExecutor;
+        this.singleExecutor = singleExecutor;
+        this.maxWaitMillis = maxWaitMillis;
+        this.workers = Executors.newFixedThreadPool(workerCount, threadFactory);
+        this.idleWorkers = new Semaphore(workerCount);
+        this.collector = threadFactory.newThread(this::run);
+        this.collector.start();
+    }
+
+    /**
+     * Updates the batching window and size.
+     *
+     * @param windowMillis time to wait for more edits after the first one
+     * @param maxBatchSize maximum number of edits executed together
+     */
+    void setLimits(long windowMillis, int maxBatchSize) {
+        checkArgument(windowMillis >= 0, "batch window should not be negative");
+        checkArgument(maxBatchSize > 0, "batch size should be positive");
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Queues an edit and waits for its execution.
+     *
+     * @param edit the edit
+     * @throws RestconfException if the edit failed or took too long
+     */
+    void submit(EditRequest edit) {
+        synchronized (this) {
+            if (!isRunning) {
+                throw new RestconfException("RESTCONF server is stopping",
+                                            Response.Status.SERVICE_UNAVAILABLE);
+            }
+            pending.add(edit);
+            notifyAll();
+        }
+        try {
+            edit.completion().get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RestconfException("Timed out waiting for the edit, it may still be applied",
+                                        Response.Status.SERVICE_UNAVAILABLE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RestconfException("Interrupted while waiting for the edit, it may still be applied",
+                                        Response.Status.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * Stops the threads, letting the batches being executed finish, and
+     * fails the edits still waiting for a batch.
+     */
+    void stop() {
+        synchronized (this) {
+            isRunning = false;
+            notifyAll();
+        }
+        collector.interrupt();
+        try {
+            collector.join(STOP_TIMEOUT_MILLIS);
+            workers.shutdown();
+            if (!workers.awaitTermination(STOP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                log.warn("Edit batches still running after {} ms", STOP_TIMEOUT_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        RestconfException stopped = new RestconfException("RESTCONF server is stopping",
+                                                          Response.Status.SERVICE_UNAVAILABLE);
+        synchronized (this) {
+            pending.forEach(e -> e.completion().completeExceptionally(stopped));
+            pending.clear();
+        }
+    }
+
+    long batches() {
+        return batches.get();
+    }
+
+    long batchedEdits() {
+        return batchedEdits.get();
+    }
+
+    long fallbacks() {
+        return fallbacks.get();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                idleWorkers.acquire();
+                List<EditRequest> batch = nextBatch();
+                if (batch.isEmpty()) {
+                    //stopped
+                    idleWorkers.release();
+                    return;
+                }
+                workers.execute(() -> execute(batch));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits for an edit which can be executed, then for the batching window,
+     * and takes the next batch. Returns an empty batch once stopped.
+     */
+    private synchronized List<EditRequest> nextBatch() throws InterruptedException {
+        while (isRunning && select(maxBatchSize, false).isEmpty()) {
+            wait();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        int limit = maxBatchSize;
+        long remaining = deadline - System.nanoTime();
+        while (isRunning && pending.size() < limit && remaining > 0) {
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            remaining = deadline - System.nanoTime();
+        }
+        if (!isRunning) {
+            return new ArrayList<>();
+        }
+        List<EditRequest> batch = select(limit, true);
+        running.addAll(batch);
+        return batch;
+    }
+
+    /**
+     * Selects the edits of the next batch in arrival order, leaving for a
+     * later batch any edit overlapping an earlier one or an edit being
+     * executed, so that overlapping edits stay ordered.
+     */
+    private List<EditRequest> select(int limit, boolean remove) {
+        List<EditRequest> batch = new ArrayList<>();
+        List<EditRequest> skipped = new ArrayList<>();
+        Iterator<EditRequest> it = pending.iterator();
+        while (it.hasNext() && batch.size() < limit) {
+            EditRequest edit = it.next();
+            if (overlapsAny(edit, running) || overlapsAny(edit, batch) || overlapsAny(edit, skipped)) {
+                skipped.add(edit);
+                continue;
+            }
+            batch.add(edit);
+            if (remove) {
+                it.remove();
+            }
+        }
+        return batch;
+    }
+
+    private static boolean overlapsAny(EditRequest edit, List<EditRequest> edits) {
+        for (EditRequest other : edits) {
+            if (edit.overlaps(other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void execute(List<EditRequest> batch) {
+        try {
+            if (batch.size() > 1) {
+                try {
+                    batchExecutor.accept(batch);
+                    batches.incrementAndGet();
+                    batchedEdits.addAndGet(batch.size());
+                    batch.forEach(e -> e.completion().complete(null));
+                    return;
+                } catch (MergeException e) {
+                    log.debug("Failed to merge {} edits, executing them one by one: {}",
+                              batch.size(), e.getMessage());
+                    fallbacks.incrementAndGet();
+                } catch (RuntimeException e) {
+                    //part of the batch may have been applied, re-executing it is not safe
+                    batch.forEach(edit -> edit.completion().completeExceptionally(e));
+                    return;
+                }
+            }
+            for (EditRequest edit : batch) {
+                try {
+                    singleExecutor.accept(edit);
+                    edit.completion().complete(null);
+                } catch (RuntimeException e) {
+                    edit.completion().completeExceptionally(e);
+                }
+            }
+        } finally {
+            synchronized (this) {
+                running.removeAll(batch);
+                notifyAll();
+            }
+            idleWorkers.release();
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableSet;
+import org.onosproject.restconf.utils.parser.api.YangSchemaResolver;
+import org.onosproject.restconf.utils.parser.json.ParserUtils;
+import org.onosproject.yms.ydt.YdtBuilder;
+import org.onosproject.yms.ydt.YdtContextOperationType;
+import org.onosproject.yms.ydt.YdtType;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Adds to a YDT builder the minimal edit turning the current content of a
+ * data resource into the desired one: changed leaves and new subtrees are
+ * merged, missing ones deleted, and unchanged ones left out. List entries
+ * are matched by their keys, so a changed entry only carries its changed
+ * descendants.
+ * <p>
+ * Both contents are JSON objects holding the children of the data
+ * resource, as returned by a GET and taken by a PUT. Leaf values are
+ * compared as text, as the current content may be typed differently from
+ * the payload.
+ * <p>
+ * The keys of a list come from the schema resolver, as nothing in the data
+ * tells the key leaves of an entry from its other leaves. Without a
+ * resolver, or for a list the resolver has no keys for, a changed list
+ * can't be diffed: {@link MissingListKeysException} is thrown, and the
+ * caller replaces the data resource as a whole instead. Unchanged lists
+ * are left out all the same.
+ */
+final class EditDiff {
+
+    private final YdtBuilder builder;
+    private final YangSchemaResolver schemaResolver;
+    private long nodesSent;
+
+    /**
+     * Signals a changed list whose keys are unknown, so that its entries
+     * can't be matched.
+     */
+    static final class MissingListKeysException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private MissingListKeysException(String listName) {
+            super("Unknown keys for list " + listName);
+        }
+    }
+
+    /**
+     * Creates a diff adding nodes under the current node of a YDT builder.
+     *
+     * @param builder        the YDT builder, at the data resource node
+     * @param schemaResolver the schema resolver providing the list keys
+     */
+    EditDiff(YdtBuilder builder, YangSchemaResolver schemaResolver) {
+        this.builder = builder;
+        this.schemaResolver = schemaResolver;
+    }
+
+    /**
+     * Adds the edit from the current content to the desired one.
+     *
+     * @param current the current content
+     * @param desired the desired content
+     * @throws MissingListKeysException if a changed list has unknown keys
+     */
+    void apply(ObjectNode current, ObjectNode desired) {
+        diffObject(current, desired, ImmutableSet.of());
+    }
+
+    /**
+     * Returns whether the edit has any node, i.e. if the contents differ.
+     *
+     * @return true if there is something to edit
+     */
+    boolean hasChanges() {
+        return nodesSent > 0;
+    }
+
+    /**
+     * Returns the number of nodes added to the YDT builder.
+     *
+     * @return number of nodes of the edit
+     */
+    long nodesSent() {
+        return nodesSent;
+    }
+
+    /**
+     * Returns the number of data nodes of a JSON content, counting each
+     * list entry and each leaf-list as one node.
+     *
+     * @param content the content
+     * @return number of data nodes
+     */
+    static long countNodes(ObjectNode content) {
+        long count = 0;
+        Iterator<JsonNode> children = content.elements();
+        while (children.hasNext()) {
+            count += countNode(children.next());
+        }
+        return count;
+    }
+
+    private static long countNode(JsonNode node) {
+        if (node.isObject()) {
+            return 1 + countNodes((ObjectNode) node);
+        }
+        if (isList(node)) {
+            long count = 0;
+            for (JsonNode entry : node) {
+                count += countNode(entry);
+            }
+            return count;
+        }
+        return 1;
+    }
+
+    private void diffObject(ObjectNode current, ObjectNode desired, Set<String> keys) {
+        Iterator<Map.Entry<String, JsonNode>> fields = desired.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey();
+            if (keys.contains(name)) {
+                continue;
+            }
+            JsonNode currentValue = current.get(name);
+            JsonNode desiredValue = field.getValue();
+            if (currentValue == null) {
+                merge(name, desiredValue, YdtContextOperationType.MERGE);
+            } else if (isSameContent(currentValue, desiredValue)) {
+                continue;
+            } else if (currentValue.isObject() && desiredValue.isObject()) {
+                builder.addChild(name, null, YdtType.SINGLE_INSTANCE_NODE,
+                                 YdtContextOperationType.NONE);
+                nodesSent++;
+                diffObject((ObjectNode) currentValue, (ObjectNode) desiredValue, ImmutableSet.of());
+                builder.traverseToParent();
+            } else if (currentValue.isArray() && desiredValue.isArray()
+                    && (isList(currentValue) || isList(desiredValue))) {
+                diffList(name, currentValue, desiredValue);
+            } else {
+                merge(name, desiredValue, YdtContextOperationType.REPLACE);
+            }
+        }
+
+        Iterator<Map.Entry<String, JsonNode>> currentFields = current.fields();
+        while (currentFields.hasNext()) {
+            Map.Entry<String, JsonNode> field = currentFields.next();
+            if (!keys.contains(field.getKey()) && !desired.has(field.getKey())) {
+                delete(field.getKey(), field.getValue());
+            }
+        }
+    }
+
+    private void diffList(String name, JsonNode current, JsonNode desired) {
+        List<String> keys = listKeys(name);
+        Map<List<String>, ObjectNode> currentEntries = new LinkedHashMap<>();
+        for (JsonNode entry : current) {
+            currentEntries.put(keyValues(name, entry, keys), (ObjectNode) entry);
+        }
+        Set<String> keySet = ImmutableSet.copyOf(keys);
+        for (JsonNode entry : desired) {
+            List<String> keyValues = keyValues(name, entry, keys);
+            ObjectNode currentEntry = currentEntries.remove(keyValues);
+            if (currentEntry == null) {
+                merge(name, JsonNodeFactory.instance.arrayNode().add(entry),
+                      YdtContextOperationType.MERGE);
+            } else if (!isSameContent(currentEntry, entry)) {
+                builder.setDefaultEditOperationType(YdtContextOperationType.NONE);
+                addEntry(name, keyValues);
+                diffObject(currentEntry, (ObjectNode) entry, keySet);
+                builder.traverseToParent();
+            }
+        }
+        for (List<String> keyValues : currentEntries.keySet()) {
+            deleteEntry(name, keyValues);
+        }
+    }
+
+    private void merge(String name, JsonNode value, YdtContextOperationType opType) {
+        ObjectNode content = JsonNodeFactory.instance.objectNode();
+        content.set(name, value);
+        builder.setDefaultEditOperationType(opType);
+        ParserUtils.convertJsonToYdt(content, builder, opType, schemaResolver);
+        nodesSent += countNodes(content);
+    }
+
+    private void delete(String name, JsonNode value) {
+        if (isList(value)) {
+            List<String> keys = listKeys(name);
+            for (JsonNode entry : value) {
+                deleteEntry(name, keyValues(name, entry, keys));
+            }
+            return;
+        }
+        builder.addChild(name, null, YdtContextOperationType.DELETE);
+        builder.traverseToParent();
+        nodesSent++;
+    }
+
+    private void deleteEntry(String name, List<String> keyValues) {
+        builder.setDefaultEditOperationType(YdtContextOperationType.DELETE);
+        addEntry(name, keyValues);
+        builder.traverseToParent();
+    }
+
+    /**
+     * Adds a list entry with its key leaves and moves to the entry.
+     */
+    private void addEntry(String name, List<String> keyValues) {
+        builder.addMultiInstanceChild(name, null, keyValues);
+        //YMS leaves the builder at the last key leaf
+        builder.traverseToParent();
+        nodesSent += 1 + keyValues.size();
+    }
+
+    private List<String> listKeys(String name) {
+        if (schemaResolver == null) {
+            throw new MissingListKeysException(name);
+        }
+        String parentPath = ParserUtils.getSchemaPath(builder.getCurNode());
+        String schemaPath = parentPath.isEmpty() ? name : parentPath + "/" + name;
+        List<String> keys = schemaResolver.getListKeys(schemaPath);
+        if (keys == null || keys.isEmpty()) {
+            throw new MissingListKeysException(schemaPath);
+        }
+        return keys;
+    }
+
+    private static List<String> keyValues(String name, JsonNode entry, List<String> keys) {
+        List<String> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            JsonNode value = entry.get(key);
+            if (value == null || !value.isValueNode()) {
+                throw new MissingListKeysException(name);
+            }
+            values.add(value.asText());
+        }
+        return values;
+    }
+
+    /**
+     * Returns whether a JSON array holds list entries rather than leaf-list
+     * values.
+     *
+     * @param node the JSON node
+     * @return true for a non-empty array of objects
+     */
+    static boolean isList(JsonNode node) {
+        return node.isArray() && node.size() > 0 && node.get(0).isObject();
+    }
+
+    /**
+     * Returns whether two JSON contents hold the same data, comparing leaf
+     * values as text.
+     *
+     * @param current the current content
+     * @param desired the desired content
+     * @return true if the contents are the same
+     */
+    static boolean isSameContent(JsonNode current, JsonNode desired) {
+        if (current.isValueNode() && desired.isValueNode()) {
+            return current.asText().equals(desired.asText());
+        }
+        if (current.getNodeType() != desired.getNodeType() || current.size() != desired.size()) {
+            return false;
+        }
+        if (current.isArray()) {
+            for (int i = 0; i < current.size(); i++) {
+                if (!isSameContent(current.get(i), desired.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = desired.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode currentValue = current.get(field.getKey());
+            if (currentValue == null || !isSameContent(currentValue, field.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
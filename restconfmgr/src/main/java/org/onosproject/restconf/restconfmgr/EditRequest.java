@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import org.onosproject.restconf.api.RequestPriority;
+import org.onosproject.restconf.utils.parser.json.ParserUtils;
+import org.onosproject.yms.ydt.YdtContextOperationType;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Represents an edit of a data resource, as handed over to YMS. The edit
+ * keeps the priority of the request creating it, as it may be executed by
+ * another thread.
+ */
+final class EditRequest {
+
+    private static final Splitter SLASH_SPLITTER = Splitter.on('/');
+
+    private final String identifier;
+    private final List<String> segments;
+    private final ObjectNode payload;
+    private final YdtContextOperationType opType;
+    private final String operationName;
+    private final RequestPriority priority = RequestPriority.current();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    /**
+     * Creates an edit request.
+     *
+     * @param identifier    URI identifier of the data resource
+     * @param payload       JSON payload, null for a delete
+     * @param opType        operation type of the edit
+     * @param operationName name of the RESTCONF operation, for error reporting
+     */
+    EditRequest(String identifier, ObjectNode payload, YdtContextOperationType opType,
+                String operationName) {
+        this.identifier = identifier;
+        this.segments = ImmutableList.copyOf(
+                SLASH_SPLITTER.split(ParserUtils.normalizeIdentifier(identifier)));
+        this.payload = payload;
+        this.opType = opType;
+        this.operationName = operationName;
+    }
+
+    String identifier() {
+        return identifier;
+    }
+
+    /**
+     * Returns the decoded path segments of the identifier.
+     *
+     * @return path segments
+     */
+    List<String> segments() {
+        return segments;
+    }
+
+    ObjectNode payload() {
+        return payload;
+    }
+
+    YdtContextOperationType opType() {
+        return opType;
+    }
+
+    String operationName() {
+        return operationName;
+    }
+
+    RequestPriority priority() {
+        return priority;
+    }
+
+    /**
+     * Returns the future completed once the edit has been executed.
+     *
+     * @return completion of the edit
+     */
+    CompletableFuture<Void> completion() {
+        return completion;
+    }
+
+    /**
+     * Returns whether this edit and the given one touch a common subtree,
+     * i.e. whether the path of one is a prefix of the path of the other.
+     *
+     * @param other the other edit
+     * @return true if the edits overlap
+     */
+    boolean overlaps(EditRequest other) {
+        int common = Math.min(segments.size(), other.segments.size());
+        return segments.subList(0, common).equals(other.segments.subList(0, common));
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("identifier", identifier)
+                .add("opType", opType)
+                .toString();
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.onosproject.restconf.api.EditOutcome;
+import org.onosproject.restconf.api.RestconfException;
+
+import javax.ws.rs.core.Response;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Remembers the outcome of the recent edit requests by their idempotency
+ * key, so that a retried request is answered with the outcome of the first
+ * attempt instead of being executed again. The table holds a bounded number
+ * of keys, each for a bounded time after its request has completed.
+ * <p>
+ * A key is bound to the fingerprint of the request which first used it; it
+ * can't be reused for another request until it expires. A key whose request
+ * is still in progress can't be claimed by a retry either: the keys in
+ * progress are held apart from the completed ones, never evicted nor
+ * expired, until their request completes.
+ */
+final class IdempotencyTable {
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int UNPROCESSABLE_ENTITY = 422;
+
+    //fingerprints of the requests in progress, by key
+    private final Map<String, String> inProgress = new ConcurrentHashMap<>();
+    //completed requests, by key
+    private volatile Cache<String, Entry> entries;
+    //held to write the completed requests, and exclusively to swap their cache
+    private final ReadWriteLock entriesLock = new ReentrantReadWriteLock();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong mismatched = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+
+    //0 disables the keys
+    private volatile int capacity;
+    private long expirySeconds;
+
+    /**
+     * Creates an idempotency table.
+     *
+     * @param capacity      maximum number of completed keys held
+     * @param expirySeconds time a completed key is held, in seconds
+     */
+    IdempotencyTable(int capacity, long expirySeconds) {
+        entries = newCache(capacity, expirySeconds);
+        this.capacity = capacity;
+        this.expirySeconds = expirySeconds;
+    }
+
+    private static Cache<String, Entry> newCache(int capacity, long expirySeconds) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(capacity)
+                .expireAfterWrite(expirySeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Updates the bounds of the table.
+     *
+     * @param capacity      maximum number of completed keys held
+     * @param expirySeconds time a completed key is held, in seconds
+     */
+    synchronized void setLimits(int capacity, long expirySeconds) {
+        checkArgument(capacity >= 0, "capacity should not be negative");
+        checkArgument(expirySeconds >= 0, "expiry should not be negative");
+        if (capacity != this.capacity || expirySeconds != this.expirySeconds) {
+            //the bounds of a cache can't change, the keys move to a new one;
+            //no request completes meanwhile, so that none is lost in the old one
+            Cache<String, Entry> cache = newCache(capacity, expirySeconds);
+            entriesLock.writeLock().lock();
+            try {
+                cache.putAll(entries.asMap());
+                entries = cache;
+            } finally {
+                entriesLock.writeLock().unlock();
+            }
+            this.capacity = capacity;
+            this.expirySeconds = expirySeconds;
+        }
+    }
+
+    /**
+     * Claims a key for a request, or returns the outcome retained for it.
+     *
+     * @param key         idempotency key
+     * @param fingerprint fingerprint of the request
+     * @return the retained outcome, or null if the key has been claimed or
+     * the keys are disabled
+     * @throws RestconfException if the key is invalid, bound to another
+     *                           request, or held by a request in progress
+     */
+    EditOutcome claim(String key, String fingerprint) {
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new RestconfException("Idempotency key should have 1 to " + MAX_KEY_LENGTH + " characters",
+                                        Response.Status.BAD_REQUEST);
+        }
+        if (capacity == 0) {
+            return null;
+        }
+        Entry entry = entries.getIfPresent(key);
+        if (entry != null) {
+            return replay(key, entry, fingerprint);
+        }
+        String holder = inProgress.putIfAbsent(key, fingerprint);
+        if (holder != null) {
+            checkFingerprint(key, holder, fingerprint);
+            conflicts.incrementAndGet();
+            throw new RestconfException("A request with idempotency key " + key + " is in progress",
+                                        Response.Status.CONFLICT);
+        }
+        //the request holding the key may have completed since the first look
+        entry = entries.getIfPresent(key);
+        if (entry != null) {
+            inProgress.remove(key, fingerprint);
+            return replay(key, entry, fingerprint);
+        }
+        return null;
+    }
+
+    private EditOutcome replay(String key, Entry entry, String fingerprint) {
+        checkFingerprint(key, entry.fingerprint, fingerprint);
+        replayed.incrementAndGet();
+        return entry.outcome;
+    }
+
+    private void checkFingerprint(String key, String expected, String fingerprint) {
+        if (!expected.equals(fingerprint)) {
+            mismatched.incrementAndGet();
+            throw new RestconfException("Idempotency key " + key + " was used for a different request",
+                                        UNPROCESSABLE_ENTITY);
+        }
+    }
+
+    /**
+     * Completes the request holding a key. A client or success outcome is
+     * retained; a server error, or a missing outcome, releases the key so
+     * that a retry is executed again.
+     *
+     * @param key         idempotency key
+     * @param fingerprint fingerprint of the request
+     * @param outcome     outcome of the request, or null if none
+     */
+    void complete(String key, String fingerprint, EditOutcome outcome) {
+        if (!fingerprint.equals(inProgress.get(key))) {
+            //not claimed by this request, nothing to complete
+            return;
+        }
+        if (outcome != null && outcome.status() < Response.Status.INTERNAL_SERVER_ERROR.getStatusCode()) {
+            //retained before the key is released, so that a retry can't slip in between
+            entriesLock.readLock().lock();
+            try {
+                entries.put(key, new Entry(fingerprint, outcome));
+            } finally {
+                entriesLock.readLock().unlock();
+            }
+        }
+        inProgress.remove(key, fingerprint);
+    }
+
+    /**
+     * Returns the number of keys held, in progress or completed.
+     *
+     * @return keys held
+     */
+    long size() {
+        return inProgress.size() + entries.size();
+    }
+
+    long replayed() {
+        return replayed.get();
+    }
+
+    long mismatched() {
+        return mismatched.get();
+    }
+
+    long conflicts() {
+        return conflicts.get();
+    }
+
+    /**
+     * A completed key's request fingerprint and outcome.
+     */
+    private static final class Entry {
+        private final String fingerprint;
+        private final EditOutcome outcome;
+
+        private Entry(String fingerprint, EditOutcome outcome) {
+            this.fingerprint = fingerprint;
+            this.outcome = outcome;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableSet;
+import org.onosproject.restconf.utils.parser.api.YangSchemaResolver;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes the changes between two contents of a data resource as a list
+ * of YANG patch edits, so that a subscriber can be sent the changed nodes
+ * only. Targets are relative to the data resource; list entries are
+ * targeted by their keys when the schema provides them, otherwise a
+ * changed list is replaced as a whole.
+ */
+final class JsonDelta {
+
+    private static final String URI_ENCODING_CHAR_SET = "ISO-8859-1";
+    private static final String MERGE = "merge";
+    private static final String REPLACE = "replace";
+    private static final String DELETE = "delete";
+
+    private final YangSchemaResolver schemaResolver;
+    private final ArrayNode edits = JsonNodeFactory.instance.arrayNode();
+
+    private JsonDelta(YangSchemaResolver schemaResolver) {
+        this.schemaResolver = schemaResolver;
+    }
+
+    /**
+     * Returns the YANG patch edits turning one content into another.
+     *
+     * @param previous       the previous content
+     * @param current        the current content
+     * @param schemaPath     the schema path of the data resource
+     * @param schemaResolver optional schema resolver providing the list keys
+     * @return the edits, empty if the contents hold the same data
+     */
+    static ArrayNode diff(ObjectNode previous, ObjectNode current, String schemaPath,
+                          YangSchemaResolver schemaResolver) {
+        JsonDelta delta = new JsonDelta(schemaResolver);
+        delta.diffObject(previous, current, "", schemaPath, ImmutableSet.of());
+        return delta.edits;
+    }
+
+    private void diffObject(ObjectNode previous, ObjectNode current, String target,
+                            String schemaPath, Set<String> keys) {
+        Iterator<Map.Entry<String, JsonNode>> fields = current.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey();
+            if (keys.contains(name)) {
+                continue;
+            }
+            JsonNode previousValue = previous.get(name);
+            JsonNode currentValue = field.getValue();
+            if (previousValue == null) {
+                addEdit(MERGE, target, name, currentValue);
+            } else if (EditDiff.isSameContent(previousValue, currentValue)) {
+                continue;
+            } else if (previousValue.isObject() && currentValue.isObject()) {
+                diffObject((ObjectNode) previousValue, (ObjectNode) currentValue, target + "/" + name,
+                           childPath(schemaPath, name), ImmutableSet.of());
+            } else if (previousValue.isArray() && currentValue.isArray()
+                    && (EditDiff.isList(previousValue) || EditDiff.isList(currentValue))) {
+                diffList(name, previousValue, currentValue, target, childPath(schemaPath, name));
+            } else {
+                addEdit(REPLACE, target, name, currentValue);
+            }
+        }
+
+        Iterator<String> previousFields = previous.fieldNames();
+        while (previousFields.hasNext()) {
+            String name = previousFields.next();
+            if (!keys.contains(name) && !current.has(name)) {
+                addDelete(target + "/" + name);
+            }
+        }
+    }
+
+    private void diffList(String name, JsonNode previous, JsonNode current, String target,
+                          String schemaPath) {
+        List<String> keys = schemaResolver == null ? null : schemaResolver.getListKeys(schemaPath);
+        Map<String, ObjectNode> previousEntries = keys == null || keys.isEmpty() ?
+                null : entries(previous, keys);
+        Map<String, ObjectNode> currentEntries = previousEntries == null ?
+                null : entries(current, keys);
+        if (previousEntries == null || currentEntries == null) {
+            addEdit(REPLACE, target, name, current);
+            return;
+        }
+        Set<String> keySet = ImmutableSet.copyOf(keys);
+        for (Map.Entry<String, ObjectNode> entry : currentEntries.entrySet()) {
+            ObjectNode previousEntry = previousEntries.remove(entry.getKey());
+            if (previousEntry == null) {
+                addEdit(MERGE, target, name, JsonNodeFactory.instance.arrayNode().add(entry.getValue()));
+            } else if (!EditDiff.isSameContent(previousEntry, entry.getValue())) {
+                diffObject(previousEntry, entry.getValue(), target + "/" + name + "=" + entry.getKey(),
+                           schemaPath, keySet);
+            }
+        }
+        for (String keyValues : previousEntries.keySet()) {
+            addDelete(target + "/" + name + "=" + keyValues);
+        }
+    }
+
+    /**
+     * Returns the entries of a list by their encoded key values, null if an
+     * entry lacks a key.
+     */
+    private static Map<String, ObjectNode> entries(JsonNode list, List<String> keys) {
+        Map<String, ObjectNode> entries = new LinkedHashMap<>();
+        for (JsonNode entry : list) {
+            List<String> values = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                JsonNode value = entry.get(key);
+                if (value == null || !value.isValueNode()) {
+                    return null;
+                }
+                values.add(encode(value.asText()));
+            }
+            entries.put(String.join(",", values), (ObjectNode) entry);
+        }
+        return entries;
+    }
+
+    private void addEdit(String operation, String target, String name, JsonNode value) {
+        ObjectNode edit = edits.addObject();
+        edit.put("edit-id", Integer.toString(edits.size()));
+        edit.put("operation", operation);
+        edit.put("target", target.isEmpty() ? "/" : target);
+        edit.putObject("value").set(name, value);
+    }
+
+    private void addDelete(String target) {
+        ObjectNode edit = edits.addObject();
+        edit.put("edit-id", Integer.toString(edits.size()));
+        edit.put("operation", DELETE);
+        edit.put("target", target);
+    }
+
+    private static String childPath(String schemaPath, String name) {
+        return schemaPath.isEmpty() ? name : schemaPath + "/" + name;
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, URI_ENCODING_CHAR_SET);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
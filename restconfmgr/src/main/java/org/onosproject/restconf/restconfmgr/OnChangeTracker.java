@@ -0,0 +1,387 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.onosproject.restconf.api.RestconfException;
+import org.onosproject.restconf.utils.parser.api.YangSchemaResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Pushes the changes of data resources to the subscribers of on-change
+ * subscriptions. The subscribers of the same data resource with the same
+ * dampening period form a group sharing one check per change.
+ * <p>
+ * A group is checked when an edit through RESTCONF overlaps its data
+ * resource, or on a YANG notification of the module of its data resource;
+ * a notification doesn't tell which data has changed, only which module it
+ * comes from. A check first compares the Merkle hash of the
+ * data resource with the last pushed one, so an unchanged resource is
+ * never serialized; a changed one is pushed as the YANG patch edits from
+ * the last pushed content. Changes within the dampening period of the last
+ * push are coalesced into one push at the end of the period.
+ */
+final class OnChangeTracker {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Function<String, Snapshot> snapshots;
+    private final Supplier<YangSchemaResolver> schemaResolver;
+    private final StreamConnectionRegistry connectionRegistry;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService workers;
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final Map<String, ChangeGroup> groups = new ConcurrentHashMap<>();
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong pushes = new AtomicLong();
+
+    /**
+     * Content of a data resource at one point in time. The content is only
+     * converted to JSON when asked for.
+     */
+    static final class Snapshot {
+        private final long hash;
+        private final String schemaPath;
+        private final Supplier<ObjectNode> content;
+
+        /**
+         * Creates a snapshot.
+         *
+         * @param hash       Merkle hash of the data resource
+         * @param schemaPath schema path of the data resource
+         * @param content    supplier of the JSON content of the data resource
+         */
+        Snapshot(long hash, String schemaPath, Supplier<ObjectNode> content) {
+            this.hash = hash;
+            this.schemaPath = schemaPath;
+            this.content = content;
+        }
+    }
+
+    /**
+     * Creates a tracker.
+     *
+     * @param snapshots          takes a snapshot of a data resource
+     * @param schemaResolver     supplies the current schema resolver, may supply null
+     * @param connectionRegistry the registry of the subscriber connections
+     * @param scheduler          the scheduler of the dampened checks
+     * @param workers            the executor running the checks
+     */
+    OnChangeTracker(Function<String, Snapshot> snapshots, Supplier<YangSchemaResolver> schemaResolver,
+                    StreamConnectionRegistry connectionRegistry,
+                    ScheduledExecutorService scheduler, ExecutorService workers) {
+        this.snapshots = snapshots;
+        this.schemaResolver = schemaResolver;
+        this.connectionRegistry = connectionRegistry;
+        this.scheduler = scheduler;
+        this.workers = workers;
+    }
+
+    /**
+     * Adds a subscriber to the group of a data resource and dampening
+     * period. The subscriber first gets the whole content of the data
+     * resource, then its changes.
+     *
+     * @param identifier      URI of the data resource
+     * @param segments        normalized path segments of the data resource
+     * @param dampeningMillis minimum time between two pushes, in milliseconds
+     * @param connection      the subscriber connection
+     */
+    synchronized void subscribe(String identifier, List<String> segments, long dampeningMillis,
+                                StreamConnection connection) {
+        String key = String.join("/", segments) + "@" + dampeningMillis;
+        ChangeGroup group = groups.computeIfAbsent(key, k -> new ChangeGroup(k, identifier, segments,
+                                                                             dampeningMillis));
+        //the initial content is sent by a check, in order with the changes
+        group.newcomers.add(connection);
+        schedule(group, 0);
+    }
+
+    /**
+     * Checks the groups whose data resource overlaps one of the given paths.
+     *
+     * @param paths normalized path segments of the edited data resources
+     */
+    void touched(Collection<List<String>> paths) {
+        for (ChangeGroup group : groups.values()) {
+            for (List<String> path : paths) {
+                if (overlaps(group.segments, path)) {
+                    schedule(group, group.dampeningMillis);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the groups whose data resource belongs to one of the given
+     * YANG modules.
+     *
+     * @param modules names of the YANG modules whose data may have changed
+     */
+    void touchedModules(Set<String> modules) {
+        for (ChangeGroup group : groups.values()) {
+            String top = group.segments.get(0);
+            int colon = top.indexOf(':');
+            if (colon > 0 && modules.contains(top.substring(0, colon))) {
+                schedule(group, group.dampeningMillis);
+            }
+        }
+    }
+
+    /**
+     * Drops all the groups.
+     */
+    void stop() {
+        groups.clear();
+    }
+
+    /**
+     * Returns the number of groups.
+     *
+     * @return number of groups
+     */
+    int groups() {
+        return groups.size();
+    }
+
+    /**
+     * Returns the number of checks done so far.
+     *
+     * @return number of checks
+     */
+    long checks() {
+        return checks.get();
+    }
+
+    /**
+     * Returns the number of pushes, full or delta, sent so far.
+     *
+     * @return number of pushes
+     */
+    long pushes() {
+        return pushes.get();
+    }
+
+    /**
+     * Schedules a check of a group, unless one is already pending: the
+     * check runs once the dampening period since the last push is over.
+     */
+    private void schedule(ChangeGroup group, long dampeningMillis) {
+        long delay;
+        synchronized (group) {
+            if (group.isPending) {
+                return;
+            }
+            group.isPending = true;
+            delay = Math.max(0, group.lastPushMillis + dampeningMillis - System.currentTimeMillis());
+        }
+        try {
+            scheduler.schedule(() -> runCheck(group), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            cancel(group);
+        }
+    }
+
+    private void runCheck(ChangeGroup group) {
+        try {
+            workers.execute(() -> {
+                //a change from now on needs another check
+                synchronized (group) {
+                    group.isPending = false;
+                }
+                synchronized (group.checkLock) {
+                    try {
+                        check(group);
+                    } catch (RuntimeException e) {
+                        log.warn("Failed to check {} for changes", group.identifier, e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            cancel(group);
+        }
+    }
+
+    private static void cancel(ChangeGroup group) {
+        synchronized (group) {
+            group.isPending = false;
+        }
+    }
+
+    private void check(ChangeGroup group) {
+        group.connections.removeIf(StreamConnection::isClosed);
+        group.newcomers.removeIf(StreamConnection::isClosed);
+        if (removeIfEmpty(group)) {
+            return;
+        }
+        checks.incrementAndGet();
+        Snapshot snapshot;
+        try {
+            snapshot = snapshots.apply(group.identifier);
+        } catch (RestconfException e) {
+            log.debug("Failed to check {}: {}", group.identifier, e.getMessage());
+            return;
+        }
+
+        boolean isChanged = group.lastContent == null || snapshot.hash != group.lastHash;
+        if (isChanged) {
+            ObjectNode content = snapshot.content.get();
+            if (group.lastContent != null && !group.connections.isEmpty()) {
+                ArrayNode edits = JsonDelta.diff(group.lastContent, content, snapshot.schemaPath,
+                                                 schemaResolver.get());
+                if (edits.size() > 0) {
+                    long sequence = group.sequence.incrementAndGet();
+                    push(group, sequence, group.connections, changeUpdate(group, sequence, edits));
+                }
+            }
+            group.lastHash = snapshot.hash;
+            group.lastContent = content;
+        }
+        if (!group.newcomers.isEmpty()) {
+            //the newcomers get the whole content, then join the subscribers
+            List<StreamConnection> newcomers = new ArrayList<>(group.newcomers);
+            group.newcomers.removeAll(newcomers);
+            long sequence = group.sequence.incrementAndGet();
+            push(group, sequence, newcomers, update(group, group.lastContent));
+            group.connections.addAll(newcomers);
+        }
+    }
+
+    private synchronized boolean removeIfEmpty(ChangeGroup group) {
+        if (group.connections.isEmpty() && group.newcomers.isEmpty() && groups.remove(group.key, group)) {
+            log.debug("No subscriber left for changes of {}", group.identifier);
+            return true;
+        }
+        return false;
+    }
+
+    private void push(ChangeGroup group, long sequence, Collection<StreamConnection> connections,
+                      ObjectNode data) {
+        StreamDeliveryEvent delivery = RestconfFlightRecorder.beginDelivery();
+        long start = System.nanoTime();
+        StreamEvent event = new StreamEvent(epoch + "-" + group.id + "-" + sequence, sequence,
+                                            System.currentTimeMillis(), data.toString(), null);
+        long serializationNanos = System.nanoTime() - start;
+        int subscribers = 0;
+        for (StreamConnection connection : connections) {
+            if (connectionRegistry.send(connection, event)) {
+                subscribers++;
+            } else {
+                group.connections.remove(connection);
+            }
+        }
+        RestconfFlightRecorder.endDelivery(delivery, RestconfManager.PUSH_STREAM, serializationNanos,
+                                           event.size(), subscribers);
+        pushes.incrementAndGet();
+        synchronized (group) {
+            group.lastPushMillis = event.timeMillis();
+        }
+    }
+
+    private static ObjectNode update(ChangeGroup group, ObjectNode content) {
+        ObjectNode data = JsonNodeFactory.instance.objectNode();
+        ObjectNode update = data.putObject("ietf-yang-push:push-update");
+        update.put("subscription-path", group.identifier);
+        update.set("datastore-contents", content);
+        return data;
+    }
+
+    private static ObjectNode changeUpdate(ChangeGroup group, long sequence, ArrayNode edits) {
+        ObjectNode data = JsonNodeFactory.instance.objectNode();
+        ObjectNode update = data.putObject("ietf-yang-push:push-change-update");
+        update.put("subscription-path", group.identifier);
+        ObjectNode patch = update.putObject("datastore-changes").putObject("ietf-yang-patch:yang-patch");
+        patch.put("patch-id", Long.toString(sequence));
+        patch.set("edit", edits);
+        return data;
+    }
+
+    /**
+     * Returns whether two paths address overlapping subtrees; a list
+     * encloses all its entries.
+     */
+    static boolean overlaps(List<String> path, List<String> other) {
+        int common = Math.min(path.size(), other.size());
+        for (int i = 0; i < common; i++) {
+            String segment = path.get(i);
+            String otherSegment = other.get(i);
+            if (segment.equals(otherSegment)) {
+                continue;
+            }
+            //"list" against "list=key" at the last segment of either path
+            String name = nodeName(segment);
+            boolean isWholeList = segment.equals(name) || otherSegment.equals(nodeName(otherSegment));
+            if (!isWholeList || !name.equals(nodeName(otherSegment))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String nodeName(String segment) {
+        int keyStart = segment.indexOf('=');
+        return keyStart > 0 ? segment.substring(0, keyStart) : segment;
+    }
+
+    /**
+     * Subscribers of one data resource with one dampening period.
+     */
+    private static final class ChangeGroup {
+        private static final AtomicLong NEXT_ID = new AtomicLong();
+
+        private final long id = NEXT_ID.incrementAndGet();
+        private final String key;
+        private final String identifier;
+        private final List<String> segments;
+        private final long dampeningMillis;
+        private final Set<StreamConnection> connections = ConcurrentHashMap.newKeySet();
+        private final Set<StreamConnection> newcomers = ConcurrentHashMap.newKeySet();
+        private final Object checkLock = new Object();
+        private final AtomicLong sequence = new AtomicLong();
+        //guarded by the group
+        private boolean isPending;
+        private long lastPushMillis;
+        //guarded by checkLock
+        private long lastHash;
+        private ObjectNode lastContent;
+
+        private ChangeGroup(String key, String identifier, List<String> segments,
+                            long dampeningMillis) {
+            this.key = key;
+            this.identifier = identifier;
+            this.segments = segments;
+            this.dampeningMillis = dampeningMillis;
+        }
+    }
+}
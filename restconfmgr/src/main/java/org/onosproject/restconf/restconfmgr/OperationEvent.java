@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event of a RESTCONF operation on a data resource, from
+ * the manager being called to the result being returned. Only loaded when
+ * the runtime has a flight recorder, see {@link RestconfFlightRecorder}.
+ */
+@Name("org.onosproject.restconf.Operation")
+@Label("RESTCONF Operation")
+@Category({"ONOS", "RESTCONF"})
+@Description("An operation on a RESTCONF data resource")
+@StackTrace(false)
+final class OperationEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Path")
+    @Description("URI identifier of the data resource")
+    String path;
+
+    @Label("Payload Nodes")
+    @Description("Number of data nodes in the request payload")
+    long payloadNodes;
+
+    @Label("YMS Time")
+    @Description("Time spent executing YMS operations")
+    @Timespan
+    long ymsTime;
+
+    @Label("Serialization Time")
+    @Description("Time spent converting between JSON and YDT")
+    @Timespan
+    long serializationTime;
+
+    @Label("Bytes")
+    @Description("Size of the serialized response body")
+    @DataAmount
+    long bytes;
+
+    @Label("Failed")
+    boolean failed;
+}
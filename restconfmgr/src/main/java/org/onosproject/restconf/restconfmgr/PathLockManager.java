@@ -0,0 +1,281 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import org.onosproject.restconf.api.RestconfException;
+
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Hierarchical lock manager for data resource paths. A path is locked with
+ * the usual multi-granularity scheme: intention locks on every ancestor
+ * and a shared or exclusive lock on the node itself, so that edits of
+ * disjoint subtrees run in parallel while an edit and any read or edit of
+ * an enclosing or enclosed subtree are ordered.
+ * <p>
+ * Path prefixes are hashed onto a fixed set of lock stripes; two prefixes
+ * sharing a stripe may wait for each other needlessly but never deadlock,
+ * as stripes are always acquired in ascending order. Exclusive requests
+ * take precedence over new requests on their stripe so that a stream of
+ * reads can't starve an edit.
+ */
+final class PathLockManager {
+
+    /**
+     * Lock modes, from the weakest to the strongest.
+     */
+    private enum Mode {
+        INTENTION_SHARED, INTENTION_EXCLUSIVE, SHARED, EXCLUSIVE;
+
+        private Mode merge(Mode other) {
+            //shared plus intention exclusive has no mode of its own here
+            if (this == SHARED && other == INTENTION_EXCLUSIVE
+                    || this == INTENTION_EXCLUSIVE && other == SHARED) {
+                return EXCLUSIVE;
+            }
+            return compareTo(other) >= 0 ? this : other;
+        }
+    }
+
+    private final Stripe[] stripes;
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong contended = new AtomicLong();
+
+    /**
+     * Creates a lock manager.
+     *
+     * @param stripeCount number of lock stripes
+     */
+    PathLockManager(int stripeCount) {
+        checkArgument(stripeCount > 0, "stripe count should be positive");
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Locks the given paths, waiting as long as needed.
+     *
+     * @param paths     the paths, each a list of decoded URI segments
+     * @param exclusive true to lock the paths for editing, false for reading
+     * @return the lease to close once the operation is done
+     * @throws RestconfException if interrupted while waiting
+     */
+    Lease lock(Collection<List<String>> paths, boolean exclusive) {
+        Map<Integer, Mode> modes = new TreeMap<>();
+        for (List<String> path : paths) {
+            List<Integer> levels = levelHashes(path);
+            for (int i = 0; i < levels.size(); i++) {
+                Mode mode;
+                if (i < levels.size() - 1) {
+                    mode = exclusive ? Mode.INTENTION_EXCLUSIVE : Mode.INTENTION_SHARED;
+                } else {
+                    mode = exclusive ? Mode.EXCLUSIVE : Mode.SHARED;
+                }
+                modes.merge(stripeOf(levels.get(i)), mode, Mode::merge);
+            }
+        }
+
+        long start = System.nanoTime();
+        List<Map.Entry<Integer, Mode>> held = new ArrayList<>(modes.size());
+        boolean isContended = false;
+        try {
+            for (Map.Entry<Integer, Mode> entry : modes.entrySet()) {
+                isContended |= stripes[entry.getKey()].acquire(entry.getValue());
+                held.add(entry);
+            }
+        } catch (InterruptedException e) {
+            release(held);
+            Thread.currentThread().interrupt();
+            throw new RestconfException("Interrupted while waiting for a lock",
+                                        Response.Status.SERVICE_UNAVAILABLE);
+        }
+        acquisitions.incrementAndGet();
+        if (isContended) {
+            contended.incrementAndGet();
+        }
+        return new Lease(held, System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the number of lock acquisitions so far.
+     *
+     * @return number of acquisitions
+     */
+    long acquisitions() {
+        return acquisitions.get();
+    }
+
+    /**
+     * Returns the number of lock acquisitions which had to wait.
+     *
+     * @return number of contended acquisitions
+     */
+    long contended() {
+        return contended.get();
+    }
+
+    /**
+     * Returns the hash of every level of a path. A list entry segment such
+     * as "name=key" makes two levels, the list and the entry, so that the
+     * whole list encloses each of its entries.
+     */
+    private static List<Integer> levelHashes(List<String> path) {
+        List<Integer> levels = new ArrayList<>(path.size() + 2);
+        int hash = 0;
+        for (String segment : path) {
+            int keyStart = segment.indexOf('=');
+            if (keyStart > 0) {
+                levels.add(31 * hash + segment.substring(0, keyStart).hashCode());
+            }
+            hash = 31 * hash + segment.hashCode();
+            levels.add(hash);
+        }
+        return levels;
+    }
+
+    private int stripeOf(int hash) {
+        int spread = hash ^ (hash >>> 16);
+        return (spread & Integer.MAX_VALUE) % stripes.length;
+    }
+
+    private void release(List<Map.Entry<Integer, Mode>> held) {
+        for (int i = held.size() - 1; i >= 0; i--) {
+            Map.Entry<Integer, Mode> entry = held.get(i);
+            stripes[entry.getKey()].release(entry.getValue());
+        }
+    }
+
+    /**
+     * Represents locks held on a set of paths.
+     */
+    final class Lease implements AutoCloseable {
+        private final List<Map.Entry<Integer, Mode>> held;
+        private final long waitNanos;
+        private boolean isReleased;
+
+        private Lease(List<Map.Entry<Integer, Mode>> held, long waitNanos) {
+            this.held = held;
+            this.waitNanos = waitNanos;
+        }
+
+        /**
+         * Returns the time spent acquiring the locks.
+         *
+         * @return lock wait time in nanoseconds
+         */
+        long waitNanos() {
+            return waitNanos;
+        }
+
+        @Override
+        public void close() {
+            if (!isReleased) {
+                isReleased = true;
+                release(held);
+            }
+        }
+    }
+
+    /**
+     * A lock stripe, counting the holders of each mode.
+     */
+    private static final class Stripe {
+        private int intentionShared;
+        private int intentionExclusive;
+        private int shared;
+        private int exclusive;
+        private int waitingExclusive;
+
+        /**
+         * Acquires the stripe in the given mode.
+         *
+         * @return true if the caller had to wait
+         */
+        private synchronized boolean acquire(Mode mode) throws InterruptedException {
+            boolean hasWaited = false;
+            if (mode == Mode.EXCLUSIVE) {
+                waitingExclusive++;
+            }
+            try {
+                while (!isCompatible(mode)) {
+                    hasWaited = true;
+                    wait();
+                }
+            } finally {
+                if (mode == Mode.EXCLUSIVE) {
+                    waitingExclusive--;
+                }
+            }
+            switch (mode) {
+                case INTENTION_SHARED:
+                    intentionShared++;
+                    break;
+                case INTENTION_EXCLUSIVE:
+                    intentionExclusive++;
+                    break;
+                case SHARED:
+                    shared++;
+                    break;
+                default:
+                    exclusive++;
+                    break;
+            }
+            return hasWaited;
+        }
+
+        private synchronized void release(Mode mode) {
+            switch (mode) {
+                case INTENTION_SHARED:
+                    intentionShared--;
+                    break;
+                case INTENTION_EXCLUSIVE:
+                    intentionExclusive--;
+                    break;
+                case SHARED:
+                    shared--;
+                    break;
+                default:
+                    exclusive--;
+                    break;
+            }
+            notifyAll();
+        }
+
+        private boolean isCompatible(Mode mode) {
+            switch (mode) {
+                case INTENTION_SHARED:
+                    return exclusive == 0 && waitingExclusive == 0;
+                case INTENTION_EXCLUSIVE:
+                    return exclusive == 0 && shared == 0 && waitingExclusive == 0;
+                case SHARED:
+                    return exclusive == 0 && intentionExclusive == 0 && waitingExclusive == 0;
+                default:
+                    return exclusive == 0 && shared == 0 && intentionExclusive == 0
+                            && intentionShared == 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.onosproject.restconf.api.RestconfException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Pushes data resources periodically to the subscribers of periodic
+ * subscriptions. The subscribers of the same data resource with the same
+ * period form a group sharing one query and one serialized event per
+ * period. A single scheduler thread triggers all the groups, each starting
+ * at a random offset within its period so that groups with the same period
+ * don't query YMS at the same instant; the queries run on a small worker
+ * pool, and a group whose previous query is still running skips a tick
+ * rather than piling up.
+ */
+final class PeriodicSampler {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Function<String, String> query;
+    private final StreamConnectionRegistry connectionRegistry;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService workers;
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final Map<String, SampleGroup> groups = new ConcurrentHashMap<>();
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong skippedTicks = new AtomicLong();
+
+    /**
+     * Creates a sampler.
+     *
+     * @param query              returns the JSON body of a data resource
+     * @param connectionRegistry the registry of the subscriber connections
+     * @param scheduler          the scheduler triggering the samples
+     * @param workers            the executor running the queries
+     */
+    PeriodicSampler(Function<String, String> query, StreamConnectionRegistry connectionRegistry,
+                    ScheduledExecutorService scheduler, ExecutorService workers) {
+        this.query = query;
+        this.connectionRegistry = connectionRegistry;
+        this.scheduler = scheduler;
+        this.workers = workers;
+    }
+
+    /**
+     * Adds a subscriber to the group of a data resource and period,
+     * scheduling the group if it is new.
+     *
+     * @param identifier   URI of the data resource
+     * @param key          normalized URI of the data resource
+     * @param periodMillis push period in milliseconds
+     * @param connection   the subscriber connection
+     */
+    synchronized void subscribe(String identifier, String key, long periodMillis,
+                                StreamConnection connection) {
+        SampleGroup group = groups.computeIfAbsent(key + "@" + periodMillis,
+                                                   k -> new SampleGroup(k, identifier, periodMillis));
+        group.connections.add(connection);
+        if (group.future == null) {
+            long jitter = ThreadLocalRandom.current().nextLong(periodMillis);
+            group.future = scheduler.scheduleAtFixedRate(() -> tick(group), jitter, periodMillis,
+                                                         TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Cancels all the groups.
+     */
+    synchronized void stop() {
+        groups.values().forEach(g -> g.future.cancel(false));
+        groups.clear();
+    }
+
+    /**
+     * Returns the number of scheduled groups.
+     *
+     * @return number of groups
+     */
+    int groups() {
+        return groups.size();
+    }
+
+    /**
+     * Returns the number of samples taken so far.
+     *
+     * @return number of samples
+     */
+    long ticks() {
+        return ticks.get();
+    }
+
+    /**
+     * Returns the number of samples skipped because the previous sample of
+     * the group was still running.
+     *
+     * @return number of skipped samples
+     */
+    long skippedTicks() {
+        return skippedTicks.get();
+    }
+
+    private void tick(SampleGroup group) {
+        if (!group.isRunning.compareAndSet(false, true)) {
+            skippedTicks.incrementAndGet();
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    sample(group);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to push {}", group.identifier, e);
+                } finally {
+                    group.isRunning.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            group.isRunning.set(false);
+        }
+    }
+
+    private void sample(SampleGroup group) {
+        group.connections.removeIf(StreamConnection::isClosed);
+        if (group.connections.isEmpty()) {
+            removeIfEmpty(group);
+            return;
+        }
+        String body;
+        try {
+            body = query.apply(group.identifier);
+        } catch (RestconfException e) {
+            log.debug("Failed to sample {}: {}", group.identifier, e.getMessage());
+            return;
+        }
+        ticks.incrementAndGet();
+        StreamDeliveryEvent delivery = RestconfFlightRecorder.beginDelivery();
+        long start = System.nanoTime();
+        long sequence = group.sequence.incrementAndGet();
+        long now = System.currentTimeMillis();
+        String data = "{\"ietf-yang-push:push-update\":{\"subscription-path\":\"" +
+                new String(JsonStringEncoder.getInstance().quoteAsString(group.identifier)) +
+                "\",\"period\":" + group.periodMillis +
+                ",\"datastore-contents\":" + body + "}}";
+        StreamEvent event = new StreamEvent(epoch + "-" + group.id + "-" + sequence, sequence, now,
+                                            data, null);
+        long serializationNanos = System.nanoTime() - start;
+        int subscribers = 0;
+        for (StreamConnection connection : group.connections) {
+            if (connectionRegistry.send(connection, event)) {
+                subscribers++;
+            } else {
+                group.connections.remove(connection);
+            }
+        }
+        RestconfFlightRecorder.endDelivery(delivery, RestconfManager.PUSH_STREAM, serializationNanos,
+                                           event.size(), subscribers);
+        if (group.connections.isEmpty()) {
+            removeIfEmpty(group);
+        }
+    }
+
+    private synchronized void removeIfEmpty(SampleGroup group) {
+        if (group.connections.isEmpty() && groups.remove(group.key, group)) {
+            group.future.cancel(false);
+            log.debug("No subscriber left for {} every {} ms", group.identifier, group.periodMillis);
+        }
+    }
+
+    /**
+     * Subscribers of one data resource with one period.
+     */
+    private static final class SampleGroup {
+        private static final AtomicLong NEXT_ID = new AtomicLong();
+
+        private final long id = NEXT_ID.incrementAndGet();
+        private final String key;
+        private final String identifier;
+        private final long periodMillis;
+        private final Set<StreamConnection> connections = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean isRunning = new AtomicBoolean();
+        private final AtomicLong sequence = new AtomicLong();
+        private ScheduledFuture<?> future;
+
+        private SampleGroup(String key, String identifier, long periodMillis) {
+            this.key = key;
+            this.identifier = identifier;
+            this.periodMillis = periodMillis;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.onosproject.restconf.api.ResourceMetadata;
+import org.onosproject.restconf.api.RestconfException;
+
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+
+/**
+ * Represents the result of a query on a data resource, shared by all the
+ * requests coalesced into the query. The JSON body is serialized once; the
+ * JSON tree is only built for callers asking for it.
+ */
+final class QueryResult {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String body;
+    private final ResourceMetadata metadata;
+    private volatile ObjectNode node;
+
+    /**
+     * Creates a query result.
+     *
+     * @param body     the serialized JSON body
+     * @param metadata the validators of the content, or null if none
+     */
+    QueryResult(String body, ResourceMetadata metadata) {
+        this.body = body;
+        this.metadata = metadata;
+    }
+
+    /**
+     * Returns the serialized JSON body.
+     *
+     * @return JSON body
+     */
+    String body() {
+        return body;
+    }
+
+    /**
+     * Returns the validators of the queried content; there are none for a
+     * list query or a missing data resource.
+     *
+     * @return metadata, or null if none
+     */
+    ResourceMetadata metadata() {
+        return metadata;
+    }
+
+    /**
+     * Returns a copy of the JSON tree of the result, which the caller may
+     * modify.
+     *
+     * @return JSON tree
+     */
+    ObjectNode node() {
+        ObjectNode result = node;
+        if (result == null) {
+            try {
+                result = (ObjectNode) MAPPER.readTree(body);
+            } catch (IOException | ClassCastException e) {
+                throw new RestconfException("Invalid JSON data from YMS",
+                                            Response.Status.INTERNAL_SERVER_ERROR);
+            }
+            node = result;
+        }
+        return result.deepCopy();
+    }
+}
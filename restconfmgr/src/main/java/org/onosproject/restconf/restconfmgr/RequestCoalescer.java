@@ -0,0 +1,151 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import org.onosproject.restconf.api.RestconfException;
+
+import javax.ws.rs.core.Response;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical requests: while a request for a key is in
+ * flight, other requests for the same key wait for its result instead of
+ * executing again. Results are not cached, a request arriving after the
+ * in-flight one completed executes anew.
+ * <p>
+ * A write should invalidate the in-flight requests it may affect: a request
+ * arriving after the write must not join a request which started before it.
+ *
+ * @param <K> type of the request key
+ * @param <V> type of the shared result, which should be immutable
+ */
+final class RequestCoalescer<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong executions = new AtomicLong();
+    private final long maxWaitMillis;
+
+    /**
+     * Creates a request coalescer.
+     *
+     * @param maxWaitMillis maximum time to wait for an in-flight request
+     */
+    RequestCoalescer(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Returns the result of the request with the given key, either by
+     * executing the loader or by joining an identical request in flight.
+     *
+     * @param key    the normalized request key
+     * @param loader executes the request
+     * @return the result of the request
+     * @throws RestconfException if the joined request takes too long
+     */
+    V execute(K key, Supplier<V> loader) {
+        requests.incrementAndGet();
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return join(existing);
+        }
+
+        executions.incrementAndGet();
+        V result;
+        try {
+            result = loader.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        //forgotten before the result is visible, so that nothing joins it late
+        inFlight.remove(key, future);
+        future.complete(result);
+        return result;
+    }
+
+    /**
+     * Forgets the in-flight requests matching a predicate, e.g. the reads
+     * overlapping a completed write. They complete as usual for the
+     * requests which already joined them, later requests execute anew.
+     *
+     * @param predicate selects the keys of the requests to forget
+     */
+    void invalidate(Predicate<? super K> predicate) {
+        inFlight.keySet().removeIf(predicate);
+    }
+
+    /**
+     * Returns the number of requests received.
+     *
+     * @return number of requests
+     */
+    long requests() {
+        return requests.get();
+    }
+
+    /**
+     * Returns the number of requests actually executed.
+     *
+     * @return number of executions
+     */
+    long executions() {
+        return executions.get();
+    }
+
+    /**
+     * Returns the share of the requests which joined an in-flight request.
+     *
+     * @return coalescing ratio between 0 and 1
+     */
+    double coalescingRatio() {
+        long total = requests.get();
+        return total == 0 ? 0 : (double) (total - executions.get()) / total;
+    }
+
+    private V join(CompletableFuture<V> future) {
+        try {
+            return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            //rethrow what the executing request got, e.g. a RestconfException
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RestconfException("Timed out waiting for an identical request",
+                                        Response.Status.SERVICE_UNAVAILABLE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RestconfException("Interrupted while waiting for an identical request",
+                                        Response.Status.SERVICE_UNAVAILABLE);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.codahale.metrics.Gauge;
+import org.apache.felix.scr.annotations.Activate;
+import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.ReferenceCardinality;
+import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsService;
+import org.onosproject.cfg.ComponentConfigService;
+import org.onosproject.restconf.api.AccessLogRecord;
+import org.onosproject.restconf.api.RequestTrace;
+import org.onosproject.restconf.api.RestconfAccessLogService;
+import org.osgi.service.component.ComponentContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Dictionary;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.collect.ImmutableList.copyOf;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static org.onlab.util.Tools.get;
+import static org.onlab.util.Tools.groupedThreads;
+
+/**
+ * Writes the RESTCONF access log and the request failures from a
+ * background thread. The request threads only append to lock-free queues;
+ * successful requests are sampled and server errors are rate limited, both
+ * configurable at runtime.
+ */
+@Component(immediate = true)
+@Service
+public class RestconfAccessLogManager implements RestconfAccessLogService {
+
+    //the access log has its own logger so that it can be routed to its own file
+    private static final String ACCESS_LOGGER = "org.onosproject.restconf.access";
+    private static final String ACCESS_LOG_FEATURE = "accessLog";
+    private static final int RECORD_QUEUE_SIZE = 64 * 1024;
+    private static final int ERROR_QUEUE_SIZE = 256;
+    private static final long DRAIN_PERIOD_MILLIS = 100;
+    private static final int MIN_CLIENT_ERROR = 400;
+    private static final int MIN_SERVER_ERROR = 500;
+
+    private static final int DEFAULT_ACCESS_LOG_SAMPLING = 1;
+    @Property(name = "accessLogSampling", intValue = DEFAULT_ACCESS_LOG_SAMPLING,
+            label = "Record one in N successful requests in the access log; failed requests " +
+                    "are always recorded, 0 disables the access log")
+    private int accessLogSampling = DEFAULT_ACCESS_LOG_SAMPLING;
+
+    private static final int DEFAULT_ERROR_LOGS_PER_SECOND = 10;
+    @Property(name = "errorLogsPerSecond", intValue = DEFAULT_ERROR_LOGS_PER_SECOND,
+            label = "Maximum number of server errors logged with their stack trace per second; " +
+                    "the others are only counted")
+    private int errorLogsPerSecond = DEFAULT_ERROR_LOGS_PER_SECOND;
+
+    private static final int DEFAULT_SLOW_REQUEST_MILLIS = 1000;
+    @Property(name = "slowRequestMillis", intValue = DEFAULT_SLOW_REQUEST_MILLIS,
+            label = "Keep the trace of requests taking at least this many milliseconds " +
+                    "in the slow request log, 0 keeps every request")
+    private int slowRequestMillis = DEFAULT_SLOW_REQUEST_MILLIS;
+
+    private static final int DEFAULT_SLOW_REQUEST_LOG_SIZE = 100;
+    @Property(name = "slowRequestLogSize", intValue = DEFAULT_SLOW_REQUEST_LOG_SIZE,
+            label = "Maximum number of traces kept in the slow request log, 0 disables it")
+    private int slowRequestLogSize = DEFAULT_SLOW_REQUEST_LOG_SIZE;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final Logger accessLog = LoggerFactory.getLogger(ACCESS_LOGGER);
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected ComponentConfigService cfgService;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
+    private final AccessLogRing<AccessLogRecord> records = new AccessLogRing<>(RECORD_QUEUE_SIZE);
+    private final AccessLogRing<ErrorRecord> errors = new AccessLogRing<>(ERROR_QUEUE_SIZE);
+    //most recent first, guarded by itself
+    private final Deque<RequestTrace> slowRequests = new ArrayDeque<>();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong suppressedErrors = new AtomicLong();
+    private final AtomicLong unreportedErrors = new AtomicLong();
+    private long errorWindowSecond;
+    private int errorWindowCount;
+    private RestconfMetrics metrics;
+    private ScheduledExecutorService writer;
+
+    @Activate
+    protected void activate(ComponentContext context) {
+        cfgService.registerProperties(getClass());
+        modified(context);
+        metrics = new RestconfMetrics(metricsService);
+        metrics.gauge(ACCESS_LOG_FEATURE, "written", (Gauge<Long>) written::get);
+        metrics.gauge(ACCESS_LOG_FEATURE, "dropped", (Gauge<Long>) records::dropped);
+        metrics.gauge(ACCESS_LOG_FEATURE, "suppressedErrors", (Gauge<Long>) suppressedErrors::get);
+        metrics.gauge(ACCESS_LOG_FEATURE, "slowRequests", (Gauge<Integer>) this::slowRequestCount);
+        writer = newSingleThreadScheduledExecutor(groupedThreads("onos/restconf", "access-log"));
+        writer.scheduleWithFixedDelay(this::drain, DRAIN_PERIOD_MILLIS, DRAIN_PERIOD_MILLIS,
+                                      TimeUnit.MILLISECONDS);
+        log.info("Started");
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(DRAIN_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+        metrics.removeAll();
+        cfgService.unregisterProperties(getClass(), false);
+        log.info("Stopped");
+    }
+
+    @Modified
+    protected void modified(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+        Dictionary<?, ?> properties = context.getProperties();
+        accessLogSampling = Math.max(getIntProperty(properties, "accessLogSampling",
+                                                    DEFAULT_ACCESS_LOG_SAMPLING), 0);
+        errorLogsPerSecond = Math.max(getIntProperty(properties, "errorLogsPerSecond",
+                                                     DEFAULT_ERROR_LOGS_PER_SECOND), 0);
+        slowRequestMillis = Math.max(getIntProperty(properties, "slowRequestMillis",
+                                                    DEFAULT_SLOW_REQUEST_MILLIS), 0);
+        slowRequestLogSize = Math.max(getIntProperty(properties, "slowRequestLogSize",
+                                                     DEFAULT_SLOW_REQUEST_LOG_SIZE), 0);
+        synchronized (slowRequests) {
+            while (slowRequests.size() > slowRequestLogSize) {
+                slowRequests.removeLast();
+            }
+        }
+        log.info("Settings: accessLogSampling={}, errorLogsPerSecond={}, slowRequestMillis={}, " +
+                         "slowRequestLogSize={}",
+                 accessLogSampling, errorLogsPerSecond, slowRequestMillis, slowRequestLogSize);
+    }
+
+    private int getIntProperty(Dictionary<?, ?> properties, String name, int defaultValue) {
+        String value = get(properties, name);
+        try {
+            return isNullOrEmpty(value) ? defaultValue : Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value {} for property {}, using {}", value, name, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public void record(AccessLogRecord record) {
+        int sampling = accessLogSampling;
+        if (sampling == 0 || !accessLog.isInfoEnabled()) {
+            return;
+        }
+        if (record.status() < MIN_CLIENT_ERROR && sampling > 1
+                && ThreadLocalRandom.current().nextInt(sampling) != 0) {
+            return;
+        }
+        records.offer(record);
+    }
+
+    @Override
+    public void error(String operation, int status, Throwable error) {
+        if (status < MIN_SERVER_ERROR) {
+            log.debug("{} failed with {}: {}", operation, status, error.getMessage());
+            return;
+        }
+        if (!tryAcquireErrorLog() || !errors.offer(new ErrorRecord(operation, status, error))) {
+            suppressedErrors.incrementAndGet();
+            unreportedErrors.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void trace(RequestTrace trace) {
+        int size = slowRequestLogSize;
+        if (size == 0 || TimeUnit.NANOSECONDS.toMillis(trace.durationNanos()) < slowRequestMillis) {
+            return;
+        }
+        synchronized (slowRequests) {
+            slowRequests.addFirst(trace);
+            while (slowRequests.size() > size) {
+                slowRequests.removeLast();
+            }
+        }
+    }
+
+    @Override
+    public List<RequestTrace> slowRequests() {
+        synchronized (slowRequests) {
+            return copyOf(slowRequests);
+        }
+    }
+
+    private int slowRequestCount() {
+        synchronized (slowRequests) {
+            return slowRequests.size();
+        }
+    }
+
+    /**
+     * Counts an error log in the current one second window, unless the
+     * window is already full.
+     */
+    private synchronized boolean tryAcquireErrorLog() {
+        long second = System.currentTimeMillis() / 1000;
+        if (second != errorWindowSecond) {
+            errorWindowSecond = second;
+            errorWindowCount = 0;
+        }
+        if (errorWindowCount >= errorLogsPerSecond) {
+            return false;
+        }
+        errorWindowCount++;
+        return true;
+    }
+
+    private void drain() {
+        try {
+            written.addAndGet(records.drain(this::write));
+            errors.drain(e -> log.error("{} failed with {}", e.operation, e.status, e.error));
+            long unreported = unreportedErrors.getAndSet(0);
+            if (unreported > 0) {
+                log.warn("{} more errors not logged, at most {} are logged per second",
+                         unreported, errorLogsPerSecond);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to write the access log", e);
+        }
+    }
+
+    private void write(AccessLogRecord record) {
+        accessLog.info("id={} method={} path=\"{}\" status={} bytes={} start={} handleMicros={} writeMicros={}",
+                       record.requestId(), record.method(), record.path(), record.status(), record.bytes(),
+                       record.startMillis(), TimeUnit.NANOSECONDS.toMicros(record.handleNanos()),
+                       TimeUnit.NANOSECONDS.toMicros(record.writeNanos()));
+    }
+
+    /**
+     * A request failure waiting to be logged.
+     */
+    private static final class ErrorRecord {
+        private final String operation;
+        private final int status;
+        private final Throwable error;
+
+        private ErrorRecord(String operation, int status, Throwable error) {
+            this.operation = operation;
+            this.status = status;
+            this.error = error;
+        }
+    }
+}
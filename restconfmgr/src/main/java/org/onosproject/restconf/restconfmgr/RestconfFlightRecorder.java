@@ -0,0 +1,168 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Emits the RESTCONF operations and stream deliveries as Java Flight
+ * Recorder events, so that a recording relates its GC and CPU samples to
+ * the requests being served.
+ * <p>
+ * The event classes are only loaded when the runtime has the flight
+ * recorder API; otherwise, as when no recording enables the events, every
+ * method returns null or does nothing. The YMS and serialization times are
+ * added to the operation recorded by the calling thread, if any.
+ */
+final class RestconfFlightRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(RestconfFlightRecorder.class);
+    private static final boolean AVAILABLE = isAvailable();
+    private static final ThreadLocal<OperationEvent> CURRENT = new ThreadLocal<>();
+
+    //utility class
+    private RestconfFlightRecorder() {
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, RestconfFlightRecorder.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            log.debug("Flight recorder events disabled: {}", e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Begins recording an operation on the calling thread.
+     *
+     * @param operation name of the RESTCONF operation
+     * @param path      URI identifier of the data resource
+     * @param payload   request payload, null if none
+     * @return the event, null if the operation is not recorded
+     */
+    static OperationEvent beginOperation(String operation, String path, ObjectNode payload) {
+        if (!AVAILABLE) {
+            return null;
+        }
+        OperationEvent event = new OperationEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.operation = operation;
+        event.path = path;
+        if (payload != null) {
+            event.payloadNodes = EditDiff.countNodes(payload);
+        }
+        event.begin();
+        CURRENT.set(event);
+        return event;
+    }
+
+    /**
+     * Ends and commits an operation event.
+     *
+     * @param event  the event, null if the operation is not recorded
+     * @param bytes  size of the serialized response body
+     * @param failed whether the operation failed
+     */
+    static void endOperation(OperationEvent event, long bytes, boolean failed) {
+        if (event == null) {
+            return;
+        }
+        CURRENT.remove();
+        event.end();
+        if (event.shouldCommit()) {
+            event.bytes = bytes;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+
+    /**
+     * Adds time spent in YMS to the operation of the calling thread.
+     *
+     * @param nanos time spent, in nanoseconds
+     */
+    static void addYmsTime(long nanos) {
+        if (AVAILABLE) {
+            OperationEvent event = CURRENT.get();
+            if (event != null) {
+                event.ymsTime += nanos;
+            }
+        }
+    }
+
+    /**
+     * Adds time spent converting between JSON and YDT to the operation of
+     * the calling thread.
+     *
+     * @param nanos time spent, in nanoseconds
+     */
+    static void addSerializationTime(long nanos) {
+        if (AVAILABLE) {
+            OperationEvent event = CURRENT.get();
+            if (event != null) {
+                event.serializationTime += nanos;
+            }
+        }
+    }
+
+    /**
+     * Begins recording the delivery of an event to the subscribers of a
+     * stream.
+     *
+     * @return the event, null if the delivery is not recorded
+     */
+    static StreamDeliveryEvent beginDelivery() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        StreamDeliveryEvent event = new StreamDeliveryEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends and commits a stream delivery event.
+     *
+     * @param event             the event, null if the delivery is not recorded
+     * @param stream            ID of the RESTCONF stream
+     * @param serializationTime time spent serializing the event, in nanoseconds
+     * @param bytes             size of the event data
+     * @param subscribers       number of subscribers the event was written to
+     */
+    static void endDelivery(StreamDeliveryEvent event, String stream, long serializationTime,
+                            long bytes, int subscribers) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.stream = stream;
+            event.serializationTime = serializationTime;
+            event.bytes = bytes;
+            event.subscribers = subscribers;
+            event.commit();
+        }
+    }
+}
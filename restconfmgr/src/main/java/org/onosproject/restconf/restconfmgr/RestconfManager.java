@@ -15,28 +15,99 @@
  */
 package org.onosproject.restconf.restconfmgr;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.base.Utf8;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
+import org.apache.felix.scr.annotations.ReferencePolicy;
 import org.apache.felix.scr.annotations.Service;
 import org.glassfish.jersey.server.ChunkedOutput;
+import org.onlab.metrics.MetricsService;
+import org.onosproject.cfg.ComponentConfigService;
+import org.onosproject.restconf.api.EditOutcome;
+import org.onosproject.restconf.api.OperationStatus;
+import org.onosproject.restconf.api.QueryOptions;
+import org.onosproject.restconf.api.RequestPriority;
+import org.onosproject.restconf.api.RequestTrace;
 import org.onosproject.restconf.api.RestconfException;
+import org.onosproject.restconf.api.ResourceContent;
+import org.onosproject.restconf.api.ResourceMetadata;
 import org.onosproject.restconf.api.RestconfService;
+import org.onosproject.restconf.api.StreamSubscription;
+import org.onosproject.restconf.restconfmgr.ConcurrencyLimiter.Lane;
+import org.onosproject.restconf.utils.exceptions.JsonParseException;
+import org.onosproject.restconf.utils.hash.YdtMerkleTree;
+import org.onosproject.restconf.utils.parser.api.YangSchemaResolver;
+import org.onosproject.restconf.utils.parser.json.CachingSchemaResolver;
+import org.onosproject.restconf.utils.parser.json.ListQuery;
 import org.onosproject.restconf.utils.parser.json.ParserUtils;
 import org.onosproject.yms.ydt.YdtBuilder;
 import org.onosproject.yms.ydt.YdtContext;
 import org.onosproject.yms.ydt.YdtContextOperationType;
 import org.onosproject.yms.ydt.YdtResponse;
+import org.onosproject.yms.ydt.YdtType;
 import org.onosproject.yms.ydt.YmsOperationExecutionStatus;
 import org.onosproject.yms.ydt.YmsOperationType;
 import org.onosproject.yms.ymsm.YmsService;
+import org.onosproject.yms.ynh.YangNotification;
+import org.onosproject.yms.ynh.YangNotificationEvent;
+import org.onosproject.yms.ynh.YangNotificationListener;
+import org.onosproject.yms.ynh.YangNotificationService;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.core.Response;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Dictionary;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static org.onlab.util.Tools.get;
+import static org.onlab.util.Tools.groupedThreads;
 
 /*
  * Skeletal ONOS RESTCONF Server application. The RESTCONF Manager
@@ -57,116 +128,1053 @@ import javax.ws.rs.core.Response;
 public class RestconfManager implements RestconfService {
 
     private static final String RESTCONF_ROOT = "/onos/restconf";
+    //the only stream defined so far, it carries all the YANG notifications
+    private static final String DEFAULT_STREAM = "NETCONF";
+    //carries the periodic pushes of data resources
+    static final String PUSH_STREAM = "yang-push";
+    private static final long MIN_PUSH_PERIOD_MILLIS = 100;
+    private static final int PUSH_WORKERS = 4;
+    private static final String STREAMS_FEATURE = "streams";
+    private static final String QUERY_FEATURE = "query";
+    private static final String EDIT_FEATURE = "edit";
+    private static final String LOCKS_FEATURE = "locks";
+    private static final String YMS_FEATURE = "yms";
+    private static final String ASYNC_FEATURE = "async";
+    private static final String IDEMPOTENCY_FEATURE = "idempotency";
+    private static final int MAX_COMPILED_FILTERS = 1024;
+    private static final int LOCK_STRIPES = 256;
+    private static final int MAX_BATCH_QUERY_SIZE = 128;
+    private static final int MAX_RESOURCE_METADATA = 4096;
+    private static final long MAX_COALESCED_WAIT_MILLIS = 30000;
+    private static final String NOT_A_LIST = "match and count only apply to a list resource";
+    private static final int EDIT_BATCH_WORKERS = 4;
+    private static final long MAX_BATCHED_EDIT_WAIT_MILLIS = 30000;
+    private static final Splitter SLASH_SPLITTER = Splitter.on('/');
+    private static final CharMatcher SLASH_MATCHER = CharMatcher.is('/');
+    private static final Joiner SLASH_JOINER = Joiner.on('/');
+    private static final Comparator<Iterable<String>> PATH_ORDER = Ordering.<String>natural().lexicographical();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private static final int DEFAULT_STREAM_HEARTBEAT_SECONDS = 30;
+    @Property(name = "streamHeartbeatSeconds", intValue = DEFAULT_STREAM_HEARTBEAT_SECONDS,
+            label = "Period of the heartbeats sent on quiet event stream connections, in seconds")
+    private int streamHeartbeatSeconds = DEFAULT_STREAM_HEARTBEAT_SECONDS;
+
+    private static final int DEFAULT_STREAM_IDLE_TIMEOUT_SECONDS = 0;
+    @Property(name = "streamIdleTimeoutSeconds", intValue = DEFAULT_STREAM_IDLE_TIMEOUT_SECONDS,
+            label = "Time after which an event stream connection without events is closed, " +
+                    "in seconds; 0 keeps the connections open")
+    private int streamIdleTimeoutSeconds = DEFAULT_STREAM_IDLE_TIMEOUT_SECONDS;
+
+    private static final int DEFAULT_STREAM_REPLAY_MAX_EVENTS = 1000;
+    @Property(name = "streamReplayMaxEvents", intValue = DEFAULT_STREAM_REPLAY_MAX_EVENTS,
+            label = "Maximum number of events retained per stream for replay")
+    private int streamReplayMaxEvents = DEFAULT_STREAM_REPLAY_MAX_EVENTS;
+
+    private static final int DEFAULT_STREAM_REPLAY_MAX_KBYTES = 4096;
+    @Property(name = "streamReplayMaxKBytes", intValue = DEFAULT_STREAM_REPLAY_MAX_KBYTES,
+            label = "Maximum size of the events retained per stream for replay, in KB")
+    private int streamReplayMaxKBytes = DEFAULT_STREAM_REPLAY_MAX_KBYTES;
+
+    private static final int DEFAULT_STREAM_MAX_QUEUED_KBYTES = 4096;
+    @Property(name = "streamMaxQueuedKBytes", intValue = DEFAULT_STREAM_MAX_QUEUED_KBYTES,
+            label = "Maximum size of the events waiting to be written to one event stream " +
+                    "connection, in KB; a slower peer is disconnected")
+    private int streamMaxQueuedKBytes = DEFAULT_STREAM_MAX_QUEUED_KBYTES;
+
+    private static final int DEFAULT_EDIT_BATCH_WINDOW_MILLIS = 0;
+    @Property(name = "editBatchWindowMillis", intValue = DEFAULT_EDIT_BATCH_WINDOW_MILLIS,
+            label = "Time to collect concurrent edits into one YMS operation, in milliseconds; " +
+                    "0 executes each edit on its own")
+    private int editBatchWindowMillis = DEFAULT_EDIT_BATCH_WINDOW_MILLIS;
+
+    private static final int DEFAULT_EDIT_BATCH_MAX_SIZE = 64;
+    @Property(name = "editBatchMaxSize", intValue = DEFAULT_EDIT_BATCH_MAX_SIZE,
+            label = "Maximum number of edits executed as one YMS operation")
+    private int editBatchMaxSize = DEFAULT_EDIT_BATCH_MAX_SIZE;
+
+    private static final boolean DEFAULT_QUERY_LOCKING = true;
+    @Property(name = "queryLocking", boolValue = DEFAULT_QUERY_LOCKING,
+            label = "Order queries with the edits of the same subtree; when disabled, " +
+                    "queries bypass the path locks and may observe an edit in progress")
+    private boolean queryLocking = DEFAULT_QUERY_LOCKING;
+
+    private static final boolean DEFAULT_MINIMAL_DIFF_PUT = false;
+    @Property(name = "minimalDiffPut", boolValue = DEFAULT_MINIMAL_DIFF_PUT,
+            label = "Turn a PUT into the minimal edit from the current content, so that " +
+                    "only the changed nodes reach YMS; a changed list needs its keys from a schema " +
+                    "resolver, otherwise the PUT replaces the resource as a whole")
+    private boolean minimalDiffPut = DEFAULT_MINIMAL_DIFF_PUT;
+
+    private static final int DEFAULT_IMPORT_BATCH_SIZE = 256;
+    @Property(name = "importBatchSize", intValue = DEFAULT_IMPORT_BATCH_SIZE,
+            label = "Number of imported records merged per YMS operation")
+    private int importBatchSize = DEFAULT_IMPORT_BATCH_SIZE;
+
+    private static final int DEFAULT_YMS_MAX_CONCURRENCY = 64;
+    @Property(name = "ymsMaxConcurrency", intValue = DEFAULT_YMS_MAX_CONCURRENCY,
+            label = "Highest number of concurrent YMS operations; the actual limit adapts to " +
+                    "the YMS latency, 0 disables the limit")
+    private int ymsMaxConcurrency = DEFAULT_YMS_MAX_CONCURRENCY;
+
+    private static final int DEFAULT_YMS_MIN_CONCURRENCY = 4;
+    @Property(name = "ymsMinConcurrency", intValue = DEFAULT_YMS_MIN_CONCURRENCY,
+            label = "Lowest number of concurrent YMS operations the adaptive limit may go down to")
+    private int ymsMinConcurrency = DEFAULT_YMS_MIN_CONCURRENCY;
+
+    private static final int DEFAULT_YMS_QUEUE_SIZE = 256;
+    @Property(name = "ymsQueueSize", intValue = DEFAULT_YMS_QUEUE_SIZE,
+            label = "Maximum number of operations waiting for the YMS limit in each of the query, " +
+                    "edit and stream lanes; others are rejected")
+    private int ymsQueueSize = DEFAULT_YMS_QUEUE_SIZE;
+
+    private static final int DEFAULT_YMS_QUEUE_TIMEOUT_MILLIS = 2000;
+    @Property(name = "ymsQueueTimeoutMillis", intValue = DEFAULT_YMS_QUEUE_TIMEOUT_MILLIS,
+            label = "Maximum time an operation waits for the YMS limit, in milliseconds")
+    private int ymsQueueTimeoutMillis = DEFAULT_YMS_QUEUE_TIMEOUT_MILLIS;
 
+    private static final int DEFAULT_ASYNC_EDIT_WORKERS = 2;
+    @Property(name = "asyncEditWorkers", intValue = DEFAULT_ASYNC_EDIT_WORKERS,
+            label = "Number of workers executing the asynchronous edits")
+    private int asyncEditWorkers = DEFAULT_ASYNC_EDIT_WORKERS;
+
+    private static final int DEFAULT_ASYNC_EDIT_MAX_PENDING = 1000;
+    @Property(name = "asyncEditMaxPending", intValue = DEFAULT_ASYNC_EDIT_MAX_PENDING,
+            label = "Maximum number of asynchronous edits queued or running; others are rejected")
+    private int asyncEditMaxPending = DEFAULT_ASYNC_EDIT_MAX_PENDING;
+
+    private static final int DEFAULT_ASYNC_EDIT_RETENTION_SECONDS = 600;
+    @Property(name = "asyncEditRetentionSeconds", intValue = DEFAULT_ASYNC_EDIT_RETENTION_SECONDS,
+            label = "Time the status of a finished asynchronous edit is kept, in seconds")
+    private int asyncEditRetentionSeconds = DEFAULT_ASYNC_EDIT_RETENTION_SECONDS;
+
+    private static final int DEFAULT_IDEMPOTENCY_KEY_CAPACITY = 10000;
+    @Property(name = "idempotencyKeyCapacity", intValue = DEFAULT_IDEMPOTENCY_KEY_CAPACITY,
+            label = "Maximum number of idempotency keys whose request outcome is kept; 0 disables them")
+    private int idempotencyKeyCapacity = DEFAULT_IDEMPOTENCY_KEY_CAPACITY;
+
+    private static final int DEFAULT_IDEMPOTENCY_KEY_EXPIRY_SECONDS = 3600;
+    @Property(name = "idempotencyKeyExpirySeconds", intValue = DEFAULT_IDEMPOTENCY_KEY_EXPIRY_SECONDS,
+            label = "Time the outcome of a request is kept against its idempotency key, in seconds")
+    private int idempotencyKeyExpirySeconds = DEFAULT_IDEMPOTENCY_KEY_EXPIRY_SECONDS;
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected YmsService ymsService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected ComponentConfigService cfgService;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY,
+            policy = ReferencePolicy.DYNAMIC,
+            bind = "bindSchemaResolver", unbind = "unbindSchemaResolver",
+            updated = "updatedSchemaResolver")
+    protected YangSchemaResolver schemaResolverService;
+
+    //schema lookups are cached per schema path; null when no resolver is bound
+    private volatile CachingSchemaResolver schemaResolver;
+
+    private RestconfMetrics metrics;
+    private StreamConnectionRegistry connectionRegistry;
+    private StreamReplayBuffer replayBuffer;
+    //compiled once per distinct filter expression
+    private final Cache<String, StreamFilter> streamFilters =
+            CacheBuilder.newBuilder().maximumSize(MAX_COMPILED_FILTERS).build();
+    private ExecutorService eventExecutor;
+    private ScheduledExecutorService pushScheduler;
+    private ExecutorService pushWorkers;
+    private PeriodicSampler periodicSampler;
+    private OnChangeTracker onChangeTracker;
+    private EditBatcher editBatcher;
+    private AsyncEditQueue asyncEdits;
+    //outcomes of the recent edits by idempotency key, for the retries
+    private IdempotencyTable idempotencyKeys;
+    private YangNotificationService notificationService;
+    private final YangNotificationListener notificationListener =
+            new InternalNotificationListener();
+    private final RequestCoalescer<String, QueryResult> queryCoalescer =
+            new RequestCoalescer<>(MAX_COALESCED_WAIT_MILLIS);
+    //orders the operations on overlapping subtrees
+    private final PathLockManager lockManager = new PathLockManager(LOCK_STRIPES);
+    private Timer lockWaitTimer;
+    //adapts the number of concurrent YMS operations to the YMS latency
+    private ConcurrencyLimiter ymsLimiter;
+    private Counter diffNodesReceived;
+    private Counter diffNodesSent;
+    private Counter diffFallbacks;
+    //validators and body size of the recently read resources
+    private final Cache<String, ResourceMetadata> resourceMetadata =
+            CacheBuilder.newBuilder().maximumSize(MAX_RESOURCE_METADATA).build();
 
     @Activate
-    protected void activate() {
+    protected void activate(ComponentContext context) {
+        cfgService.registerProperties(getClass());
+        connectionRegistry = new StreamConnectionRegistry(
+                streamHeartbeatSeconds * 1000L, streamIdleTimeoutSeconds * 1000L,
+                streamMaxQueuedKBytes * 1024L, groupedThreads("onos/restconf", "stream-writer-%d"));
+        replayBuffer = new StreamReplayBuffer(streamReplayMaxEvents, streamReplayMaxKBytes * 1024L);
+        editBatcher = new EditBatcher(this::executeEditBatch, this::executeEdit, EDIT_BATCH_WORKERS,
+                                      MAX_BATCHED_EDIT_WAIT_MILLIS,
+                                      groupedThreads("onos/restconf", "edit-batcher-%d"));
+        ymsLimiter = new ConcurrencyLimiter(ymsMinConcurrency, ymsMaxConcurrency, ymsQueueSize,
+                                            ymsQueueTimeoutMillis);
+        asyncEdits = new AsyncEditQueue(asyncEditWorkers, asyncEditMaxPending, asyncEditRetentionSeconds,
+                                        groupedThreads("onos/restconf", "async-edit-%d"));
+        idempotencyKeys = new IdempotencyTable(idempotencyKeyCapacity, idempotencyKeyExpirySeconds);
+        modified(context);
+        connectionRegistry.start();
+
+        metrics = new RestconfMetrics(metricsService);
+        metrics.gauge(STREAMS_FEATURE, "openConnections",
+                      (Gauge<Integer>) connectionRegistry::size);
+        metrics.gauge(STREAMS_FEATURE, "bytesWritten",
+                      (Gauge<Long>) connectionRegistry::bytesWritten);
+        metrics.gauge(STREAMS_FEATURE, "openConnectionsBytesWritten",
+                      (Gauge<Long>) connectionRegistry::openBytesWritten);
+        metrics.gauge(STREAMS_FEATURE, "heartbeatsSent",
+                      (Gauge<Long>) connectionRegistry::heartbeatsSent);
+        metrics.gauge(STREAMS_FEATURE, "deadPeersDropped",
+                      (Gauge<Long>) connectionRegistry::deadPeersDropped);
+        metrics.gauge(STREAMS_FEATURE, "idlePeersDropped",
+                      (Gauge<Long>) connectionRegistry::idlePeersDropped);
+        metrics.gauge(STREAMS_FEATURE, "filteredOut",
+                      (Gauge<Long>) connectionRegistry::filteredOut);
+        metrics.gauge(STREAMS_FEATURE, "replayEvents", (Gauge<Integer>) replayBuffer::size);
+        metrics.gauge(STREAMS_FEATURE, "replayBytes", (Gauge<Long>) replayBuffer::bytes);
+        metrics.gauge(QUERY_FEATURE, "requests", (Gauge<Long>) queryCoalescer::requests);
+        metrics.gauge(QUERY_FEATURE, "executions", (Gauge<Long>) queryCoalescer::executions);
+        metrics.gauge(QUERY_FEATURE, "coalescingRatio",
+                      (Gauge<Double>) queryCoalescer::coalescingRatio);
+        metrics.gauge(EDIT_FEATURE, "batches", (Gauge<Long>) editBatcher::batches);
+        metrics.gauge(EDIT_FEATURE, "batchedEdits", (Gauge<Long>) editBatcher::batchedEdits);
+        metrics.gauge(EDIT_FEATURE, "batchFallbacks", (Gauge<Long>) editBatcher::fallbacks);
+        metrics.gauge(LOCKS_FEATURE, "acquisitions", (Gauge<Long>) lockManager::acquisitions);
+        metrics.gauge(LOCKS_FEATURE, "contended", (Gauge<Long>) lockManager::contended);
+        lockWaitTimer = metrics.timer(LOCKS_FEATURE, "lockWait");
+        metrics.gauge(ASYNC_FEATURE, "pending", (Gauge<Integer>) asyncEdits::pending);
+        metrics.gauge(ASYNC_FEATURE, "submitted", (Gauge<Long>) asyncEdits::submitted);
+        metrics.gauge(ASYNC_FEATURE, "failed", (Gauge<Long>) asyncEdits::failed);
+        metrics.gauge(ASYNC_FEATURE, "rejected", (Gauge<Long>) asyncEdits::rejected);
+        metrics.gauge(ASYNC_FEATURE, "retained", (Gauge<Long>) asyncEdits::retained);
+        metrics.gauge(IDEMPOTENCY_FEATURE, "keys", (Gauge<Long>) idempotencyKeys::size);
+        metrics.gauge(IDEMPOTENCY_FEATURE, "replayed", (Gauge<Long>) idempotencyKeys::replayed);
+        metrics.gauge(IDEMPOTENCY_FEATURE, "mismatched", (Gauge<Long>) idempotencyKeys::mismatched);
+        metrics.gauge(IDEMPOTENCY_FEATURE, "conflicts", (Gauge<Long>) idempotencyKeys::conflicts);
+        metrics.gauge(YMS_FEATURE, "concurrencyLimit", (Gauge<Integer>) ymsLimiter::limit);
+        metrics.gauge(YMS_FEATURE, "inFlight", (Gauge<Integer>) ymsLimiter::inFlight);
+        metrics.gauge(YMS_FEATURE, "queued", (Gauge<Integer>) ymsLimiter::queued);
+        for (Lane lane : Lane.values()) {
+            String name = lane.name().toLowerCase();
+            metrics.gauge(YMS_FEATURE, name + "InFlight", (Gauge<Integer>) () -> ymsLimiter.inFlight(lane));
+            metrics.gauge(YMS_FEATURE, name + "Queued", (Gauge<Integer>) () -> ymsLimiter.queued(lane));
+        }
+        metrics.gauge(YMS_FEATURE, "rejected", (Gauge<Long>) ymsLimiter::rejected);
+        metrics.gauge(YMS_FEATURE, "recentLatencyMicros",
+                      (Gauge<Long>) ymsLimiter::recentLatencyMicros);
+        metrics.gauge(YMS_FEATURE, "minLatencyMicros", (Gauge<Long>) ymsLimiter::minLatencyMicros);
+        diffNodesReceived = metrics.counter(EDIT_FEATURE, "diffNodesReceived");
+        diffNodesSent = metrics.counter(EDIT_FEATURE, "diffNodesSent");
+        diffFallbacks = metrics.counter(EDIT_FEATURE, "diffFallbacks");
+
+        eventExecutor = newSingleThreadExecutor(groupedThreads("onos/restconf", "event-delivery"));
+        pushScheduler = newSingleThreadScheduledExecutor(groupedThreads("onos/restconf", "push-scheduler"));
+        pushWorkers = newFixedThreadPool(PUSH_WORKERS, groupedThreads("onos/restconf", "push-worker-%d"));
+        periodicSampler = new PeriodicSampler(id -> query(id, Lane.STREAM).body(), connectionRegistry,
+                                              pushScheduler, pushWorkers);
+        metrics.gauge(STREAMS_FEATURE, "periodicGroups", (Gauge<Integer>) periodicSampler::groups);
+        metrics.gauge(STREAMS_FEATURE, "periodicPushes", (Gauge<Long>) periodicSampler::ticks);
+        metrics.gauge(STREAMS_FEATURE, "periodicSkippedTicks",
+                      (Gauge<Long>) periodicSampler::skippedTicks);
+        onChangeTracker = new OnChangeTracker(this::snapshot, () -> schemaResolver, connectionRegistry,
+                                              pushScheduler, pushWorkers);
+        metrics.gauge(STREAMS_FEATURE, "onChangeGroups", (Gauge<Integer>) onChangeTracker::groups);
+        metrics.gauge(STREAMS_FEATURE, "onChangeChecks", (Gauge<Long>) onChangeTracker::checks);
+        metrics.gauge(STREAMS_FEATURE, "onChangePushes", (Gauge<Long>) onChangeTracker::pushes);
+        notificationService = ymsService.getYangNotificationService();
+        notificationService.addListener(notificationListener);
         log.info("Started");
     }
 
     @Deactivate
     protected void deactivate() {
+        notificationService.removeListener(notificationListener);
+        eventExecutor.shutdown();
+        periodicSampler.stop();
+        onChangeTracker.stop();
+        pushScheduler.shutdown();
+        pushWorkers.shutdown();
+        asyncEdits.stop();
+        editBatcher.stop();
+        connectionRegistry.stop();
+        metrics.removeAll();
+        cfgService.unregisterProperties(getClass(), false);
         log.info("Stopped");
     }
 
+    @Modified
+    protected void modified(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+        Dictionary<?, ?> properties = context.getProperties();
+        streamHeartbeatSeconds = getIntProperty(properties, "streamHeartbeatSeconds",
+                                                DEFAULT_STREAM_HEARTBEAT_SECONDS);
+        streamIdleTimeoutSeconds = getIntProperty(properties, "streamIdleTimeoutSeconds",
+                                                  DEFAULT_STREAM_IDLE_TIMEOUT_SECONDS);
+        streamReplayMaxEvents = getIntProperty(properties, "streamReplayMaxEvents",
+                                               DEFAULT_STREAM_REPLAY_MAX_EVENTS);
+        streamReplayMaxKBytes = getIntProperty(properties, "streamReplayMaxKBytes",
+                                               DEFAULT_STREAM_REPLAY_MAX_KBYTES);
+        streamMaxQueuedKBytes = Math.max(getIntProperty(properties, "streamMaxQueuedKBytes",
+                                                        DEFAULT_STREAM_MAX_QUEUED_KBYTES), 1);
+        editBatchWindowMillis = getIntProperty(properties, "editBatchWindowMillis",
+                                               DEFAULT_EDIT_BATCH_WINDOW_MILLIS);
+        editBatchMaxSize = getIntProperty(properties, "editBatchMaxSize",
+                                          DEFAULT_EDIT_BATCH_MAX_SIZE);
+        queryLocking = getBooleanProperty(properties, "queryLocking", DEFAULT_QUERY_LOCKING);
+        minimalDiffPut = getBooleanProperty(properties, "minimalDiffPut", DEFAULT_MINIMAL_DIFF_PUT);
+        importBatchSize = Math.max(getIntProperty(properties, "importBatchSize",
+                                                  DEFAULT_IMPORT_BATCH_SIZE), 1);
+        ymsMaxConcurrency = getIntProperty(properties, "ymsMaxConcurrency", DEFAULT_YMS_MAX_CONCURRENCY);
+        ymsMinConcurrency = getIntProperty(properties, "ymsMinConcurrency", DEFAULT_YMS_MIN_CONCURRENCY);
+        ymsQueueSize = getIntProperty(properties, "ymsQueueSize", DEFAULT_YMS_QUEUE_SIZE);
+        ymsQueueTimeoutMillis = getIntProperty(properties, "ymsQueueTimeoutMillis",
+                                               DEFAULT_YMS_QUEUE_TIMEOUT_MILLIS);
+        asyncEditWorkers = Math.max(getIntProperty(properties, "asyncEditWorkers",
+                                                   DEFAULT_ASYNC_EDIT_WORKERS), 1);
+        asyncEditMaxPending = getIntProperty(properties, "asyncEditMaxPending",
+                                             DEFAULT_ASYNC_EDIT_MAX_PENDING);
+        asyncEditRetentionSeconds = Math.max(getIntProperty(properties, "asyncEditRetentionSeconds",
+                                                            DEFAULT_ASYNC_EDIT_RETENTION_SECONDS), 0);
+        idempotencyKeyCapacity = Math.max(getIntProperty(properties, "idempotencyKeyCapacity",
+                                                         DEFAULT_IDEMPOTENCY_KEY_CAPACITY), 0);
+        idempotencyKeyExpirySeconds = Math.max(getIntProperty(properties, "idempotencyKeyExpirySeconds",
+                                                              DEFAULT_IDEMPOTENCY_KEY_EXPIRY_SECONDS), 0);
+        connectionRegistry.setLimits(streamHeartbeatSeconds * 1000L,
+                                     streamIdleTimeoutSeconds * 1000L, streamMaxQueuedKBytes * 1024L);
+        replayBuffer.setRetention(streamReplayMaxEvents, streamReplayMaxKBytes * 1024L);
+        editBatcher.setLimits(Math.max(editBatchWindowMillis, 0), Math.max(editBatchMaxSize, 1));
+        ymsLimiter.setLimits(ymsMinConcurrency, ymsMaxConcurrency, ymsQueueSize, ymsQueueTimeoutMillis);
+        asyncEdits.setLimits(asyncEditWorkers, asyncEditMaxPending, asyncEditRetentionSeconds);
+        idempotencyKeys.setLimits(idempotencyKeyCapacity, idempotencyKeyExpirySeconds);
+        log.info("Settings: streamHeartbeatSeconds={}, streamIdleTimeoutSeconds={}, " +
+                         "streamReplayMaxEvents={}, streamReplayMaxKBytes={}, streamMaxQueuedKBytes={}, " +
+                         "editBatchWindowMillis={}, editBatchMaxSize={}, queryLocking={}, " +
+                         "minimalDiffPut={}, importBatchSize={}, ymsMaxConcurrency={}, " +
+                         "ymsMinConcurrency={}, ymsQueueSize={}, ymsQueueTimeoutMillis={}, " +
+                         "asyncEditWorkers={}, asyncEditMaxPending={}, asyncEditRetentionSeconds={}, " +
+                         "idempotencyKeyCapacity={}, idempotencyKeyExpirySeconds={}",
+                 streamHeartbeatSeconds, streamIdleTimeoutSeconds,
+                 streamReplayMaxEvents, streamReplayMaxKBytes, streamMaxQueuedKBytes,
+                 editBatchWindowMillis, editBatchMaxSize, queryLocking, minimalDiffPut,
+                 importBatchSize, ymsMaxConcurrency, ymsMinConcurrency, ymsQueueSize,
+                 ymsQueueTimeoutMillis, asyncEditWorkers, asyncEditMaxPending, asyncEditRetentionSeconds,
+                 idempotencyKeyCapacity, idempotencyKeyExpirySeconds);
+    }
+
+    private int getIntProperty(Dictionary<?, ?> properties, String name, int defaultValue) {
+        String value = get(properties, name);
+        try {
+            return isNullOrEmpty(value) ? defaultValue : Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value {} for property {}, using {}", value, name, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private boolean getBooleanProperty(Dictionary<?, ?> properties, String name, boolean defaultValue) {
+        String value = get(properties, name);
+        return isNullOrEmpty(value) ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    protected synchronized void bindSchemaResolver(YangSchemaResolver resolver) {
+        CachingSchemaResolver previous = schemaResolver;
+        schemaResolver = new CachingSchemaResolver(resolver);
+        if (previous != null) {
+            previous.invalidate();
+        }
+    }
+
+    //a replacing resolver is bound before the replaced one is unbound, so
+    //only the resolver in use is dropped
+    protected synchronized void unbindSchemaResolver(YangSchemaResolver resolver) {
+        CachingSchemaResolver current = schemaResolver;
+        if (current == null || !current.isCaching(resolver)) {
+            return;
+        }
+        schemaResolver = null;
+        current.invalidate();
+    }
+
+    //the resolver updates its service properties when YANG models are
+    //loaded or unloaded
+    protected void updatedSchemaResolver(YangSchemaResolver resolver) {
+        CachingSchemaResolver current = schemaResolver;
+        if (current != null) {
+            current.invalidate();
+        }
+    }
+
     @Override
     public ObjectNode doGetOperation(String identifier) throws RestconfException {
+        return recordedQuery(identifier, QueryOptions.defaultOptions()).node();
+    }
+
+    @Override
+    public ResourceContent doGetResource(String identifier) throws RestconfException {
+        QueryResult result = recordedQuery(identifier, QueryOptions.defaultOptions());
+        return new ResourceContent(result.body(), result.metadata());
+    }
+
+    @Override
+    public String doGetOperationAsString(String identifier, QueryOptions options)
+            throws RestconfException {
+        return recordedQuery(identifier, options).body();
+    }
+
+    /**
+     * Queries a data resource, recording the query as a flight recorder
+     * event when enabled.
+     */
+    private QueryResult recordedQuery(String identifier, QueryOptions options) {
+        OperationEvent event = RestconfFlightRecorder.beginOperation("get", identifier, null);
+        if (event == null) {
+            return query(identifier, options, Lane.QUERY);
+        }
+        QueryResult result = null;
+        try {
+            result = query(identifier, options, Lane.QUERY);
+            return result;
+        } finally {
+            RestconfFlightRecorder.endOperation(event, result == null ? 0 : Utf8.encodedLength(result.body()),
+                                                result == null);
+        }
+    }
+
+    private QueryResult query(String identifier, Lane lane) {
+        return query(identifier, QueryOptions.defaultOptions(), lane);
+    }
+
+    /**
+     * Queries a data resource. Concurrent queries of the same resource with
+     * the same options are coalesced into one YMS query and one serialization,
+     * scheduled in the lane of the first of them.
+     */
+    private QueryResult query(String identifier, QueryOptions options, Lane lane) {
+        ListQuery listQuery = compileListQuery(options);
+        String normalized = ParserUtils.normalizeIdentifier(identifier);
+        if (listQuery != null) {
+            List<String> segments = YdtCursor.segments(identifier);
+            if (segments.isEmpty() || segments.get(segments.size() - 1).contains("=")) {
+                //the datastore, a list entry or a leaf-list value, not a list
+                throw new RestconfException(NOT_A_LIST, Response.Status.BAD_REQUEST);
+            }
+        }
+        String key = options.isDefault() ? normalized : normalized + "?" + options;
+        return queryCoalescer.execute(key, () -> executeQuery(identifier, listQuery, lane));
+    }
+
+    private ListQuery compileListQuery(QueryOptions options) {
+        if (options.isDefault()) {
+            return null;
+        }
+        try {
+            return ListQuery.compile(options.matches(), options.isCount());
+        } catch (IllegalArgumentException e) {
+            throw new RestconfException(e.getMessage(), Response.Status.BAD_REQUEST);
+        }
+    }
+
+    private QueryResult executeQuery(String identifier, ListQuery listQuery, Lane lane) {
+        if (!queryLocking) {
+            return executeUnlockedQuery(identifier, listQuery, lane);
+        }
+        List<String> path = SLASH_SPLITTER.splitToList(ParserUtils.normalizeIdentifier(identifier));
+        try (PathLockManager.Lease lease = lock(ImmutableList.of(path), false)) {
+            return executeUnlockedQuery(identifier, listQuery, lane);
+        }
+    }
+
+    private QueryResult executeUnlockedQuery(String identifier, ListQuery listQuery, Lane lane) {
+        //this is a root node, need to find the query node.
+        YdtContext rootNode = queryTree(identifier, lane, RequestPriority.current());
+        String requestNodeName = ParserUtils.getLastSegmentNodeName(identifier);
+        YdtContext node = ParserUtils.findNode(rootNode, identifier);
+        if (listQuery != null && node != null && node.getYdtType() != YdtType.MULTI_INSTANCE_NODE) {
+            throw new RestconfException(NOT_A_LIST, Response.Status.BAD_REQUEST);
+        }
+
+        long start = System.nanoTime();
+        String body;
+        try (RequestTrace.Span span = RequestTrace.span("ydt.toJson")) {
+            if (listQuery != null) {
+                body = ParserUtils.convertYdtListToJsonString(requestNodeName, rootNode,
+                                                              ymsService.getYdtWalker(),
+                                                              schemaResolver, listQuery);
+            } else {
+                body = ParserUtils.convertYdtToJsonString(requestNodeName, rootNode,
+                                                          ymsService.getYdtWalker(), schemaResolver);
+            }
+        } finally {
+            RestconfFlightRecorder.addSerializationTime(System.nanoTime() - start);
+        }
+        if (listQuery != null || node == null) {
+            return new QueryResult(body, null);
+        }
+        //the validators of the content being returned, the same as for a HEAD
+        return new QueryResult(body, updateMetadata(ParserUtils.normalizeIdentifier(identifier),
+                                                    YdtMerkleTree.hash(node), Utf8.encodedLength(body)));
+    }
+
+    /**
+     * Executes a YMS query for a data resource, returning the YDT root node.
+     */
+    private YdtContext queryTree(String identifier, Lane lane, RequestPriority priority) {
         //Get a root ydtBuilder
         YdtBuilder ydtBuilder = ymsService.getYdtBuilder(getRestconfRootPath(), null,
                                                          YmsOperationType.QUERY_REQUEST);
         //Convert the URI to ydtBuilder
-        ParserUtils.convertUriToYdt(identifier, ydtBuilder, YdtContextOperationType.NONE);
+        convertUri(identifier, ydtBuilder, YdtContextOperationType.NONE);
         //Execute the query operation
-        YdtResponse ydtResponse = ymsService.executeOperation(ydtBuilder);
+        YdtResponse ydtResponse = execute(ydtBuilder, lane, priority);
         //TODO implement the exception process when YMS is ready
         YmsOperationExecutionStatus executionStatus = ydtResponse.getYmsOperationResult();
         if (executionStatus != YmsOperationExecutionStatus.EXECUTION_SUCCESS) {
             throw new RestconfException("YMS query operation failed",
                     Response.Status.INTERNAL_SERVER_ERROR);
         }
-        //this is a root node, need to find the query node.
-        YdtContext rootNode = ydtResponse.getRootNode();
+        return ydtResponse.getRootNode();
+    }
+
+    /**
+     * Executes a YMS query for a data resource under a shared lock, unless
+     * query locking is disabled.
+     */
+    private YdtContext lockedQueryTree(String identifier, Lane lane) {
+        if (!queryLocking) {
+            return queryTree(identifier, lane, RequestPriority.current());
+        }
+        List<String> path = SLASH_SPLITTER.splitToList(ParserUtils.normalizeIdentifier(identifier));
+        try (PathLockManager.Lease lease = lock(ImmutableList.of(path), false)) {
+            return queryTree(identifier, lane, RequestPriority.current());
+        }
+    }
+
+    /**
+     * Takes a snapshot of a data resource for the on-change subscriptions,
+     * hashing its YDT subtree and only converting it to JSON when asked.
+     */
+    private OnChangeTracker.Snapshot snapshot(String identifier) {
+        YdtContext rootNode = lockedQueryTree(identifier, Lane.STREAM);
+        YdtContext node = ParserUtils.findNode(rootNode, identifier);
+        if (node == null) {
+            return new OnChangeTracker.Snapshot(0, "", JsonNodeFactory.instance::objectNode);
+        }
         String requestNodeName = ParserUtils.getLastSegmentNodeName(identifier);
+        return new OnChangeTracker.Snapshot(YdtMerkleTree.hash(node), ParserUtils.getSchemaPath(node.getParent()),
+                                            () -> ParserUtils.convertYdtToJson(requestNodeName, rootNode,
+                                                                               ymsService.getYdtWalker(),
+                                                                               schemaResolver));
+    }
 
-        return ParserUtils.convertYdtToJson(requestNodeName, rootNode, ymsService.getYdtWalker());
+    @Override
+    public ResourceMetadata doHeadOperation(String identifier) throws RestconfException {
+        String normalized = ParserUtils.normalizeIdentifier(identifier);
+        YdtContext node = ParserUtils.findNode(lockedQueryTree(identifier, Lane.QUERY), identifier);
+        if (node == null) {
+            throw new RestconfException("Resource " + identifier + " not found",
+                                        Response.Status.NOT_FOUND);
+        }
+        //the body size is only known if it was serialized with the same content
+        return updateMetadata(normalized, YdtMerkleTree.hash(node), -1);
+    }
+
+    /**
+     * Records the hash of a data resource, keeping the modification time
+     * and, when not given, the body length recorded with the same hash.
+     */
+    private ResourceMetadata updateMetadata(String normalized, long hash, long contentLength) {
+        String entityTag = YdtMerkleTree.toEntityTag(hash);
+        ResourceMetadata cached = resourceMetadata.getIfPresent(normalized);
+        ResourceMetadata metadata;
+        if (cached != null && cached.entityTag().equals(entityTag)) {
+            if (contentLength < 0 || contentLength == cached.contentLength()) {
+                return cached;
+            }
+            metadata = new ResourceMetadata(entityTag, cached.lastModifiedMillis(), contentLength);
+        } else {
+            metadata = new ResourceMetadata(entityTag, System.currentTimeMillis(), contentLength);
+        }
+        resourceMetadata.put(normalized, metadata);
+        return metadata;
     }
 
     @Override
-    public void doPostOperation(String identifier, ObjectNode rootNode) {
-        //Get a root ydtBuilder
-        YdtBuilder ydtBuilder = ymsService.getYdtBuilder(getRestconfRootPath(), null,
-                                                         YmsOperationType.EDIT_CONFIG_REQUEST);
-        //Convert the URI to ydtBuilder
-        ParserUtils.convertUriToYdt(identifier, ydtBuilder, YdtContextOperationType.CREATE);
+    public Map<String, String> doBatchGetOperation(List<String> identifiers) throws RestconfException {
+        OperationEvent event = RestconfFlightRecorder.beginOperation("batch-get", null, null);
+        boolean failed = true;
+        try {
+            Map<String, String> result = executeBatchGet(identifiers);
+            failed = false;
+            return result;
+        } finally {
+            //the resources are serialized later, as the caller writes them out
+            RestconfFlightRecorder.endOperation(event, 0, failed);
+        }
+    }
 
-        //set default operation type for the payload node
-        ydtBuilder.setDefaultEditOperationType(YdtContextOperationType.CREATE);
-        ParserUtils.convertJsonToYdt(rootNode, ydtBuilder, YdtContextOperationType.CREATE);
-        //Execute the query operation
-        YdtResponse ydtResponse = ymsService.executeOperation(ydtBuilder);
+    private Map<String, String> executeBatchGet(List<String> identifiers) {
+        if (identifiers.isEmpty() || identifiers.size() > MAX_BATCH_QUERY_SIZE) {
+            throw new RestconfException("A batch query should contain 1 to " + MAX_BATCH_QUERY_SIZE +
+                                                " paths", Response.Status.BAD_REQUEST);
+        }
+        //the same resource is only added once to the query
+        Map<String, String> distinct = new LinkedHashMap<>();
+        for (String identifier : identifiers) {
+            distinct.putIfAbsent(ParserUtils.normalizeIdentifier(identifier), identifier);
+        }
+        List<String> queried = ImmutableList.copyOf(distinct.values());
+
+        YdtContext rootNode;
+        if (queryLocking) {
+            ImmutableList.Builder<List<String>> paths = ImmutableList.builder();
+            distinct.keySet().forEach(id -> paths.add(SLASH_SPLITTER.splitToList(id)));
+            try (PathLockManager.Lease lease = lock(paths.build(), false)) {
+                rootNode = executeBatchQuery(queried);
+            }
+        } else {
+            rootNode = executeBatchQuery(queried);
+        }
+
+        //serialized lazily, as the caller writes the response out
+        return Maps.asMap(new LinkedHashSet<>(identifiers), identifier -> {
+            YdtContext node = ParserUtils.findNode(rootNode, identifier);
+            if (node == null) {
+                return null;
+            }
+            return ParserUtils.convertYdtToJsonString(node.getName(), node,
+                                                      ymsService.getYdtWalker(), schemaResolver);
+        });
+    }
+
+    /**
+     * Executes one YMS query for several data resources.
+     */
+    private YdtContext executeBatchQuery(List<String> identifiers) {
+        YdtBuilder ydtBuilder = ymsService.getYdtBuilder(getRestconfRootPath(), null,
+                                                         YmsOperationType.QUERY_REQUEST);
+        //sorted by path, the resources sharing ancestors come one after the
+        //other and share the ancestor nodes of the query, the module nodes
+        //included; a resource within another one is found in the other's
+        //result, so it isn't added
+        List<List<String>> sorted = new ArrayList<>(identifiers.size());
+        identifiers.forEach(identifier -> sorted.add(YdtCursor.segments(identifier)));
+        sorted.sort(PATH_ORDER);
+        YdtCursor cursor = new YdtCursor(ydtBuilder);
+        for (List<String> segments : sorted) {
+            if (!cursor.contains(segments)) {
+                cursor.moveTo(SLASH_JOINER.join(segments), YdtContextOperationType.NONE);
+            }
+        }
+        YdtResponse ydtResponse = execute(ydtBuilder, Lane.QUERY, RequestPriority.current());
         YmsOperationExecutionStatus executionStatus = ydtResponse.getYmsOperationResult();
         if (executionStatus != YmsOperationExecutionStatus.EXECUTION_SUCCESS) {
-            throw new RestconfException("YMS post operation failed.",
+            throw new RestconfException("YMS batch query operation failed",
                                         Response.Status.INTERNAL_SERVER_ERROR);
         }
+        return ydtResponse.getRootNode();
+    }
+
+    @Override
+    public void doPostOperation(String identifier, ObjectNode rootNode) {
+        edit(new EditRequest(identifier, rootNode, YdtContextOperationType.CREATE, "post"));
     }
 
     @Override
     public void doPutOperation(String identifier, ObjectNode rootNode) throws RestconfException {
-        //Get a root ydtBuilder
-        YdtBuilder ydtBuilder = ymsService.getYdtBuilder(getRestconfRootPath(), null,
-                                                         YmsOperationType.EDIT_CONFIG_REQUEST);
-        //Convert the URI to ydtBuilder
-        ParserUtils.convertUriToYdt(identifier, ydtBuilder, YdtContextOperationType.REPLACE);
-        ydtBuilder.setDefaultEditOperationType(YdtContextOperationType.REPLACE);
-        ParserUtils.convertJsonToYdt(rootNode, ydtBuilder, YdtContextOperationType.REPLACE);
-        //Execute the query operation
-        YdtResponse ydtResponse = ymsService.executeOperation(ydtBuilder);
-        YmsOperationExecutionStatus executionStatus = ydtResponse.getYmsOperationResult();
-        if (executionStatus != YmsOperationExecutionStatus.EXECUTION_SUCCESS) {
-            throw new RestconfException("YMS put operation failed.",
-                    Response.Status.INTERNAL_SERVER_ERROR);
-        }
+        edit(new EditRequest(identifier, rootNode, YdtContextOperationType.REPLACE, "put"));
     }
 
     @Override
     public void doDeleteOperation(String identifier) throws RestconfException {
+        edit(new EditRequest(identifier, null, YdtContextOperationType.DELETE, "delete"));
+    }
+
+    @Override
+    public void doPatchOperation(String identifier, ObjectNode rootNode) throws RestconfException {
+        edit(new EditRequest(identifier, rootNode, YdtContextOperationType.MERGE, "patch"));
+    }
+
+    @Override
+    public OperationStatus submitEdit(String operation, String identifier, ObjectNode rootNode)
+            throws RestconfException {
+        Runnable action;
+        switch (operation) {
+            case "post":
+                action = () -> doPostOperation(identifier, rootNode);
+                break;
+            case "put":
+                action = () -> doPutOperation(identifier, rootNode);
+                break;
+            case "patch":
+                action = () -> doPatchOperation(identifier, rootNode);
+                break;
+            case "delete":
+                action = () -> doDeleteOperation(identifier);
+                break;
+            default:
+                throw new RestconfException("Unknown edit operation " + operation,
+                                            Response.Status.BAD_REQUEST);
+        }
+        if (rootNode == null && !"delete".equals(operation)) {
+            throw new RestconfException("Missing payload for " + operation, Response.Status.BAD_REQUEST);
+        }
+        return asyncEdits.submit(operation, identifier, action);
+    }
+
+    @Override
+    public OperationStatus getOperationStatus(String id, long waitMillis) throws RestconfException {
+        return asyncEdits.status(id, waitMillis);
+    }
+
+    @Override
+    public EditOutcome claimIdempotentEdit(String key, String fingerprint) throws RestconfException {
+        return idempotencyKeys.claim(key, fingerprint);
+    }
+
+    @Override
+    public void completeIdempotentEdit(String key, String fingerprint, EditOutcome outcome) {
+        idempotencyKeys.complete(key, fingerprint, outcome);
+    }
+
+    private void edit(EditRequest edit) {
+        OperationEvent event = RestconfFlightRecorder.beginOperation(edit.operationName(), edit.identifier(),
+                                                                     edit.payload());
+        boolean failed = true;
+        try {
+            if (minimalDiffPut && edit.opType() == YdtContextOperationType.REPLACE) {
+                executeDiffEdit(edit);
+            } else if (editBatchWindowMillis > 0) {
+                editBatcher.submit(edit);
+            } else {
+                executeEdit(edit);
+            }
+            failed = false;
+        } finally {
+            RestconfFlightRecorder.endOperation(event, 0, failed);
+        }
+    }
+
+    private void executeEdit(EditRequest edit) {
+        try (PathLockManager.Lease lease = lock(ImmutableList.of(edit.segments()), true)) {
+            executeUnlockedEdit(edit);
+        }
+    }
+
+    private void executeUnlockedEdit(EditRequest edit) {
         //Get a root ydtBuilder
         YdtBuilder ydtBuilder = ymsService.getYdtBuilder(getRestconfRootPath(), null,
                                                          YmsOperationType.EDIT_CONFIG_REQUEST);
-        //Convert the URI to ydtBuilder
-        ParserUtils.convertUriToYdt(identifier, ydtBuilder, YdtContextOperationType.DELETE);
-        //Execute the query operation
-        YdtResponse ydtResponse = ymsService.executeOperation(ydtBuilder);
+        addEdit(ydtBuilder, edit);
+        //Execute the edit operation
+        YdtResponse ydtResponse = execute(ydtBuilder, Lane.EDIT, edit.priority());
         YmsOperationExecutionStatus executionStatus = ydtResponse.getYmsOperationResult();
         if (executionStatus != YmsOperationExecutionStatus.EXECUTION_SUCCESS) {
-            throw new RestconfException("YMS put operation failed.",
-                    Response.Status.INTERNAL_SERVER_ERROR);
+            throw new RestconfException("YMS " + edit.operationName() + " operation failed.",
+                                        Response.Status.INTERNAL_SERVER_ERROR);
         }
+        edited(ImmutableList.of(edit.segments()));
     }
 
-    @Override
-    public void doPatchOperation(String identifier, ObjectNode rootNode) throws RestconfException {
-        //Get a root ydtBuilder
+    /**
+     * Executes a PUT as the minimal edit from the current content of the
+     * data resource, falling back to a full replace when a changed list has
+     * unknown keys. The data resource stays locked from the read to the edit.
+     */
+    private void executeDiffEdit(EditRequest edit) {
+        try (PathLockManager.Lease lease = lock(ImmutableList.of(edit.segments()), true)) {
+            YdtContext rootNode = queryTree(edit.identifier(), Lane.EDIT, edit.priority());
+            long start = System.nanoTime();
+            ObjectNode current = ParserUtils.convertYdtToJson(
+                    ParserUtils.getLastSegmentNodeName(edit.identifier()), rootNode,
+                    ymsService.getYdtWalker(), schemaResolver);
+            RestconfFlightRecorder.addSerializationTime(System.nanoTime() - start);
+
+            YdtBuilder ydtBuilder = ymsService.getYdtBuilder(getRestconfRootPath(), null,
+                                                             YmsOperationType.EDIT_CONFIG_REQUEST);
+            convertUri(edit.identifier(), ydtBuilder, YdtContextOperationType.NONE);
+            EditDiff diff = new EditDiff(ydtBuilder, schemaResolver);
+            try {
+                diff.apply(current, edit.payload());
+            } catch (EditDiff.MissingListKeysException e) {
+                log.debug("Replacing {} as a whole: {}", edit.identifier(), e.getMessage());
+                diffFallbacks.inc();
+                executeUnlockedEdit(edit);
+                return;
+            } catch (JsonParseException e) {
+                throw new RestconfException(e.getMessage(), Response.Status.BAD_REQUEST);
+            }
+            diffNodesReceived.inc(EditDiff.countNodes(edit.payload()));
+            diffNodesSent.inc(diff.nodesSent());
+            if (!diff.hasChanges()) {
+                return;
+            }
+            YdtResponse ydtResponse = execute(ydtBuilder, Lane.EDIT, edit.priority());
+            YmsOperationExecutionStatus executionStatus = ydtResponse.getYmsOperationResult();
+            if (executionStatus != YmsOperationExecutionStatus.EXECUTION_SUCCESS) {
+                throw new RestconfException("YMS " + edit.operationName() + " operation failed.",
+                                            Response.Status.INTERNAL_SERVER_ERROR);
+            }
+            edited(ImmutableList.of(edit.segments()));
+        }
+    }
+
+    /**
+     * Executes a batch of non-overlapping edits as one YMS operation.
+     */
+    private void executeEditBatch(List<EditRequest> edits) {
+        ImmutableList.Builder<List<String>> paths = ImmutableList.builder();
+        edits.forEach(edit -> paths.add(edit.segments()));
+        try (PathLockManager.Lease lease = lock(paths.build(), true)) {
+            executeUnlockedEditBatch(edits);
+        }
+    }
+
+    private void executeUnlockedEditBatch(List<EditRequest> edits) {
         YdtBuilder ydtBuilder = ymsService.getYdtBuilder(getRestconfRootPath(), null,
                                                          YmsOperationType.EDIT_CONFIG_REQUEST);
-        //Convert the URI to ydtBuilder
-        ParserUtils.convertUriToYdt(identifier, ydtBuilder, YdtContextOperationType.MERGE);
-        ydtBuilder.setDefaultEditOperationType(YdtContextOperationType.MERGE);
-        ParserUtils.convertJsonToYdt(rootNode, ydtBuilder, YdtContextOperationType.MERGE);
-        //Execute the query operation
-        YdtResponse ydtResponse = ymsService.executeOperation(ydtBuilder);
+        //sorted by path, the edits sharing ancestors come one after the other
+        //and share the ancestor nodes in the YDT, the module nodes included
+        List<EditRequest> sorted = new ArrayList<>(edits);
+        sorted.sort(Comparator.comparing(edit -> YdtCursor.segments(edit.identifier()), PATH_ORDER));
+        //the batch goes with its most urgent edit
+        RequestPriority priority = RequestPriority.LOW;
+        YdtCursor cursor = new YdtCursor(ydtBuilder);
+        try {
+            for (EditRequest edit : sorted) {
+                cursor.moveTo(edit.identifier(), edit.opType());
+                if (edit.payload() != null) {
+                    ydtBuilder.setDefaultEditOperationType(edit.opType());
+                    convertPayload(edit.payload(), ydtBuilder, edit.opType());
+                }
+                if (edit.priority().compareTo(priority) < 0) {
+                    priority = edit.priority();
+                }
+            }
+        } catch (RuntimeException e) {
+            //nothing reached YMS yet, the edits can still be executed one by one
+            throw new EditBatcher.MergeException(e);
+        }
+        YdtResponse ydtResponse = execute(ydtBuilder, Lane.EDIT, priority);
         YmsOperationExecutionStatus executionStatus = ydtResponse.getYmsOperationResult();
         if (executionStatus != YmsOperationExecutionStatus.EXECUTION_SUCCESS) {
-            throw new RestconfException("YMS put operation failed.",
+            throw new RestconfException("YMS batched edit operation failed.",
                                         Response.Status.INTERNAL_SERVER_ERROR);
         }
+        List<List<String>> paths = new ArrayList<>(edits.size());
+        edits.forEach(edit -> paths.add(edit.segments()));
+        edited(paths);
+    }
+
+    /**
+     * Records the data resources modified by a completed write, so that the
+     * on-change subscribers get them and the reads started before the write
+     * are not joined by the reads arriving after it.
+     */
+    private void edited(List<List<String>> paths) {
+        onChangeTracker.touched(paths);
+        queryCoalescer.invalidate(key -> {
+            int idx = key.indexOf('?');
+            List<String> path = SLASH_SPLITTER.splitToList(idx < 0 ? key : key.substring(0, idx));
+            return paths.stream().anyMatch(edited -> OnChangeTracker.overlaps(path, edited));
+        });
+    }
+
+    private PathLockManager.Lease lock(List<List<String>> paths, boolean exclusive) {
+        PathLockManager.Lease lease;
+        try (RequestTrace.Span span = RequestTrace.span("lock.wait")) {
+            lease = lockManager.lock(paths, exclusive);
+        }
+        lockWaitTimer.update(lease.waitNanos(), TimeUnit.NANOSECONDS);
+        return lease;
+    }
+
+    private void addEdit(YdtBuilder ydtBuilder, EditRequest edit) {
+        //Convert the URI to ydtBuilder
+        convertUri(edit.identifier(), ydtBuilder, edit.opType());
+        if (edit.payload() != null) {
+            //set default operation type for the payload node
+            ydtBuilder.setDefaultEditOperationType(edit.opType());
+            convertPayload(edit.payload(), ydtBuilder, edit.opType());
+        }
+    }
+
+    private void convertUri(String identifier, YdtBuilder ydtBuilder, YdtContextOperationType opType) {
+        try (RequestTrace.Span span = RequestTrace.span("uri.toYdt")) {
+            ParserUtils.convertUriToYdt(identifier, ydtBuilder, opType);
+        }
+    }
+
+    /**
+     * Executes a YMS operation within the adaptive concurrency limit,
+     * waiting in the given lane with the given priority when over it.
+     */
+    private YdtResponse execute(YdtBuilder ydtBuilder, Lane lane, RequestPriority priority) {
+        long permit;
+        try (RequestTrace.Span span = RequestTrace.span("yms.queue")) {
+            permit = ymsLimiter.acquire(lane, priority);
+        }
+        try (RequestTrace.Span span = RequestTrace.span("yms.execute")) {
+            return ymsService.executeOperation(ydtBuilder);
+        } finally {
+            ymsLimiter.release(lane, permit);
+            RestconfFlightRecorder.addYmsTime(System.nanoTime() - permit);
+        }
+    }
+
+    /**
+     * Converts the request payload to the YDT builder. With a schema resolver
+     * bound, unknown nodes and mistyped values are rejected here, before
+     * anything reaches YMS.
+     */
+    private void convertPayload(ObjectNode rootNode, YdtBuilder ydtBuilder,
+                                YdtContextOperationType opType) {
+        long start = System.nanoTime();
+        try (RequestTrace.Span span = RequestTrace.span("json.toYdt")) {
+            ParserUtils.convertJsonToYdt(rootNode, ydtBuilder, opType, schemaResolver);
+        } catch (JsonParseException e) {
+            throw new RestconfException(e.getMessage(), Response.Status.BAD_REQUEST);
+        } finally {
+            RestconfFlightRecorder.addSerializationTime(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public long exportData(List<String> identifiers, Path file) throws RestconfException {
+        YdtContext rootNode;
+        if (queryLocking && !identifiers.isEmpty()) {
+            ImmutableList.Builder<List<String>> paths = ImmutableList.builder();
+            identifiers.forEach(id -> paths.add(SLASH_SPLITTER.splitToList(ParserUtils.normalizeIdentifier(id))));
+            try (PathLockManager.Lease lease = lock(paths.build(), false)) {
+                rootNode = executeBatchQuery(identifiers);
+            }
+        } else {
+            rootNode = executeBatchQuery(identifiers);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING);
+             Writer writer = new BufferedWriter(Channels.newWriter(channel, UTF_8.newEncoder(), -1),
+                                                IO_BUFFER_SIZE)) {
+            DatastoreExporter exporter = new DatastoreExporter(writer, ymsService.getYdtWalker(),
+                                                               schemaResolver);
+            if (identifiers.isEmpty()) {
+                for (YdtContext module = rootNode.getFirstChild(); module != null;
+                     module = module.getNextSibling()) {
+                    exporter.exportModule(module);
+                }
+            } else {
+                for (String identifier : identifiers) {
+                    YdtContext node = ParserUtils.findNode(rootNode, identifier);
+                    if (node != null) {
+                        exporter.exportResource(node, SLASH_MATCHER.trimFrom(identifier));
+                    }
+                }
+            }
+            if (exporter.skipped() > 0) {
+                log.warn("Skipped {} top level lists or leaves which can't be imported back",
+                         exporter.skipped());
+            }
+            log.info("Exported {} records to {}", exporter.records(), file);
+            return exporter.records();
+        } catch (IOException e) {
+            log.error("Failed to export to {}", file, e);
+            throw new RestconfException("Failed to export to " + file + ": " + e.getMessage(),
+                                        Response.Status.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @Override
+    public long importData(Path file) throws RestconfException {
+        long records = 0;
+        try (FileChannel channel = FileChannel.open(file, READ);
+             BufferedReader reader = new BufferedReader(Channels.newReader(channel, UTF_8.newDecoder(), -1),
+                                                        IO_BUFFER_SIZE)) {
+            List<EditRequest> batch = new ArrayList<>(importBatchSize);
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                batch.add(parseRecord(line, lineNumber));
+                if (batch.size() >= importBatchSize) {
+                    executeImportBatch(batch);
+                    records += batch.size();
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                executeImportBatch(batch);
+                records += batch.size();
+            }
+        } catch (IOException e) {
+            log.error("Failed to import from {}", file, e);
+            throw new RestconfException("Failed to import from " + file + " after " + records +
+                                                " records: " + e.getMessage(),
+                                        Response.Status.INTERNAL_SERVER_ERROR);
+        }
+        log.info("Imported {} records from {}", records, file);
+        return records;
+    }
+
+    private EditRequest parseRecord(String line, long lineNumber) {
+        try {
+            JsonNode record = MAPPER.readTree(line);
+            JsonNode path = record.get("path");
+            JsonNode data = record.get("data");
+            if (path != null && path.isTextual() && data != null && data.isObject()) {
+                return new EditRequest(path.asText(), (ObjectNode) data,
+                                       YdtContextOperationType.MERGE, "import");
+            }
+        } catch (IOException e) {
+            log.debug("Invalid record at line {}", lineNumber, e);
+        }
+        throw new RestconfException("Invalid record at line " + lineNumber,
+                                    Response.Status.BAD_REQUEST);
+    }
+
+    /**
+     * Merges a batch of imported records as one YMS operation. The records
+     * come in document order, so the YDT builder only climbs up to the path
+     * shared with the previous record before going down to the next one,
+     * and a parent and its children end up in the same subtree.
+     */
+    private void executeImportBatch(List<EditRequest> records) {
+        List<List<String>> paths = new ArrayList<>(records.size());
+        records.forEach(record -> paths.add(record.segments()));
+        try (PathLockManager.Lease lease = lock(paths, true)) {
+            YdtBuilder ydtBuilder = ymsService.getYdtBuilder(getRestconfRootPath(), null,
+                                                             YmsOperationType.EDIT_CONFIG_REQUEST);
+            YdtCursor cursor = new YdtCursor(ydtBuilder);
+            for (EditRequest record : records) {
+                cursor.moveTo(record.identifier(), YdtContextOperationType.NONE);
+                ydtBuilder.setDefaultEditOperationType(YdtContextOperationType.MERGE);
+                convertPayload(record.payload(), ydtBuilder, YdtContextOperationType.MERGE);
+            }
+            YdtResponse ydtResponse = execute(ydtBuilder, Lane.EDIT, RequestPriority.current());
+            YmsOperationExecutionStatus executionStatus = ydtResponse.getYmsOperationResult();
+            if (executionStatus != YmsOperationExecutionStatus.EXECUTION_SUCCESS) {
+                throw new RestconfException("YMS import operation failed.",
+                                            Response.Status.INTERNAL_SERVER_ERROR);
+            }
+            edited(paths);
+        }
     }
 
     @Override
@@ -177,6 +1185,188 @@ public class RestconfManager implements RestconfService {
 
     @Override
     public void subscribeEventStream(String streamId, ChunkedOutput<String> output) throws RestconfException {
-        //TODO implement the subscribe
+        subscribeEventStream(streamId, StreamSubscription.defaultSubscription(), output);
+    }
+
+    @Override
+    public void subscribeEventStream(String streamId, StreamSubscription subscription,
+                                     ChunkedOutput<String> output) throws RestconfException {
+        if (PUSH_STREAM.equals(streamId)) {
+            if (subscription.isOnChange()) {
+                subscribeOnChange(subscription, output);
+            } else {
+                subscribePeriodic(subscription, output);
+            }
+            return;
+        }
+        if (!DEFAULT_STREAM.equals(streamId)) {
+            throw new RestconfException("Unknown stream " + streamId, Response.Status.NOT_FOUND);
+        }
+        if (subscription.path() != null) {
+            throw new RestconfException("Periodic and on-change subscriptions are only available on stream " +
+                                                PUSH_STREAM, Response.Status.BAD_REQUEST);
+        }
+        StreamFilter filter = compileFilter(subscription.filter());
+        //registered on the delivery thread, so that no event is missed or
+        //sent twice between the replay and the live events
+        eventExecutor.execute(() -> {
+            StreamConnection connection = connectionRegistry.register(streamId,
+                                                                      subscription.encoding(),
+                                                                      filter, output);
+            if (subscription.isReplay()) {
+                for (StreamEvent event : replayBuffer.replay(subscription)) {
+                    if (filter != null && !filter.matches(event.root())) {
+                        continue;
+                    }
+                    if (!connectionRegistry.send(connection, event)) {
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Subscribes to the periodic pushes of a data resource. The subscribers
+     * of the same data resource with the same period share the queries.
+     */
+    private void subscribePeriodic(StreamSubscription subscription, ChunkedOutput<String> output) {
+        if (!subscription.isPeriodic()) {
+            throw new RestconfException("Stream " + PUSH_STREAM + " needs a path and a period",
+                                        Response.Status.BAD_REQUEST);
+        }
+        if (subscription.periodMillis() < MIN_PUSH_PERIOD_MILLIS) {
+            throw new RestconfException("Period should be at least " + MIN_PUSH_PERIOD_MILLIS + " ms",
+                                        Response.Status.BAD_REQUEST);
+        }
+        if (subscription.isReplay() || !isNullOrEmpty(subscription.filter())) {
+            throw new RestconfException("Periodic subscriptions have no replay nor filter",
+                                        Response.Status.BAD_REQUEST);
+        }
+        String key = normalizePushPath(subscription.path());
+        StreamConnection connection = connectionRegistry.register(PUSH_STREAM, subscription.encoding(),
+                                                                  null, output);
+        periodicSampler.subscribe(subscription.path(), key, subscription.periodMillis(), connection);
+    }
+
+    /**
+     * Subscribes to the changes of a data resource. The subscriber gets the
+     * whole data resource first, then the changed nodes only.
+     */
+    private void subscribeOnChange(StreamSubscription subscription, ChunkedOutput<String> output) {
+        if (subscription.dampeningMillis() < 0) {
+            throw new RestconfException("Dampening period should not be negative",
+                                        Response.Status.BAD_REQUEST);
+        }
+        if (subscription.isReplay() || !isNullOrEmpty(subscription.filter())) {
+            throw new RestconfException("On-change subscriptions have no replay nor filter",
+                                        Response.Status.BAD_REQUEST);
+        }
+        List<String> segments = SLASH_SPLITTER.splitToList(normalizePushPath(subscription.path()));
+        StreamConnection connection = connectionRegistry.register(PUSH_STREAM, subscription.encoding(),
+                                                                  null, output);
+        onChangeTracker.subscribe(subscription.path(), segments, subscription.dampeningMillis(), connection);
+    }
+
+    /**
+     * Normalizes the path of a pushed data resource, checking it against the
+     * schema when a resolver is bound, so that a subscription to a path which
+     * can't be queried is rejected up front rather than left silent.
+     */
+    private String normalizePushPath(String path) {
+        String normalized;
+        try {
+            normalized = ParserUtils.normalizeIdentifier(path);
+        } catch (RuntimeException e) {
+            throw new RestconfException("Invalid path " + path, Response.Status.BAD_REQUEST);
+        }
+        if (normalized.isEmpty()) {
+            throw new RestconfException("Missing path", Response.Status.BAD_REQUEST);
+        }
+        YangSchemaResolver resolver = schemaResolver;
+        if (resolver != null && resolver.getValueType(schemaPath(normalized)) == null) {
+            throw new RestconfException("Unknown data resource " + path, Response.Status.BAD_REQUEST);
+        }
+        return normalized;
+    }
+
+    /**
+     * Returns the schema path of a normalized URI identifier: the node names
+     * without their list keys, only the first one qualified by its module.
+     */
+    private static String schemaPath(String identifier) {
+        StringBuilder schemaPath = new StringBuilder();
+        for (String segment : SLASH_SPLITTER.split(identifier)) {
+            int keys = segment.indexOf('=');
+            String name = keys < 0 ? segment : segment.substring(0, keys);
+            if (schemaPath.length() > 0) {
+                schemaPath.append('/').append(name.substring(name.indexOf(':') + 1));
+            } else {
+                schemaPath.append(name);
+            }
+        }
+        return schemaPath.toString();
+    }
+
+    private StreamFilter compileFilter(String expression) {
+        if (isNullOrEmpty(expression)) {
+            return null;
+        }
+        StreamFilter filter = streamFilters.getIfPresent(expression);
+        if (filter == null) {
+            try {
+                filter = StreamFilter.compile(expression);
+            } catch (IllegalArgumentException e) {
+                throw new RestconfException("Invalid filter: " + e.getMessage(),
+                                            Response.Status.BAD_REQUEST);
+            }
+            streamFilters.put(expression, filter);
+        }
+        return filter;
+    }
+
+    private void deliverNotification(YdtContext notificationRoot) {
+        StreamDeliveryEvent delivery = RestconfFlightRecorder.beginDelivery();
+        long start = System.nanoTime();
+        ObjectNode node = ParserUtils.convertYdtToJson(null, notificationRoot,
+                                                       ymsService.getYdtWalker(), schemaResolver);
+        StreamEvent event = replayBuffer.append(node.toString(), notificationRoot);
+        long serializationNanos = System.nanoTime() - start;
+        int subscribers = connectionRegistry.broadcast(DEFAULT_STREAM, event);
+        RestconfFlightRecorder.endDelivery(delivery, DEFAULT_STREAM, serializationNanos, event.size(),
+                                           subscribers);
+        //a notification doesn't tell which data has changed, only its module
+        onChangeTracker.touchedModules(moduleNames(notificationRoot));
+    }
+
+    /**
+     * Returns the names of the YANG modules of a notification, the root
+     * being either a module node or the parent of the module nodes.
+     */
+    private static Set<String> moduleNames(YdtContext notificationRoot) {
+        Set<String> modules = new HashSet<>();
+        modules.add(notificationRoot.getName());
+        for (YdtContext child = notificationRoot.getFirstChild(); child != null; child = child.getNextSibling()) {
+            modules.add(child.getName());
+        }
+        return modules;
+    }
+
+    /**
+     * Forwards the YANG notifications to the event stream subscribers.
+     */
+    private class InternalNotificationListener implements YangNotificationListener {
+        @Override
+        public void event(YangNotificationEvent event) {
+            YangNotification notification = event.subject();
+            YdtContext notificationRoot = notification.getNotificationRootContext();
+            eventExecutor.execute(() -> {
+                try {
+                    deliverNotification(notificationRoot);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to deliver notification", e);
+                }
+            });
+        }
     }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registers the metrics of the RESTCONF subsystem under a single metrics
+ * component, and removes them all when the subsystem stops.
+ */
+final class RestconfMetrics {
+
+    private static final String COMPONENT_NAME = "Restconf";
+
+    private final MetricsService metricsService;
+    private final MetricsComponent component;
+    private final List<Registration> registrations = new ArrayList<>();
+
+    /**
+     * Creates the RESTCONF metrics registry.
+     *
+     * @param metricsService the ONOS metrics service
+     */
+    RestconfMetrics(MetricsService metricsService) {
+        this.metricsService = metricsService;
+        this.component = metricsService.registerComponent(COMPONENT_NAME);
+    }
+
+    /**
+     * Registers a gauge.
+     *
+     * @param featureName name of the feature the metric belongs to
+     * @param metricName  name of the metric
+     * @param gauge       the gauge
+     * @param <T>         type of the gauge value
+     */
+    synchronized <T> void gauge(String featureName, String metricName, Gauge<T> gauge) {
+        MetricsFeature feature = component.registerFeature(featureName);
+        metricsService.registerMetric(component, feature, metricName, gauge);
+        registrations.add(new Registration(feature, metricName));
+    }
+
+    /**
+     * Creates a counter.
+     *
+     * @param featureName name of the feature the metric belongs to
+     * @param metricName  name of the metric
+     * @return the counter
+     */
+    synchronized Counter counter(String featureName, String metricName) {
+        MetricsFeature feature = component.registerFeature(featureName);
+        registrations.add(new Registration(feature, metricName));
+        return metricsService.createCounter(component, feature, metricName);
+    }
+
+    /**
+     * Creates a timer.
+     *
+     * @param featureName name of the feature the metric belongs to
+     * @param metricName  name of the metric
+     * @return the timer
+     */
+    synchronized Timer timer(String featureName, String metricName) {
+        MetricsFeature feature = component.registerFeature(featureName);
+        registrations.add(new Registration(feature, metricName));
+        return metricsService.createTimer(component, feature, metricName);
+    }
+
+    /**
+     * Removes all the metrics registered so far.
+     */
+    synchronized void removeAll() {
+        registrations.forEach(r -> metricsService.removeMetric(component, r.feature, r.metricName));
+        registrations.clear();
+    }
+
+    private static final class Registration {
+        private final MetricsFeature feature;
+        private final String metricName;
+
+        private Registration(MetricsFeature feature, String metricName) {
+            this.feature = feature;
+            this.metricName = metricName;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import org.glassfish.jersey.server.ChunkedOutput;
+import org.onosproject.restconf.api.StreamSubscription.Encoding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Utf8.encodedLength;
+
+/**
+ * Represents an open RESTCONF event stream connection of one subscriber.
+ * All the writes to the underlying chunked output go through this class,
+ * so that its liveness and traffic can be tracked.
+ * <p>
+ * The chunks are queued and written by a writer thread, one drain at a
+ * time per connection, so that a peer which doesn't read can't block the
+ * delivery of the events to the others. The queue is bounded: a peer
+ * letting it overflow is too slow to keep up and is disconnected.
+ */
+final class StreamConnection {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /**
+     * Heartbeat chunk for JSON streams, whitespace between events is
+     * ignored by JSON stream readers.
+     */
+    private static final String JSON_HEARTBEAT = "\n";
+
+    /**
+     * Heartbeat chunk for Server-Sent Events streams, a comment line.
+     */
+    private static final String SSE_HEARTBEAT = ":\n\n";
+
+    private final long id;
+    private final String streamId;
+    private final Encoding encoding;
+    private final StreamFilter filter;
+    private final ChunkedOutput<String> output;
+    private final Executor writer;
+    private final long maxQueuedBytes;
+
+    //chunks waiting for the writer, guarded by this
+    private final Deque<String> queue = new ArrayDeque<>();
+    private long queuedBytes;
+    private boolean isDraining;
+
+    private volatile long lastWriteMillis;
+    private volatile long lastEventMillis;
+    //time the writer last made progress, while it has chunks to write
+    private volatile long drainProgressMillis;
+    private volatile long bytesWritten;
+    private volatile boolean isClosed;
+
+    /**
+     * Creates a connection for the given chunked output.
+     *
+     * @param id             unique ID of the connection
+     * @param streamId       ID of the subscribed RESTCONF stream
+     * @param encoding       encoding of the events written to the output
+     * @param filter         filter of the events, null for all the events
+     * @param output         the chunked output of the HTTP response
+     * @param writer         executor writing the queued chunks
+     * @param maxQueuedBytes maximum size of the chunks waiting to be written
+     */
+    StreamConnection(long id, String streamId, Encoding encoding, StreamFilter filter,
+                     ChunkedOutput<String> output, Executor writer, long maxQueuedBytes) {
+        this.id = id;
+        this.streamId = streamId;
+        this.encoding = encoding;
+        this.filter = filter;
+        this.output = output;
+        this.writer = writer;
+        this.maxQueuedBytes = maxQueuedBytes;
+        long now = System.currentTimeMillis();
+        this.lastWriteMillis = now;
+        this.lastEventMillis = now;
+    }
+
+    long id() {
+        return id;
+    }
+
+    String streamId() {
+        return streamId;
+    }
+
+    Encoding encoding() {
+        return encoding;
+    }
+
+    StreamFilter filter() {
+        return filter;
+    }
+
+    long lastWriteMillis() {
+        return lastWriteMillis;
+    }
+
+    long lastEventMillis() {
+        return lastEventMillis;
+    }
+
+    long bytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Returns whether the connection is closed, either explicitly or
+     * because the peer went away.
+     *
+     * @return true if nothing can be written to the connection any more
+     */
+    boolean isClosed() {
+        return isClosed || output.isClosed();
+    }
+
+    /**
+     * Returns whether the writer has been blocked on this connection for
+     * the given time, with chunks still to write.
+     *
+     * @param now         current time, in milliseconds
+     * @param stallMillis time without progress making a peer stalled
+     * @return true if the peer doesn't read what is written to it
+     */
+    synchronized boolean isStalled(long now, long stallMillis) {
+        return isDraining && now - drainProgressMillis >= stallMillis;
+    }
+
+    /**
+     * Queues an event for the subscriber.
+     *
+     * @param event the event
+     * @return true if the event was queued, false if the connection is dead
+     * or its peer too slow
+     */
+    boolean sendEvent(StreamEvent event) {
+        boolean isQueued = enqueue(event.render(encoding));
+        if (isQueued) {
+            lastEventMillis = System.currentTimeMillis();
+        }
+        return isQueued;
+    }
+
+    /**
+     * Queues a heartbeat for the subscriber. A heartbeat keeps intermediate proxies from
+     * dropping the connection and makes a dead peer show up as a write
+     * failure.
+     *
+     * @return true if the connection is still alive
+     */
+    boolean sendHeartbeat() {
+        return enqueue(encoding == Encoding.SSE ? SSE_HEARTBEAT : JSON_HEARTBEAT);
+    }
+
+    private boolean enqueue(String chunk) {
+        boolean isOverflowing;
+        synchronized (this) {
+            if (isClosed()) {
+                return false;
+            }
+            long size = encodedLength(chunk);
+            isOverflowing = queuedBytes + size > maxQueuedBytes && !queue.isEmpty();
+            if (!isOverflowing) {
+                queue.add(chunk);
+                queuedBytes += size;
+                if (!isDraining) {
+                    isDraining = true;
+                    drainProgressMillis = System.currentTimeMillis();
+                    try {
+                        writer.execute(this::drain);
+                    } catch (RejectedExecutionException e) {
+                        //stopping
+                        isDraining = false;
+                        return false;
+                    }
+                }
+            }
+        }
+        if (isOverflowing) {
+            log.debug("Stream connection {} is too slow, {} bytes queued", id, queuedBytes);
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    private void drain() {
+        while (true) {
+            String chunk;
+            synchronized (this) {
+                chunk = queue.poll();
+                if (chunk == null || isClosed()) {
+                    queue.clear();
+                    queuedBytes = 0;
+                    isDraining = false;
+                    return;
+                }
+            }
+            //written outside of the lock, the write may block on the peer
+            int size = encodedLength(chunk);
+            try {
+                output.write(chunk);
+            } catch (IOException e) {
+                log.debug("Stream connection {} is gone: {}", id, e.getMessage());
+                close();
+                continue;
+            }
+            long now = System.currentTimeMillis();
+            synchronized (this) {
+                queuedBytes -= size;
+                bytesWritten += size;
+                drainProgressMillis = now;
+            }
+            lastWriteMillis = now;
+        }
+    }
+
+    /**
+     * Closes the connection. Closing an already closed connection has no
+     * effect. The output is closed by a writer thread, as closing it may
+     * block just like writing to it.
+     */
+    void close() {
+        synchronized (this) {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+        }
+        try {
+            writer.execute(this::closeOutput);
+        } catch (RejectedExecutionException e) {
+            closeOutput();
+        }
+    }
+
+    private void closeOutput() {
+        try {
+            output.close();
+        } catch (IOException e) {
+            log.debug("Failed to close stream connection {}", id, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("id", id)
+                .add("streamId", streamId)
+                .add("encoding", encoding)
+                .add("filter", filter)
+                .add("bytesWritten", bytesWritten)
+                .toString();
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import org.glassfish.jersey.server.ChunkedOutput;
+import org.jboss.netty.util.Timeout;
+import org.onlab.util.Timer;
+import org.onosproject.restconf.api.StreamSubscription.Encoding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Keeps track of the open RESTCONF event stream connections. A single task
+ * on the shared hashed wheel timer periodically queues heartbeats on quiet
+ * connections and drops the ones whose peer has gone away, stalled or been
+ * idle for too long, however many connections are open.
+ * <p>
+ * Nothing here writes to a peer: the events and heartbeats are queued on
+ * the connections, and written by a pool of writer threads. A peer which
+ * doesn't read holds up one writer at most, never the timer nor the
+ * delivery of the events to the other peers.
+ */
+final class StreamConnectionRegistry {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private static final int STALL_HEARTBEATS = 2;
+
+    private final ConcurrentMap<Long, StreamConnection> connections = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    //bytes written to the connections already closed
+    private final AtomicLong closedBytesWritten = new AtomicLong();
+    private final AtomicLong heartbeatsSent = new AtomicLong();
+    private final AtomicLong deadPeersDropped = new AtomicLong();
+    private final AtomicLong idlePeersDropped = new AtomicLong();
+    private final AtomicLong filteredOut = new AtomicLong();
+    private final ExecutorService writers;
+
+    private volatile long heartbeatMillis;
+    private volatile long idleTimeoutMillis;
+    private volatile long maxQueuedBytes;
+    private Timeout sweepTimeout;
+    private boolean isRunning;
+
+    /**
+     * Creates a connection registry.
+     *
+     * @param heartbeatMillis   period of the heartbeats on quiet connections
+     * @param idleTimeoutMillis time after which a connection without events
+     *                          is closed, 0 to keep them open forever
+     * @param maxQueuedBytes    maximum size of the chunks queued on one
+     *                          connection; a peer exceeding it is dropped
+     * @param threadFactory     factory of the writer threads
+     */
+    StreamConnectionRegistry(long heartbeatMillis, long idleTimeoutMillis, long maxQueuedBytes,
+                             ThreadFactory threadFactory) {
+        setLimits(heartbeatMillis, idleTimeoutMillis, maxQueuedBytes);
+        //a stalled peer blocks its writer thread until it is dropped, so
+        //the pool grows rather than making the other peers wait
+        writers = Executors.newCachedThreadPool(threadFactory);
+    }
+
+    /**
+     * Updates the heartbeat period, idle timeout and queue bound. The new
+     * period applies from the next sweep on, the new bound to the new
+     * connections.
+     *
+     * @param heartbeatMillis   period of the heartbeats on quiet connections
+     * @param idleTimeoutMillis time after which a connection without events
+     *                          is closed, 0 to keep them open forever
+     * @param maxQueuedBytes    maximum size of the chunks queued on one
+     *                          connection
+     */
+    void setLimits(long heartbeatMillis, long idleTimeoutMillis, long maxQueuedBytes) {
+        checkArgument(heartbeatMillis > 0, "heartbeat period should be positive");
+        checkArgument(idleTimeoutMillis >= 0, "idle timeout should not be negative");
+        checkArgument(maxQueuedBytes > 0, "queue bound should be positive");
+        this.heartbeatMillis = heartbeatMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxQueuedBytes = maxQueuedBytes;
+    }
+
+    /**
+     * Starts the periodic heartbeat and liveness sweep.
+     */
+    synchronized void start() {
+        if (isRunning) {
+            return;
+        }
+        isRunning = true;
+        scheduleSweep();
+    }
+
+    /**
+     * Stops the sweep and closes all the connections.
+     */
+    synchronized void stop() {
+        isRunning = false;
+        if (sweepTimeout != null) {
+            sweepTimeout.cancel();
+            sweepTimeout = null;
+        }
+        connections.values().forEach(this::unregister);
+        writers.shutdown();
+    }
+
+    /**
+     * Registers a new subscriber connection.
+     *
+     * @param streamId ID of the subscribed RESTCONF stream
+     * @param encoding encoding of the events written to the output
+     * @param filter   filter of the events, null for all the events
+     * @param output   the chunked output of the HTTP response
+     * @return the new connection
+     */
+    StreamConnection register(String streamId, Encoding encoding, StreamFilter filter,
+                              ChunkedOutput<String> output) {
+        StreamConnection connection = new StreamConnection(nextId.incrementAndGet(), streamId, encoding,
+                                                           filter, output, writers, maxQueuedBytes);
+        connections.put(connection.id(), connection);
+        log.debug("Opened {}", connection);
+        return connection;
+    }
+
+    /**
+     * Closes and forgets a connection.
+     *
+     * @param connection the connection to remove
+     */
+    void unregister(StreamConnection connection) {
+        connection.close();
+        if (connections.remove(connection.id()) != null) {
+            //the bytes written afterwards, if any, are not counted
+            closedBytesWritten.addAndGet(connection.bytesWritten());
+            log.debug("Closed {}", connection);
+        }
+    }
+
+    /**
+     * Queues an event on one connection, dropping the connection if its
+     * peer is gone or too slow. The event is written asynchronously.
+     *
+     * @param connection the target connection
+     * @param event      the event
+     * @return true if the event was queued
+     */
+    boolean send(StreamConnection connection, StreamEvent event) {
+        if (!connection.sendEvent(event)) {
+            deadPeersDropped.incrementAndGet();
+            unregister(connection);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Queues an event on all the connections of a stream whose filter
+     * matches the event. Each distinct filter is evaluated once per event,
+     * whatever the number of subscribers sharing it.
+     *
+     * @param streamId ID of the RESTCONF stream
+     * @param event    the event
+     * @return number of connections the event was queued on
+     */
+    int broadcast(String streamId, StreamEvent event) {
+        Map<StreamFilter, Boolean> verdicts = new HashMap<>();
+        int count = 0;
+        for (StreamConnection connection : connections.values()) {
+            if (!connection.streamId().equals(streamId)) {
+                continue;
+            }
+            StreamFilter filter = connection.filter();
+            if (filter != null && !verdicts.computeIfAbsent(filter, f -> f.matches(event.root()))) {
+                filteredOut.incrementAndGet();
+                continue;
+            }
+            if (send(connection, event)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of open connections.
+     *
+     * @return number of open connections
+     */
+    int size() {
+        return connections.size();
+    }
+
+    /**
+     * Returns the number of bytes written to all the connections so far,
+     * heartbeats included.
+     *
+     * @return number of bytes written
+     */
+    long bytesWritten() {
+        return closedBytesWritten.get() + openBytesWritten();
+    }
+
+    /**
+     * Returns the number of bytes written to the connections which are
+     * currently open, heartbeats included.
+     *
+     * @return number of bytes written to open connections
+     */
+    long openBytesWritten() {
+        return connections.values().stream().mapToLong(StreamConnection::bytesWritten).sum();
+    }
+
+    /**
+     * Returns the number of heartbeats sent so far.
+     *
+     * @return number of heartbeats
+     */
+    long heartbeatsSent() {
+        return heartbeatsSent.get();
+    }
+
+    /**
+     * Returns the number of connections dropped because their peer was
+     * gone, stalled or too slow to keep up with the events.
+     *
+     * @return number of dropped connections
+     */
+    long deadPeersDropped() {
+        return deadPeersDropped.get();
+    }
+
+    /**
+     * Returns the number of connections closed because they went without
+     * events for longer than the idle timeout.
+     *
+     * @return number of idle connections closed
+     */
+    long idlePeersDropped() {
+        return idlePeersDropped.get();
+    }
+
+    /**
+     * Returns the number of event deliveries skipped because the event
+     * didn't match the filter of the subscriber.
+     *
+     * @return number of filtered out deliveries
+     */
+    long filteredOut() {
+        return filteredOut.get();
+    }
+
+    private synchronized void scheduleSweep() {
+        if (isRunning) {
+            sweepTimeout = Timer.getTimer().newTimeout(this::sweep, heartbeatMillis,
+                                                       TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void sweep(Timeout timeout) {
+        long now = System.currentTimeMillis();
+        long heartbeat = heartbeatMillis;
+        long idleTimeout = idleTimeoutMillis;
+        //a peer which hasn't read anything for two heartbeat periods
+        long stallMillis = STALL_HEARTBEATS * heartbeat;
+        try {
+            for (StreamConnection connection : connections.values()) {
+                if (connection.isClosed() || connection.isStalled(now, stallMillis)) {
+                    deadPeersDropped.incrementAndGet();
+                    unregister(connection);
+                } else if (idleTimeout > 0 && now - connection.lastEventMillis() >= idleTimeout) {
+                    idlePeersDropped.incrementAndGet();
+                    unregister(connection);
+                } else if (now - connection.lastWriteMillis() >= heartbeat) {
+                    sendHeartbeat(connection);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Stream connection sweep failed", e);
+        } finally {
+            scheduleSweep();
+        }
+    }
+
+    private void sendHeartbeat(StreamConnection connection) {
+        if (!connection.sendHeartbeat()) {
+            deadPeersDropped.incrementAndGet();
+            unregister(connection);
+            return;
+        }
+        heartbeatsSent.incrementAndGet();
+    }
+}
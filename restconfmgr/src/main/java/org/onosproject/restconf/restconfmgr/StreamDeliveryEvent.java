@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event of an event stream delivery, from the serialization
+ * of the event to its write to the subscribers. Only loaded when the
+ * runtime has a flight recorder, see {@link RestconfFlightRecorder}.
+ */
+@Name("org.onosproject.restconf.StreamDelivery")
+@Label("RESTCONF Stream Delivery")
+@Category({"ONOS", "RESTCONF"})
+@Description("Delivery of an event to the subscribers of a RESTCONF stream")
+@StackTrace(false)
+final class StreamDeliveryEvent extends Event {
+
+    @Label("Stream")
+    String stream;
+
+    @Label("Subscribers")
+    @Description("Number of subscribers the event was written to")
+    int subscribers;
+
+    @Label("Serialization Time")
+    @Timespan
+    long serializationTime;
+
+    @Label("Bytes")
+    @Description("Size of the event data")
+    @DataAmount
+    long bytes;
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import org.onosproject.restconf.api.StreamSubscription.Encoding;
+import org.onosproject.yms.ydt.YdtContext;
+
+import java.util.Set;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Utf8.encodedLength;
+
+/**
+ * Represents an event of a RESTCONF stream. The event is serialized once,
+ * and rendered at most once per encoding whatever the number of subscribers.
+ */
+final class StreamEvent {
+
+    private static final String SSE_ID = "id: ";
+    private static final String SSE_DATA = "\ndata: ";
+    private static final String SSE_END = "\n\n";
+    private static final String JSON_END = "\n";
+    //rough heap footprint of a YDT node without its strings, and of a string
+    //without its characters
+    private static final int YDT_NODE_BYTES = 160;
+    private static final int STRING_BYTES = 40;
+
+    private final String id;
+    private final long sequence;
+    private final long timeMillis;
+    private final String data;
+    private final int size;
+    private final long retainedSize;
+    private final YdtContext root;
+
+    private volatile String json;
+    private volatile String sse;
+
+    /**
+     * Creates a stream event.
+     *
+     * @param id         the event ID, unique across controller restarts
+     * @param sequence   the sequence number of the event in its stream
+     * @param timeMillis the time of the event
+     * @param data       the single-line JSON data of the event
+     * @param root       the YDT of the event, used to evaluate filters
+     */
+    StreamEvent(String id, long sequence, long timeMillis, String data, YdtContext root) {
+        this.id = id;
+        this.sequence = sequence;
+        this.timeMillis = timeMillis;
+        this.data = data;
+        this.size = encodedLength(data);
+        this.root = root;
+        this.retainedSize = size + (root == null ? 0 : ydtFootprint(root));
+    }
+
+    String id() {
+        return id;
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    long timeMillis() {
+        return timeMillis;
+    }
+
+    String data() {
+        return data;
+    }
+
+    YdtContext root() {
+        return root;
+    }
+
+    /**
+     * Returns the size of the event data in bytes.
+     *
+     * @return size of the data in bytes
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns an estimate of the heap held by the event: its data and its
+     * YDT, which is usually much larger than the data.
+     *
+     * @return estimated footprint in bytes
+     */
+    long retainedSize() {
+        return retainedSize;
+    }
+
+    private static long ydtFootprint(YdtContext node) {
+        long footprint = YDT_NODE_BYTES + stringFootprint(node.getName()) + stringFootprint(node.getValue());
+        Set<String> values = node.getValueSet();
+        if (values != null) {
+            for (String value : values) {
+                footprint += stringFootprint(value);
+            }
+        }
+        for (YdtContext child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            footprint += ydtFootprint(child);
+        }
+        return footprint;
+    }
+
+    private static long stringFootprint(String string) {
+        return string == null ? 0 : STRING_BYTES + 2L * string.length();
+    }
+
+    /**
+     * Returns the event as written to a subscriber using the given encoding.
+     *
+     * @param encoding the encoding of the subscriber
+     * @return the event chunk
+     */
+    String render(Encoding encoding) {
+        if (encoding == Encoding.SSE) {
+            if (sse == null) {
+                sse = SSE_ID + id + SSE_DATA + data + SSE_END;
+            }
+            return sse;
+        }
+        if (json == null) {
+            json = data + JSON_END;
+        }
+        return json;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("id", id)
+                .add("timeMillis", timeMillis)
+                .add("size", size)
+                .toString();
+    }
+}
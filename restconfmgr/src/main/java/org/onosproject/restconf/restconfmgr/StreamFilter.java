@@ -0,0 +1,294 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.google.common.collect.ImmutableList;
+import org.onosproject.yms.ydt.YdtContext;
+import org.onosproject.yms.ydt.YdtType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Represents a compiled RESTCONF stream filter, evaluated against the YDT of
+ * a notification before the notification is serialized.
+ * <p>
+ * The supported expressions are the XPath subset commonly used for event
+ * filtering: one or more absolute location paths separated by "|", where
+ * each step is a node name, optionally prefixed by its module name, followed
+ * by zero or more leaf equality predicates:
+ * <pre>
+ *     /ietf-interfaces:interface-event[oper-status='down']/name
+ * </pre>
+ * A filter matches a notification if any of its paths selects at least one
+ * node. Filters compiled from equivalent expressions are equal, so that
+ * subscribers with the same filter can share one evaluation.
+ */
+final class StreamFilter {
+
+    private static final char PATH_SEPARATOR = '|';
+    private static final char STEP_SEPARATOR = '/';
+    private static final char PREDICATE_START = '[';
+    private static final char PREDICATE_END = ']';
+    private static final char EQUAL = '=';
+    private static final char COLON = ':';
+
+    private final List<List<Step>> paths;
+    private final String expression;
+
+    private StreamFilter(List<List<Step>> paths) {
+        this.paths = paths;
+        this.expression = toExpression(paths);
+    }
+
+    /**
+     * Compiles a filter expression.
+     *
+     * @param expression the filter expression
+     * @return the compiled filter
+     * @throws IllegalArgumentException if the expression is not supported
+     */
+    static StreamFilter compile(String expression) {
+        checkArgument(expression != null && !expression.trim().isEmpty(), "empty filter");
+        ImmutableList.Builder<List<Step>> paths = ImmutableList.builder();
+        for (String path : split(expression, PATH_SEPARATOR)) {
+            paths.add(compilePath(path.trim()));
+        }
+        return new StreamFilter(paths.build());
+    }
+
+    /**
+     * Returns whether the notification matches this filter.
+     *
+     * @param notificationRoot the root of the notification YDT
+     * @return true if the notification should be sent
+     */
+    boolean matches(YdtContext notificationRoot) {
+        for (List<Step> path : paths) {
+            if (matches(notificationRoot, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(YdtContext root, List<Step> path) {
+        //the root may be the module node itself or a node above it
+        Step first = path.get(0);
+        if (first.matches(root)) {
+            return path.size() == 1 || matchesChildren(root, path, 1);
+        }
+        return matchesChildren(root, path, 0);
+    }
+
+    private static boolean matchesChildren(YdtContext parent, List<Step> path, int index) {
+        Step step = path.get(index);
+        boolean isLast = index == path.size() - 1;
+        for (YdtContext child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (step.matches(child) && (isLast || matchesChildren(child, path, index + 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Step> compilePath(String path) {
+        checkArgument(path.length() > 1 && path.charAt(0) == STEP_SEPARATOR,
+                      "filter path should be absolute: %s", path);
+        List<Step> steps = new ArrayList<>();
+        for (String step : split(path.substring(1), STEP_SEPARATOR)) {
+            compileStep(step.trim(), steps.isEmpty(), steps);
+        }
+        return ImmutableList.copyOf(steps);
+    }
+
+    private static void compileStep(String step, boolean isFirst, List<Step> steps) {
+        int idx = step.indexOf(PREDICATE_START);
+        String name = (idx < 0 ? step : step.substring(0, idx)).trim();
+        checkArgument(!name.isEmpty(), "missing node name in filter step: %s", step);
+
+        int colon = name.indexOf(COLON);
+        if (colon >= 0) {
+            //only the top level node carries its module as a YDT node
+            if (isFirst) {
+                steps.add(new Step(name.substring(0, colon), ImmutableList.of()));
+            }
+            name = name.substring(colon + 1);
+        }
+
+        ImmutableList.Builder<LeafPredicate> predicates = ImmutableList.builder();
+        while (idx >= 0) {
+            int end = step.indexOf(PREDICATE_END, idx);
+            checkArgument(end > idx, "unterminated predicate in filter step: %s", step);
+            predicates.add(compilePredicate(step.substring(idx + 1, end).trim()));
+            String rest = step.substring(end + 1).trim();
+            checkArgument(rest.isEmpty() || rest.charAt(0) == PREDICATE_START,
+                          "unexpected text in filter step: %s", step);
+            idx = rest.isEmpty() ? -1 : step.indexOf(PREDICATE_START, end);
+        }
+        steps.add(new Step(name, predicates.build()));
+    }
+
+    private static LeafPredicate compilePredicate(String predicate) {
+        int idx = predicate.indexOf(EQUAL);
+        checkArgument(idx > 0, "only leaf equality predicates are supported: %s", predicate);
+        String leaf = predicate.substring(0, idx).trim();
+        String value = predicate.substring(idx + 1).trim();
+        checkArgument(value.length() >= 2
+                              && (value.charAt(0) == '\'' || value.charAt(0) == '"')
+                              && value.charAt(value.length() - 1) == value.charAt(0),
+                      "predicate value should be quoted: %s", predicate);
+        int colon = leaf.indexOf(COLON);
+        return new LeafPredicate(colon < 0 ? leaf : leaf.substring(colon + 1),
+                                 value.substring(1, value.length() - 1));
+    }
+
+    /**
+     * Splits an expression on a separator, ignoring the separators inside
+     * predicates.
+     */
+    private static List<String> split(String expression, char separator) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        char quote = 0;
+        int start = 0;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == PREDICATE_START) {
+                depth++;
+            } else if (c == PREDICATE_END) {
+                depth--;
+            } else if (c == separator && depth == 0) {
+                parts.add(expression.substring(start, i));
+                start = i + 1;
+            }
+        }
+        checkArgument(quote == 0 && depth == 0, "unbalanced filter expression: %s", expression);
+        parts.add(expression.substring(start));
+        return parts;
+    }
+
+    private static String toExpression(List<List<Step>> paths) {
+        StringBuilder builder = new StringBuilder();
+        for (List<Step> path : paths) {
+            if (builder.length() > 0) {
+                builder.append(PATH_SEPARATOR);
+            }
+            for (Step step : path) {
+                builder.append(STEP_SEPARATOR).append(step);
+            }
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return expression.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof StreamFilter) {
+            return expression.equals(((StreamFilter) obj).expression);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    /**
+     * A location step, matching a node by name and leaf predicates.
+     */
+    private static final class Step {
+        private final String name;
+        private final List<LeafPredicate> predicates;
+
+        private Step(String name, List<LeafPredicate> predicates) {
+            this.name = name;
+            this.predicates = predicates;
+        }
+
+        private boolean matches(YdtContext node) {
+            if (!name.equals(node.getName())) {
+                return false;
+            }
+            for (LeafPredicate predicate : predicates) {
+                if (!predicate.matches(node)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(name);
+            predicates.forEach(p -> builder.append(PREDICATE_START).append(p).append(PREDICATE_END));
+            return builder.toString();
+        }
+    }
+
+    /**
+     * A predicate matching a node having a child leaf with a given value.
+     */
+    private static final class LeafPredicate {
+        private final String leaf;
+        private final String value;
+
+        private LeafPredicate(String leaf, String value) {
+            this.leaf = leaf;
+            this.value = value;
+        }
+
+        private boolean matches(YdtContext node) {
+            for (YdtContext child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (!leaf.equals(child.getName())) {
+                    continue;
+                }
+                if (child.getYdtType() == YdtType.MULTI_INSTANCE_LEAF_VALUE_NODE) {
+                    Set<String> values = child.getValueSet();
+                    if (values != null && values.contains(value)) {
+                        return true;
+                    }
+                } else if (Objects.equals(value, child.getValue())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return leaf + EQUAL + '\'' + value + '\'';
+        }
+    }
+}
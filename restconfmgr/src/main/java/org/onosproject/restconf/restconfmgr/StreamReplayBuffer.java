@@ -0,0 +1,148 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.google.common.collect.ImmutableList;
+import org.onosproject.restconf.api.StreamSubscription;
+import org.onosproject.yms.ydt.YdtContext;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Retains the most recent events of a RESTCONF stream, so that subscribers
+ * can resume from their last received event or from a start time. The
+ * YDT of each retained event is kept as well, so that filters can be
+ * applied to the replayed events. The retention is bounded both by number
+ * of events and by bytes, counting the estimated heap footprint of the
+ * YDTs along with the event data.
+ * <p>
+ * Event IDs are made of a per-instance epoch and a sequence number. An ID
+ * from another epoch, i.e. issued before a controller restart, can't be
+ * located in the buffer, so all the retained events are replayed for it.
+ */
+final class StreamReplayBuffer {
+
+    private static final char ID_SEPARATOR = '-';
+
+    private final String epoch;
+    private final Deque<StreamEvent> events = new ArrayDeque<>();
+    private long nextSequence = 1;
+    private long bytes;
+    private int maxEvents;
+    private long maxBytes;
+
+    /**
+     * Creates a replay buffer.
+     *
+     * @param maxEvents maximum number of retained events
+     * @param maxBytes  maximum number of retained bytes of events
+     */
+    StreamReplayBuffer(int maxEvents, long maxBytes) {
+        this.epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+        setRetention(maxEvents, maxBytes);
+    }
+
+    /**
+     * Updates the retention limits, dropping the oldest events if needed.
+     *
+     * @param maxEvents maximum number of retained events, 0 to retain none
+     * @param maxBytes  maximum number of retained bytes of events
+     */
+    synchronized void setRetention(int maxEvents, long maxBytes) {
+        checkArgument(maxEvents >= 0, "maximum number of events should not be negative");
+        checkArgument(maxBytes >= 0, "maximum number of bytes should not be negative");
+        this.maxEvents = maxEvents;
+        this.maxBytes = maxBytes;
+        trim();
+    }
+
+    /**
+     * Creates the next event of the stream and retains it.
+     *
+     * @param data the single-line JSON data of the event
+     * @param root the YDT of the event
+     * @return the new event
+     */
+    synchronized StreamEvent append(String data, YdtContext root) {
+        long sequence = nextSequence++;
+        StreamEvent event = new StreamEvent(epoch + ID_SEPARATOR + sequence, sequence,
+                                            System.currentTimeMillis(), data, root);
+        events.addLast(event);
+        bytes += event.retainedSize();
+        trim();
+        return event;
+    }
+
+    /**
+     * Returns the retained events a subscription asks for, oldest first.
+     * The last event ID takes precedence over the start time.
+     *
+     * @param subscription the subscription
+     * @return the events to replay
+     */
+    synchronized List<StreamEvent> replay(StreamSubscription subscription) {
+        ImmutableList.Builder<StreamEvent> builder = ImmutableList.builder();
+        if (subscription.lastEventId() != null) {
+            long after = sequenceOf(subscription.lastEventId());
+            events.stream().filter(e -> e.sequence() > after).forEach(builder::add);
+        } else if (subscription.startTimeMillis() >= 0) {
+            events.stream().filter(e -> e.timeMillis() >= subscription.startTimeMillis())
+                    .forEach(builder::add);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of retained events.
+     *
+     * @return number of events
+     */
+    synchronized int size() {
+        return events.size();
+    }
+
+    /**
+     * Returns the number of retained bytes of events, their YDT included.
+     *
+     * @return number of bytes
+     */
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    private long sequenceOf(String eventId) {
+        int idx = eventId.lastIndexOf(ID_SEPARATOR);
+        if (idx <= 0 || !eventId.substring(0, idx).equals(epoch)) {
+            //issued before a restart, everything retained is new to the client
+            return 0;
+        }
+        try {
+            return Long.parseLong(eventId.substring(idx + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void trim() {
+        while (!events.isEmpty() && (events.size() > maxEvents || bytes > maxBytes)) {
+            bytes -= events.removeFirst().retainedSize();
+        }
+    }
+}
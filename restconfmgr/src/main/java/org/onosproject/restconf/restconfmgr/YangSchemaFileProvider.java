@@ -0,0 +1,229 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.felix.scr.annotations.Activate;
+import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.ReferenceCardinality;
+import org.onosproject.cfg.ComponentConfigService;
+import org.onosproject.restconf.utils.parser.api.YangSchemaResolver;
+import org.onosproject.restconf.utils.parser.api.YangValueType;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.component.ComponentContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static org.onlab.util.Tools.get;
+
+/**
+ * Provides the YANG schema of the RESTCONF data resources from a schema
+ * file, for deployments whose YANG models are known up front. The file is
+ * a JSON object giving the value type of each schema path, and the keys of
+ * each list:
+ * <pre>
+ * {
+ *   "mod:top": "NON_LEAF",
+ *   "mod:top/name": "STRING",
+ *   "mod:top/entry": {"type": "NON_LEAF", "keys": ["id"]},
+ *   "mod:top/entry/id": "INTEGER"
+ * }
+ * </pre>
+ * The schema resolver is registered once a file is loaded. The nodes the
+ * file doesn't describe are then rejected, so it should describe all the
+ * YANG models served over RESTCONF. A file which can't be loaded leaves
+ * the previous schema in place.
+ */
+@Component(immediate = true)
+public class YangSchemaFileProvider {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String TYPE = "type";
+    private static final String KEYS = "keys";
+    //changed on each reload, so that the users of the resolver drop what
+    //they have cached
+    private static final String REVISION = "revision";
+
+    private static final String DEFAULT_SCHEMA_FILE = "";
+    @Property(name = "schemaFile", value = DEFAULT_SCHEMA_FILE,
+            label = "JSON file describing the YANG schema of the data resources, used to " +
+                    "check payloads, encode values and diff lists; empty for no schema")
+    private String schemaFile = DEFAULT_SCHEMA_FILE;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected ComponentConfigService cfgService;
+
+    private final FileSchemaResolver resolver = new FileSchemaResolver();
+    private BundleContext bundleContext;
+    private ServiceRegistration<YangSchemaResolver> registration;
+    private long revision;
+
+    @Activate
+    protected void activate(ComponentContext context) {
+        cfgService.registerProperties(getClass());
+        bundleContext = context.getBundleContext();
+        modified(context);
+        log.info("Started");
+    }
+
+    @Deactivate
+    protected synchronized void deactivate() {
+        unregister();
+        cfgService.unregisterProperties(getClass(), false);
+        log.info("Stopped");
+    }
+
+    @Modified
+    protected synchronized void modified(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+        String value = get(context.getProperties(), "schemaFile");
+        schemaFile = isNullOrEmpty(value) ? DEFAULT_SCHEMA_FILE : value.trim();
+        if (schemaFile.isEmpty()) {
+            unregister();
+            log.info("No schema file");
+            return;
+        }
+        Schema schema;
+        try {
+            schema = parse(MAPPER.readTree(new File(schemaFile)));
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Failed to load schema file {}, keeping the previous schema", schemaFile, e);
+            return;
+        }
+        resolver.schema = schema;
+        Dictionary<String, Object> properties = new Hashtable<>();
+        properties.put("schemaFile", schemaFile);
+        properties.put(REVISION, ++revision);
+        if (registration == null) {
+            registration = bundleContext.registerService(YangSchemaResolver.class, resolver, properties);
+        } else {
+            registration.setProperties(properties);
+        }
+        log.info("Loaded {} schema paths from {}", schema.valueTypes.size(), schemaFile);
+    }
+
+    private void unregister() {
+        if (registration != null) {
+            registration.unregister();
+            registration = null;
+        }
+        resolver.schema = Schema.EMPTY;
+    }
+
+    /**
+     * Parses the content of a schema file.
+     *
+     * @param content the JSON content of the file
+     * @return the schema
+     * @throws IllegalArgumentException if the content is not a valid schema
+     */
+    static Schema parse(JsonNode content) {
+        if (content == null || !content.isObject()) {
+            throw new IllegalArgumentException("A schema file should hold a JSON object");
+        }
+        ImmutableMap.Builder<String, YangValueType> valueTypes = ImmutableMap.builder();
+        ImmutableMap.Builder<String, List<String>> listKeys = ImmutableMap.builder();
+        Iterator<Map.Entry<String, JsonNode>> fields = content.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String path = field.getKey();
+            JsonNode node = field.getValue();
+            JsonNode type = node.isObject() ? node.get(TYPE) : node;
+            valueTypes.put(path, valueType(path, type));
+            JsonNode keys = node.isObject() ? node.get(KEYS) : null;
+            if (keys != null) {
+                if (!keys.isArray() || keys.size() == 0) {
+                    throw new IllegalArgumentException("Invalid keys for " + path);
+                }
+                ImmutableList.Builder<String> names = ImmutableList.builder();
+                keys.forEach(key -> names.add(key.asText()));
+                listKeys.put(path, names.build());
+            }
+        }
+        return new Schema(valueTypes.build(), listKeys.build());
+    }
+
+    private static YangValueType valueType(String path, JsonNode type) {
+        if (type == null || !type.isTextual()) {
+            throw new IllegalArgumentException("Missing type for " + path);
+        }
+        try {
+            return YangValueType.valueOf(type.asText());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid type " + type.asText() + " for " + path);
+        }
+    }
+
+    /**
+     * Represents the schema paths of a schema file.
+     */
+    static final class Schema {
+        private static final Schema EMPTY = new Schema(ImmutableMap.of(), ImmutableMap.of());
+
+        private final Map<String, YangValueType> valueTypes;
+        private final Map<String, List<String>> listKeys;
+
+        private Schema(Map<String, YangValueType> valueTypes, Map<String, List<String>> listKeys) {
+            this.valueTypes = valueTypes;
+            this.listKeys = listKeys;
+        }
+    }
+
+    /**
+     * Resolves the schema paths from the last loaded schema file.
+     */
+    static final class FileSchemaResolver implements YangSchemaResolver {
+        private volatile Schema schema = Schema.EMPTY;
+
+        FileSchemaResolver() {
+        }
+
+        FileSchemaResolver(Schema schema) {
+            this.schema = schema;
+        }
+
+        @Override
+        public YangValueType getValueType(String schemaPath) {
+            return schema.valueTypes.get(schemaPath);
+        }
+
+        @Override
+        public List<String> getListKeys(String schemaPath) {
+            return schema.listKeys.get(schemaPath);
+        }
+    }
+}
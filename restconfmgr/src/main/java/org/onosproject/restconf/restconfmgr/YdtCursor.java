@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import org.onosproject.restconf.api.RequestTrace;
+import org.onosproject.restconf.utils.parser.json.ParserUtils;
+import org.onosproject.yms.ydt.YdtBuilder;
+import org.onosproject.yms.ydt.YdtContextOperationType;
+
+import java.util.List;
+
+/**
+ * Adds several data resources to one YDT builder, e.g. the edits of a
+ * batch. Moving from a resource to the next one only climbs up to the path
+ * they share before going down, so that resources sharing ancestors share
+ * the ancestor nodes of the tree, the module nodes included. The resources
+ * should come sorted by path for the most sharing.
+ */
+final class YdtCursor {
+
+    private static final Splitter SLASH_SPLITTER = Splitter.on('/').omitEmptyStrings();
+    private static final Joiner SLASH_JOINER = Joiner.on('/');
+    private static final String COLON = ":";
+
+    private final YdtBuilder builder;
+    //segments of the URI of the resource the builder is at
+    private List<String> position = ImmutableList.of();
+
+    /**
+     * Creates a cursor over a YDT builder at its root node.
+     *
+     * @param builder the YDT builder
+     */
+    YdtCursor(YdtBuilder builder) {
+        this.builder = builder;
+    }
+
+    /**
+     * Returns the segments of a URI identifier, as compared by the cursor.
+     *
+     * @param identifier the URI identifier
+     * @return the path segments
+     */
+    static List<String> segments(String identifier) {
+        return SLASH_SPLITTER.splitToList(identifier);
+    }
+
+    /**
+     * Returns the segments of the URI of the resource the builder is at.
+     *
+     * @return the path segments, empty at the root node
+     */
+    List<String> position() {
+        return position;
+    }
+
+    /**
+     * Returns whether the builder is at a resource containing the given one.
+     *
+     * @param segments the segments of the URI of a resource
+     * @return true if the resource is the current one or one of its descendants
+     */
+    boolean contains(List<String> segments) {
+        return !position.isEmpty() && segments.size() >= position.size()
+                && segments.subList(0, position.size()).equals(position);
+    }
+
+    /**
+     * Moves the builder to the node of a data resource, adding the nodes
+     * missing on the way. The builder must be at the node of the previous
+     * resource; the nodes added below it since, e.g. by converting a
+     * payload, must have been left.
+     *
+     * @param identifier the URI identifier of the resource
+     * @param opType     the operation type of the resource node
+     */
+    void moveTo(String identifier, YdtContextOperationType opType) {
+        List<String> segments = segments(identifier);
+        int common = 0;
+        while (common < position.size() && common < segments.size()
+                && position.get(common).equals(segments.get(common))) {
+            common++;
+        }
+        for (int i = position.size() - 1; i >= common; i--) {
+            //a module qualified segment adds the module node too
+            int levels = position.get(i).contains(COLON) ? 2 : 1;
+            for (int j = 0; j < levels; j++) {
+                builder.traverseToParent();
+            }
+        }
+        if (common < segments.size()) {
+            //the nodes added on the way, module nodes included, are only a
+            //path to the resource, not edited with the previous payload
+            builder.setDefaultEditOperationType(YdtContextOperationType.NONE);
+            try (RequestTrace.Span span = RequestTrace.span("uri.toYdt")) {
+                ParserUtils.convertUriToYdt(SLASH_JOINER.join(segments.subList(common, segments.size())),
+                                            builder, opType);
+            }
+        }
+        position = segments;
+    }
+}
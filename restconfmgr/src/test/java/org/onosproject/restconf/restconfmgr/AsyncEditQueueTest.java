@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.restconf.api.OperationStatus;
+import org.onosproject.restconf.api.OperationStatus.State;
+import org.onosproject.restconf.api.RestconfException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the asynchronous edit queue.
+ */
+public class AsyncEditQueueTest {
+
+    private static final long WAIT_MILLIS = 5000;
+
+    private AsyncEditQueue queue;
+
+    @Before
+    public void setUp() {
+        queue = new AsyncEditQueue(2, 1, 60, Executors.defaultThreadFactory());
+    }
+
+    @After
+    public void tearDown() {
+        queue.stop();
+    }
+
+    /**
+     * Tests that an invalid path is rejected without taking a slot.
+     */
+    @Test
+    public void invalidPath() {
+        try {
+            queue.submit("put", "m:a=%zz", () -> { });
+            fail("invalid path accepted");
+        } catch (RestconfException e) {
+            assertEquals(400, e.getResponse().getStatus());
+        }
+        OperationStatus status = queue.submit("put", "m:a", () -> { });
+        assertEquals(State.SUCCEEDED, queue.status(status.id(), WAIT_MILLIS).state());
+        assertEquals(0, queue.pending());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void assertRejected(AsyncEditQueue queue, String path) {
+        try {
+            queue.submit("put", path, () -> { });
+            fail("edit of " + path + " accepted");
+        } catch (RestconfException e) {
+            assertEquals(503, e.getResponse().getStatus());
+        }
+    }
+
+    /**
+     * Tests that the edits of a top level node, list entries included,
+     * run one at a time in submission order.
+     */
+    @Test
+    public void sameTopNode() {
+        queue.setLimits(4, 100, 60);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int index = i;
+            ids.add(queue.submit("put", "m:a=" + (i % 3) + "/b", () -> {
+                assertEquals(1, running.incrementAndGet());
+                order.add(index);
+                running.decrementAndGet();
+            }).id());
+        }
+        for (String id : ids) {
+            assertEquals(State.SUCCEEDED, queue.status(id, WAIT_MILLIS).state());
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, (int) order.get(i));
+        }
+    }
+
+    /**
+     * Tests that the edits of different top level nodes run concurrently.
+     */
+    @Test
+    public void differentTopNodes() {
+        queue.setLimits(2, 10, 60);
+        CountDownLatch both = new CountDownLatch(2);
+        Runnable action = () -> {
+            both.countDown();
+            await(both);
+        };
+        OperationStatus a = queue.submit("put", "m:a", action);
+        OperationStatus b = queue.submit("put", "m:b", action);
+        assertEquals(State.SUCCEEDED, queue.status(a.id(), WAIT_MILLIS).state());
+        assertEquals(State.SUCCEEDED, queue.status(b.id(), WAIT_MILLIS).state());
+    }
+
+    /**
+     * Tests that an edit over the pending bound is rejected, and that the
+     * slot is given back once the pending edit is done.
+     */
+    @Test
+    public void maxPending() {
+        CountDownLatch release = new CountDownLatch(1);
+        OperationStatus first = queue.submit("put", "m:a", () -> await(release));
+        assertRejected(queue, "m:b");
+        assertEquals(1, queue.rejected());
+        release.countDown();
+        assertEquals(State.SUCCEEDED, queue.status(first.id(), WAIT_MILLIS).state());
+        OperationStatus next = queue.submit("put", "m:b", () -> { });
+        assertEquals(State.SUCCEEDED, queue.status(next.id(), WAIT_MILLIS).state());
+    }
+
+    /**
+     * Tests that stopping the queue fails the queued edits and rejects
+     * new ones.
+     */
+    @Test
+    public void stop() {
+        queue.setLimits(1, 10, 60);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        queue.submit("put", "m:a", () -> {
+            started.countDown();
+            await(release);
+        });
+        OperationStatus queued = queue.submit("put", "m:a", () -> fail("queued edit ran"));
+        await(started);
+        queue.stop();
+
+        OperationStatus status = queue.status(queued.id(), WAIT_MILLIS);
+        assertEquals(State.FAILED, status.state());
+        assertEquals(503, status.errorStatus());
+        assertRejected(queue, "m:b");
+    }
+}
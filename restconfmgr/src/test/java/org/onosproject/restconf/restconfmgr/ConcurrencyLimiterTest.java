@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.restconf.api.RequestPriority;
+import org.onosproject.restconf.api.RestconfException;
+import org.onosproject.restconf.restconfmgr.ConcurrencyLimiter.Lane;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the adaptive concurrency limiter.
+ */
+public class ConcurrencyLimiterTest {
+
+    private static final long WAIT_MILLIS = 5000;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Acquires a slot on another thread, once the given number of
+     * operations wait; the future returns the start time.
+     */
+    private Future<Long> acquireQueued(ConcurrencyLimiter limiter, Lane lane, RequestPriority priority,
+                                       int queuedBefore) throws InterruptedException {
+        Future<Long> future = executor.submit(() -> limiter.acquire(lane, priority));
+        awaitQueued(limiter, queuedBefore + 1);
+        return future;
+    }
+
+    private static void awaitQueued(ConcurrencyLimiter limiter, int queued) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (limiter.queued() != queued) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("expected " + queued + " waiting operations, got " + limiter.queued());
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Tests that a disabled limiter lets every operation through, and
+     * still counts them.
+     */
+    @Test
+    public void disabled() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 0, 0, 0);
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire(Lane.QUERY, RequestPriority.NORMAL);
+        }
+        assertEquals(0, limiter.limit());
+        assertEquals(100, limiter.inFlight());
+        assertEquals(100, limiter.inFlight(Lane.QUERY));
+    }
+
+    /**
+     * Tests that an operation over the limit is rejected at once when its
+     * queue is full, and after the queue timeout otherwise.
+     */
+    @Test
+    public void rejected() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 0, 0);
+        assertEquals(1, limiter.limit());
+        limiter.acquire(Lane.EDIT, RequestPriority.NORMAL);
+        try {
+            limiter.acquire(Lane.EDIT, RequestPriority.NORMAL);
+            fail("operation over the limit accepted");
+        } catch (RestconfException e) {
+            assertEquals(503, e.getResponse().getStatus());
+        }
+
+        limiter.setLimits(1, 1, 1, 50);
+        long start = System.nanoTime();
+        try {
+            limiter.acquire(Lane.EDIT, RequestPriority.NORMAL);
+            fail("operation over the limit accepted");
+        } catch (RestconfException e) {
+            assertEquals(503, e.getResponse().getStatus());
+        }
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(2, limiter.rejected());
+        assertEquals(0, limiter.queued());
+        assertEquals(1, limiter.inFlight());
+    }
+
+    /**
+     * Tests that a released slot goes to the waiting operation of the
+     * highest priority first.
+     */
+    @Test
+    public void priority() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 10, WAIT_MILLIS);
+        long start = limiter.acquire(Lane.QUERY, RequestPriority.NORMAL);
+        Future<Long> low = acquireQueued(limiter, Lane.QUERY, RequestPriority.LOW, 0);
+        Future<Long> high = acquireQueued(limiter, Lane.QUERY, RequestPriority.HIGH, 1);
+
+        limiter.release(Lane.QUERY, start);
+        long highStart = high.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        assertFalse(low.isDone());
+        assertEquals(1, limiter.queued(Lane.QUERY));
+
+        limiter.release(Lane.QUERY, highStart);
+        low.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        assertEquals(0, limiter.queued());
+        assertEquals(1, limiter.inFlight());
+    }
+
+    /**
+     * Tests that the limit goes down when the latency rises well over the
+     * unloaded latency.
+     */
+    @Test
+    public void latencyLowersLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 100, 0, 0);
+        assertEquals(100, limiter.limit());
+        long start = limiter.acquire(Lane.EDIT, RequestPriority.NORMAL);
+        limiter.release(Lane.EDIT, start - TimeUnit.MILLISECONDS.toNanos(1));
+        for (int i = 0; i < 200; i++) {
+            start = limiter.acquire(Lane.EDIT, RequestPriority.NORMAL);
+            limiter.release(Lane.EDIT, start - TimeUnit.MILLISECONDS.toNanos(20));
+        }
+        assertTrue("limit " + limiter.limit(), limiter.limit() < 100);
+        assertEquals(1000, limiter.minLatencyMicros(), 100);
+        assertEquals(0, limiter.inFlight());
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.restconf.utils.parser.api.YangSchemaResolver;
+import org.onosproject.restconf.utils.parser.api.YangValueType;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the minimal edit of a PUT.
+ */
+public class EditDiffTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    //"l" is a list keyed by "k", "c" and "n" containers, the other nodes leaves
+    private static final Set<String> NON_LEAVES = ImmutableSet.of("l", "c", "n");
+    private static final YangSchemaResolver RESOLVER = new YangSchemaResolver() {
+        @Override
+        public YangValueType getValueType(String schemaPath) {
+            String name = name(schemaPath);
+            return NON_LEAVES.contains(name) ? YangValueType.NON_LEAF : YangValueType.STRING;
+        }
+
+        @Override
+        public List<String> getListKeys(String schemaPath) {
+            return name(schemaPath).equals("l") ? ImmutableList.of("k") : null;
+        }
+
+        private String name(String schemaPath) {
+            return schemaPath.substring(Math.max(schemaPath.lastIndexOf('/'), schemaPath.lastIndexOf(':')) + 1);
+        }
+    };
+
+    private TestYdtBuilder ydt;
+
+    @Before
+    public void setUp() {
+        ydt = new TestYdtBuilder(ImmutableMap.of("l", ImmutableList.of("k")));
+        ydt.builder().addChild("r", null);
+    }
+
+    private EditDiff diff(YangSchemaResolver resolver, String current, String desired) throws IOException {
+        EditDiff diff = new EditDiff(ydt.builder(), resolver);
+        diff.apply((ObjectNode) MAPPER.readTree(current), (ObjectNode) MAPPER.readTree(desired));
+        assertEquals("r", ydt.current());
+        return diff;
+    }
+
+    /**
+     * Tests that the same contents give no edit.
+     */
+    @Test
+    public void sameContent() throws IOException {
+        String content = "{\"a\":\"1\",\"c\":{\"b\":2},\"l\":[{\"k\":\"x\",\"v\":1}],\"ll\":[1,2]}";
+        EditDiff diff = diff(RESOLVER, content, content.replace("\"1\"", "1"));
+        assertFalse(diff.hasChanges());
+        assertEquals(0, diff.nodesSent());
+        assertEquals("r", ydt.tree());
+    }
+
+    /**
+     * Tests the changed, added and removed leaves and subtrees.
+     */
+    @Test
+    public void changedLeavesAndSubtrees() throws IOException {
+        EditDiff diff = diff(RESOLVER, "{\"a\":1,\"b\":2,\"c\":{\"d\":3,\"e\":4}}",
+                             "{\"a\":1,\"b\":5,\"n\":{\"f\":6},\"c\":{\"d\":3,\"e\":7},\"g\":8}");
+        assertTrue(diff.hasChanges());
+        assertEquals("r(b:REPLACE=5,n:MERGE(f:MERGE=6),c(e:REPLACE=7),g:MERGE=8)", ydt.tree());
+        assertEquals(6, diff.nodesSent());
+    }
+
+    /**
+     * Tests that the list entries are matched by their keys.
+     */
+    @Test
+    public void changedListEntries() throws IOException {
+        EditDiff diff = diff(RESOLVER, "{\"l\":[{\"k\":\"x\",\"v\":1},{\"k\":\"y\",\"v\":2},{\"k\":\"z\",\"v\":3}]}",
+                             "{\"l\":[{\"k\":\"y\",\"v\":2},{\"k\":\"x\",\"v\":4},{\"k\":\"w\",\"v\":5}],\"a\":6}");
+        assertEquals("r(l(k=x,v:REPLACE=4),l:MERGE(k:MERGE=w,v:MERGE=5),l:DELETE(k=z),a:MERGE=6)", ydt.tree());
+    }
+
+    /**
+     * Tests that a changed list whose keys are unknown can't be diffed.
+     */
+    @Test(expected = EditDiff.MissingListKeysException.class)
+    public void changedListWithoutResolver() throws IOException {
+        diff(null, "{\"l\":[{\"k\":\"x\",\"v\":1}]}", "{\"l\":[{\"k\":\"x\",\"v\":2}]}");
+    }
+
+    /**
+     * Tests that a removed list whose keys are unknown can't be diffed.
+     */
+    @Test(expected = EditDiff.MissingListKeysException.class)
+    public void removedListWithoutResolver() throws IOException {
+        diff(null, "{\"l\":[{\"k\":\"x\",\"v\":1}]}", "{}");
+    }
+
+    /**
+     * Tests that the unchanged lists don't need their keys.
+     */
+    @Test
+    public void unchangedListWithoutResolver() throws IOException {
+        EditDiff diff = diff(null, "{\"l\":[{\"k\":\"x\",\"v\":1}],\"a\":1}",
+                             "{\"l\":[{\"k\":\"x\",\"v\":1}],\"a\":2}");
+        assertEquals("r(a:REPLACE=2)", ydt.tree());
+        assertEquals(1, diff.nodesSent());
+    }
+
+    /**
+     * Tests the counting of the nodes of a content.
+     */
+    @Test
+    public void countNodes() throws IOException {
+        assertEquals(8, EditDiff.countNodes((ObjectNode) MAPPER.readTree(
+                "{\"a\":1,\"c\":{\"b\":2},\"l\":[{\"k\":\"x\"},{\"k\":\"y\"}],\"ll\":[1,2]}")));
+    }
+}
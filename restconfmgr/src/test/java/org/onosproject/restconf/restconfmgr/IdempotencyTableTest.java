@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import org.onosproject.restconf.api.EditOutcome;
+import org.onosproject.restconf.api.RestconfException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the idempotency key table.
+ */
+public class IdempotencyTableTest {
+
+    private static final EditOutcome CREATED = new EditOutcome(201, ImmutableMap.of(), null);
+    private static final EditOutcome FAILED = new EditOutcome(500, ImmutableMap.of(), "failed");
+
+    private static void assertRejected(IdempotencyTable table, String key, String fingerprint, int status) {
+        try {
+            table.claim(key, fingerprint);
+            fail("claim of " + key + " accepted");
+        } catch (RestconfException e) {
+            assertEquals(status, e.getResponse().getStatus());
+        }
+    }
+
+    /**
+     * Tests that a retry gets the outcome of the first attempt.
+     */
+    @Test
+    public void replay() {
+        IdempotencyTable table = new IdempotencyTable(10, 60);
+        assertNull(table.claim("k", "put m:a"));
+        table.complete("k", "put m:a", CREATED);
+        assertSame(CREATED, table.claim("k", "put m:a"));
+        assertEquals(1, table.replayed());
+        assertEquals(1, table.size());
+    }
+
+    /**
+     * Tests that a key can't be reused for another request, nor claimed
+     * while its request is in progress.
+     */
+    @Test
+    public void conflicts() {
+        IdempotencyTable table = new IdempotencyTable(10, 60);
+        assertNull(table.claim("k", "put m:a"));
+        assertRejected(table, "k", "put m:a", 409);
+        assertRejected(table, "k", "put m:b", 422);
+        table.complete("k", "put m:a", CREATED);
+        assertRejected(table, "k", "put m:b", 422);
+        assertEquals(1, table.conflicts());
+        assertEquals(2, table.mismatched());
+    }
+
+    /**
+     * Tests that a server error releases the key, so that a retry runs.
+     */
+    @Test
+    public void serverError() {
+        IdempotencyTable table = new IdempotencyTable(10, 60);
+        assertNull(table.claim("k", "put m:a"));
+        table.complete("k", "put m:a", FAILED);
+        assertEquals(0, table.size());
+        assertNull(table.claim("k", "put m:a"));
+    }
+
+    /**
+     * Tests that a request which didn't claim a key can't complete it.
+     */
+    @Test
+    public void completeUnclaimed() {
+        IdempotencyTable table = new IdempotencyTable(10, 60);
+        assertNull(table.claim("k", "put m:a"));
+        table.complete("k", "put m:b", CREATED);
+        table.complete("other", "put m:a", CREATED);
+        assertEquals(1, table.size());
+        assertRejected(table, "k", "put m:a", 409);
+    }
+
+    /**
+     * Tests the key length bounds, and that a capacity of 0 disables the
+     * keys.
+     */
+    @Test
+    public void limits() {
+        IdempotencyTable table = new IdempotencyTable(10, 60);
+        assertRejected(table, "", "put m:a", 400);
+        assertRejected(table, new String(new char[256]).replace('\0', 'k'), "put m:a", 400);
+
+        assertNull(table.claim("k", "put m:a"));
+        table.complete("k", "put m:a", CREATED);
+        table.setLimits(5, 30);
+        assertSame(CREATED, table.claim("k", "put m:a"));
+
+        table.setLimits(0, 30);
+        assertNull(table.claim("j", "put m:a"));
+        assertNull(table.claim("j", "put m:a"));
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the hierarchical path lock manager.
+ */
+public class PathLockManagerTest {
+
+    private static final long BLOCKED_MILLIS = 200;
+    private static final long WAIT_MILLIS = 5000;
+
+    private PathLockManager locks;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        locks = new PathLockManager(1024);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static List<List<String>> paths(String... paths) {
+        ImmutableList.Builder<List<String>> builder = ImmutableList.builder();
+        for (String path : paths) {
+            builder.add(YdtCursor.segments(path));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Locks paths on another thread, returning when the lease is released.
+     */
+    private Future<?> lockAndRelease(boolean exclusive, String... paths) {
+        return executor.submit(() -> locks.lock(paths(paths), exclusive).close());
+    }
+
+    private static void assertBlocked(Future<?> future) throws Exception {
+        try {
+            future.get(BLOCKED_MILLIS, TimeUnit.MILLISECONDS);
+            fail("lock acquired while it should wait");
+        } catch (TimeoutException e) {
+            //still waiting, as expected
+        }
+    }
+
+    private static void assertAcquired(Future<?> future) throws Exception {
+        future.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Tests that edits of sibling subtrees don't wait for each other.
+     */
+    @Test
+    public void siblingEdits() throws Exception {
+        try (PathLockManager.Lease lease = locks.lock(paths("m:top/a"), true)) {
+            assertAcquired(lockAndRelease(true, "m:top/b"));
+        }
+        assertEquals(2, locks.acquisitions());
+        assertEquals(0, locks.contended());
+    }
+
+    /**
+     * Tests that an edit of an enclosing or enclosed subtree waits for an
+     * edit in progress, and runs once it is over.
+     */
+    @Test
+    public void nestedEdits() throws Exception {
+        Future<?> enclosing;
+        Future<?> enclosed;
+        try (PathLockManager.Lease lease = locks.lock(paths("m:top/a"), true)) {
+            enclosing = lockAndRelease(true, "m:top");
+            enclosed = lockAndRelease(true, "m:top/a/b");
+            assertBlocked(enclosing);
+            assertBlocked(enclosed);
+        }
+        assertAcquired(enclosing);
+        assertAcquired(enclosed);
+        assertEquals(2, locks.contended());
+    }
+
+    /**
+     * Tests that reads share a path, and that an edit of the path waits
+     * for them.
+     */
+    @Test
+    public void readsShare() throws Exception {
+        Future<?> edit;
+        try (PathLockManager.Lease lease = locks.lock(paths("m:top/a"), false)) {
+            assertAcquired(lockAndRelease(false, "m:top/a"));
+            assertAcquired(lockAndRelease(false, "m:top"));
+            edit = lockAndRelease(true, "m:top/a");
+            assertBlocked(edit);
+        }
+        assertAcquired(edit);
+    }
+
+    /**
+     * Tests that a list encloses its entries, and that distinct entries
+     * are locked apart.
+     */
+    @Test
+    public void listEntries() throws Exception {
+        Future<?> list;
+        try (PathLockManager.Lease lease = locks.lock(paths("m:top/item=1"), true)) {
+            assertAcquired(lockAndRelease(true, "m:top/item=2"));
+            list = lockAndRelease(false, "m:top/item");
+            assertBlocked(list);
+        }
+        assertAcquired(list);
+    }
+
+    /**
+     * Tests that closing a lease twice releases its locks only once.
+     */
+    @Test
+    public void closeTwice() throws Exception {
+        PathLockManager.Lease first = locks.lock(paths("m:top/a"), false);
+        PathLockManager.Lease second = locks.lock(paths("m:top/a"), false);
+        first.close();
+        first.close();
+        Future<?> edit = lockAndRelease(true, "m:top/a");
+        assertBlocked(edit);
+        second.close();
+        assertAcquired(edit);
+    }
+}
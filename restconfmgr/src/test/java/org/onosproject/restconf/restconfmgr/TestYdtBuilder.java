@@ -0,0 +1,247 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.google.common.collect.ImmutableList;
+import org.onosproject.yms.ydt.YdtBuilder;
+import org.onosproject.yms.ydt.YdtContext;
+import org.onosproject.yms.ydt.YdtContextOperationType;
+import org.onosproject.yms.ydt.YdtType;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * YDT builder building a tree of plain nodes, moving like the YMS builder
+ * does: adding a node moves to it, and adding a list entry adds its key
+ * leaves and moves to the last one. The key names of the lists are given,
+ * as there is no schema.
+ */
+final class TestYdtBuilder implements InvocationHandler {
+
+    private final Node root = new Node("root", YdtType.SINGLE_INSTANCE_NODE, null);
+    private final Map<String, List<String>> listKeys;
+    private final YdtBuilder proxy;
+    private Node current = root;
+    private YdtContextOperationType defaultOperation;
+
+    /**
+     * Creates a builder.
+     *
+     * @param listKeys the key names of the lists, by list name
+     */
+    TestYdtBuilder(Map<String, List<String>> listKeys) {
+        this.listKeys = listKeys;
+        this.proxy = (YdtBuilder) Proxy.newProxyInstance(YdtBuilder.class.getClassLoader(),
+                                                         new Class<?>[]{YdtBuilder.class}, this);
+    }
+
+    /**
+     * Returns the YDT builder view.
+     *
+     * @return the builder
+     */
+    YdtBuilder builder() {
+        return proxy;
+    }
+
+    /**
+     * Returns the name of the node the builder is at.
+     *
+     * @return the node name
+     */
+    String current() {
+        return current.name;
+    }
+
+    /**
+     * Returns the tree built so far, e.g. "m(a:MERGE(x=1))": a node is its
+     * name, its operation if other than NONE, its value and its children.
+     *
+     * @return the tree below the root node
+     */
+    String tree() {
+        StringBuilder tree = new StringBuilder();
+        root.appendChildren(tree);
+        return tree.toString();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getRootNode":
+                return root.context();
+            case "getCurNode":
+                return current.context();
+            case "setDefaultEditOperationType":
+                defaultOperation = (YdtContextOperationType) args[0];
+                return null;
+            case "traverseToParent":
+                if (current.parent == null) {
+                    throw new IllegalStateException("Already at the root node");
+                }
+                current = current.parent;
+                return null;
+            case "addChild":
+                add(new Node((String) args[0], find(args, YdtType.class, YdtType.SINGLE_INSTANCE_NODE),
+                             find(args, YdtContextOperationType.class, defaultOperation)));
+                return null;
+            case "addMultiInstanceChild":
+                addEntry((String) args[0], find(args, List.class, ImmutableList.of()));
+                return null;
+            case "addLeaf":
+                Node leaf = new Node((String) args[0], args[2] instanceof Set ?
+                        YdtType.MULTI_INSTANCE_LEAF_VALUE_NODE : YdtType.SINGLE_INSTANCE_LEAF_VALUE_NODE,
+                                     defaultOperation);
+                leaf.value = args[2] == null ? null : args[2].toString();
+                add(leaf);
+                return null;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return tree();
+            default:
+                throw new UnsupportedOperationException("YdtBuilder." + method.getName());
+        }
+    }
+
+    private void addEntry(String name, List<?> keyValues) {
+        List<String> keys = listKeys.get(name);
+        if (keys == null || keys.size() != keyValues.size()) {
+            throw new IllegalArgumentException("Unknown list " + name);
+        }
+        add(new Node(name, YdtType.MULTI_INSTANCE_NODE, defaultOperation));
+        for (int i = 0; i < keys.size(); i++) {
+            if (i > 0) {
+                current = current.parent;
+            }
+            Node leaf = new Node(keys.get(i), YdtType.SINGLE_INSTANCE_LEAF_VALUE_NODE, null);
+            leaf.value = keyValues.get(i).toString();
+            add(leaf);
+        }
+    }
+
+    private void add(Node node) {
+        node.parent = current;
+        current.children.add(node);
+        current = node;
+    }
+
+    private static <T> T find(Object[] args, Class<T> type, T defaultValue) {
+        for (int i = 2; i < args.length; i++) {
+            if (type.isInstance(args[i])) {
+                return type.cast(args[i]);
+            }
+        }
+        return defaultValue;
+    }
+
+    private static final class Node {
+        private final String name;
+        private final YdtType type;
+        private final YdtContextOperationType operation;
+        private final List<Node> children = new ArrayList<>();
+        private Node parent;
+        private String value;
+        private YdtContext context;
+
+        private Node(String name, YdtType type, YdtContextOperationType operation) {
+            this.name = name;
+            this.type = type;
+            this.operation = operation;
+        }
+
+        private void appendChildren(StringBuilder tree) {
+            for (int i = 0; i < children.size(); i++) {
+                if (i > 0) {
+                    tree.append(',');
+                }
+                children.get(i).append(tree);
+            }
+        }
+
+        private void append(StringBuilder tree) {
+            tree.append(name);
+            if (operation != null && operation != YdtContextOperationType.NONE) {
+                tree.append(':').append(operation);
+            }
+            if (value != null) {
+                tree.append('=').append(value);
+            }
+            if (!children.isEmpty()) {
+                tree.append('(');
+                appendChildren(tree);
+                tree.append(')');
+            }
+        }
+
+        private Node sibling(int offset) {
+            if (parent == null) {
+                return null;
+            }
+            int index = parent.children.indexOf(this) + offset;
+            return index >= 0 && index < parent.children.size() ? parent.children.get(index) : null;
+        }
+
+        private YdtContext context() {
+            if (context == null) {
+                context = (YdtContext) Proxy.newProxyInstance(
+                        YdtContext.class.getClassLoader(), new Class<?>[]{YdtContext.class},
+                        (proxy, method, args) -> {
+                            switch (method.getName()) {
+                                case "getName":
+                                    return name;
+                                case "getValue":
+                                    return value;
+                                case "getYdtType":
+                                    return type;
+                                case "getParent":
+                                    return parent == null ? null : parent.context();
+                                case "getFirstChild":
+                                    return children.isEmpty() ? null : children.get(0).context();
+                                case "getLastChild":
+                                    return children.isEmpty() ? null
+                                            : children.get(children.size() - 1).context();
+                                case "getNextSibling":
+                                    return contextOf(sibling(1));
+                                case "getPreviousSibling":
+                                    return contextOf(sibling(-1));
+                                case "equals":
+                                    return proxy == args[0];
+                                case "hashCode":
+                                    return System.identityHashCode(proxy);
+                                case "toString":
+                                    return name;
+                                default:
+                                    throw new UnsupportedOperationException("YdtContext." + method.getName());
+                            }
+                        });
+            }
+            return context;
+        }
+
+        private static YdtContext contextOf(Node node) {
+            return node == null ? null : node.context();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.onosproject.restconf.utils.parser.api.YangSchemaResolver;
+import org.onosproject.restconf.utils.parser.api.YangValueType;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for the schema files of the YANG schema file provider.
+ */
+public class YangSchemaFileProviderTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static YangSchemaResolver resolver(String content) throws IOException {
+        return new YangSchemaFileProvider.FileSchemaResolver(YangSchemaFileProvider.parse(MAPPER.readTree(content)));
+    }
+
+    /**
+     * Tests the value types and list keys of a schema file.
+     */
+    @Test
+    public void schemaPaths() throws IOException {
+        YangSchemaResolver resolver = resolver(
+                "{\"m:top\":\"NON_LEAF\",\"m:top/name\":\"STRING\","
+                        + "\"m:top/entry\":{\"type\":\"NON_LEAF\",\"keys\":[\"id\",\"sub\"]},"
+                        + "\"m:top/entry/id\":{\"type\":\"INTEGER\"}}");
+        assertEquals(YangValueType.NON_LEAF, resolver.getValueType("m:top"));
+        assertEquals(YangValueType.STRING, resolver.getValueType("m:top/name"));
+        assertEquals(YangValueType.INTEGER, resolver.getValueType("m:top/entry/id"));
+        assertEquals(ImmutableList.of("id", "sub"), resolver.getListKeys("m:top/entry"));
+        assertNull(resolver.getListKeys("m:top"));
+        assertNull(resolver.getValueType("m:other"));
+    }
+
+    /**
+     * Tests that an unknown value type is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidType() throws IOException {
+        resolver("{\"m:top\":\"TEXT\"}");
+    }
+
+    /**
+     * Tests that a list without keys is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyKeys() throws IOException {
+        resolver("{\"m:top\":{\"type\":\"NON_LEAF\",\"keys\":[]}}");
+    }
+
+    /**
+     * Tests that a schema file should hold an object.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void notAnObject() throws IOException {
+        resolver("[\"m:top\"]");
+    }
+}
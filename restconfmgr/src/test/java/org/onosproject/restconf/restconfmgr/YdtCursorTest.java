@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.restconfmgr;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.restconf.utils.parser.json.ParserUtils;
+import org.onosproject.yms.ydt.YdtContextOperationType;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the YDT cursor adding several data resources to one YDT
+ * builder.
+ */
+public class YdtCursorTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private TestYdtBuilder ydt;
+    private YdtCursor cursor;
+
+    @Before
+    public void setUp() {
+        ydt = new TestYdtBuilder(ImmutableMap.of("l", ImmutableList.of("key")));
+        cursor = new YdtCursor(ydt.builder());
+    }
+
+    private void edit(String identifier, YdtContextOperationType opType, String payload) throws IOException {
+        cursor.moveTo(identifier, opType);
+        ydt.builder().setDefaultEditOperationType(opType);
+        ParserUtils.convertJsonToYdt((ObjectNode) MAPPER.readTree(payload), ydt.builder(), opType);
+    }
+
+    /**
+     * Tests that a payload leaves the builder at the node it was added to.
+     */
+    @Test
+    public void payloadLeavesBuilderAtResource() throws IOException {
+        edit("m:a/b", YdtContextOperationType.MERGE, "{\"x\":1,\"n\":{\"y\":2},\"l\":[{\"key\":\"k\"}]}");
+        assertEquals("b", ydt.current());
+    }
+
+    /**
+     * Tests a batch of two sibling edits and a nested one, as sorted by
+     * the edit batches.
+     */
+    @Test
+    public void siblingAndNestedEdits() throws IOException {
+        edit("m:a/b", YdtContextOperationType.MERGE, "{\"x\":1,\"n\":{\"y\":2}}");
+        edit("m:a/c", YdtContextOperationType.REPLACE, "{\"w\":4}");
+        edit("m:a/l=k1/g", YdtContextOperationType.MERGE, "{\"z\":3}");
+
+        assertEquals("m(a(b:MERGE(x:MERGE=1,n:MERGE(y:MERGE=2)),c:REPLACE(w:REPLACE=4),"
+                             + "l(key=k1,g:MERGE(z:MERGE=3))))", ydt.tree());
+        assertEquals("g", ydt.current());
+        assertEquals(ImmutableList.of("m:a", "l=k1", "g"), cursor.position());
+    }
+
+    /**
+     * Tests that the module node is shared by the resources of a module,
+     * and not by those of another module.
+     */
+    @Test
+    public void sharedModuleNode() throws IOException {
+        edit("m:a/l=k1", YdtContextOperationType.MERGE, "{\"z\":1}");
+        edit("m:a/l=k2", YdtContextOperationType.MERGE, "{\"z\":2}");
+        edit("n:b", YdtContextOperationType.DELETE, "{}");
+
+        assertEquals("m(a(l:MERGE(key=k1,z:MERGE=1),l:MERGE(key=k2,z:MERGE=2))),n(b:DELETE)", ydt.tree());
+    }
+
+    /**
+     * Tests the resources found in the result of the current one.
+     */
+    @Test
+    public void containedResources() {
+        assertFalse(cursor.contains(YdtCursor.segments("m:a")));
+        cursor.moveTo("/m:a/b", YdtContextOperationType.NONE);
+        assertTrue(cursor.contains(YdtCursor.segments("m:a/b")));
+        assertTrue(cursor.contains(YdtCursor.segments("m:a/b/c")));
+        assertFalse(cursor.contains(YdtCursor.segments("m:a")));
+        assertFalse(cursor.contains(YdtCursor.segments("m:a/bc")));
+    }
+}
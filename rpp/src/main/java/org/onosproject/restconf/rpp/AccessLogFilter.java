@@ -0,0 +1,179 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.rpp;
+
+import org.glassfish.jersey.server.ChunkedOutput;
+import org.onlab.osgi.ServiceNotFoundException;
+import org.onlab.rest.BaseResource;
+import org.onosproject.restconf.api.AccessLogRecord;
+import org.onosproject.restconf.api.RequestTrace;
+import org.onosproject.restconf.api.RestconfAccessLogService;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Traces and times the RESTCONF requests, handing an access log record
+ * and the trace of each of them to the access log service. A request
+ * keeps the correlation ID given in its X-Request-ID header, or gets a new
+ * one, which is sent back in the response. A response with a body is
+ * recorded once the body is written, so that its size and writing time
+ * are known; event streams are recorded when they start, as they never end
+ * on their own. The access log service is looked up like the resources
+ * look up theirs.
+ */
+public class AccessLogFilter extends BaseResource implements ContainerRequestFilter,
+        ContainerResponseFilter, WriterInterceptor {
+
+    private static final String TIMING = AccessLogFilter.class.getName() + ".timing";
+    private static final int MAX_REQUEST_ID_LENGTH = 128;
+    //IDs are unique per run, the prefix tells the runs apart
+    private static final String ID_PREFIX = Long.toHexString(ThreadLocalRandom.current().nextLong()) + "-";
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    private volatile RestconfAccessLogService accessLog;
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        String requestId = request.getHeaderString(RequestTrace.REQUEST_ID_HEADER);
+        if (!isValidRequestId(requestId)) {
+            requestId = ID_PREFIX + Long.toHexString(NEXT_ID.incrementAndGet());
+        }
+        RequestTrace trace = RequestTrace.start(requestId, request.getMethod(),
+                                                request.getUriInfo().getPath());
+        request.setProperty(TIMING, new Timing(trace));
+    }
+
+    /**
+     * Accepts a client request ID of printable ASCII only, so that it can
+     * be safely echoed in the response and written in the logs.
+     */
+    private static boolean isValidRequestId(String requestId) {
+        if (requestId == null || requestId.isEmpty() || requestId.length() > MAX_REQUEST_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < requestId.length(); i++) {
+            char c = requestId.charAt(i);
+            if (c <= ' ' || c > '~' || c == '"') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        Timing timing = (Timing) request.getProperty(TIMING);
+        if (timing == null) {
+            return;
+        }
+        response.getHeaders().putSingle(RequestTrace.REQUEST_ID_HEADER, timing.trace.requestId());
+        timing.status = response.getStatus();
+        timing.handleNanos = System.nanoTime() - timing.startNanos;
+        if (!response.hasEntity() || response.getEntity() instanceof ChunkedOutput) {
+            request.removeProperty(TIMING);
+            record(timing, -1, 0);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        Timing timing = (Timing) context.getProperty(TIMING);
+        if (timing == null) {
+            context.proceed();
+            return;
+        }
+        context.removeProperty(TIMING);
+        CountingOutputStream out = new CountingOutputStream(context.getOutputStream());
+        context.setOutputStream(out);
+        long writeStart = System.nanoTime();
+        try (RequestTrace.Span span = RequestTrace.span("response.write")) {
+            context.proceed();
+        } finally {
+            record(timing, out.count, System.nanoTime() - writeStart);
+        }
+    }
+
+    private void record(Timing timing, long bytes, long writeNanos) {
+        RequestTrace trace = timing.trace;
+        trace.finish(timing.status);
+        RestconfAccessLogService service = accessLogService();
+        if (service != null) {
+            service.record(new AccessLogRecord(trace.requestId(), trace.method(), trace.path(), timing.status,
+                                               bytes, trace.startMillis(), timing.handleNanos, writeNanos));
+            service.trace(trace);
+        }
+    }
+
+    private RestconfAccessLogService accessLogService() {
+        RestconfAccessLogService service = accessLog;
+        if (service == null) {
+            try {
+                service = get(RestconfAccessLogService.class);
+                accessLog = service;
+            } catch (ServiceNotFoundException e) {
+                return null;
+            }
+        }
+        return service;
+    }
+
+    /**
+     * Timing of one request.
+     */
+    private static final class Timing {
+        private final RequestTrace trace;
+        private final long startNanos = System.nanoTime();
+        private int status;
+        private long handleNanos;
+
+        private Timing(RequestTrace trace) {
+            this.trace = trace;
+        }
+    }
+
+    /**
+     * Output stream counting the bytes written through it.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.restconf.rpp;
+
+import org.onosproject.restconf.api.RestconfException;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Holds a request body, either on the heap or, above a size threshold or
+ * once the heap budget shared by all the bodies in flight is used up, in a
+ * temporary file. A spilled body is parsed or hashed by
+ * reading the file through its channel, so large bodies don't compete for
+ * heap with each other; closing the buffer deletes the file. A request body
+ * larger than the maximum body size is rejected with "413 Request Entity
+ * Too Large" as soon as the excess is known, before it is all spilled.
+ * <p>
+ * The threshold, the heap budget and the maximum body size are set with the
+ * system properties "org.onosproject.restconf.bodySpillThresholdBytes" (1 MB
+ * by default), "org.onosproject.restconf.maxHeapBodyBytes" (64 MB by default)
+ * and "org.onosproject.restconf.maxBodyBytes" (256 MB by default).
+ */
+final class BodyBuffer implements Closeable {
+
+    private static final long SPILL_THRESHOLD =
+            Long.getLong("org.onosproject.restconf.bodySpillThresholdBytes", 1L << 20);
+    private static final long MAX_HEAP_BYTES =
+            Long.getLong("org.onosproject.restconf.maxHeapBodyBytes", 64L << 20);
+    private static final long MAX_BODY_BYTES =
+            Long.getLong("org.onosproject.restconf.maxBodyBytes", 256L << 20);
+    private static final AtomicLong HEAP_BYTES = new AtomicLong();
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final String TEMP_PREFIX = "restconf-body";
+
+    //the body on the heap, or null if spilled
+    private final ByteBuffer buffer;
+    //the file holding the spilled body, or null if on the heap
+    private final FileChannel file;
+    private final long size;
+    private final long reserved;
+    private boolean isClosed;
+
+    private BodyBuffer(ByteBuffer buffer, long reserved) {
+        this.buffer = buffer;
+        this.file = null;
+        this.size = buffer.capacity();
+        this.reserved = reserved;
+    }
+
+    private BodyBuffer(FileChannel file, long size) {
+        this.buffer = null;
+        this.file = file;
+        this.size = size;
+        this.reserved = 0;
+    }
+
+    /**
+     * Reads a request body.
+     *
+     * @param stream        the request body stream
+     * @param contentLength the declared body length, or -1 if unknown
+     * @return the buffered body, to be closed once parsed
+     * @throws IOException if the body can't be read or spilled
+     * @throws RestconfException if the body exceeds the maximum body size
+     */
+    static BodyBuffer read(InputStream stream, long contentLength) throws IOException {
+        if (contentLength > MAX_BODY_BYTES) {
+            throw tooLarge();
+        }
+        if (contentLength >= 0 && contentLength <= SPILL_THRESHOLD && reserve(contentLength)) {
+            try {
+                byte[] bytes = new byte[(int) contentLength];
+                int read = 0;
+                while (read < bytes.length) {
+                    int count = stream.read(bytes, read, bytes.length - read);
+                    if (count < 0) {
+                        break;
+                    }
+                    read += count;
+                }
+                if (read < bytes.length || stream.read() >= 0) {
+                    throw new IOException("Request body doesn't match its Content-Length");
+                }
+                return new BodyBuffer(ByteBuffer.wrap(bytes), contentLength);
+            } catch (IOException | RuntimeException e) {
+                release(contentLength);
+                throw e;
+            }
+        }
+        return spill(Channels.newChannel(stream));
+    }
+
+    /**
+     * Returns a response entity writing out a JSON body. The body is already
+     * on the heap, often shared by coalesced requests, so copying it to a
+     * file or to a byte array first would only add to the heap in use; it is
+     * encoded straight to the output stream, one buffer at a time.
+     *
+     * @param body the response body
+     * @return the response entity
+     */
+    static StreamingOutput responseEntity(String body) {
+        return out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8), COPY_BUFFER_SIZE);
+            writer.write(body);
+            writer.flush();
+        };
+    }
+
+    /**
+     * Returns a stream reading the body from its start.
+     *
+     * @return body stream
+     */
+    InputStream openStream() {
+        if (file != null) {
+            return new FileChannelInputStream(file, size);
+        }
+        return new ByteBufferInputStream(buffer.duplicate());
+    }
+
+    /**
+     * Feeds the body to a message digest, without copying it.
+     *
+     * @param digest the message digest
+     * @throws IOException if the spilled body can't be read
+     */
+    void update(MessageDigest digest) throws IOException {
+        if (file == null) {
+            digest.update(buffer.duplicate());
+            return;
+        }
+        ByteBuffer chunk = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+        long position = 0;
+        while (position < size) {
+            int count = file.read(chunk, position);
+            if (count < 0) {
+                throw new IOException("Spilled body truncated at " + position + " bytes");
+            }
+            position += count;
+            chunk.flip();
+            digest.update(chunk);
+            chunk.clear();
+        }
+    }
+
+    /**
+     * Returns the body length.
+     *
+     * @return length in bytes
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the body has been spilled to a temporary file.
+     *
+     * @return true if the body is off the heap
+     */
+    boolean isSpilled() {
+        return file != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!isClosed) {
+            isClosed = true;
+            release(reserved);
+            if (file != null) {
+                file.close();
+            }
+        }
+    }
+
+    private static BodyBuffer spill(ReadableByteChannel source) throws IOException {
+        FileChannel file = openTempFile();
+        try {
+            ByteBuffer copyBuffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+            long size = 0;
+            while (source.read(copyBuffer) >= 0) {
+                //checked before writing, so that an oversized body doesn't fill the disk
+                size += copyBuffer.position();
+                if (size > MAX_BODY_BYTES) {
+                    throw tooLarge();
+                }
+                copyBuffer.flip();
+                while (copyBuffer.hasRemaining()) {
+                    file.write(copyBuffer);
+                }
+                copyBuffer.clear();
+            }
+            return new BodyBuffer(file, size);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private static RestconfException tooLarge() {
+        return new RestconfException("Request body exceeds " + MAX_BODY_BYTES + " bytes",
+                                     Response.Status.REQUEST_ENTITY_TOO_LARGE);
+    }
+
+    /**
+     * Opens a temporary file which is removed as soon as it is closed.
+     */
+    private static FileChannel openTempFile() throws IOException {
+        Path path = Files.createTempFile(TEMP_PREFIX, null);
+        try {
+            return FileChannel.open(path, READ, WRITE, DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    private static boolean reserve(long bytes) {
+        while (true) {
+            long used = HEAP_BYTES.get();
+            if (used + bytes > MAX_HEAP_BYTES) {
+                return false;
+            }
+            if (HEAP_BYTES.compareAndSet(used, used + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    private static void release(long bytes) {
+        if (bytes > 0) {
+            HEAP_BYTES.addAndGet(-bytes);
+        }
+    }
+
+    /**
+     * Reads a byte buffer as a stream.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer source;
+
+        private ByteBufferInputStream(ByteBuffer source) {
+            this.source = source;
+        }
+
+        @Override
+        public int read() {
+            return source.hasRemaining() ? source.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!source.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, source.remaining());
+            source.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return source.remaining();
+        }
+    }
+
+    /**
+     * Reads a file channel as a stream with positional reads, so that several
+     * streams can read the same file.
+     */
+    private static final class FileChannelInputStream extends InputStream {
+        private final FileChannel source;
+        private final long size;
+        private long position;
+
+        private FileChannelInputStream(FileChannel source, long size) {
+            this.source = source;
+            this.size = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= size) {
+                return -1;
+            }
+            int limit = (int) Math.min(length, size - position);
+            int count = source.read(ByteBuffer.wrap(bytes, offset, limit), position);
+            if (count < 0) {
+                return -1;
+            }
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(size - position, Integer.MAX_VALUE);
+        }
+    }
+}
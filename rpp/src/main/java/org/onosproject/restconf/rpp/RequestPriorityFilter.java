@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.rpp;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import org.onosproject.restconf.api.RequestPriority;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.SecurityContext;
+import java.security.Principal;
+import java.util.Set;
+
+/**
+ * Binds the priority given in the X-Request-Priority header of a request
+ * to the thread serving it, for the RESTCONF manager to schedule the
+ * request accordingly. Requests without the header get the normal priority.
+ * <p>
+ * Only trusted clients may ask for the high priority, the others are
+ * clamped to the normal one: the authenticated users named in the system
+ * property "org.onosproject.restconf.highPriorityUsers", a comma separated
+ * list. No user is trusted if the property isn't set.
+ */
+public class RequestPriorityFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String HIGH_PRIORITY_USERS =
+            System.getProperty("org.onosproject.restconf.highPriorityUsers");
+    private static final Set<String> TRUSTED_USERS = HIGH_PRIORITY_USERS == null ? ImmutableSet.of() :
+            ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(HIGH_PRIORITY_USERS));
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        //the response filter doesn't run for every request, don't let a
+        //priority left on this thread by an earlier one apply to this one
+        RequestPriority.unbind();
+        RequestPriority priority = RequestPriority.parse(request.getHeaderString(RequestPriority.PRIORITY_HEADER));
+        if (priority == RequestPriority.HIGH && !isTrusted(request.getSecurityContext())) {
+            priority = RequestPriority.NORMAL;
+        }
+        RequestPriority.bind(priority);
+    }
+
+    private static boolean isTrusted(SecurityContext securityContext) {
+        Principal user = securityContext == null ? null : securityContext.getUserPrincipal();
+        return user != null && TRUSTED_USERS.contains(user.getName());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        RequestPriority.unbind();
+    }
+}
@@ -26,6 +26,6 @@ public class RestconfProtocolProxy extends AbstractWebApplication {
 
     @Override
     public Set<Class<?>> getClasses() {
-        return getClasses(RestconfWebResource.class);
+        return getClasses(RestconfWebResource.class, AccessLogFilter.class, RequestPriorityFilter.class);
     }
 }
@@ -16,30 +16,62 @@
 
 package org.onosproject.restconf.rpp;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.io.BaseEncoding;
 import org.glassfish.jersey.server.ChunkedOutput;
 import org.onosproject.rest.AbstractWebResource;
+import org.onosproject.restconf.api.EditOutcome;
+import org.onosproject.restconf.api.OperationStatus;
 import org.onosproject.restconf.api.PATCH;
+import org.onosproject.restconf.api.QueryOptions;
+import org.onosproject.restconf.api.RequestTrace;
+import org.onosproject.restconf.api.ResourceContent;
+import org.onosproject.restconf.api.ResourceMetadata;
+import org.onosproject.restconf.api.RestconfAccessLogService;
 import org.onosproject.restconf.api.RestconfException;
 import org.onosproject.restconf.api.RestconfService;
+import org.onosproject.restconf.api.StreamSubscription;
 import org.slf4j.Logger;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HEAD;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -50,60 +82,528 @@ import static org.slf4j.LoggerFactory.getLogger;
 @Path("/")
 public class RestconfWebResource extends AbstractWebResource {
 
+    private static final String SERVER_SENT_EVENTS = "text/event-stream";
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+    private static final String START_TIME = "start-time";
+    private static final String FILTER = "filter";
+    private static final String PATHS = "paths";
+    private static final String MATCH = "match";
+    private static final String COUNT = "count";
+    private static final String PATH = "path";
+    private static final String PERIOD = "period";
+    private static final String ON_CHANGE = "on-change";
+    private static final String DAMPENING_PERIOD = "dampening-period";
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final String PREFER = "Prefer";
+    private static final String PREFERENCE_APPLIED = "Preference-Applied";
+    private static final String RESPOND_ASYNC = "respond-async";
+    private static final String OPERATION_STATUS = "operation-status";
+    private static final String WAIT = "wait";
+    private static final long MAX_STATUS_WAIT_SECONDS = 60;
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+    private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+
     @Context
     UriInfo uriInfo;
 
+    @Context
+    Request request;
+
+    @Context
+    HttpHeaders headers;
+
     private final RestconfService service = get(RestconfService.class);
+    private final RestconfAccessLogService accessLog = get(RestconfAccessLogService.class);
     private final Logger log = getLogger(getClass());
 
     /**
-     * Handle the RESTCONF GET Operation against a data resource.
+     * Handle the RESTCONF GET Operation against a data resource. On a list
+     * resource, the entries can be filtered with "match" parameters such as
+     * "match=oper-status=down" or "match=name=eth*", and counted instead of
+     * returned with "count=true". A trailing "*" is a wildcard, a backslash
+     * escapes the next character, e.g. "match=name=eth\*" matches "eth*"
+     * exactly. Both parameters are rejected on a resource which is not a list.
      *
      * @param uriString URI of the data resource.
-     * @return "200 OK" on success.
+     * @param matches   optional predicates on the list entries
+     * @param count     true to only return the number of matching list entries
+     * @return "200 OK" on success, with the same ETag and Last-Modified
+     * headers as a HEAD request, except for a list query.
+     * "304 Not Modified" if the conditional headers match.
      * "400 Bad Request" on error.
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     @Path("data/{identifier : .+}")
-    public Response handleGetRequest(@PathParam("identifier") String uriString) {
+    public Response handleGetRequest(@PathParam("identifier") String uriString,
+                                     @QueryParam(MATCH) List<String> matches,
+                                     @QueryParam(COUNT) @DefaultValue("false") boolean count) {
+
+        log.debug("handleGetRequest: {}", uriString);
+
+        try {
+            if (!matches.isEmpty() || count) {
+                QueryOptions.Builder options = QueryOptions.builder().count(count);
+                matches.forEach(options::addMatch);
+                String body = service.doGetOperationAsString(uriString, options.build());
+                return Response.ok(BodyBuffer.responseEntity(body), MediaType.APPLICATION_JSON_TYPE).build();
+            }
+            ResourceContent content = service.doGetResource(uriString);
+            ResourceMetadata metadata = content.metadata();
+            if (metadata == null) {
+                return Response.ok(BodyBuffer.responseEntity(content.body()),
+                                   MediaType.APPLICATION_JSON_TYPE).build();
+            }
+            EntityTag entityTag = new EntityTag(metadata.entityTag());
+            Date lastModified = new Date(metadata.lastModifiedMillis());
+            Response.ResponseBuilder builder = request.evaluatePreconditions(lastModified, entityTag);
+            if (builder == null) {
+                builder = Response.ok(BodyBuffer.responseEntity(content.body()), MediaType.APPLICATION_JSON_TYPE);
+            }
+            return builder.tag(entityTag).lastModified(lastModified).build();
+        } catch (RestconfException e) {
+            return error("handleGetRequest", e);
+        }
+    }
+
+    /**
+     * Handle the RESTCONF HEAD Operation against a data resource. The
+     * validators are computed without serializing the data resource.
+     *
+     * @param uriString URI of the data resource.
+     * @return "200 OK" with ETag and Last-Modified headers, and Content-Length
+     * when known.
+     * "304 Not Modified" if the conditional headers match.
+     * "404 Not Found" if the data resource doesn't exist.
+     */
+    @HEAD
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("data/{identifier : .+}")
+    public Response handleHeadRequest(@PathParam("identifier") String uriString) {
+
+        log.debug("handleHeadRequest: {}", uriString);
 
-        log.info("handleGetRequest: {}", uriString);
+        try {
+            ResourceMetadata metadata = service.doHeadOperation(uriString);
+            EntityTag entityTag = new EntityTag(metadata.entityTag());
+            Date lastModified = new Date(metadata.lastModifiedMillis());
+            Response.ResponseBuilder builder = request.evaluatePreconditions(lastModified, entityTag);
+            if (builder == null) {
+                builder = Response.ok().type(MediaType.APPLICATION_JSON_TYPE);
+                //the length of the body a GET returns, known once it has
+                //been serialized with this entity tag
+                if (metadata.contentLength() >= 0) {
+                    builder.header(HttpHeaders.CONTENT_LENGTH, metadata.contentLength());
+                }
+            }
+            return builder.tag(entityTag).lastModified(lastModified).build();
+        } catch (RestconfException e) {
+            return error("handleHeadRequest", e);
+        }
+    }
+
+    /**
+     * Handle a batch of RESTCONF GET Operations against several data resources,
+     * given as {"paths": ["module:node/...", ...]}. The response is a JSON
+     * object keyed by path, with a null value for a missing data resource.
+     *
+     * @param stream Input JSON object
+     * @return "200 OK" on success.
+     * "400 Bad Request" on error.
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("batch")
+    public Response handleBatchGetRequest(InputStream stream) {
+
+        try {
+            List<String> paths = readPaths(readJson(stream));
+            log.debug("handleBatchGetRequest: {} paths", paths.size());
+
+            Map<String, String> bodies = service.doBatchGetOperation(paths);
+            StreamingOutput output = out -> {
+                JsonGenerator generator = mapper().getFactory().createGenerator(out);
+                generator.writeStartObject();
+                for (Map.Entry<String, String> entry : bodies.entrySet()) {
+                    generator.writeFieldName(entry.getKey());
+                    if (entry.getValue() == null) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeRawValue(entry.getValue());
+                    }
+                    generator.flush();
+                }
+                generator.writeEndObject();
+                generator.close();
+            };
+            return Response.ok(output, MediaType.APPLICATION_JSON_TYPE).build();
+        } catch (JsonProcessingException e) {
+            return error("handleBatchGetRequest", Response.Status.BAD_REQUEST, e);
+        } catch (RestconfException e) {
+            return error("handleBatchGetRequest", e);
+        } catch (IOException ex) {
+            return error("handleBatchGetRequest", Response.Status.INTERNAL_SERVER_ERROR, ex);
+        }
+    }
 
+    /**
+     * Returns the status of an asynchronous edit. With a "wait" parameter,
+     * the response is held until the edit is finished or the given number
+     * of seconds, at most 60, have passed.
+     *
+     * @param id          ID of the asynchronous edit
+     * @param waitSeconds maximum time to wait for the edit to finish
+     * @return "200 OK" with the status of the edit.
+     * "404 Not Found" if the edit is unknown or its status is no longer kept.
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path(OPERATION_STATUS + "/{id}")
+    public Response handleOperationStatusRequest(@PathParam("id") String id,
+                                                 @QueryParam(WAIT) @DefaultValue("0") long waitSeconds) {
         try {
-            ObjectNode node = service.doGetOperation(uriString);
-            return ok(node).build();
+            long waitMillis = Math.min(Math.max(waitSeconds, 0), MAX_STATUS_WAIT_SECONDS) * 1000;
+            OperationStatus status = service.getOperationStatus(id, waitMillis);
+            if (status == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+            return Response.ok(statusJson(status).toString(), MediaType.APPLICATION_JSON_TYPE).build();
         } catch (RestconfException e) {
-            log.error("ERROR: handleGetRequest: {}", e.getMessage(), e);
-            return e.getResponse();
+            return error("handleOperationStatusRequest", e);
+        }
+    }
+
+    /**
+     * Returns whether the client asked for the request to be processed
+     * asynchronously, with a "Prefer: respond-async" header.
+     */
+    private boolean isAsyncPreferred() {
+        List<String> values = headers.getRequestHeader(PREFER);
+        if (values == null) {
+            return false;
+        }
+        for (String value : values) {
+            for (String preference : value.split(",")) {
+                int end = preference.indexOf(';');
+                String token = end < 0 ? preference : preference.substring(0, end);
+                if (token.trim().equalsIgnoreCase(RESPOND_ASYNC)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns "202 Accepted" for a queued edit, pointing to its status.
+     */
+    private Response accepted(OperationStatus status) {
+        URI location = uriInfo.getBaseUriBuilder().path(OPERATION_STATUS).path(status.id()).build();
+        return Response.accepted(statusJson(status).toString())
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .location(location)
+                .header(PREFERENCE_APPLIED, RESPOND_ASYNC)
+                .build();
+    }
+
+    private ObjectNode statusJson(OperationStatus status) {
+        ObjectNode root = mapper().createObjectNode();
+        ObjectNode node = root.putObject(OPERATION_STATUS);
+        node.put("id", status.id());
+        node.put("operation", status.operation());
+        node.put("path", status.path());
+        node.put("state", status.state().name().toLowerCase());
+        node.put("submitted-time", Instant.ofEpochMilli(status.submittedMillis()).toString());
+        if (status.startedMillis() >= 0) {
+            node.put("started-time", Instant.ofEpochMilli(status.startedMillis()).toString());
+        }
+        if (status.finishedMillis() >= 0) {
+            node.put("finished-time", Instant.ofEpochMilli(status.finishedMillis()).toString());
+        }
+        if (status.state() == OperationStatus.State.FAILED) {
+            node.put("error-status", status.errorStatus());
+            if (status.errorMessage() != null) {
+                node.put("error-message", status.errorMessage());
+            }
         }
+        return root;
     }
 
     /**
-     * Handle the RESTCONF Event Notification Subscription request.
+     * Returns the traces of the recent slow requests, most recent first,
+     * each with the timed phases of the request.
      *
-     * @param streamId Event stream ID
+     * @return "200 OK" with the slow request traces
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("slow-requests")
+    public Response handleSlowRequestsRequest() {
+        ObjectNode root = mapper().createObjectNode();
+        ArrayNode requests = root.putArray("slow-requests");
+        for (RequestTrace trace : accessLog.slowRequests()) {
+            ObjectNode request = requests.addObject();
+            request.put("request-id", trace.requestId());
+            request.put("method", trace.method());
+            request.put("path", trace.path());
+            request.put("status", trace.status());
+            request.put("start-time", Instant.ofEpochMilli(trace.startMillis()).toString());
+            request.put("duration-ms", trace.durationNanos() / NANOS_PER_MILLI);
+            ArrayNode spans = request.putArray("spans");
+            for (RequestTrace.Span span : trace.spans()) {
+                spans.addObject()
+                        .put("name", span.name())
+                        .put("depth", span.depth())
+                        .put("start-ms", span.startNanos() / NANOS_PER_MILLI)
+                        .put("duration-ms", span.durationNanos() / NANOS_PER_MILLI);
+            }
+            if (trace.droppedSpans() > 0) {
+                request.put("dropped-spans", trace.droppedSpans());
+            }
+        }
+        return Response.ok(root.toString(), MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
+    /**
+     * Reads a JSON request body, spilling a large body to a temporary file
+     * rather than buffering it on the heap.
+     */
+    private JsonNode readJson(InputStream stream) throws IOException {
+        try (RequestTrace.Span span = RequestTrace.span("json.parse");
+             BodyBuffer body = BodyBuffer.read(stream, headers.getLength())) {
+            return mapper().readTree(body.openStream());
+        }
+    }
+
+    private JsonNode readJson(BodyBuffer body) throws IOException {
+        try (RequestTrace.Span span = RequestTrace.span("json.parse")) {
+            return mapper().readTree(body.openStream());
+        }
+    }
+
+    /**
+     * Executes an edit on the request body. If the request carries an
+     * idempotency key already used by the same request, the outcome of that
+     * request is sent back instead, without the body being parsed or the
+     * edit being executed again.
+     */
+    private Response idempotent(String operation, String uriString, InputStream stream, BodyEdit edit) {
+        String key = headers.getHeaderString(IDEMPOTENCY_KEY);
+        try (BodyBuffer body = stream == null ? null : BodyBuffer.read(stream, headers.getLength())) {
+            if (key == null) {
+                return edit.apply(body);
+            }
+            String fingerprint = fingerprint(uriString, body);
+            EditOutcome stored = service.claimIdempotentEdit(key, fingerprint);
+            if (stored != null) {
+                return replay(stored);
+            }
+            EditOutcome outcome = null;
+            try {
+                Response response = edit.apply(body);
+                outcome = outcome(response);
+                return response;
+            } finally {
+                service.completeIdempotentEdit(key, fingerprint, outcome);
+            }
+        } catch (RestconfException e) {
+            return error(operation, e);
+        } catch (IOException ex) {
+            return error(operation, Response.Status.INTERNAL_SERVER_ERROR, ex);
+        }
+    }
+
+    /**
+     * Returns the digest of the method, the URI and the body of the request;
+     * the body is hashed as it is, which is much cheaper than parsing it.
+     */
+    private String fingerprint(String uriString, BodyBuffer body) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            //every Java platform supports it
+            throw new IllegalStateException(e);
+        }
+        digest.update(request.getMethod().getBytes(UTF_8));
+        digest.update((byte) ' ');
+        digest.update(uriString.getBytes(UTF_8));
+        if (body != null) {
+            digest.update((byte) ' ');
+            body.update(digest);
+        }
+        return BaseEncoding.base16().lowerCase().encode(digest.digest());
+    }
+
+    private static EditOutcome outcome(Response response) {
+        Map<String, String> outcomeHeaders = new HashMap<>();
+        for (Map.Entry<String, List<String>> header : response.getStringHeaders().entrySet()) {
+            if (!header.getValue().isEmpty()) {
+                outcomeHeaders.put(header.getKey(), header.getValue().get(0));
+            }
+        }
+        Object entity = response.getEntity();
+        return new EditOutcome(response.getStatus(), outcomeHeaders,
+                               entity instanceof String ? (String) entity : null);
+    }
+
+    private static Response replay(EditOutcome outcome) {
+        Response.ResponseBuilder builder = Response.status(outcome.status())
+                .header(IDEMPOTENT_REPLAYED, true);
+        for (Map.Entry<String, String> header : outcome.headers().entrySet()) {
+            builder.header(header.getKey(), header.getValue());
+        }
+        if (outcome.body() != null) {
+            builder.entity(outcome.body());
+        }
+        return builder.build();
+    }
+
+    private List<String> readPaths(JsonNode request) {
+        JsonNode pathsNode = request == null ? null : request.get(PATHS);
+        if (pathsNode == null || !pathsNode.isArray()) {
+            throw new RestconfException("Batch request should hold a \"" + PATHS + "\" array",
+                                        Response.Status.BAD_REQUEST);
+        }
+        List<String> paths = new ArrayList<>(pathsNode.size());
+        for (JsonNode path : pathsNode) {
+            if (!path.isTextual()) {
+                throw new RestconfException("Invalid path " + path, Response.Status.BAD_REQUEST);
+            }
+            paths.add(path.asText());
+        }
+        return paths;
+    }
+
+    /**
+     * Handle the RESTCONF Event Notification Subscription request. On the
+     * "yang-push" stream, the data resource at the given path is pushed
+     * every period instead, or, on change, followed by its changes.
+     *
+     * @param streamId  Event stream ID
+     * @param startTime optional time from which the retained events are replayed
+     * @param filter    optional filter selecting the events to send
+     * @param path      URI of the data resource to push periodically or on change
+     * @param period    push period in milliseconds
+     * @param onChange  whether the changes of the data resource are pushed
+     * @param dampening minimum time between two pushes of changes in milliseconds
      * @return A string data stream over HTTP keep-alive session.
+     * "400 Bad Request" for an invalid parameter, "404 Not Found" for an unknown stream.
      */
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     @Path("streams/{streamId}")
-    public ChunkedOutput<String> handleNotificationRegistration(@PathParam("streamId") String streamId) {
+    public ChunkedOutput<String> handleNotificationRegistration(@PathParam("streamId") String streamId,
+                                                                @QueryParam(START_TIME) String startTime,
+                                                                @QueryParam(FILTER) String filter,
+                                                                @QueryParam(PATH) String path,
+                                                                @QueryParam(PERIOD) String period,
+                                                                @QueryParam(ON_CHANGE) @DefaultValue("false")
+                                                                        boolean onChange,
+                                                                @QueryParam(DAMPENING_PERIOD) String dampening) {
+        StreamSubscription.Builder builder = StreamSubscription.builder()
+                .encoding(StreamSubscription.Encoding.JSON)
+                .startTimeMillis(parseStartTime(startTime))
+                .filter(filter);
+        StreamSubscription subscription = push(builder, path, period, onChange, dampening).build();
+        return subscribe(streamId, subscription);
+    }
+
+    /**
+     * Handle the RESTCONF Event Notification Subscription request for a
+     * Server-Sent Events stream. A client resuming the stream after a
+     * reconnect gets the retained events it has missed.
+     *
+     * @param streamId    Event stream ID
+     * @param lastEventId optional ID of the last event received by the client
+     * @param startTime   optional time from which the retained events are replayed
+     * @param filter      optional filter selecting the events to send
+     * @param path        URI of the data resource to push periodically or on change
+     * @param period      push period in milliseconds
+     * @param onChange    whether the changes of the data resource are pushed
+     * @param dampening   minimum time between two pushes of changes in milliseconds
+     * @return A text/event-stream data stream over HTTP keep-alive session.
+     * "400 Bad Request" for an invalid parameter, "404 Not Found" for an unknown stream.
+     */
+    @GET
+    @Produces(SERVER_SENT_EVENTS)
+    @Path("streams/{streamId}")
+    public ChunkedOutput<String> handleSseNotificationRegistration(@PathParam("streamId") String streamId,
+                                                                   @HeaderParam(LAST_EVENT_ID) String lastEventId,
+                                                                   @QueryParam(START_TIME) String startTime,
+                                                                   @QueryParam(FILTER) String filter,
+                                                                   @QueryParam(PATH) String path,
+                                                                   @QueryParam(PERIOD) String period,
+                                                                   @QueryParam(ON_CHANGE) @DefaultValue("false")
+                                                                           boolean onChange,
+                                                                   @QueryParam(DAMPENING_PERIOD) String dampening) {
+        StreamSubscription.Builder builder = StreamSubscription.builder()
+                .encoding(StreamSubscription.Encoding.SSE)
+                .lastEventId(lastEventId)
+                .startTimeMillis(parseStartTime(startTime))
+                .filter(filter);
+        StreamSubscription subscription = push(builder, path, period, onChange, dampening).build();
+        return subscribe(streamId, subscription);
+    }
+
+    private static StreamSubscription.Builder push(StreamSubscription.Builder builder, String path,
+                                                   String period, boolean onChange, String dampening) {
+        return onChange ? builder.onChange(path, parseMillis(DAMPENING_PERIOD, dampening))
+                : builder.periodic(path, parseMillis(PERIOD, period));
+    }
+
+    private static long parseMillis(String name, String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new RestconfException("Invalid " + name + " " + value, Response.Status.BAD_REQUEST);
+        }
+    }
+
+    private Response error(String operation, RestconfException e) {
+        Response response = e.getResponse();
+        accessLog.error(operation, response.getStatus(), e);
+        return response;
+    }
+
+    private Response error(String operation, Response.Status status, Throwable e) {
+        accessLog.error(operation, status.getStatusCode(), e);
+        return Response.status(status).build();
+    }
+
+    /**
+     * Subscribes a new chunked output. A subscription the service rejects
+     * is answered with the error status, as no chunk has been sent yet.
+     */
+    private ChunkedOutput<String> subscribe(String streamId, StreamSubscription subscription) {
         final ChunkedOutput<String> output = new ChunkedOutput<String>(String.class);
         try {
-            service.subscribeEventStream(streamId, output);
+            service.subscribeEventStream(streamId, subscription, output);
         } catch (RestconfException e) {
-            log.error("ERROR: handleNotificationRegistration: {}", e.getMessage(), e);
-            try {
-                output.close();
-            } catch (IOException ex) {
-                log.error("ERROR: handleNotificationRegistration:", ex);
-            }
+            accessLog.error("handleNotificationRegistration", e.getResponse().getStatus(), e);
+            throw e;
         }
 
         return output;
     }
 
+    private long parseStartTime(String startTime) {
+        if (startTime == null) {
+            return -1;
+        }
+        try {
+            return OffsetDateTime.parse(startTime).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new RestconfException("Invalid start-time " + startTime,
+                                        Response.Status.BAD_REQUEST);
+        }
+    }
+
     /**
      * Handle the RESTCONF POST Operation against a data resource.
      *
@@ -111,6 +611,7 @@ public class RestconfWebResource extends AbstractWebResource {
      * @param stream    Input JSON object
      * @return "201 Created" on success and there is no response message-body.
      * "409 Conflict" if the data resource already exists.
+     * "202 Accepted" with the status of the queued edit, given a "Prefer: respond-async" header.
      */
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
@@ -118,23 +619,25 @@ public class RestconfWebResource extends AbstractWebResource {
     @Path("data/{identifier : .+}")
     public Response handlePostRequest(@PathParam("identifier") String uriString, InputStream stream) {
 
-        log.info("handlePostRequest: {}", uriString);
+        log.debug("handlePostRequest: {}", uriString);
 
-        try {
-            ObjectNode rootNode = (ObjectNode) mapper().readTree(stream);
+        return idempotent("handlePostRequest", uriString, stream, body -> {
+            try {
+                ObjectNode rootNode = (ObjectNode) readJson(body);
+                if (isAsyncPreferred()) {
+                    return accepted(service.submitEdit("post", uriString, rootNode));
+                }
 
-            service.doPostOperation(uriString, rootNode);
-            return Response.created(uriInfo.getRequestUri()).build();
-        } catch (JsonProcessingException e) {
-            log.error("ERROR: handlePostRequest ", e);
-            return Response.status(Response.Status.BAD_REQUEST).build();
-        } catch (RestconfException e) {
-            log.error("ERROR: handlePostRequest: {}", e.getMessage(), e);
-            return e.getResponse();
-        } catch (IOException ex) {
-            log.error("ERROR: handlePostRequest ", ex);
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
-        }
+                service.doPostOperation(uriString, rootNode);
+                return Response.created(uriInfo.getRequestUri()).build();
+            } catch (JsonProcessingException e) {
+                return error("handlePostRequest", Response.Status.BAD_REQUEST, e);
+            } catch (RestconfException e) {
+                return error("handlePostRequest", e);
+            } catch (IOException ex) {
+                return error("handlePostRequest", Response.Status.INTERNAL_SERVER_ERROR, ex);
+            }
+        });
     }
 
     /**
@@ -144,6 +647,7 @@ public class RestconfWebResource extends AbstractWebResource {
      * @param stream    Input JSON object
      * @return "201 Created" if a new resource is created
      * "204 No Content" if an existing resource is modified.
+     * "202 Accepted" with the status of the queued edit, given a "Prefer: respond-async" header.
      */
     @PUT
     @Consumes(MediaType.APPLICATION_JSON)
@@ -151,23 +655,25 @@ public class RestconfWebResource extends AbstractWebResource {
     @Path("data/{identifier : .+}")
     public Response handlePutRequest(@PathParam("identifier") String uriString, InputStream stream) {
 
-        log.info("handlePutRequest: {}", uriString);
+        log.debug("handlePutRequest: {}", uriString);
 
-        try {
-            ObjectNode rootNode = (ObjectNode) mapper().readTree(stream);
+        return idempotent("handlePutRequest", uriString, stream, body -> {
+            try {
+                ObjectNode rootNode = (ObjectNode) readJson(body);
+                if (isAsyncPreferred()) {
+                    return accepted(service.submitEdit("put", uriString, rootNode));
+                }
 
-            service.doPutOperation(uriString, rootNode);
-            return Response.created(uriInfo.getRequestUri()).build();
-        } catch (JsonProcessingException e) {
-            log.error("ERROR: handlePutRequest ", e);
-            return Response.status(Response.Status.BAD_REQUEST).build();
-        } catch (RestconfException e) {
-            log.error("ERROR: handlePutRequest: {}", e.getMessage(), e);
-            return e.getResponse();
-        } catch (IOException ex) {
-            log.error("ERROR: handlePutRequest ", ex);
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
-        }
+                service.doPutOperation(uriString, rootNode);
+                return Response.created(uriInfo.getRequestUri()).build();
+            } catch (JsonProcessingException e) {
+                return error("handlePutRequest", Response.Status.BAD_REQUEST, e);
+            } catch (RestconfException e) {
+                return error("handlePutRequest", e);
+            } catch (IOException ex) {
+                return error("handlePutRequest", Response.Status.INTERNAL_SERVER_ERROR, ex);
+            }
+        });
     }
 
     /**
@@ -175,21 +681,26 @@ public class RestconfWebResource extends AbstractWebResource {
      *
      * @param uriString URI of the data resource to be deleted.
      * @return "204 No Content" on success
+     * "202 Accepted" with the status of the queued edit, given a "Prefer: respond-async" header.
      */
     @DELETE
     @Produces(MediaType.APPLICATION_JSON)
     @Path("data/{identifier : .+}")
     public Response handleDeleteRequest(@PathParam("identifier") String uriString) {
 
-        log.info("handleDeleteRequest: {}", uriString);
+        log.debug("handleDeleteRequest: {}", uriString);
 
-        try {
-            service.doDeleteOperation(uriString);
-            return Response.ok().build();
-        } catch (RestconfException e) {
-            log.error("ERROR: handleDeleteRequest: {}", e.getMessage(), e);
-            return e.getResponse();
-        }
+        return idempotent("handleDeleteRequest", uriString, null, body -> {
+            try {
+                if (isAsyncPreferred()) {
+                    return accepted(service.submitEdit("delete", uriString, null));
+                }
+                service.doDeleteOperation(uriString);
+                return Response.ok().build();
+            } catch (RestconfException e) {
+                return error("handleDeleteRequest", e);
+            }
+        });
     }
 
     /**
@@ -199,6 +710,7 @@ public class RestconfWebResource extends AbstractWebResource {
      * @param stream    Input JSON object
      * @return "201 Created" on success and there is no response message-body.
      * "409 Conflict" if the data resource already exists.
+     * "202 Accepted" with the status of the queued edit, given a "Prefer: respond-async" header.
      */
     @PATCH
     @Consumes(MediaType.APPLICATION_JSON)
@@ -206,23 +718,32 @@ public class RestconfWebResource extends AbstractWebResource {
     @Path("data/{identifier : .+}")
     public Response handlePatchRequest(@PathParam("identifier") String uriString, InputStream stream) {
 
-        log.info("handlePostRequest: {}", uriString);
+        log.debug("handlePatchRequest: {}", uriString);
 
-        try {
-            ObjectNode rootNode = (ObjectNode) mapper().readTree(stream);
+        return idempotent("handlePatchRequest", uriString, stream, body -> {
+            try {
+                ObjectNode rootNode = (ObjectNode) readJson(body);
+                if (isAsyncPreferred()) {
+                    return accepted(service.submitEdit("patch", uriString, rootNode));
+                }
 
-            service.doPatchOperation(uriString, rootNode);
-            return Response.noContent().build();
-        } catch (JsonProcessingException e) {
-            log.error("ERROR: handlePostRequest ", e);
-            return Response.status(Response.Status.BAD_REQUEST).build();
-        } catch (RestconfException e) {
-            log.error("ERROR: handlePostRequest: {}", e.getMessage(), e);
-            return e.getResponse();
-        } catch (IOException ex) {
-            log.error("ERROR: handlePostRequest ", ex);
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
-        }
+                service.doPatchOperation(uriString, rootNode);
+                return Response.noContent().build();
+            } catch (JsonProcessingException e) {
+                return error("handlePatchRequest", Response.Status.BAD_REQUEST, e);
+            } catch (RestconfException e) {
+                return error("handlePatchRequest", e);
+            } catch (IOException ex) {
+                return error("handlePatchRequest", Response.Status.INTERNAL_SERVER_ERROR, ex);
+            }
+        });
     }
 
+    /**
+     * An edit of a data resource, given the request body; null if the
+     * request has none.
+     */
+    private interface BodyEdit {
+        Response apply(BodyBuffer body);
+    }
 }
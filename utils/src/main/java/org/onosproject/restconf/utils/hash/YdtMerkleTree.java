@@ -0,0 +1,214 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.restconf.utils.hash;
+
+import org.onosproject.yms.ydt.YdtContext;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Represents the content hashes of all the nodes of a YDT tree. The hash of
+ * a node covers its name, type and values, combined in order with the
+ * hashes of its children, so each child is hashed once and two subtrees
+ * with the same content have the same hash. Comparing the hashes of two
+ * trees top-down narrows a change down to the subtrees which differ,
+ * without serializing either tree.
+ * <p>
+ * The tree is walked iteratively, so the depth of the tree is not bounded
+ * by the thread stack. Hashes are 64-bit: good enough to detect changes,
+ * not to resist a deliberate collision.
+ */
+public final class YdtMerkleTree {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+    private static final long CHILD_MULTIPLIER = 0x9e3779b97f4a7c15L;
+    //separates the fields, so that "ab","c" and "a","bc" differ
+    private static final int SEPARATOR = 0x1f;
+    private static final int INITIAL_DEPTH = 32;
+
+    private final YdtContext root;
+    private final Map<YdtContext, Long> hashes;
+    private final long rootHash;
+
+    private YdtMerkleTree(YdtContext root, Map<YdtContext, Long> hashes, long rootHash) {
+        this.root = root;
+        this.hashes = hashes;
+        this.rootHash = rootHash;
+    }
+
+    /**
+     * Hashes all the nodes of a tree.
+     *
+     * @param root the root node of the tree
+     * @return the hashes of the tree
+     */
+    public static YdtMerkleTree build(YdtContext root) {
+        checkNotNull(root, "root node should not be null");
+        Map<YdtContext, Long> hashes = new IdentityHashMap<>();
+        long rootHash = hash(root, hashes);
+        return new YdtMerkleTree(root, hashes, rootHash);
+    }
+
+    /**
+     * Returns the hash of a subtree, without keeping the hashes of its nodes.
+     *
+     * @param subtree the root node of the subtree
+     * @return the subtree hash
+     */
+    public static long hash(YdtContext subtree) {
+        checkNotNull(subtree, "subtree root node should not be null");
+        return hash(subtree, null);
+    }
+
+    /**
+     * Returns a hash as an entity tag.
+     *
+     * @param hash the hash
+     * @return hexadecimal entity tag
+     */
+    public static String toEntityTag(long hash) {
+        return String.format("%016x", hash);
+    }
+
+    /**
+     * Returns the root node of the tree.
+     *
+     * @return the root node
+     */
+    public YdtContext root() {
+        return root;
+    }
+
+    /**
+     * Returns the hash of the whole tree.
+     *
+     * @return the root hash
+     */
+    public long rootHash() {
+        return rootHash;
+    }
+
+    /**
+     * Returns the hash of a node of the tree.
+     *
+     * @param node a node of the tree
+     * @return the hash of the subtree under the node
+     * @throws IllegalArgumentException if the node is not in the tree
+     */
+    public long hashOf(YdtContext node) {
+        Long hash = hashes.get(node);
+        if (hash == null) {
+            throw new IllegalArgumentException("Node " + node.getName() + " is not in the tree");
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the number of nodes of the tree.
+     *
+     * @return number of nodes
+     */
+    public int size() {
+        return hashes.size();
+    }
+
+    /**
+     * Walks a subtree in document order, keeping the partial hash of each
+     * node on the current path, and finishing a node's hash once its last
+     * child is done.
+     */
+    private static long hash(YdtContext subtree, Map<YdtContext, Long> hashes) {
+        long[] partial = new long[INITIAL_DEPTH];
+        int depth = 0;
+        YdtContext node = subtree;
+        while (true) {
+            if (depth == partial.length) {
+                partial = Arrays.copyOf(partial, depth << 1);
+            }
+            partial[depth++] = digest(node);
+            if (node.getFirstChild() != null) {
+                node = node.getFirstChild();
+                continue;
+            }
+            while (true) {
+                long hash = finish(partial[--depth]);
+                if (hashes != null) {
+                    hashes.put(node, hash);
+                }
+                if (node == subtree) {
+                    return hash;
+                }
+                partial[depth - 1] = partial[depth - 1] * CHILD_MULTIPLIER + hash;
+                if (node.getNextSibling() != null) {
+                    node = node.getNextSibling();
+                    break;
+                }
+                node = node.getParent();
+            }
+        }
+    }
+
+    /**
+     * Returns the hash of the own content of a node.
+     */
+    private static long digest(YdtContext node) {
+        long hash = mix(OFFSET_BASIS, node.getName());
+        hash = mix(hash, node.getYdtType().ordinal());
+        switch (node.getYdtType()) {
+            case SINGLE_INSTANCE_LEAF_VALUE_NODE:
+                return mix(hash, node.getValue());
+            case MULTI_INSTANCE_LEAF_VALUE_NODE:
+                for (String value : node.getValueSet()) {
+                    hash = mix(hash, value);
+                }
+                return hash;
+            default:
+                return hash;
+        }
+    }
+
+    private static long mix(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash = mix(hash, value.charAt(i));
+            }
+        }
+        return mix(hash, SEPARATOR);
+    }
+
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * PRIME;
+    }
+
+    /**
+     * Spreads the bits of a partial hash, so that close inputs give
+     * unrelated hashes (the MurmurHash3 64-bit finalizer).
+     */
+    private static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93e53e8b7f5L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -56,6 +56,26 @@ public interface JsonBuilder {
      */
     void addNodeWithSetTopHalf(String fieldName, Set<String> sets);
 
+    /**
+     * Adds a child with value and a comma to the JSON tree, encoding the
+     * value according to its YANG type instead of always as a string.
+     *
+     * @param fieldName name of child to be added
+     * @param value     the value of the child
+     * @param valueType the YANG value type of the child
+     */
+    void addNodeWithValueTopHalf(String fieldName, String value, YangValueType valueType);
+
+    /**
+     * Adds a child with list of values to JSON data tree, encoding the
+     * values according to their YANG type instead of always as strings.
+     *
+     * @param fieldName name of child to be added
+     * @param sets      the value list of the child
+     * @param valueType the YANG value type of the child
+     */
+    void addNodeWithSetTopHalf(String fieldName, Set<String> sets, YangValueType valueType);
+
     /**
      * Add the bottom half(a right brace/bracket) of  a JSON object/array to the JSON tree.
      * for the text, a comma should be taken out.
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.utils.parser.api;
+
+import java.util.List;
+
+/**
+ * Abstraction of an entity which resolves YANG schema information for
+ * RESTCONF data paths. It lets the JSON codec encode and decode leaf values
+ * with their native JSON types and reject unknown nodes early.
+ * <p>
+ * A schema path is the list of node names from the top level node down to
+ * the node itself, separated by "/", where the top level node is qualified
+ * with its module name, e.g. "ietf-interfaces:interfaces/interface/mtu".
+ * List keys are not part of the path.
+ */
+public interface YangSchemaResolver {
+
+    /**
+     * Returns the value type of the schema node at the given schema path.
+     *
+     * @param schemaPath the schema path of the node
+     * @return the value type of the node, or null if the path doesn't
+     * match any schema node
+     */
+    YangValueType getValueType(String schemaPath);
+
+    /**
+     * Returns the names of the key leaves of the list at the given schema
+     * path, in the order of the list's "key" statement.
+     *
+     * @param schemaPath the schema path of the list
+     * @return the key leaf names, or null if the path doesn't match a list
+     * with keys or the resolver doesn't know the list keys
+     */
+    default List<String> getListKeys(String schemaPath) {
+        return null;
+    }
+}
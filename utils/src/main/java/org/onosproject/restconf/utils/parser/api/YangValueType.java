@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.utils.parser.api;
+
+/**
+ * Represents the JSON encoding class of a YANG schema node value, as
+ * defined by the JSON encoding of YANG data (RFC 7951).
+ */
+public enum YangValueType {
+
+    /**
+     * Interior node (container, list or RPC input/output), it has no value.
+     */
+    NON_LEAF,
+
+    /**
+     * Any type encoded as a JSON string (string, enumeration, identityref...).
+     */
+    STRING,
+
+    /**
+     * An int8/16/32 or uint8/16/32 type, encoded as a JSON number.
+     */
+    INTEGER,
+
+    /**
+     * An int64 or uint64 type, encoded as a JSON string but accepted as a
+     * number as well.
+     */
+    INTEGER64,
+
+    /**
+     * A decimal64 type, encoded as a JSON string but accepted as a number
+     * as well.
+     */
+    DECIMAL64,
+
+    /**
+     * A boolean type, encoded as a JSON literal.
+     */
+    BOOLEAN,
+
+    /**
+     * An empty type, encoded as "[null]".
+     */
+    EMPTY
+}
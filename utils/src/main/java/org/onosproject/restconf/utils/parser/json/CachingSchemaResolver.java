@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.restconf.utils.parser.json;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.onosproject.restconf.utils.parser.api.YangSchemaResolver;
+import org.onosproject.restconf.utils.parser.api.YangValueType;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Represents a schema resolver which remembers the result of the resolved
+ * schema paths. Schema lookups happen for each leaf of each request, while
+ * the number of distinct schema paths is bounded by the loaded YANG models.
+ * <p>
+ * Unknown paths are not remembered: they come from client payloads, so
+ * there is no bound to them, and a path unknown now may be resolved once
+ * its YANG model is loaded. The cache is bounded all the same, and should
+ * be invalidated when YANG models are loaded or unloaded.
+ */
+public class CachingSchemaResolver implements YangSchemaResolver {
+
+    private static final int MAX_SCHEMA_PATHS = 100000;
+
+    private final YangSchemaResolver delegate;
+    private final Cache<String, YangValueType> valueTypes =
+            CacheBuilder.newBuilder().maximumSize(MAX_SCHEMA_PATHS).build();
+    private final Cache<String, List<String>> listKeys =
+            CacheBuilder.newBuilder().maximumSize(MAX_SCHEMA_PATHS).build();
+
+    /**
+     * Creates a caching resolver on top of the given resolver.
+     *
+     * @param delegate the resolver doing the actual schema lookup
+     */
+    public CachingSchemaResolver(YangSchemaResolver delegate) {
+        this.delegate = checkNotNull(delegate);
+    }
+
+    @Override
+    public YangValueType getValueType(String schemaPath) {
+        YangValueType valueType = valueTypes.getIfPresent(schemaPath);
+        if (valueType == null) {
+            valueType = delegate.getValueType(schemaPath);
+            if (valueType != null) {
+                valueTypes.put(schemaPath, valueType);
+            }
+        }
+        return valueType;
+    }
+
+    @Override
+    public List<String> getListKeys(String schemaPath) {
+        List<String> keys = listKeys.getIfPresent(schemaPath);
+        if (keys == null) {
+            keys = delegate.getListKeys(schemaPath);
+            if (keys != null) {
+                listKeys.put(schemaPath, keys);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Returns whether this resolver caches the lookups of the given one.
+     *
+     * @param resolver a schema resolver
+     * @return true if the resolver is the delegate of this one
+     */
+    public boolean isCaching(YangSchemaResolver resolver) {
+        return delegate == resolver;
+    }
+
+    /**
+     * Drops all the resolved schema paths, e.g. after a YANG model has been
+     * loaded or unloaded.
+     */
+    public void invalidate() {
+        valueTypes.invalidateAll();
+        listKeys.invalidateAll();
+    }
+}
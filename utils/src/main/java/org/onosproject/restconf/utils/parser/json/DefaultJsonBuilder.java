@@ -20,11 +20,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.onosproject.restconf.utils.parser.api.JsonBuilder;
+import org.onosproject.restconf.utils.parser.api.YangValueType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -42,6 +44,10 @@ public class DefaultJsonBuilder implements JsonBuilder {
     private static final String COMMA = ",";
     private static final String COLON = ":";
     private static final String QUOTE = "\"";
+    private static final String EMPTY_VALUE = "[null]";
+    private static final String TRUE = "true";
+    private static final String FALSE = "false";
+    private static final Pattern INTEGER = Pattern.compile("-?(0|[1-9][0-9]*)");
 
 
     public DefaultJsonBuilder(String rootName) {
@@ -100,6 +106,37 @@ public class DefaultJsonBuilder implements JsonBuilder {
         }
     }
 
+    @Override
+    public void addNodeWithValueTopHalf(String fieldName, String value, YangValueType valueType) {
+        if (valueType == null || valueType == YangValueType.STRING) {
+            addNodeWithValueTopHalf(fieldName, value);
+            return;
+        }
+        if (isNullOrEmpty(fieldName)) {
+            return;
+        }
+        appendField(fieldName);
+        appendValue(value, valueType);
+        treeString.append(COMMA);
+    }
+
+    @Override
+    public void addNodeWithSetTopHalf(String fieldName, Set<String> sets, YangValueType valueType) {
+        if (valueType == null || valueType == YangValueType.STRING) {
+            addNodeWithSetTopHalf(fieldName, sets);
+            return;
+        }
+        if (isNullOrEmpty(fieldName)) {
+            return;
+        }
+        appendField(fieldName);
+        treeString.append(LEFT_BRACKET);
+        for (String el : sets) {
+            appendValue(el, valueType);
+            treeString.append(COMMA);
+        }
+    }
+
     @Override
     public void addNodeBottomHalf(JsonNodeType nodeType) {
 
@@ -153,6 +190,33 @@ public class DefaultJsonBuilder implements JsonBuilder {
         }
     }
 
+    private void appendValue(String value, YangValueType valueType) {
+        switch (valueType) {
+            case EMPTY:
+                treeString.append(EMPTY_VALUE);
+                return;
+            case INTEGER:
+                if (value != null && INTEGER.matcher(value).matches()) {
+                    treeString.append(value);
+                    return;
+                }
+                break;
+            case BOOLEAN:
+                if (TRUE.equals(value) || FALSE.equals(value)) {
+                    treeString.append(value);
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        //int64, uint64 and decimal64 are strings in JSON, so is any value
+        //which doesn't fit its type.
+        treeString.append(QUOTE);
+        treeString.append(value);
+        treeString.append(QUOTE);
+    }
+
     private void removeCommaIfExist() {
         if (treeString.charAt(treeString.length() - 1) == COMMA.charAt(0)) {
             treeString.deleteCharAt(treeString.length() - 1);
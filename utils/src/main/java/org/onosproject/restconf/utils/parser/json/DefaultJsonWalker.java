@@ -20,6 +20,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.onosproject.restconf.utils.exceptions.JsonParseException;
 import org.onosproject.restconf.utils.parser.api.JsonListener;
 import org.onosproject.restconf.utils.parser.api.JsonWalker;
 
@@ -94,27 +95,24 @@ public class DefaultJsonWalker implements JsonWalker {
         if (rootNode == null) {
             return;
         }
-        //enter the array node.
-
+        //an array of values is a leaf-list in YANG, an array of objects is a
+        //list; an array mixing both is neither.
+        if (rootNode.size() == 0 || !rootNode.get(0).isContainerNode()) {
+            //the listener consumes and checks all the values of a leaf-list at once
+            jsonListener.enterJsonNode(fieldName, rootNode);
+            jsonListener.exitJsonNode(rootNode);
+            return;
+        }
 
-        int unContainerNodeCount = 0;
-        int total = 0;
+        //enter the array node once per list entry
         Iterator<JsonNode> children = rootNode.elements();
         while (children.hasNext()) {
-            JsonNode currentChild = children.next();
-            if (currentChild.isContainerNode()) {
-                jsonListener.enterJsonNode(fieldName, rootNode);
-                walk(jsonListener, "", currentChild);
-            } else {
-                unContainerNodeCount++;
+            JsonNode child = children.next();
+            if (!child.isContainerNode()) {
+                throw new JsonParseException("Array " + fieldName + " mixes values and objects");
             }
-            total++;
-        }
-        //all children is not container, it's a leaf-list in YANG.
-        if (unContainerNodeCount == total) {
             jsonListener.enterJsonNode(fieldName, rootNode);
-            jsonListener.exitJsonNode(rootNode);
+            walk(jsonListener, "", child);
         }
-
     }
 }
@@ -19,14 +19,16 @@ package org.onosproject.restconf.utils.parser.json;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
+import com.google.common.collect.Sets;
 import org.onosproject.restconf.utils.exceptions.JsonParseException;
 import org.onosproject.restconf.utils.parser.api.JsonListener;
+import org.onosproject.restconf.utils.parser.api.YangSchemaResolver;
+import org.onosproject.restconf.utils.parser.api.YangValueType;
 import org.onosproject.yms.ydt.YdtBuilder;
 import org.onosproject.yms.ydt.YdtContext;
 import org.onosproject.yms.ydt.YdtContextOperationType;
 import org.onosproject.yms.ydt.YdtType;
 
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 
@@ -42,10 +44,22 @@ public class JsonToYdtListener implements JsonListener {
     private static final int INPUT_FIELD_LENGTH = 2;
     private YdtContext rpcModule;
     private YdtContextOperationType defaultOpType;
+    //optional, used to validate node names and value types while parsing
+    private YangSchemaResolver schemaResolver;
+    //nodes added and not left yet; the payload object and the list entries
+    //add no node of their own, so leaving the payload object must not move
+    //the builder above the node the payload was added to
+    private int depth;
 
     public JsonToYdtListener(YdtBuilder ydtBuilder, YdtContextOperationType defaultOpType) {
+        this(ydtBuilder, defaultOpType, null);
+    }
+
+    public JsonToYdtListener(YdtBuilder ydtBuilder, YdtContextOperationType defaultOpType,
+                             YangSchemaResolver schemaResolver) {
         this.ydtBuilder = ydtBuilder;
         this.defaultOpType = defaultOpType;
+        this.schemaResolver = schemaResolver;
     }
 
     @Override
@@ -56,6 +70,11 @@ public class JsonToYdtListener implements JsonListener {
 
 //        ydtBuilder.setDefaultEditOperationType(defaultOpType);
 
+        YangValueType valueType = null;
+        if (schemaResolver != null) {
+            valueType = checkSchema(fieldName, node);
+        }
+
         switch (node.getNodeType()) {
             case OBJECT:
                 //for input, the filed name is something like
@@ -72,7 +91,12 @@ public class JsonToYdtListener implements JsonListener {
                 }
                 break;
             case ARRAY:
-                processArrayNode(fieldName, node);
+                if (valueType == YangValueType.EMPTY) {
+                    //"[null]" is the value of a leaf of type empty
+                    ydtBuilder.addLeaf(fieldName, null, (String) null);
+                    break;
+                }
+                processArrayNode(fieldName, node, valueType);
                 break;
             //TODO for now, just process the following three node type
             case STRING:
@@ -88,10 +112,16 @@ public class JsonToYdtListener implements JsonListener {
                 throw new JsonParseException("Unsupported node type" + node.getNodeType()
                                                      + "filed name is %s" + fieldName);
         }
+        depth++;
     }
 
     @Override
     public void exitJsonNode(JsonNode jsonNode) {
+        if (depth == 0) {
+            //the payload object, the builder stays where the payload started
+            return;
+        }
+        depth--;
         ydtBuilder.traverseToParent();
         //if the current node is the RPC node, then should go to the father
         //for we have enter the RPC node and Input node at the same time
@@ -105,29 +135,81 @@ public class JsonToYdtListener implements JsonListener {
         }
     }
 
-    private void processArrayNode(String fieldName, JsonNode node) {
+    private void processArrayNode(String fieldName, JsonNode node, YangValueType valueType) {
         ArrayNode arrayNode = (ArrayNode) node;
-        Set<String> sets = new HashSet<>();
+        //the walker only hands over an array of objects once per list entry,
+        //so the first element is enough to tell a list from a leaf-list.
+        boolean isLeafList = valueType != null && valueType != YangValueType.NON_LEAF;
+        if (!isLeafList && arrayNode.size() > 0 && arrayNode.get(0).isContainerNode()) {
+            //need to go into the array node
+            ydtBuilder.addChild(fieldName, null, YdtType.MULTI_INSTANCE_NODE);
+            return;
+        }
+        //leaf-list, check and convert the values in a single pass. The YDT
+        //takes the values as a set: the linked set keeps the payload order,
+        //and a repeated value is kept once at its first position.
+        Set<String> values = Sets.newLinkedHashSetWithExpectedSize(arrayNode.size());
         Iterator<JsonNode> elements = arrayNode.elements();
-        boolean isLeafList = true;
         while (elements.hasNext()) {
             JsonNode element = elements.next();
             JsonNodeType eleType = element.getNodeType();
 
-            if (eleType == JsonNodeType.STRING
-                    || eleType == JsonNodeType.NUMBER
-                    || eleType == JsonNodeType.BOOLEAN) {
-                sets.add(element.asText());
-            } else {
-                isLeafList = false;
+            if (eleType != JsonNodeType.STRING
+                    && eleType != JsonNodeType.NUMBER
+                    && eleType != JsonNodeType.BOOLEAN) {
+                throw new JsonParseException("Unsupported leaf-list value type " + eleType
+                                                     + " for field " + fieldName);
+            }
+            if (isLeafList && !isValidValue(element, valueType)) {
+                throw new JsonParseException("Invalid value " + element.asText() + " for leaf-list "
+                                                     + fieldName + ", expected " + valueType);
             }
+            values.add(element.asText());
         }
-        if (isLeafList) {
-            //leaf-list
-            ydtBuilder.addLeaf(fieldName, null, sets);
+        ydtBuilder.addLeaf(fieldName, null, values);
+    }
+
+    private YangValueType checkSchema(String fieldName, JsonNode node) {
+        String parentPath = ParserUtils.getSchemaPath(ydtBuilder.getCurNode());
+        String schemaPath = parentPath.isEmpty() ? fieldName : parentPath + "/" + fieldName;
+        YangValueType valueType = schemaResolver.getValueType(schemaPath);
+        if (valueType == null) {
+            throw new JsonParseException("Unknown node " + schemaPath);
+        }
+
+        boolean isValid;
+        if (valueType == YangValueType.NON_LEAF) {
+            isValid = node.isContainerNode();
+        } else if (valueType == YangValueType.EMPTY) {
+            isValid = node.isArray() && node.size() == 1 && node.get(0).isNull();
+        } else if (node.isArray()) {
+            //leaf-list, each value is checked while it is converted
+            isValid = true;
         } else {
-            //need to go into the array node
-            ydtBuilder.addChild(fieldName, null, YdtType.MULTI_INSTANCE_NODE);
+            isValid = isValidValue(node, valueType);
+        }
+        if (!isValid) {
+            throw new JsonParseException("Invalid value for node " + schemaPath
+                                                 + ", expected " + valueType);
+        }
+        return valueType;
+    }
+
+    private static boolean isValidValue(JsonNode value, YangValueType valueType) {
+        switch (valueType) {
+            case INTEGER:
+                return value.isIntegralNumber();
+            case INTEGER64:
+                return value.isIntegralNumber() || value.isTextual();
+            case DECIMAL64:
+                return value.isNumber() || value.isTextual();
+            case BOOLEAN:
+                return value.isBoolean();
+            case STRING:
+                //union, enumeration... may be written without quotes
+                return value.isValueNode() && !value.isNull();
+            default:
+                return false;
         }
     }
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.restconf.utils.parser.json;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import org.onosproject.yms.ydt.YdtContext;
+import org.onosproject.yms.ydt.YdtType;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Represents a query on the entries of a list resource: the leaf
+ * predicates an entry must satisfy to be returned, and whether only the
+ * number of matching entries is asked for.
+ * <p>
+ * A predicate is written "leaf=value", where the leaf may be a descendant
+ * of the entry given by a relative path such as "statistics/in-errors". The
+ * value is compared to the leaf value, or to each value of a leaf-list:
+ * <ul>
+ * <li>"name=eth0" matches the value "eth0" exactly;</li>
+ * <li>"name=eth*" matches the values starting with "eth", a trailing "*"
+ * being a wildcard;</li>
+ * <li>"name=eth\*" matches the value "eth*" exactly, a backslash escaping
+ * the next character, so "\\" stands for a backslash.</li>
+ * </ul>
+ * A "*" elsewhere in the value is literal. All the predicates must hold for
+ * an entry to match. A list query only applies to a list resource.
+ */
+public final class ListQuery {
+
+    private static final Splitter SLASH_SPLITTER = Splitter.on('/');
+    private static final String EQUAL = "=";
+    private static final char WILDCARD = '*';
+    private static final char ESCAPE = '\\';
+
+    private final List<Predicate> predicates;
+    private final boolean isCount;
+
+    private ListQuery(List<Predicate> predicates, boolean isCount) {
+        this.predicates = predicates;
+        this.isCount = isCount;
+    }
+
+    /**
+     * Compiles a list query.
+     *
+     * @param expressions the predicate expressions
+     * @param isCount     true if only the number of matching entries is asked for
+     * @return the list query
+     * @throws IllegalArgumentException if an expression is malformed
+     */
+    public static ListQuery compile(List<String> expressions, boolean isCount) {
+        ImmutableList.Builder<Predicate> predicates = ImmutableList.builder();
+        for (String expression : expressions) {
+            int index = expression.indexOf(EQUAL);
+            checkArgument(index > 0, "Invalid predicate %s, expected leaf=value", expression);
+            List<String> path = SLASH_SPLITTER.splitToList(expression.substring(0, index));
+            checkArgument(!path.contains(""), "Invalid leaf path in predicate %s", expression);
+            predicates.add(compileValue(path, expression.substring(index + 1), expression));
+        }
+        return new ListQuery(predicates.build(), isCount);
+    }
+
+    private static Predicate compileValue(List<String> path, String value, String expression) {
+        StringBuilder unescaped = new StringBuilder(value.length());
+        boolean isPrefix = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ESCAPE) {
+                checkArgument(++i < value.length(), "Dangling escape in predicate %s", expression);
+                unescaped.append(value.charAt(i));
+            } else if (c == WILDCARD && i == value.length() - 1) {
+                isPrefix = true;
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return new Predicate(path, unescaped.toString(), isPrefix);
+    }
+
+    /**
+     * Returns whether only the number of matching entries is asked for.
+     *
+     * @return true for a count query
+     */
+    public boolean isCount() {
+        return isCount;
+    }
+
+    /**
+     * Returns whether a list entry satisfies all the predicates.
+     *
+     * @param entry the list entry node
+     * @return true if the entry matches
+     */
+    public boolean matches(YdtContext entry) {
+        for (Predicate predicate : predicates) {
+            if (!predicate.matches(entry)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Equality or prefix predicate on a leaf of a list entry.
+     */
+    private static final class Predicate {
+        private final List<String> path;
+        private final String value;
+        private final boolean isPrefix;
+
+        private Predicate(List<String> path, String value, boolean isPrefix) {
+            this.path = path;
+            this.value = value;
+            this.isPrefix = isPrefix;
+        }
+
+        private boolean matches(YdtContext entry) {
+            YdtContext node = entry;
+            for (String name : path) {
+                node = child(node, name);
+                if (node == null) {
+                    return false;
+                }
+            }
+            if (node.getYdtType() == YdtType.MULTI_INSTANCE_LEAF_VALUE_NODE) {
+                for (String element : node.getValueSet()) {
+                    if (matches(element)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return node.getYdtType() == YdtType.SINGLE_INSTANCE_LEAF_VALUE_NODE
+                    && matches(node.getValue());
+        }
+
+        private boolean matches(String leafValue) {
+            if (leafValue == null) {
+                return false;
+            }
+            return isPrefix ? leafValue.startsWith(value) : leafValue.equals(value);
+        }
+
+        private static YdtContext child(YdtContext parent, String name) {
+            for (YdtContext child = parent.getFirstChild(); child != null;
+                 child = child.getNextSibling()) {
+                if (child.getName().equals(name)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -16,12 +16,15 @@
 
 package org.onosproject.restconf.utils.parser.json;
 
+import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.base.Splitter;
 import com.google.common.collect.Lists;
 import org.onosproject.restconf.utils.exceptions.JsonParseException;
 import org.onosproject.restconf.utils.parser.api.JsonBuilder;
 import org.onosproject.restconf.utils.parser.api.JsonWalker;
+import org.onosproject.restconf.utils.parser.api.YangSchemaResolver;
+import org.onosproject.restconf.utils.parser.api.YangValueType;
 import org.onosproject.yms.ydt.YdtBuilder;
 import org.onosproject.yms.ydt.YdtContext;
 import org.onosproject.yms.ydt.YdtContextOperationType;
@@ -31,7 +34,9 @@ import org.onosproject.yms.ydt.YdtWalker;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -46,6 +51,8 @@ public final class ParserUtils {
     private static final String EQUAL = "=";
     private static final String COMMA = ",";
     private static final String COLON = ":";
+    private static final String SLASH = "/";
+    private static final String COUNT = "count";
     private static final String URI_ENCODING_CHAR_SET = "ISO-8859-1";
 
     private ParserUtils() {
@@ -96,8 +103,26 @@ public final class ParserUtils {
      */
     public static void convertJsonToYdt(ObjectNode objectNode, YdtBuilder builder,
                                         YdtContextOperationType defaultYdtOpType) {
+        convertJsonToYdt(objectNode, builder, defaultYdtOpType, null);
+    }
+
+    /**
+     * Converts  JSON objectNode to YDT builder, checking the node names and
+     * value types against the YANG schema. The fields of the object are added
+     * under the current node of the builder, which is left at that node.
+     *
+     * @param objectNode       the objectNode from web request.
+     * @param builder          the base ydt builder
+     * @param defaultYdtOpType the default operation type of the payload nodes
+     * @param schemaResolver   the schema resolver, null to skip the checks
+     * @throws JsonParseException if the payload doesn't match the schema
+     */
+    public static void convertJsonToYdt(ObjectNode objectNode, YdtBuilder builder,
+                                        YdtContextOperationType defaultYdtOpType,
+                                        YangSchemaResolver schemaResolver) {
         JsonWalker walker = new DefaultJsonWalker();
-        JsonToYdtListener listener = new JsonToYdtListener(builder, defaultYdtOpType);
+        JsonToYdtListener listener = new JsonToYdtListener(builder, defaultYdtOpType,
+                                                           schemaResolver);
         walker.walk(listener, null, objectNode);
     }
 
@@ -109,12 +134,182 @@ public final class ParserUtils {
      * @return the JSON node corresponding the YANG data
      */
     public static ObjectNode convertYdtToJson(String rootName, YdtContext ydtContext, YdtWalker walker) {
+        return convertYdtToJson(rootName, ydtContext, walker, null);
+    }
+
+    /**
+     * Converts a Ydt context tree to a JSON object, encoding the leaf values
+     * with their YANG types.
+     *
+     * @param rootName       the name of the requested node
+     * @param ydtContext     a abstract data model for YANG data.
+     * @param walker         abstraction of an entity which provides interfaces for YDT walk.
+     * @param schemaResolver the schema resolver, null to encode all values as strings
+     * @return the JSON node corresponding the YANG data
+     */
+    public static ObjectNode convertYdtToJson(String rootName, YdtContext ydtContext, YdtWalker walker,
+                                              YangSchemaResolver schemaResolver) {
         JsonBuilder builder = new DefaultJsonBuilder();
-        YdtListener listener = new YdtToJsonListener(rootName, builder);
+        YdtListener listener = new YdtToJsonListener(rootName, builder, schemaResolver);
         walker.walk(listener, ydtContext);
         return builder.getTreeNode();
     }
 
+    /**
+     * Converts a Ydt context tree to JSON text, without building a JSON tree.
+     *
+     * @param rootName       the name of the requested node
+     * @param ydtContext     a abstract data model for YANG data.
+     * @param walker         abstraction of an entity which provides interfaces for YDT walk.
+     * @param schemaResolver the schema resolver, null to encode all values as strings
+     * @return the JSON text corresponding the YANG data
+     */
+    public static String convertYdtToJsonString(String rootName, YdtContext ydtContext, YdtWalker walker,
+                                                YangSchemaResolver schemaResolver) {
+        JsonBuilder builder = new DefaultJsonBuilder();
+        YdtListener listener = new YdtToJsonListener(rootName, builder, schemaResolver);
+        walker.walk(listener, ydtContext);
+        return builder.getTreeString();
+    }
+
+    /**
+     * Converts the entries of a list in a YDT tree to JSON text, keeping only
+     * the entries which match a list query; the list is empty if no entry
+     * matches. For a count query, the JSON text only holds the number of
+     * matching entries, as "count".
+     *
+     * @param listName       name of the list
+     * @param ydtContext     the YDT tree
+     * @param walker         the YDT walker
+     * @param schemaResolver optional schema resolver, may be null
+     * @param listQuery      the list query
+     * @return JSON text of the matching entries
+     */
+    public static String convertYdtListToJsonString(String listName, YdtContext ydtContext, YdtWalker walker,
+                                                    YangSchemaResolver schemaResolver, ListQuery listQuery) {
+        JsonBuilder builder = new DefaultJsonBuilder();
+        YdtToJsonListener listener = new YdtToJsonListener(listName, builder, schemaResolver, listQuery);
+        walker.walk(listener, ydtContext);
+        if (listQuery.isCount()) {
+            builder.addNodeWithValueTopHalf(COUNT, String.valueOf(listener.matchedEntries()),
+                                            YangValueType.INTEGER);
+            builder.addNodeBottomHalf(JsonNodeType.NUMBER);
+        } else if (listener.matchedEntries() == 0) {
+            builder.addNodeTopHalf(listName, JsonNodeType.ARRAY);
+            builder.addNodeBottomHalf(JsonNodeType.ARRAY);
+        }
+        return builder.getTreeString();
+    }
+
+    /**
+     * Returns the normalized form of a URI identifier: decoded, without
+     * empty segments. Identifiers addressing the same resource have the
+     * same normalized form.
+     *
+     * @param identifier the uri identifier from web request
+     * @return the normalized identifier
+     */
+    public static String normalizeIdentifier(String identifier) {
+        checkNotNull(identifier, "uri identifier should not be null");
+        StringBuilder normalized = new StringBuilder();
+        for (String segment : urlPathArgsDecode(SLASH_SPLITTER.omitEmptyStrings().split(identifier))) {
+            if (normalized.length() > 0) {
+                normalized.append(SLASH);
+            }
+            normalized.append(segment);
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Returns the schema path of a YDT node, i.e. the names of the nodes from
+     * the top level data node down to the given node, with the top level node
+     * qualified by its module name. The YDT root node and module nodes have
+     * an empty schema path.
+     *
+     * @param ydtContext the YDT node
+     * @return the schema path of the node
+     */
+    public static String getSchemaPath(YdtContext ydtContext) {
+        Deque<String> names = new ArrayDeque<>();
+        for (YdtContext node = ydtContext; node != null && node.getParent() != null;
+             node = node.getParent()) {
+            names.push(node.getName());
+        }
+        if (names.size() < 2) {
+            return "";
+        }
+        StringBuilder path = new StringBuilder(names.pop());
+        path.append(COLON).append(names.pop());
+        for (String name : names) {
+            path.append(SLASH).append(name);
+        }
+        return path.toString();
+    }
+
+    /**
+     * Returns the node addressed by a URI identifier in a YDT tree, e.g. to
+     * pick the subtree of each request out of a combined query response.
+     * List entries are matched by comparing their keys, in order, with the
+     * values of their first leaves.
+     *
+     * @param root       the YDT root node
+     * @param identifier the uri identifier from web request
+     * @return the addressed node, null if the tree doesn't contain it
+     */
+    public static YdtContext findNode(YdtContext root, String identifier) {
+        checkNotNull(identifier, "uri identifier should not be null");
+        YdtContext node = root;
+        for (String segment : urlPathArgsDecode(SLASH_SPLITTER.omitEmptyStrings().split(identifier))) {
+            if (node == root) {
+                String moduleName = getPreSegment(segment, COLON);
+                if (moduleName == null) {
+                    return null;
+                }
+                node = findChild(node, moduleName, null);
+                segment = getPostSegment(segment, COLON);
+            }
+            int keyStart = segment.indexOf(EQUAL);
+            if (keyStart > 0) {
+                node = findChild(node, segment.substring(0, keyStart),
+                                 COMMA_SPLITTER.splitToList(segment.substring(keyStart + 1)));
+            } else {
+                node = findChild(node, segment, null);
+            }
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    private static YdtContext findChild(YdtContext parent, String name, List<String> keys) {
+        if (parent == null) {
+            return null;
+        }
+        for (YdtContext child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getName().equals(name) && (keys == null || hasKeys(child, keys))) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasKeys(YdtContext node, List<String> keys) {
+        if (node.getYdtType() != YdtType.MULTI_INSTANCE_NODE) {
+            //a leaf-list instance, its value is not kept as a child
+            return true;
+        }
+        YdtContext leaf = node.getFirstChild();
+        for (String key : keys) {
+            if (leaf == null || !key.equals(leaf.getValue())) {
+                return false;
+            }
+            leaf = leaf.getNextSibling();
+        }
+        return true;
+    }
+
     /**
      * Converts a list of path segments to a YDT builder tree.
      *
@@ -19,8 +19,11 @@ package org.onosproject.restconf.utils.parser.json;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
 import org.onosproject.restconf.utils.exceptions.YdtParseException;
 import org.onosproject.restconf.utils.parser.api.JsonBuilder;
+import org.onosproject.restconf.utils.parser.api.YangSchemaResolver;
+import org.onosproject.restconf.utils.parser.api.YangValueType;
 import org.onosproject.yms.ydt.YdtContext;
 import org.onosproject.yms.ydt.YdtListener;
+import org.onosproject.yms.ydt.YdtType;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 
@@ -37,12 +40,53 @@ public class YdtToJsonListener implements YdtListener {
     //the parse state
     private boolean isBegin;
     private boolean isOver;
+    //optional, used to encode leaf values with their YANG types
+    private YangSchemaResolver schemaResolver;
+    //optional, selects the entries of the list named rootName
+    private ListQuery listQuery;
+    //the list entry being encoded and the parent of the entries
+    private YdtContext currentEntry;
+    private YdtContext listParent;
+    //depth of the skipped subtree, 0 when not skipping
+    private int skipDepth;
+    private int matchedEntries;
 
     public YdtToJsonListener(String rootName, JsonBuilder jsonBuilder) {
+        this(rootName, jsonBuilder, null);
+    }
+
+    public YdtToJsonListener(String rootName, JsonBuilder jsonBuilder,
+                             YangSchemaResolver schemaResolver) {
+        this(rootName, jsonBuilder, schemaResolver, null);
+    }
+
+    /**
+     * Creates a listener encoding only the entries of the list named
+     * rootName which match a list query; the other entries are skipped
+     * without being encoded. A count query encodes no entry at all.
+     *
+     * @param rootName       name of the list
+     * @param jsonBuilder    the JSON builder
+     * @param schemaResolver optional schema resolver, may be null
+     * @param listQuery      optional list query, may be null
+     */
+    public YdtToJsonListener(String rootName, JsonBuilder jsonBuilder,
+                             YangSchemaResolver schemaResolver, ListQuery listQuery) {
         this.jsonBuilder = jsonBuilder;
         this.rootName = rootName;
         this.isBegin = isNullOrEmpty(rootName);
         this.isOver = false;
+        this.schemaResolver = schemaResolver;
+        this.listQuery = listQuery;
+    }
+
+    /**
+     * Returns the number of list entries which matched the list query.
+     *
+     * @return number of matching entries
+     */
+    public int matchedEntries() {
+        return matchedEntries;
     }
 
     @Override
@@ -52,6 +96,10 @@ public class YdtToJsonListener implements YdtListener {
         if (isOver) {
             return;
         }
+        if (listQuery != null) {
+            enterQueriedNode(ydtContext);
+            return;
+        }
         if (name.equals(rootName)) {
             isBegin = true;
             return;
@@ -59,7 +107,41 @@ public class YdtToJsonListener implements YdtListener {
         if (!isBegin) {
             return;
         }
+        addTopHalf(ydtContext);
+    }
+
+    private void enterQueriedNode(YdtContext ydtContext) {
+        if (skipDepth > 0) {
+            skipDepth++;
+            return;
+        }
+        if (currentEntry != null) {
+            addTopHalf(ydtContext);
+            return;
+        }
+        if (!ydtContext.getName().equals(rootName)
+                || ydtContext.getYdtType() != YdtType.MULTI_INSTANCE_NODE) {
+            return;
+        }
+        if (!listQuery.matches(ydtContext)) {
+            skipDepth = 1;
+            return;
+        }
+        matchedEntries++;
+        if (listQuery.isCount()) {
+            skipDepth = 1;
+            return;
+        }
+        if (listParent == null) {
+            listParent = ydtContext.getParent();
+            jsonBuilder.addNodeTopHalf(rootName, JsonNodeType.ARRAY);
+        }
+        jsonBuilder.addNodeTopHalf("", JsonNodeType.OBJECT);
+        currentEntry = ydtContext;
+    }
 
+    private void addTopHalf(YdtContext ydtContext) {
+        String name = ydtContext.getName();
         switch (ydtContext.getYdtType()) {
 
             case SINGLE_INSTANCE_NODE:
@@ -73,10 +155,12 @@ public class YdtToJsonListener implements YdtListener {
                 jsonBuilder.addNodeTopHalf("", JsonNodeType.OBJECT);
                 break;
             case SINGLE_INSTANCE_LEAF_VALUE_NODE:
-                jsonBuilder.addNodeWithValueTopHalf(name, ydtContext.getValue());
+                jsonBuilder.addNodeWithValueTopHalf(name, ydtContext.getValue(),
+                                                    getValueType(ydtContext));
                 break;
             case MULTI_INSTANCE_LEAF_VALUE_NODE:
-                jsonBuilder.addNodeWithSetTopHalf(name, ydtContext.getValueSet());
+                jsonBuilder.addNodeWithSetTopHalf(name, ydtContext.getValueSet(),
+                                                  getValueType(ydtContext));
                 break;
             default:
                 throw new YdtParseException("unknown Ydt type"
@@ -89,12 +173,44 @@ public class YdtToJsonListener implements YdtListener {
     public void exitYdtNode(YdtContext ydtContext) {
         String curName = ydtContext.getName();
 
+        if (listQuery != null) {
+            exitQueriedNode(ydtContext);
+            return;
+        }
         if (!isBegin) {
             return;
         }
         if (curName.equals(rootName)) {
+            //the requested node has no top half, the braces of the builder
+            //wrap its content
             isBegin = false;
+            isOver = true;
+            return;
         }
+        addBottomHalf(ydtContext);
+    }
+
+    private void exitQueriedNode(YdtContext ydtContext) {
+        if (isOver) {
+            return;
+        }
+        if (skipDepth > 0) {
+            skipDepth--;
+            return;
+        }
+        if (ydtContext == currentEntry) {
+            jsonBuilder.addNodeBottomHalf(JsonNodeType.OBJECT);
+            currentEntry = null;
+        } else if (currentEntry != null) {
+            addBottomHalf(ydtContext);
+        } else if (ydtContext == listParent) {
+            jsonBuilder.addNodeBottomHalf(JsonNodeType.ARRAY);
+            isOver = true;
+        }
+    }
+
+    private void addBottomHalf(YdtContext ydtContext) {
+        String curName = ydtContext.getName();
         switch (ydtContext.getYdtType()) {
 
             case SINGLE_INSTANCE_NODE:
@@ -119,8 +235,14 @@ public class YdtToJsonListener implements YdtListener {
                 throw new YdtParseException("unknown Ydt type"
                                                     + ydtContext.getYdtType().toString());
         }
-        if (curName.equals(rootName)) {
-            isOver = true;
+    }
+
+    private YangValueType getValueType(YdtContext ydtContext) {
+        if (schemaResolver == null) {
+            return YangValueType.STRING;
         }
+        YangValueType valueType = schemaResolver.getValueType(
+                ParserUtils.getSchemaPath(ydtContext));
+        return valueType == null ? YangValueType.STRING : valueType;
     }
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.utils.hash;
+
+import com.google.common.collect.ImmutableSet;
+import org.onosproject.yms.ydt.YdtContext;
+import org.onosproject.yms.ydt.YdtType;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Set;
+
+/**
+ * Node of a YDT tree built by hand, seen through a {@link YdtContext}
+ * proxy. Only the navigation and content methods are answered.
+ */
+final class TestYdtNode implements InvocationHandler {
+
+    private final String name;
+    private final YdtType type;
+    private String value;
+    private Set<String> valueSet;
+    private TestYdtNode parent;
+    private TestYdtNode firstChild;
+    private TestYdtNode lastChild;
+    private TestYdtNode nextSibling;
+    private TestYdtNode previousSibling;
+    private YdtContext context;
+
+    private TestYdtNode(String name, YdtType type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * Creates a container, or the root node of a tree.
+     *
+     * @param name node name
+     * @return the node
+     */
+    static TestYdtNode container(String name) {
+        return new TestYdtNode(name, YdtType.SINGLE_INSTANCE_NODE);
+    }
+
+    /**
+     * Adds a container.
+     *
+     * @param name node name
+     * @return the new child
+     */
+    TestYdtNode addContainer(String name) {
+        return add(new TestYdtNode(name, YdtType.SINGLE_INSTANCE_NODE));
+    }
+
+    /**
+     * Adds a list entry.
+     *
+     * @param name list name
+     * @return the new child
+     */
+    TestYdtNode addEntry(String name) {
+        return add(new TestYdtNode(name, YdtType.MULTI_INSTANCE_NODE));
+    }
+
+    /**
+     * Adds a leaf.
+     *
+     * @param name  leaf name
+     * @param value leaf value
+     * @return the new child
+     */
+    TestYdtNode addLeaf(String name, String value) {
+        TestYdtNode leaf = add(new TestYdtNode(name, YdtType.SINGLE_INSTANCE_LEAF_VALUE_NODE));
+        leaf.value = value;
+        return leaf;
+    }
+
+    /**
+     * Adds a leaf-list.
+     *
+     * @param name   leaf-list name
+     * @param values leaf-list values, in order
+     * @return the new child
+     */
+    TestYdtNode addLeafList(String name, String... values) {
+        TestYdtNode leafList = add(new TestYdtNode(name, YdtType.MULTI_INSTANCE_LEAF_VALUE_NODE));
+        leafList.valueSet = ImmutableSet.copyOf(values);
+        return leafList;
+    }
+
+    private TestYdtNode add(TestYdtNode child) {
+        child.parent = this;
+        child.previousSibling = lastChild;
+        if (lastChild == null) {
+            firstChild = child;
+        } else {
+            lastChild.nextSibling = child;
+        }
+        lastChild = child;
+        return child;
+    }
+
+    /**
+     * Changes the value of a leaf.
+     *
+     * @param value the new value
+     */
+    void setValue(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the YDT context view of this node.
+     *
+     * @return the YDT context
+     */
+    YdtContext context() {
+        if (context == null) {
+            context = (YdtContext) Proxy.newProxyInstance(YdtContext.class.getClassLoader(),
+                                                          new Class<?>[]{YdtContext.class}, this);
+        }
+        return context;
+    }
+
+    /**
+     * Returns the node behind a YDT context view.
+     *
+     * @param context a YDT context returned by {@link #context()}
+     * @return the node
+     */
+    static TestYdtNode of(YdtContext context) {
+        return (TestYdtNode) Proxy.getInvocationHandler(context);
+    }
+
+    private static YdtContext contextOf(TestYdtNode node) {
+        return node == null ? null : node.context();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getName":
+                return name;
+            case "getYdtType":
+                return type;
+            case "getValue":
+                return value;
+            case "getValueSet":
+                return valueSet;
+            case "getParent":
+                return contextOf(parent);
+            case "getFirstChild":
+                return contextOf(firstChild);
+            case "getLastChild":
+                return contextOf(lastChild);
+            case "getNextSibling":
+                return contextOf(nextSibling);
+            case "getPreviousSibling":
+                return contextOf(previousSibling);
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return name;
+            default:
+                throw new UnsupportedOperationException("YdtContext." + method.getName());
+        }
+    }
+}
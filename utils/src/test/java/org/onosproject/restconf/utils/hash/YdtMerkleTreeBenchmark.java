@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.utils.hash;
+
+import org.junit.Test;
+import org.onosproject.yms.ydt.YdtContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Throughput of the Merkle hashes on a tree of about a million nodes: a
+ * list of interfaces, each with leaves, a leaf-list and a state container.
+ * The nodes are seen through YdtContext proxies, slower to walk than the
+ * YMS tree, so the figures are a lower bound.
+ * <p>
+ * Not part of the unit tests; run it with
+ * {@code mvn test -Dtest=YdtMerkleTreeBenchmark}.
+ */
+public class YdtMerkleTreeBenchmark {
+
+    //22 nodes per entry
+    private static final int ENTRIES = 45455;
+    private static final int LEAVES = 8;
+    private static final int STATE_LEAVES = 10;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    private static TestYdtNode tree() {
+        TestYdtNode module = TestYdtNode.container("interfaces");
+        for (int i = 0; i < ENTRIES; i++) {
+            TestYdtNode entry = module.addEntry("interface");
+            entry.addLeaf("name", "eth" + i);
+            for (int j = 0; j < LEAVES; j++) {
+                entry.addLeaf("leaf" + j, Integer.toString(i * j));
+            }
+            entry.addLeafList("address", "10.0." + (i >> 8 & 0xff) + "." + (i & 0xff), "fe80::" + i);
+            TestYdtNode state = entry.addContainer("state");
+            for (int j = 0; j < STATE_LEAVES; j++) {
+                state.addLeaf("counter" + j, Long.toString((long) i * j));
+            }
+        }
+        return module;
+    }
+
+    /**
+     * Measures the hashing of the whole tree, keeping the hash of every
+     * node, then computing the root hash alone.
+     */
+    @Test
+    public void hashMillionNodes() {
+        YdtContext root = tree().context();
+        int nodes = YdtMerkleTree.build(root).size();
+        long rootHash = YdtMerkleTree.hash(root);
+
+        long buildNanos = Long.MAX_VALUE;
+        long hashNanos = Long.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            long start = System.nanoTime();
+            YdtMerkleTree tree = YdtMerkleTree.build(root);
+            long built = System.nanoTime();
+            long hash = YdtMerkleTree.hash(root);
+            long end = System.nanoTime();
+            assertEquals(rootHash, tree.rootHash());
+            assertEquals(rootHash, hash);
+            if (round >= WARMUP_ROUNDS) {
+                buildNanos = Math.min(buildNanos, built - start);
+                hashNanos = Math.min(hashNanos, end - built);
+            }
+        }
+        report("build", nodes, buildNanos);
+        report("hash", nodes, hashNanos);
+    }
+
+    private static void report(String operation, int nodes, long nanos) {
+        System.out.printf("YdtMerkleTree.%s: %d nodes in %d ms, %.1f million nodes/s%n",
+                          operation, nodes, TimeUnit.NANOSECONDS.toMillis(nanos),
+                          nodes * 1000.0 / nanos);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.utils.hash;
+
+import org.junit.Test;
+import org.onosproject.yms.ydt.YdtContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the Merkle hashes of YDT trees.
+ */
+public class YdtMerkleTreeTest {
+
+    /**
+     * Returns a module with two list entries, each with a leaf, a
+     * leaf-list and a container.
+     */
+    private static TestYdtNode module() {
+        TestYdtNode module = TestYdtNode.container("m");
+        for (String name : new String[]{"eth0", "eth1"}) {
+            TestYdtNode entry = module.addEntry("interface");
+            entry.addLeaf("name", name);
+            entry.addLeafList("address", "10.0.0.1", "10.0.0.2");
+            entry.addContainer("state").addLeaf("oper-status", "up");
+        }
+        return module;
+    }
+
+    /**
+     * Tests that trees of the same content have the same hashes, node by
+     * node, and that the subtree hash matches the tree's.
+     */
+    @Test
+    public void sameContent() {
+        TestYdtNode first = module();
+        TestYdtNode second = module();
+        YdtMerkleTree tree = YdtMerkleTree.build(first.context());
+        assertEquals(tree.rootHash(), YdtMerkleTree.build(second.context()).rootHash());
+        assertEquals(tree.rootHash(), YdtMerkleTree.hash(first.context()));
+        assertEquals(tree.rootHash(), tree.hashOf(first.context()));
+        assertEquals(11, tree.size());
+        //the entries only differ by their name
+        assertNotEquals(tree.hashOf(first.context().getFirstChild()),
+                        tree.hashOf(first.context().getLastChild()));
+    }
+
+    /**
+     * Tests that a changed leaf changes the hashes on its path only.
+     */
+    @Test
+    public void changedLeaf() {
+        YdtMerkleTree before = YdtMerkleTree.build(module().context());
+        YdtContext module = module().context();
+        YdtContext eth0 = module.getFirstChild();
+        YdtContext eth1 = module.getLastChild();
+        TestYdtNode.of(eth1.getLastChild().getFirstChild()).setValue("down");
+
+        YdtMerkleTree after = YdtMerkleTree.build(module);
+        assertNotEquals(before.rootHash(), after.rootHash());
+        assertEquals(before.hashOf(before.root().getFirstChild()), after.hashOf(eth0));
+        assertNotEquals(before.hashOf(before.root().getLastChild()), after.hashOf(eth1));
+        assertEquals(before.hashOf(before.root().getLastChild().getFirstChild()),
+                     after.hashOf(eth1.getFirstChild()));
+    }
+
+    /**
+     * Tests that the order of the children and the split of the values
+     * between fields are part of the hash.
+     */
+    @Test
+    public void orderAndFields() {
+        TestYdtNode ab = TestYdtNode.container("m");
+        ab.addLeaf("a", "1");
+        ab.addLeaf("b", "2");
+        TestYdtNode ba = TestYdtNode.container("m");
+        ba.addLeaf("b", "2");
+        ba.addLeaf("a", "1");
+        assertNotEquals(YdtMerkleTree.hash(ab.context()), YdtMerkleTree.hash(ba.context()));
+
+        TestYdtNode split = TestYdtNode.container("m");
+        split.addLeafList("l", "ab", "c");
+        TestYdtNode joined = TestYdtNode.container("m");
+        joined.addLeafList("l", "a", "bc");
+        assertNotEquals(YdtMerkleTree.hash(split.context()), YdtMerkleTree.hash(joined.context()));
+    }
+
+    /**
+     * Tests that a tree deeper than the thread stack allows is hashed.
+     */
+    @Test
+    public void deepTree() {
+        TestYdtNode root = TestYdtNode.container("m");
+        TestYdtNode node = root;
+        for (int i = 0; i < 100000; i++) {
+            node = node.addContainer("c");
+        }
+        node.addLeaf("l", "v");
+        assertEquals(100002, YdtMerkleTree.build(root.context()).size());
+    }
+
+    /**
+     * Tests that the hash of a node outside the tree is refused, and the
+     * format of an entity tag.
+     */
+    @Test
+    public void nodeOutsideTree() {
+        YdtMerkleTree tree = YdtMerkleTree.build(module().context());
+        try {
+            tree.hashOf(module().context());
+            fail("node outside the tree hashed");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Node m is not in the tree", e.getMessage());
+        }
+        assertEquals("00000000000000ff", YdtMerkleTree.toEntityTag(255));
+        assertEquals("ffffffffffffffff", YdtMerkleTree.toEntityTag(-1));
+    }
+}